@@ -0,0 +1,80 @@
+package HashMap;
+
+import java.util.Random;
+
+/**
+ *
+ * Measures how evenly each {@link HashStrategy} spreads the keys of every
+ * {@link MapsBenchmark.KeyDistribution} over the buckets of a table of the
+ * size that {@link CustomMap} would have for them. For every combination it
+ * prints the share of empty buckets, the longest chain and the average number
+ * of pairs a successful get walks, which is about 1 + keys / (2 * buckets) for
+ * ideal hashing.
+ *
+ * The keys are the ones of the benchmark, so the numbers explain the timings
+ * of {@link MapsBenchmark}. The optional first argument is the number of keys
+ * (100000 by default).
+ *
+ * @author Homes
+ *
+ */
+
+public class BucketDistribution {
+
+	public enum Strategy {
+		SPREAD(HashStrategy.SPREAD), IDENTITY(HashStrategy.IDENTITY), SEEDED(HashStrategy.seeded(42, 43));
+
+		final HashStrategy strategy;
+
+		Strategy(HashStrategy strategy) {
+			this.strategy = strategy;
+		}
+	}
+
+	private static final float LOAD_FACTOR = 0.75f;
+
+	/**
+	 * Counts the pairs in every bucket of a table with the given length.
+	 *
+	 * @param strategy
+	 * @param keys
+	 * @param length
+	 * @return int[]
+	 */
+	static int[] chains(HashStrategy strategy, Object[] keys, int length) {
+		int[] chains = new int[length];
+		for (Object key : keys) {
+			chains[strategy.hash(key) & (length - 1)]++;
+		}
+		return chains;
+	}
+
+	public static void main(String[] args) {
+		int size = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		int length = Integer.highestOneBit((int) (size / LOAD_FACTOR)) << 1;
+		System.out.printf("%-12s %-10s %8s %8s %8s%n", "keys", "strategy", "empty", "longest", "walk");
+		for (MapsBenchmark.KeyDistribution distribution : MapsBenchmark.KeyDistribution.values()) {
+			Random random = new Random(42);
+			Object[] keys = new Object[size];
+			for (int i = 0; i < size; i++) {
+				keys[i] = distribution.key(i, random);
+			}
+			for (Strategy strategy : Strategy.values()) {
+				int[] chains = chains(strategy.strategy, keys, length);
+				int empty = 0;
+				int longest = 0;
+				long walked = 0;
+				for (int chain : chains) {
+					if (chain == 0) {
+						empty++;
+					}
+					longest = Math.max(longest, chain);
+					walked += (long) chain * (chain + 1) / 2;
+				}
+				System.out.printf("%-12s %-10s %7.1f%% %8d %8.3f%n", distribution, strategy,
+						100.0 * empty / length, longest, (double) walked / size);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,166 @@
+package HashMap;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ *
+ * Turns keys or values into bytes and back, for the maps that keep their
+ * pairs outside of the heap. Two objects that are equal must be written as the
+ * same bytes, because such maps compare the keys by their bytes.
+ *
+ * @author Homes
+ *
+ * @param <T>
+ */
+
+public interface Codec<T> {
+
+	/**
+	 * Returns the number of bytes that write puts for the given value.
+	 *
+	 * @param value
+	 * @return Integer
+	 */
+	int sizeOf(T value);
+
+	/**
+	 * Puts the bytes of the given value at the position of the target and
+	 * moves the position after them.
+	 *
+	 * @param value
+	 * @param target
+	 */
+	void write(T value, ByteBuffer target);
+
+	/**
+	 * Reads a value from the given number of bytes at the position of the
+	 * source and moves the position after them.
+	 *
+	 * @param source
+	 * @param length
+	 * @return Type T
+	 */
+	T read(ByteBuffer source, int length);
+
+	/**
+	 * Writes a String as UTF-8. A String with an unpaired surrogate has no
+	 * UTF-8 form, so it is rejected instead of being written as '?' and
+	 * mistaken for another String.
+	 */
+	Codec<String> STRING = new Codec<String>() {
+		@Override
+		public int sizeOf(String value) {
+			int size = 0;
+			for (int i = 0; i < value.length(); i++) {
+				char c = value.charAt(i);
+				if (c < 0x80) {
+					size += 1;
+				} else if (c < 0x800) {
+					size += 2;
+				} else if (!Character.isSurrogate(c)) {
+					size += 3;
+				} else if (isPair(value, i)) {
+					size += 4;
+					i++;
+				} else {
+					throw unpaired(i);
+				}
+			}
+			return size;
+		}
+
+		@Override
+		public void write(String value, ByteBuffer target) {
+			for (int i = 0; i < value.length(); i++) {
+				char c = value.charAt(i);
+				if (c < 0x80) {
+					target.put((byte) c);
+				} else if (c < 0x800) {
+					target.put((byte) (0xC0 | c >> 6));
+					target.put((byte) (0x80 | c & 0x3F));
+				} else if (!Character.isSurrogate(c)) {
+					target.put((byte) (0xE0 | c >> 12));
+					target.put((byte) (0x80 | c >> 6 & 0x3F));
+					target.put((byte) (0x80 | c & 0x3F));
+				} else if (isPair(value, i)) {
+					int code = Character.toCodePoint(c, value.charAt(++i));
+					target.put((byte) (0xF0 | code >> 18));
+					target.put((byte) (0x80 | code >> 12 & 0x3F));
+					target.put((byte) (0x80 | code >> 6 & 0x3F));
+					target.put((byte) (0x80 | code & 0x3F));
+				} else {
+					throw unpaired(i);
+				}
+			}
+		}
+
+		private boolean isPair(String value, int i) {
+			return Character.isHighSurrogate(value.charAt(i)) && i + 1 < value.length()
+					&& Character.isLowSurrogate(value.charAt(i + 1));
+		}
+
+		private IllegalArgumentException unpaired(int i) {
+			return new IllegalArgumentException("String has an unpaired surrogate at index " + i + ".");
+		}
+
+		@Override
+		public String read(ByteBuffer source, int length) {
+			byte[] bytes = new byte[length];
+			source.get(bytes);
+			return new String(bytes, StandardCharsets.UTF_8);
+		}
+	};
+
+	Codec<Integer> INTEGER = new Codec<Integer>() {
+		@Override
+		public int sizeOf(Integer value) {
+			return Integer.BYTES;
+		}
+
+		@Override
+		public void write(Integer value, ByteBuffer target) {
+			target.putInt(value);
+		}
+
+		@Override
+		public Integer read(ByteBuffer source, int length) {
+			return source.getInt();
+		}
+	};
+
+	Codec<Long> LONG = new Codec<Long>() {
+		@Override
+		public int sizeOf(Long value) {
+			return Long.BYTES;
+		}
+
+		@Override
+		public void write(Long value, ByteBuffer target) {
+			target.putLong(value);
+		}
+
+		@Override
+		public Long read(ByteBuffer source, int length) {
+			return source.getLong();
+		}
+	};
+
+	Codec<Double> DOUBLE = new Codec<Double>() {
+		@Override
+		public int sizeOf(Double value) {
+			return Double.BYTES;
+		}
+
+		@Override
+		public void write(Double value, ByteBuffer target) {
+			target.putLong(Double.doubleToLongBits(value));
+		}
+
+		@Override
+		public Double read(ByteBuffer source, int length) {
+			return Double.longBitsToDouble(source.getLong());
+		}
+	};
+
+}
@@ -0,0 +1,774 @@
+package HashMap;
+
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ *
+ * A thread-safe version of {@link CustomMap}. The map does not allow null
+ * keys or values. It is realized by an inner array of buckets, in which every
+ * bucket is a chain of nodes. The buckets are split in stripes and every
+ * stripe has its own lock, so threads that change pairs in different stripes
+ * do not wait for each other. A bucket always belongs to the same stripe,
+ * because the number of buckets is a multiple of the number of stripes.
+ *
+ * Reads take no lock. A node has a final key and volatile value and next
+ * fields, and a resize copies the nodes into a new array before publishing
+ * it, so a reader always walks a consistent chain. The number of pairs is
+ * counted by a LongAdder. The iterators of the views are weakly consistent.
+ *
+ * Unlike {@link CustomMap}, put, putIfAbsent and replace follow the contract
+ * of {@link ConcurrentMap} and return the previous value, so they can be used
+ * for atomic check-then-act operations.
+ *
+ * @author Homes
+ *
+ * @param <K>
+ * @param <V>
+ */
+
+public class ConcurrentCustomMap<K, V> implements ConcurrentMap<K, V> {
+
+	static final class Node<K, V> {
+		final int hash;
+		final K key;
+		volatile V value;
+		volatile Node<K, V> next;
+
+		Node(int hash, K key, V value, Node<K, V> next) {
+			this.hash = hash;
+			this.key = key;
+			this.value = value;
+			this.next = next;
+		}
+	}
+
+	final class WriteThroughEntry implements Entry<K, V> {
+		private final K key;
+		private V value;
+
+		public WriteThroughEntry(K key, V value) {
+			this.key = key;
+			this.value = value;
+		}
+
+		@Override
+		public K getKey() {
+			return key;
+		}
+
+		@Override
+		public V getValue() {
+			return value;
+		}
+
+		@Override
+		public V setValue(V value) {
+			V old = this.value;
+			ConcurrentCustomMap.this.put(key, value);
+			this.value = value;
+			return old;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Entry)) {
+				return false;
+			}
+			Entry<?, ?> e = (Entry<?, ?>) o;
+			return key.equals(e.getKey()) && value.equals(e.getValue());
+		}
+
+		@Override
+		public int hashCode() {
+			return key.hashCode() ^ value.hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return "[key=" + key + ", value=" + value + "]";
+		}
+
+	}
+
+	private static final int SIZE = 16;
+	private static final int MAXIMUM_SIZE = 1 << 30;
+	private static final float LOAD_FACTOR = 0.75f;
+	private static final int STRIPES = 64;
+
+	private final int initialSize;
+	private final ReentrantLock[] locks;
+	private final LongAdder size = new LongAdder();
+	private volatile AtomicReferenceArray<Node<K, V>> table;
+	private volatile int threshold;
+	private Set<K> keySet;
+	private Set<Entry<K, V>> entrySet;
+	private Collection<V> valueCollection;
+
+	public ConcurrentCustomMap() {
+		this(SIZE, STRIPES);
+	}
+
+	public ConcurrentCustomMap(int size) {
+		this(size, STRIPES);
+	}
+
+	public ConcurrentCustomMap(int size, int stripes) {
+		if (size <= 0) {
+			throw new IllegalArgumentException("Size cannot be a negative number.");
+		}
+		if (stripes <= 0) {
+			throw new IllegalArgumentException("Stripes cannot be a negative number.");
+		}
+
+		locks = new ReentrantLock[tableSizeFor(stripes)];
+		for (int i = 0; i < locks.length; i++) {
+			locks[i] = new ReentrantLock();
+		}
+		initialSize = Math.max(tableSizeFor(size), locks.length);
+		table = new AtomicReferenceArray<>(initialSize);
+		threshold = thresholdFor(initialSize);
+	}
+
+	/**
+	 * Adds a new pair associated with the given key and the given value.
+	 * Returns the previous value of the key or null.
+	 *
+	 * @param key
+	 * @param value
+	 * @return Type V
+	 */
+
+	@Override
+	public V put(K key, V value) {
+		if (value == null || key == null) {
+			throw new IllegalArgumentException("Map cannot have a null value or null key.");
+		}
+		return putValue(key, value, false);
+	}
+
+	/**
+	 * Gets the value that is associated with the given key. Takes no lock.
+	 *
+	 * @param key
+	 * @return
+	 */
+
+	@Override
+	public V get(Object key) {
+		if (key == null) {
+			throw new IllegalArgumentException("No null keys.");
+		}
+		int hash = hash(key);
+		AtomicReferenceArray<Node<K, V>> tab = table;
+		for (Node<K, V> e = tab.get(hash & (tab.length() - 1)); e != null; e = e.next) {
+			if (e.hash == hash && e.key.equals(key)) {
+				return e.value;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Removes the pair that is associated with the given key and return its
+	 * value or null if there is no such key.
+	 *
+	 * @param key
+	 * @return Type V
+	 */
+
+	@Override
+	public V remove(Object key) {
+		if (key == null) {
+			throw new IllegalArgumentException("HashMap cannot have null key.");
+		}
+		return removeValue(key, null);
+	}
+
+	/**
+	 * Atomically removes the pair, specified by the given key and value.
+	 *
+	 * @param key
+	 * @param value
+	 * @return boolean
+	 */
+
+	@Override
+	public boolean remove(Object key, Object value) {
+		if (key == null || value == null) {
+			throw new IllegalArgumentException("HashMap cannot have null key or values.");
+		}
+		return removeValue(key, value) != null;
+	}
+
+	/**
+	 * If the map contains the given key, this method returns its own value.
+	 * Otherwise, it returns the defaultValue.
+	 *
+	 * @param key
+	 * @param defaultValue
+	 * @return Type V
+	 */
+
+	@Override
+	public V getOrDefault(Object key, V defaultValue) {
+		if (defaultValue == null) {
+			throw new IllegalArgumentException("HashMap cannot have null values.");
+		}
+
+		V value = this.get(key);
+		return value != null ? value : defaultValue;
+	}
+
+	/**
+	 * Atomically puts a new key-value mapping, if the map does not contain
+	 * already the given key. Returns the existing value or null if the given
+	 * value was put.
+	 *
+	 * @param key
+	 * @param value
+	 * @return Type V
+	 */
+
+	@Override
+	public V putIfAbsent(K key, V value) {
+		if (value == null || key == null) {
+			throw new IllegalArgumentException("Map cannot have a null value or null key.");
+		}
+		return putValue(key, value, true);
+	}
+
+	/**
+	 * Puts all of the key-value mappings from the given map to the map that
+	 * this method is executed to.
+	 *
+	 * @param other
+	 */
+
+	@Override
+	public void putAll(Map<? extends K, ? extends V> other) {
+		for (Entry<? extends K, ? extends V> pair : other.entrySet()) {
+			this.put(pair.getKey(), pair.getValue());
+		}
+	}
+
+	/**
+	 * If the map contains the given key, atomically replace its own oldValue
+	 * that is mapped to, with the given value. Returns the oldValue or null.
+	 *
+	 * @param key
+	 * @param value
+	 * @return Type V
+	 */
+
+	@Override
+	public V replace(K key, V value) {
+		if (key == null || value == null) {
+			throw new IllegalArgumentException("Not null keys or values.");
+		}
+		int hash = hash(key);
+		ReentrantLock lock = lockFor(hash);
+		lock.lock();
+		try {
+			Node<K, V> e = find(table, hash, key);
+			if (e == null) {
+				return null;
+			}
+			V oldValue = e.value;
+			e.value = value;
+			return oldValue;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * If there is a Pair(key, oldValue) in the map, this method atomically
+	 * replace the oldValue with the newValue in the pair. Otherwise, does
+	 * nothing and returns false.
+	 *
+	 * @param key
+	 * @param oldValue
+	 * @param newValue
+	 * @return boolean
+	 */
+
+	@Override
+	public boolean replace(K key, V oldValue, V newValue) {
+		if (key == null || oldValue == null || newValue == null) {
+			throw new IllegalArgumentException("Not null keys or values.");
+		}
+		int hash = hash(key);
+		ReentrantLock lock = lockFor(hash);
+		lock.lock();
+		try {
+			Node<K, V> e = find(table, hash, key);
+			if (e == null || !e.value.equals(oldValue)) {
+				return false;
+			}
+			e.value = newValue;
+			return true;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Checks whether a given key has a mapping in the Map.
+	 *
+	 * @param key
+	 * @return boolean
+	 */
+
+	@Override
+	public boolean containsKey(Object key) {
+		return key != null && get(key) != null;
+	}
+
+	/**
+	 * Checks whether a given value has a mapping in the Map.
+	 *
+	 * @param value
+	 * @return boolean
+	 */
+
+	@Override
+	public boolean containsValue(Object value) {
+		if (value == null) {
+			return false;
+		}
+		AtomicReferenceArray<Node<K, V>> tab = table;
+		for (int i = 0; i < tab.length(); i++) {
+			for (Node<K, V> e = tab.get(i); e != null; e = e.next) {
+				if (e.value.equals(value)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns a view of all of the existing pairs in the Map.
+	 *
+	 * @return Set<Entry<K, V>>
+	 */
+
+	@Override
+	public Set<Entry<K, V>> entrySet() {
+		if (entrySet == null) {
+			entrySet = new EntrySet();
+		}
+		return entrySet;
+	}
+
+	/**
+	 * Returns a view of all of keys that have a mapping.
+	 *
+	 * @return Set<K>
+	 */
+
+	@Override
+	public Set<K> keySet() {
+		if (keySet == null) {
+			keySet = new KeySet();
+		}
+		return keySet;
+	}
+
+	/*
+	 * Returns a view of all of the values.
+	 */
+
+	@Override
+	public Collection<V> values() {
+		if (valueCollection == null) {
+			valueCollection = new Values();
+		}
+		return valueCollection;
+	}
+
+	/*
+	 * Removes every pair in the map.
+	 */
+
+	@Override
+	public void clear() {
+		lockAll();
+		try {
+			table = new AtomicReferenceArray<>(initialSize);
+			threshold = thresholdFor(initialSize);
+			size.reset();
+		} finally {
+			unlockAll();
+		}
+	}
+
+	/**
+	 * Returns the number of pairs in the Map.
+	 *
+	 * @return Integer
+	 */
+
+	@Override
+	public int size() {
+		long sum = size.sum();
+		return sum < 0 ? 0 : (int) Math.min(sum, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Checks if the map contains any pair.
+	 *
+	 * @return boolean
+	 */
+
+	@Override
+	public boolean isEmpty() {
+		return size.sum() <= 0;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (o == this)
+			return true;
+
+		if (!(o instanceof Map))
+			return false;
+		Map<?, ?> m = (Map<?, ?>) o;
+		if (m.size() != this.size()) {
+			return false;
+		}
+		for (Entry<K, V> pair : entrySet()) {
+			if (!pair.getValue().equals(m.get(pair.getKey()))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+		return entrySet().hashCode();
+	}
+
+	/**
+	 * String representation of the map.
+	 */
+	@Override
+	public String toString() {
+		return "{" + entrySet() + "}";
+	}
+
+	/**
+	 * Puts the pair under the lock of its stripe and resizes the map after
+	 * the lock is released, if it is needed.
+	 *
+	 * @param key
+	 * @param value
+	 * @param onlyIfAbsent
+	 * @return Type V
+	 */
+	private V putValue(K key, V value, boolean onlyIfAbsent) {
+		int hash = hash(key);
+		AtomicReferenceArray<Node<K, V>> tab;
+		ReentrantLock lock = lockFor(hash);
+		lock.lock();
+		try {
+			tab = table;
+			Node<K, V> e = find(tab, hash, key);
+			if (e != null) {
+				V oldValue = e.value;
+				if (!onlyIfAbsent) {
+					e.value = value;
+				}
+				return oldValue;
+			}
+			int index = hash & (tab.length() - 1);
+			tab.set(index, new Node<>(hash, key, value, tab.get(index)));
+			size.increment();
+		} finally {
+			lock.unlock();
+		}
+		if (size.sum() > threshold) {
+			resize(tab);
+		}
+		return null;
+	}
+
+	/**
+	 * Removes the pair with the given key under the lock of its stripe. If a
+	 * value is given, the pair is removed only if it has that value. Returns
+	 * the removed value or null.
+	 *
+	 * @param key
+	 * @param value
+	 * @return Type V
+	 */
+	private V removeValue(Object key, Object value) {
+		int hash = hash(key);
+		ReentrantLock lock = lockFor(hash);
+		lock.lock();
+		try {
+			AtomicReferenceArray<Node<K, V>> tab = table;
+			int index = hash & (tab.length() - 1);
+			Node<K, V> previous = null;
+			for (Node<K, V> e = tab.get(index); e != null; previous = e, e = e.next) {
+				if (e.hash == hash && e.key.equals(key)) {
+					if (value != null && !e.value.equals(value)) {
+						return null;
+					}
+					if (previous == null) {
+						tab.set(index, e.next);
+					} else {
+						previous.next = e.next;
+					}
+					size.decrement();
+					return e.value;
+				}
+			}
+			return null;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	private Node<K, V> find(AtomicReferenceArray<Node<K, V>> tab, int hash, Object key) {
+		for (Node<K, V> e = tab.get(hash & (tab.length() - 1)); e != null; e = e.next) {
+			if (e.hash == hash && e.key.equals(key)) {
+				return e;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Allocates a twice as large array under all of the locks. The nodes are
+	 * copied instead of moved, so readers that still walk the old array are
+	 * not affected. Does nothing if another thread already resized the given
+	 * array.
+	 *
+	 * @param observed
+	 */
+	private void resize(AtomicReferenceArray<Node<K, V>> observed) {
+		lockAll();
+		try {
+			AtomicReferenceArray<Node<K, V>> tab = table;
+			if (tab != observed || tab.length() == MAXIMUM_SIZE) {
+				return;
+			}
+			AtomicReferenceArray<Node<K, V>> newTab = new AtomicReferenceArray<>(tab.length() * 2);
+			int mask = newTab.length() - 1;
+			for (int i = 0; i < tab.length(); i++) {
+				for (Node<K, V> e = tab.get(i); e != null; e = e.next) {
+					int index = e.hash & mask;
+					newTab.set(index, new Node<>(e.hash, e.key, e.value, newTab.get(index)));
+				}
+			}
+			threshold = thresholdFor(newTab.length());
+			table = newTab;
+		} finally {
+			unlockAll();
+		}
+	}
+
+	private ReentrantLock lockFor(int hash) {
+		return locks[hash & (locks.length - 1)];
+	}
+
+	private void lockAll() {
+		for (ReentrantLock lock : locks) {
+			lock.lock();
+		}
+	}
+
+	private void unlockAll() {
+		for (int i = locks.length - 1; i >= 0; i--) {
+			locks[i].unlock();
+		}
+	}
+
+	private static int thresholdFor(int length) {
+		return length == MAXIMUM_SIZE ? Integer.MAX_VALUE : (int) (length * LOAD_FACTOR);
+	}
+
+	private static int hash(Object key) {
+		int hash = key.hashCode();
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * Returns the smallest power of two that is not less than the given size.
+	 *
+	 * @param size
+	 * @return Integer
+	 */
+	private static int tableSizeFor(int size) {
+		if (size >= MAXIMUM_SIZE) {
+			return MAXIMUM_SIZE;
+		}
+		return size == 1 ? 1 : Integer.highestOneBit(size - 1) << 1;
+	}
+
+	/**
+	 * Walks the nodes of the array that was current when the iterator was
+	 * created. It never throws ConcurrentModificationException and may or may
+	 * not show the changes made after it was created.
+	 */
+	private abstract class NodeIterator<T> implements Iterator<T> {
+		private final AtomicReferenceArray<Node<K, V>> tab = table;
+		private int index;
+		private Node<K, V> next;
+		private K lastKey;
+
+		NodeIterator() {
+			advance();
+		}
+
+		private void advance() {
+			if (next != null) {
+				next = next.next;
+			}
+			while (next == null && index < tab.length()) {
+				next = tab.get(index++);
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next != null;
+		}
+
+		@Override
+		public T next() {
+			if (next == null) {
+				throw new NoSuchElementException();
+			}
+			Node<K, V> e = next;
+			advance();
+			lastKey = e.key;
+			return element(e);
+		}
+
+		@Override
+		public void remove() {
+			if (lastKey == null) {
+				throw new IllegalStateException();
+			}
+			ConcurrentCustomMap.this.remove(lastKey);
+			lastKey = null;
+		}
+
+		abstract T element(Node<K, V> node);
+	}
+
+	private final class KeySet extends AbstractSet<K> {
+		@Override
+		public Iterator<K> iterator() {
+			return new NodeIterator<K>() {
+				@Override
+				K element(Node<K, V> node) {
+					return node.key;
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return ConcurrentCustomMap.this.size();
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return containsKey(o);
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			return o != null && ConcurrentCustomMap.this.remove(o) != null;
+		}
+
+		@Override
+		public void clear() {
+			ConcurrentCustomMap.this.clear();
+		}
+	}
+
+	private final class Values extends AbstractCollection<V> {
+		@Override
+		public Iterator<V> iterator() {
+			return new NodeIterator<V>() {
+				@Override
+				V element(Node<K, V> node) {
+					return node.value;
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return ConcurrentCustomMap.this.size();
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return containsValue(o);
+		}
+
+		@Override
+		public void clear() {
+			ConcurrentCustomMap.this.clear();
+		}
+	}
+
+	private final class EntrySet extends AbstractSet<Entry<K, V>> {
+		@Override
+		public Iterator<Entry<K, V>> iterator() {
+			return new NodeIterator<Entry<K, V>>() {
+				@Override
+				Entry<K, V> element(Node<K, V> node) {
+					return new WriteThroughEntry(node.key, node.value);
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return ConcurrentCustomMap.this.size();
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			if (!(o instanceof Entry)) {
+				return false;
+			}
+			Entry<?, ?> e = (Entry<?, ?>) o;
+			V value = e.getKey() == null ? null : get(e.getKey());
+			return value != null && value.equals(e.getValue());
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			if (!(o instanceof Entry)) {
+				return false;
+			}
+			Entry<?, ?> e = (Entry<?, ?>) o;
+			return e.getKey() != null && e.getValue() != null
+					&& ConcurrentCustomMap.this.remove(e.getKey(), e.getValue());
+		}
+
+		@Override
+		public void clear() {
+			ConcurrentCustomMap.this.clear();
+		}
+	}
+
+}
@@ -0,0 +1,98 @@
+package HashMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+public class ConcurrentCustomMapTests extends TestCase {
+	private static final int THREADS = 8;
+	private ConcurrentMap<String, Integer> map;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		this.map = new ConcurrentCustomMap<>();
+	}
+
+	@Test
+	public void testPutAndGet() {
+		assertNull(map.put("Hash", 21));
+		assertEquals((Integer) 21, map.put("Hash", 22));
+		assertEquals((Integer) 22, map.get("Hash"));
+		assertNull(map.get("hash"));
+		assertEquals(1, map.size());
+	}
+
+	@Test
+	public void testAtomicOperations() {
+		assertNull(map.putIfAbsent("Hash", 21));
+		assertEquals((Integer) 21, map.putIfAbsent("Hash", 31));
+		assertFalse(map.replace("Hash", 31, 41));
+		assertTrue(map.replace("Hash", 21, 41));
+		assertEquals((Integer) 41, map.replace("Hash", 51));
+		assertNull(map.replace("Levski", 52));
+		assertFalse(map.remove("Hash", 41));
+		assertTrue(map.remove("Hash", 51));
+		assertTrue(map.isEmpty());
+	}
+
+	@Test
+	public void testConcurrentPuts() throws InterruptedException {
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			final int offset = t * 10000;
+			threads.add(new Thread(new Runnable() {
+				@Override
+				public void run() {
+					for (int i = 0; i < 10000; i++) {
+						map.put("Key" + (offset + i), offset + i);
+					}
+				}
+			}));
+		}
+		runAll(threads);
+		assertEquals(THREADS * 10000, map.size());
+		for (int i = 0; i < THREADS * 10000; i++) {
+			assertEquals((Integer) i, map.get("Key" + i));
+		}
+	}
+
+	@Test
+	public void testConcurrentCounters() throws InterruptedException {
+		List<Thread> threads = new ArrayList<>();
+		for (int t = 0; t < THREADS; t++) {
+			threads.add(new Thread(new Runnable() {
+				@Override
+				public void run() {
+					for (int i = 0; i < 10000; i++) {
+						String key = "Counter" + (i % 10);
+						while (true) {
+							Integer old = map.putIfAbsent(key, 1);
+							if (old == null || map.replace(key, old, old + 1)) {
+								break;
+							}
+						}
+					}
+				}
+			}));
+		}
+		runAll(threads);
+		for (int i = 0; i < 10; i++) {
+			assertEquals((Integer) (THREADS * 1000), map.get("Counter" + i));
+		}
+	}
+
+	private static void runAll(List<Thread> threads) throws InterruptedException {
+		for (Thread thread : threads) {
+			thread.start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+	}
+
+}
@@ -0,0 +1,316 @@
+package HashMap;
+
+import java.util.function.BiConsumer;
+import java.util.function.ToIntBiFunction;
+
+/**
+ *
+ * A cache that keeps its pairs in a {@link CustomMap} and never lets their
+ * total weight exceed a maximum. Every pair weighs 1 unless a weigher is
+ * given, so the maximum is then the number of pairs. The cache does not allow
+ * null keys or values and, like the map, is not synchronized.
+ *
+ * The pairs are kept in three LRU queues, as in W-TinyLFU. New pairs enter a
+ * small window of 1% of the maximum, but at least 1. Pairs that leave the
+ * window go to the probation queue, and a pair that is read or written while
+ * on probation is moved to the protected queue, which holds up to 80% of the
+ * rest. When the cache is too heavy, the pair that most recently came to
+ * probation competes with the least recently used one there, and the one
+ * that a {@link FrequencySketch} estimates as less frequently used is
+ * evicted. So a burst of keys that are used only once cannot push out the
+ * popular ones. The sketch is sized by the number of pairs, not by the
+ * maximum weight, and grows as the cache fills up.
+ *
+ * An optional listener is told about every evicted pair, but not about pairs
+ * that are removed or replaced.
+ *
+ * @author Homes
+ *
+ * @param <K>
+ * @param <V>
+ */
+
+public class CustomCache<K, V> {
+
+	private static final int WINDOW = 0;
+	private static final int PROBATION = 1;
+	private static final int PROTECTED = 2;
+	private static final int SKETCH_SIZE = 16;
+
+	private static final class Node<K, V> {
+		final K key;
+		V value;
+		int weight;
+		int queue;
+		Node<K, V> prev;
+		Node<K, V> next;
+
+		Node(K key, V value, int weight) {
+			this.key = key;
+			this.value = value;
+			this.weight = weight;
+			this.prev = this;
+			this.next = this;
+		}
+	}
+
+	private final CustomMap<K, Node<K, V>> data = new CustomMap<>();
+	private final FrequencySketch sketch;
+	private final ToIntBiFunction<? super K, ? super V> weigher;
+	private final BiConsumer<? super K, ? super V> listener;
+	private final long maximum;
+	private final long windowMaximum;
+	private final long protectedMaximum;
+	private final Node<K, V> window = new Node<>(null, null, 0);
+	private final Node<K, V> probation = new Node<>(null, null, 0);
+	private final Node<K, V> protectedQueue = new Node<>(null, null, 0);
+	private long windowWeight;
+	private long protectedWeight;
+	private long weightedSize;
+
+	public CustomCache(long maximumSize) {
+		this(maximumSize, (key, value) -> 1, null);
+	}
+
+	/**
+	 * Creates a cache whose pairs weigh together at most maximumWeight. The
+	 * listener may be null.
+	 *
+	 * @param maximumWeight
+	 * @param weigher
+	 * @param listener
+	 */
+	public CustomCache(long maximumWeight, ToIntBiFunction<? super K, ? super V> weigher,
+			BiConsumer<? super K, ? super V> listener) {
+		if (maximumWeight < 0) {
+			throw new IllegalArgumentException("Maximum weight cannot be a negative number.");
+		}
+		if (weigher == null) {
+			throw new IllegalArgumentException("Weigher cannot be null.");
+		}
+		this.maximum = maximumWeight;
+		this.windowMaximum = maximumWeight == 0 ? 0 : Math.max(1, maximumWeight / 100);
+		long mainMaximum = maximumWeight - windowMaximum;
+		this.protectedMaximum = mainMaximum * 8 / 10;
+		this.weigher = weigher;
+		this.listener = listener;
+		this.sketch = new FrequencySketch(SKETCH_SIZE);
+	}
+
+	/**
+	 * Gets the value that is associated with the given key and marks it as
+	 * used, or returns null if the cache does not contain the key.
+	 *
+	 * @param key
+	 * @return Type V
+	 */
+	public V get(K key) {
+		if (key == null) {
+			throw new IllegalArgumentException("No null keys.");
+		}
+		sketch.increment(key);
+		Node<K, V> node = data.get(key);
+		if (node == null) {
+			return null;
+		}
+		onAccess(node);
+		return node.value;
+	}
+
+	/**
+	 * Associates the value with the key and evicts pairs if the cache becomes
+	 * too heavy, which may be this pair. Returns the previous value or null.
+	 *
+	 * @param key
+	 * @param value
+	 * @return Type V
+	 */
+	public V put(K key, V value) {
+		if (value == null || key == null) {
+			throw new IllegalArgumentException("Map cannot have a null value or null key.");
+		}
+		int weight = weigher.applyAsInt(key, value);
+		if (weight < 0) {
+			throw new IllegalArgumentException("Weight cannot be a negative number.");
+		}
+		sketch.ensureCapacity(data.size() + 1L);
+		sketch.increment(key);
+		Node<K, V> node = data.get(key);
+		V old = null;
+		if (node == null) {
+			node = new Node<>(key, value, weight);
+			data.put(key, node);
+			append(window, node);
+			windowWeight += weight;
+			weightedSize += weight;
+		} else {
+			old = node.value;
+			int delta = weight - node.weight;
+			node.value = value;
+			node.weight = weight;
+			weightedSize += delta;
+			if (node.queue == WINDOW) {
+				windowWeight += delta;
+			} else if (node.queue == PROTECTED) {
+				protectedWeight += delta;
+			}
+			onAccess(node);
+		}
+		evict();
+		return old;
+	}
+
+	/**
+	 * Removes the pair that is associated with the given key and return its
+	 * value or null if there is no such key.
+	 *
+	 * @param key
+	 * @return Type V
+	 */
+	public V remove(K key) {
+		if (key == null) {
+			throw new IllegalArgumentException("HashMap cannot have null key.");
+		}
+		Node<K, V> node = data.remove(key);
+		if (node == null) {
+			return null;
+		}
+		unlink(node);
+		return node.value;
+	}
+
+	/**
+	 * Checks whether the cache contains the given key, without marking it as
+	 * used.
+	 *
+	 * @param key
+	 * @return boolean
+	 */
+	public boolean containsKey(K key) {
+		return data.containsKey(key);
+	}
+
+	/**
+	 * Returns the number of pairs in the cache.
+	 *
+	 * @return Integer
+	 */
+	public int size() {
+		return data.size();
+	}
+
+	/**
+	 * Returns the total weight of the pairs in the cache.
+	 *
+	 * @return Long
+	 */
+	public long weightedSize() {
+		return weightedSize;
+	}
+
+	/*
+	 * Removes every pair in the cache. The frequencies are kept.
+	 */
+	public void clear() {
+		data.clear();
+		empty(window);
+		empty(probation);
+		empty(protectedQueue);
+		windowWeight = 0;
+		protectedWeight = 0;
+		weightedSize = 0;
+	}
+
+	/**
+	 * Moves the node to the end of its queue, or from probation to the
+	 * protected queue.
+	 *
+	 * @param node
+	 */
+	private void onAccess(Node<K, V> node) {
+		if (node.queue == PROBATION) {
+			detach(node);
+			node.queue = PROTECTED;
+			append(protectedQueue, node);
+			protectedWeight += node.weight;
+			while (protectedWeight > protectedMaximum && protectedQueue.next != node) {
+				Node<K, V> demoted = protectedQueue.next;
+				detach(demoted);
+				protectedWeight -= demoted.weight;
+				demoted.queue = PROBATION;
+				append(probation, demoted);
+			}
+		} else {
+			detach(node);
+			append(node.queue == WINDOW ? window : protectedQueue, node);
+		}
+	}
+
+	/**
+	 * Moves the pairs that overflow the window to probation and then evicts
+	 * pairs until the cache is light enough.
+	 */
+	private void evict() {
+		while (windowWeight > windowMaximum) {
+			Node<K, V> node = window.next;
+			detach(node);
+			windowWeight -= node.weight;
+			node.queue = PROBATION;
+			append(probation, node);
+		}
+		while (weightedSize > maximum) {
+			Node<K, V> victim = probation.next;
+			Node<K, V> candidate = probation.prev;
+			if (victim == probation) {
+				evict(protectedQueue.next != protectedQueue ? protectedQueue.next : window.next);
+			} else if (victim == candidate) {
+				evict(victim);
+			} else if (sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+				evict(victim);
+			} else {
+				evict(candidate);
+			}
+		}
+	}
+
+	private void evict(Node<K, V> node) {
+		data.remove(node.key);
+		unlink(node);
+		if (listener != null) {
+			listener.accept(node.key, node.value);
+		}
+	}
+
+	/**
+	 * Takes the node out of its queue and its weight out of the totals.
+	 *
+	 * @param node
+	 */
+	private void unlink(Node<K, V> node) {
+		detach(node);
+		weightedSize -= node.weight;
+		if (node.queue == WINDOW) {
+			windowWeight -= node.weight;
+		} else if (node.queue == PROTECTED) {
+			protectedWeight -= node.weight;
+		}
+	}
+
+	private static <K, V> void detach(Node<K, V> node) {
+		node.prev.next = node.next;
+		node.next.prev = node.prev;
+	}
+
+	private static <K, V> void empty(Node<K, V> queue) {
+		queue.prev = queue;
+		queue.next = queue;
+	}
+
+	private static <K, V> void append(Node<K, V> queue, Node<K, V> node) {
+		node.prev = queue.prev;
+		node.next = queue;
+		queue.prev.next = node;
+		queue.prev = node;
+	}
+
+}
@@ -0,0 +1,131 @@
+package HashMap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+public class CustomCacheTests extends TestCase {
+	private CustomCache<String, Integer> cache;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		this.cache = new CustomCache<>(100);
+	}
+
+	@Test
+	public void testPutAndGet() {
+		assertNull(cache.put("Hack", 5));
+		assertEquals((Integer) 5, cache.put("Hack", 6));
+		assertEquals((Integer) 6, cache.get("Hack"));
+		assertNull(cache.get("Other"));
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	public void testBounded() {
+		for (int i = 0; i < 10000; i++) {
+			cache.put("Key" + i, i);
+			assertTrue(cache.size() <= 100);
+		}
+		assertEquals(100, cache.size());
+		assertEquals(100, cache.weightedSize());
+	}
+
+	@Test
+	public void testSmallMaximum() {
+		CustomCache<String, Integer> small = new CustomCache<>(10);
+		for (int i = 0; i < 100; i++) {
+			small.put("Key" + i, i);
+			assertEquals((Integer) i, small.get("Key" + i));
+			assertTrue(small.size() <= 10);
+		}
+		assertEquals(10, small.size());
+	}
+
+	@Test
+	public void testLargeWeightBudget() {
+		CustomCache<String, byte[]> bytes = new CustomCache<>(1L << 40, (key, value) -> value.length, null);
+		for (int i = 0; i < 10000; i++) {
+			bytes.put("Key" + i, new byte[100]);
+		}
+		assertEquals(10000, bytes.size());
+		assertEquals(1000000, bytes.weightedSize());
+		assertEquals(100, bytes.get("Key5").length);
+	}
+
+	@Test
+	public void testRemove() {
+		cache.put("Hack", 5);
+		assertEquals((Integer) 5, cache.remove("Hack"));
+		assertNull(cache.remove("Hack"));
+		assertFalse(cache.containsKey("Hack"));
+		assertEquals(0, cache.weightedSize());
+	}
+
+	@Test
+	public void testFrequentKeysSurviveScan() {
+		for (int round = 0; round < 10; round++) {
+			for (int i = 0; i < 50; i++) {
+				cache.put("Hot" + i, i);
+				cache.get("Hot" + i);
+			}
+		}
+		for (int i = 0; i < 10000; i++) {
+			cache.put("Cold" + i, i);
+			cache.get("Hot" + (i % 50));
+		}
+		int hot = 0;
+		for (int i = 0; i < 50; i++) {
+			if (cache.containsKey("Hot" + i)) {
+				hot++;
+			}
+		}
+		assertEquals(50, hot);
+	}
+
+	@Test
+	public void testWeigherAndListener() {
+		List<String> evicted = new ArrayList<>();
+		CustomCache<String, String> weighted = new CustomCache<>(1000, (key, value) -> value.length(),
+				(key, value) -> evicted.add(key));
+		for (int i = 0; i < 100; i++) {
+			weighted.put("Key" + i, "0123456789");
+			assertTrue(weighted.weightedSize() <= 1000);
+		}
+		assertEquals(100, weighted.size());
+		assertTrue(evicted.isEmpty());
+		weighted.put("Large", new String(new char[500]));
+		assertTrue(weighted.weightedSize() <= 1000);
+		assertEquals(100 + 1 - weighted.size(), evicted.size());
+		for (String key : evicted) {
+			assertFalse(weighted.containsKey(key));
+		}
+	}
+
+	@Test
+	public void testSketch() {
+		FrequencySketch sketch = new FrequencySketch(100);
+		for (int i = 0; i < 10; i++) {
+			sketch.increment("Hack");
+		}
+		assertEquals(10, sketch.frequency("Hack"));
+		for (int i = 0; i < 10; i++) {
+			sketch.increment("Hack");
+		}
+		assertEquals(15, sketch.frequency("Hack"));
+	}
+
+	@Test
+	public void testNull() {
+		try {
+			cache.put(null, 5);
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+}
@@ -1,10 +1,15 @@
 package HashMap;
 
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.ConcurrentModificationException;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 /**
@@ -12,9 +17,26 @@ import java.util.Set;
  * The map does not allow null keys or values. It is realized by a inner array
  * of Lists that contain the Pairs. Anytime a pair would be put, a function
  * calculates the index on which the pair would be positioned. The map can be
- * instantiated with two constructors. The one sets a positive Integer value,
- * the other is unparameterized and sets the size of the array to the defined
- * constant value.
+ * instantiated with a positive Integer value for the initial size of the
+ * array, which is rounded up to a power of two, and optionally a load factor.
+ * The unparameterized constructor uses the defined constant values. The
+ * bucket of a key is picked by a {@link HashStrategy}, HashStrategy.SPREAD
+ * unless another one is given. Every Pair keeps the hash of its key, so a
+ * lookup compares the hashes before it calls equals and a resize never calls
+ * hashCode again.
+ * 
+ * When the number of pairs exceeds the load factor of the array, a twice as
+ * large array is allocated and the pairs are moved to it incrementally. Every
+ * put, get and remove migrates a few buckets of the old array, so no single
+ * operation has to rehash the whole map.
+ * 
+ * The keys, the values and the pairs are returned as views that iterate the
+ * inner array directly, so they are always up to date and take no memory
+ * apart from their iterators.
+ * 
+ * containsValue scans the whole map, unless the value index is enabled with
+ * enableValueIndex: then the map keeps the keys of every value and answers
+ * containsValue and keysForValue in constant time.
  * 
  * @author Homes
  *
@@ -23,30 +45,58 @@ import java.util.Set;
  */
 
 public class CustomHashMap<K, V> {
-	private static final int SIZE = 100;
+	private static final int SIZE = 16;
+	private static final int MAXIMUM_SIZE = 1 << 30;
+	private static final float LOAD_FACTOR = 0.75f;
+	private static final int MIGRATION_STEP = 4;
+
+	private final int initialSize;
+	private final float loadFactor;
+	private final HashStrategy strategy;
+	private int threshold;
 	private List<Pair<K, V>>[] entry;
-	private Set<K> keys;
-	private Set<Pair<K, V>> pairs;
-	private Collection<V> values;
+	private List<Pair<K, V>>[] oldEntry;
+	private int migrated;
+	private int size;
+	private int modCount;
+	private ValueIndex<K, V> valueIndex;
+	private Set<K> keySet;
+	private Set<Pair<K, V>> entrySet;
+	private Collection<V> valueCollection;
 
-	@SuppressWarnings("unchecked")
 	public CustomHashMap() {
-		entry = new ArrayList[SIZE];
-		keys = new HashSet<>();
-		pairs = new HashSet<>();
-		values = new ArrayList<>();
+		this(SIZE, LOAD_FACTOR);
 	}
 
-	@SuppressWarnings("unchecked")
 	public CustomHashMap(int size) {
+		this(size, LOAD_FACTOR);
+	}
+
+	public CustomHashMap(HashStrategy strategy) {
+		this(SIZE, LOAD_FACTOR, strategy);
+	}
+
+	public CustomHashMap(int size, float loadFactor) {
+		this(size, loadFactor, HashStrategy.SPREAD);
+	}
+
+	@SuppressWarnings("unchecked")
+	public CustomHashMap(int size, float loadFactor, HashStrategy strategy) {
 		if (size <= 0) {
 			throw new IllegalArgumentException("Size cannot be a negative number.");
 		}
+		if (!(loadFactor > 0)) {
+			throw new IllegalArgumentException("Load factor must be a positive number.");
+		}
+		if (strategy == null) {
+			throw new IllegalArgumentException("Hash strategy cannot be null.");
+		}
 
-		entry = new ArrayList[size];
-		keys = new HashSet<>();
-		pairs = new HashSet<>();
-		values = new ArrayList<>();
+		this.initialSize = tableSizeFor(size);
+		this.loadFactor = loadFactor;
+		this.strategy = strategy;
+		this.threshold = thresholdFor(initialSize);
+		entry = new ArrayList[initialSize];
 	}
 
 	/**
@@ -59,21 +109,28 @@ public class CustomHashMap<K, V> {
 		if (value == null || key == null) {
 			throw new IllegalArgumentException("Map cannot have a null value or null key.");
 		}
-		int keyIndex = getIndexFor(key);
+		int hash = strategy.hash(key);
+		int keyIndex = locate(hash);
 		if (entry[keyIndex] == null) {
 			entry[keyIndex] = new ArrayList<>();
 		}
-		Pair<K, V> pair = new Pair<K, V>(key, value);
-		Pair<K, V> checkPair = getPairFromKey(entry[keyIndex], key);
+		Pair<K, V> checkPair = getPairFromKey(entry[keyIndex], hash, key);
 		if (checkPair != null) {
-			entry[keyIndex].remove(checkPair);
-			values.remove(checkPair.getValue());
-			pairs.remove(checkPair);
+			if (valueIndex != null) {
+				valueIndex.replace(key, checkPair.getValue(), value);
+			}
+			checkPair.setValue(value);
+			return;
+		}
+		entry[keyIndex].add(new Pair<K, V>(hash, key, value));
+		if (valueIndex != null) {
+			valueIndex.add(key, value);
+		}
+		size++;
+		modCount++;
+		if (size > threshold) {
+			resize();
 		}
-		entry[keyIndex].add(pair);
-		pairs.add(pair);
-		keys.add(key);
-		values.add(value);
 	}
 
 	/**
@@ -86,15 +143,9 @@ public class CustomHashMap<K, V> {
 		if (key == null) {
 			throw new IllegalArgumentException("No null keys.");
 		}
-		int keyIndex = getIndexFor(key);
-		if (entry[keyIndex] != null) {
-			for (Pair<K, V> pair : entry[keyIndex]) {
-				if (pair.getKey().equals(key)) {
-					return pair.getValue();
-				}
-			}
-		}
-		return null;
+		int hash = strategy.hash(key);
+		Pair<K, V> pair = getPairFromKey(entry[locate(hash)], hash, key);
+		return pair == null ? null : pair.getValue();
 	}
 
 	/**
@@ -109,13 +160,18 @@ public class CustomHashMap<K, V> {
 			throw new IllegalArgumentException("HashMap cannot have null key.");
 		}
 
-		if (this.containsKey(key)) {
-			for (Pair<K, V> p : entry[getIndexFor(key)]) {
-				if (p.getKey().equals(key)) {
-					entry[getIndexFor(key)].remove(p);
-					pairs.remove(p);
-					keys.remove(key);
-					values.remove(p.getValue());
+		int hash = strategy.hash(key);
+		List<Pair<K, V>> bucket = entry[locate(hash)];
+		if (bucket != null) {
+			for (int i = 0; i < bucket.size(); i++) {
+				Pair<K, V> p = bucket.get(i);
+				if (p.hash == hash && (p.getKey() == key || p.getKey().equals(key))) {
+					bucket.remove(i);
+					if (valueIndex != null) {
+						valueIndex.remove(key, p.getValue());
+					}
+					size--;
+					modCount++;
 					return p.getValue();
 				}
 			}
@@ -245,7 +301,11 @@ public class CustomHashMap<K, V> {
 	 * @return boolean
 	 */
 	public boolean containsKey(K key) {
-		return keys.contains(key);
+		if (key == null) {
+			return false;
+		}
+		int hash = strategy.hash(key);
+		return getPairFromKey(entry[locate(hash)], hash, key) != null;
 	}
 
 	/**
@@ -255,32 +315,135 @@ public class CustomHashMap<K, V> {
 	 * @return boolean
 	 */
 	public boolean containsValue(V value) {
-		return values.contains(value);
+		if (value == null) {
+			return false;
+		}
+		if (valueIndex != null) {
+			return valueIndex.contains(value);
+		}
+		return containsValue(oldEntry, value) || containsValue(entry, value);
+	}
+
+	/**
+	 * Returns the keys that are mapped to the given value. With the value
+	 * index it is a read-only view that takes constant time and is valid until
+	 * the map is changed; without it, the map is scanned for them.
+	 * 
+	 * @param value
+	 * @return Set<K>
+	 */
+	public Set<K> keysForValue(V value) {
+		if (value == null) {
+			throw new IllegalArgumentException("Map cannot have a null value.");
+		}
+		if (valueIndex != null) {
+			return valueIndex.keysFor(value);
+		}
+		Set<K> keys = new HashSet<>();
+		for (Pair<K, V> pair : entrySet()) {
+			if (pair.getValue().equals(value)) {
+				keys.add(pair.getKey());
+			}
+		}
+		return keys;
+	}
+
+	/**
+	 * Starts keeping a reverse index from the values to their keys, so that
+	 * containsValue and keysForValue take constant time. Every put and remove
+	 * updates it, which makes them slower and takes the memory that
+	 * valueIndexBytes reports. Values must then be changed through the map,
+	 * not through setValue of the pairs of entrySet. Calling it again does
+	 * nothing.
+	 */
+	public void enableValueIndex() {
+		if (valueIndex != null) {
+			return;
+		}
+		ValueIndex<K, V> index = new ValueIndex<>();
+		for (List<Pair<K, V>>[] table : Arrays.asList(oldEntry, entry)) {
+			if (table != null) {
+				for (List<Pair<K, V>> bucket : table) {
+					if (bucket != null) {
+						for (Pair<K, V> pair : bucket) {
+							index.add(pair.getKey(), pair.getValue());
+						}
+					}
+				}
+			}
+		}
+		valueIndex = index;
+	}
+
+	/**
+	 * Returns an estimate of the memory the value index takes in bytes, or 0
+	 * if it is not enabled.
+	 * 
+	 * @return long
+	 */
+	public long valueIndexBytes() {
+		return valueIndex == null ? 0 : valueIndex.estimatedBytes();
 	}
 
 	/**
-	 * Returns all of the existing pairs in the Map.
+	 * Returns a view of all of the existing pairs in the Map.
 	 * 
 	 * @return Set<Pair<K, V>>
 	 */
 	public Set<Pair<K, V>> entrySet() {
-		return pairs;
+		if (entrySet == null) {
+			entrySet = new EntrySet();
+		}
+		return entrySet;
 	}
 
 	/**
-	 * Returns all of keys that have a mapping.
+	 * Returns a view of all of keys that have a mapping.
 	 * 
 	 * @return Set<K>
 	 */
 	public Set<K> keySet() {
-		return keys;
+		if (keySet == null) {
+			keySet = new KeySet();
+		}
+		return keySet;
+	}
+
+	/**
+	 * Returns the length of the inner array, which is the length of the new
+	 * one while a resize is in progress.
+	 * 
+	 * @return Integer
+	 */
+	int bucketCount() {
+		return entry.length;
+	}
+
+	float loadFactor() {
+		return loadFactor;
+	}
+
+	/**
+	 * Returns a cursor over all of the pairs, which reads them in place
+	 * without an iterator. A resize that is in progress is finished first.
+	 * 
+	 * @return MapCursor<K, V>
+	 */
+	public MapCursor<K, V> cursor() {
+		while (oldEntry != null) {
+			migrate();
+		}
+		return new Cursor();
 	}
 
 	/*
-	 * Returns Collection<V> of all of the values(An ArrayList<V>).
+	 * Returns a view of all of the values.
 	 */
 	public Collection<V> values() {
-		return values;
+		if (valueCollection == null) {
+			valueCollection = new Values();
+		}
+		return valueCollection;
 	}
 
 	/*
@@ -288,10 +451,15 @@ public class CustomHashMap<K, V> {
 	 */
 	@SuppressWarnings("unchecked")
 	public void clear() {
-		entry = new ArrayList[SIZE];
-		pairs.clear();
-		keys.clear();
-		values.clear();
+		entry = new ArrayList[initialSize];
+		oldEntry = null;
+		migrated = 0;
+		threshold = thresholdFor(initialSize);
+		size = 0;
+		if (valueIndex != null) {
+			valueIndex.clear();
+		}
+		modCount++;
 	}
 
 	/**
@@ -300,7 +468,7 @@ public class CustomHashMap<K, V> {
 	 * @return Integer
 	 */
 	public int size() {
-		return pairs.size();
+		return size;
 	}
 
 	/**
@@ -324,13 +492,7 @@ public class CustomHashMap<K, V> {
 	 */
 	@Override
 	public int hashCode() {
-		final int prime = 31;
-		int result = 1;
-		result = prime * result + Arrays.hashCode(entry);
-		result = prime * result + ((keys == null) ? 0 : keys.hashCode());
-		result = prime * result + ((pairs == null) ? 0 : pairs.hashCode());
-		result = prime * result + ((values == null) ? 0 : values.hashCode());
-		return result;
+		return entrySet().hashCode();
 	}
 
 	/**
@@ -338,20 +500,27 @@ public class CustomHashMap<K, V> {
 	 */
 	@Override
 	public String toString() {
-		return "{" + pairs + "}";
+		return "{" + entrySet() + "}";
 	}
 
 	/**
 	 * Get the pair from the HashMap that has the given key. list is the value
-	 * for the current index of the array(e.x. entry[getIndexFor(key)].
+	 * for the current index of the array(e.x. entry[locate(hash)] and may be
+	 * null. The hashes of the pairs are compared first, so equals is only
+	 * called for keys with the same hash.
 	 * 
 	 * @param list
+	 * @param hash
 	 * @param key
 	 * @return
 	 */
-	private Pair<K, V> getPairFromKey(List<Pair<K, V>> list, K key) {
-		for (Pair<K, V> pair : list) {
-			if (pair.getKey().equals(key)) {
+	private Pair<K, V> getPairFromKey(List<Pair<K, V>> list, int hash, K key) {
+		if (list == null) {
+			return null;
+		}
+		for (int i = 0; i < list.size(); i++) {
+			Pair<K, V> pair = list.get(i);
+			if (pair.hash == hash && (pair.getKey() == key || pair.getKey().equals(key))) {
 				return pair;
 			}
 		}
@@ -360,14 +529,379 @@ public class CustomHashMap<K, V> {
 	}
 
 	/**
-	 * Calculates the index of which key will be in the inner array of the
-	 * HashMap
+	 * Checks whether any of the buckets in the given array contains the given
+	 * value.
 	 * 
-	 * @param key
+	 * @param table
+	 * @param value
+	 * @return boolean
+	 */
+	private static boolean containsValue(List<? extends Pair<?, ?>>[] table, Object value) {
+		if (table == null) {
+			return false;
+		}
+		for (List<? extends Pair<?, ?>> bucket : table) {
+			if (bucket != null) {
+				for (Pair<?, ?> pair : bucket) {
+					if (pair.getValue().equals(value)) {
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Calculates the index of which hash will be in an inner array with the
+	 * given length. The length is always a power of two, so the low bits of
+	 * the hash of the strategy are taken.
+	 * 
+	 * @param hash
+	 * @param length
+	 * @return Integer
+	 */
+	private static int getIndexFor(int hash, int length) {
+		return hash & (length - 1);
+	}
+
+	/**
+	 * Makes a migration step and moves the bucket of the given hash to the
+	 * current array if it is still in the old one. Returns the index of the
+	 * hash in the current array.
+	 * 
+	 * @param hash
+	 * @return Integer
+	 */
+	private int locate(int hash) {
+		migrate();
+		if (oldEntry != null) {
+			migrateBucket(getIndexFor(hash, oldEntry.length));
+		}
+		return getIndexFor(hash, entry.length);
+	}
+
+	/**
+	 * Moves the next few buckets of the old array to the current one and
+	 * drops the old array once all of them are moved.
+	 */
+	private void migrate() {
+		if (oldEntry == null) {
+			return;
+		}
+		for (int i = 0; i < MIGRATION_STEP && migrated < oldEntry.length; i++) {
+			migrateBucket(migrated++);
+		}
+		if (migrated == oldEntry.length) {
+			oldEntry = null;
+		}
+	}
+
+	/**
+	 * Moves all pairs of the bucket with the given index in the old array to
+	 * their buckets in the current array.
+	 * 
+	 * @param index
+	 */
+	private void migrateBucket(int index) {
+		List<Pair<K, V>> bucket = oldEntry[index];
+		if (bucket == null) {
+			return;
+		}
+		for (Pair<K, V> pair : bucket) {
+			int keyIndex = getIndexFor(pair.hash, entry.length);
+			if (entry[keyIndex] == null) {
+				entry[keyIndex] = new ArrayList<>();
+			}
+			entry[keyIndex].add(pair);
+		}
+		oldEntry[index] = null;
+	}
+
+	/**
+	 * Allocates a twice as large array. The pairs are moved to it by the
+	 * following operations. A resize that is still in progress is finished
+	 * first.
+	 */
+	@SuppressWarnings("unchecked")
+	private void resize() {
+		while (oldEntry != null) {
+			migrate();
+		}
+		if (entry.length == MAXIMUM_SIZE) {
+			threshold = Integer.MAX_VALUE;
+			return;
+		}
+		oldEntry = entry;
+		migrated = 0;
+		entry = new ArrayList[oldEntry.length * 2];
+		threshold = thresholdFor(entry.length);
+	}
+
+	private int thresholdFor(int length) {
+		return length == MAXIMUM_SIZE ? Integer.MAX_VALUE : (int) Math.min(length * (double) loadFactor, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Returns the smallest power of two that is not less than the given size.
+	 * 
+	 * @param size
 	 * @return Integer
 	 */
-	private int getIndexFor(K key) {
-		return Math.abs(key.hashCode() % SIZE);
+	private static int tableSizeFor(int size) {
+		if (size >= MAXIMUM_SIZE) {
+			return MAXIMUM_SIZE;
+		}
+		return size == 1 ? 1 : Integer.highestOneBit(size - 1) << 1;
+	}
+
+	/**
+	 * Walks the buckets of the current array in order. While a resize is in
+	 * progress, the old bucket that belongs to the next bucket is moved first,
+	 * so the pairs are neither missed nor returned twice.
+	 */
+	private abstract class BucketIterator<T> implements Iterator<T> {
+		private final List<Pair<K, V>>[] table = entry;
+		private int index;
+		private List<Pair<K, V>> bucket;
+		private int position;
+		private List<Pair<K, V>> lastBucket;
+		private int lastPosition;
+		private int expectedModCount = modCount;
+
+		@Override
+		public boolean hasNext() {
+			while (bucket == null || position >= bucket.size()) {
+				if (index >= table.length) {
+					return false;
+				}
+				if (oldEntry != null && entry == table) {
+					migrateBucket(index & (oldEntry.length - 1));
+				}
+				bucket = table[index++];
+				position = 0;
+			}
+			return true;
+		}
+
+		@Override
+		public T next() {
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			lastBucket = bucket;
+			lastPosition = position;
+			return element(bucket.get(position++));
+		}
+
+		@Override
+		public void remove() {
+			if (lastBucket == null) {
+				throw new IllegalStateException();
+			}
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			Pair<K, V> removed = lastBucket.remove(lastPosition);
+			if (valueIndex != null) {
+				valueIndex.remove(removed.getKey(), removed.getValue());
+			}
+			if (lastBucket == bucket) {
+				position--;
+			}
+			lastBucket = null;
+			size--;
+			expectedModCount = ++modCount;
+		}
+
+		abstract T element(Pair<K, V> pair);
+	}
+
+	/**
+	 * Walks the buckets of the current array and the pairs of every bucket by
+	 * index.
+	 */
+	private final class Cursor implements MapCursor<K, V> {
+		private final List<Pair<K, V>>[] table = entry;
+		private int index;
+		private List<Pair<K, V>> bucket;
+		private int position;
+		private Pair<K, V> current;
+		private int expectedModCount = modCount;
+
+		@Override
+		public boolean advance() {
+			checkUnchanged();
+			current = null;
+			while (bucket == null || position == bucket.size()) {
+				if (index >= table.length) {
+					bucket = null;
+					return false;
+				}
+				bucket = table[index++];
+				position = 0;
+			}
+			current = bucket.get(position++);
+			return true;
+		}
+
+		@Override
+		public K key() {
+			return current().getKey();
+		}
+
+		@Override
+		public V value() {
+			return current().getValue();
+		}
+
+		@Override
+		public V setValue(V value) {
+			if (value == null) {
+				throw new IllegalArgumentException("Map cannot have a null value.");
+			}
+			Pair<K, V> pair = current();
+			V old = pair.getValue();
+			if (valueIndex != null) {
+				valueIndex.replace(pair.getKey(), old, value);
+			}
+			pair.setValue(value);
+			return old;
+		}
+
+		@Override
+		public void remove() {
+			Pair<K, V> pair = current();
+			bucket.remove(--position);
+			if (valueIndex != null) {
+				valueIndex.remove(pair.getKey(), pair.getValue());
+			}
+			size--;
+			current = null;
+			expectedModCount = ++modCount;
+		}
+
+		private Pair<K, V> current() {
+			if (current == null) {
+				throw new IllegalStateException();
+			}
+			checkUnchanged();
+			return current;
+		}
+
+		private void checkUnchanged() {
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+		}
+	}
+
+	private final class KeySet extends AbstractSet<K> {
+		@Override
+		public Iterator<K> iterator() {
+			return new BucketIterator<K>() {
+				@Override
+				K element(Pair<K, V> pair) {
+					return pair.getKey();
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public boolean contains(Object o) {
+			return containsKey((K) o);
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public boolean remove(Object o) {
+			return o != null && CustomHashMap.this.remove((K) o) != null;
+		}
+
+		@Override
+		public void clear() {
+			CustomHashMap.this.clear();
+		}
+	}
+
+	private final class Values extends AbstractCollection<V> {
+		@Override
+		public Iterator<V> iterator() {
+			return new BucketIterator<V>() {
+				@Override
+				V element(Pair<K, V> pair) {
+					return pair.getValue();
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public boolean contains(Object o) {
+			return containsValue((V) o);
+		}
+
+		@Override
+		public void clear() {
+			CustomHashMap.this.clear();
+		}
+	}
+
+	private final class EntrySet extends AbstractSet<Pair<K, V>> {
+		@Override
+		public Iterator<Pair<K, V>> iterator() {
+			return new BucketIterator<Pair<K, V>>() {
+				@Override
+				Pair<K, V> element(Pair<K, V> pair) {
+					return pair;
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public boolean contains(Object o) {
+			if (!(o instanceof Pair)) {
+				return false;
+			}
+			Pair<K, V> p = (Pair<K, V>) o;
+			V value = p.getKey() == null ? null : get(p.getKey());
+			return value != null && value.equals(p.getValue());
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public boolean remove(Object o) {
+			if (!contains(o)) {
+				return false;
+			}
+			CustomHashMap.this.remove(((Pair<K, V>) o).getKey());
+			return true;
+		}
+
+		@Override
+		public void clear() {
+			CustomHashMap.this.clear();
+		}
 	}
 
 	public static void main(String[] args) {
@@ -1,5 +1,9 @@
 package HashMap;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
 import java.util.UUID;
 
 import org.junit.Test;
@@ -26,6 +30,20 @@ public class CustomHashMapTestClass extends TestCase {
 		assertEquals(map.size(), 10000);
 	}
 
+	@Test
+	public void testGrowth() {
+		CustomHashMap<String, Integer> small = new CustomHashMap<>(1);
+		for (int i = 0; i < 10000; i++) {
+			small.put("Key" + i, i);
+			assertEquals((Integer) (i / 2), small.get("Key" + (i / 2)));
+		}
+		for (int i = 0; i < 10000; i++) {
+			assertEquals((Integer) i, small.get("Key" + i));
+		}
+		assertEquals(10000, small.size());
+		assertNull(small.get("Key10000"));
+	}
+
 	@Test
 	public void testIsEmpty() {
 		this.testPut();
@@ -142,10 +160,133 @@ public class CustomHashMapTestClass extends TestCase {
 		assertFalse(map.containsValue(20));
 	}
 
+	@Test
+	public void testViews() {
+		Set<String> keys = map.keySet();
+		Collection<Integer> values = map.values();
+		map.put("Hack", 5);
+		map.put("Iniesta", 25);
+		map.put("Iniesta", 8);
+		assertEquals(2, keys.size());
+		assertTrue(keys.contains("Iniesta"));
+		assertTrue(values.contains(8));
+		assertFalse(values.contains(25));
+		keys.remove("Hack");
+		assertFalse(map.containsKey("Hack"));
+		assertEquals(1, map.entrySet().size());
+	}
+
+	@Test
+	public void testValueIndex() {
+		for (int i = 0; i < 1000; i++) {
+			map.put("Key" + i, i % 100);
+		}
+		map.enableValueIndex();
+		assertTrue(map.valueIndexBytes() > 0);
+		assertEquals(10, map.keysForValue(7).size());
+		assertTrue(map.keysForValue(7).contains("Key507"));
+		map.put("Key507", 1000);
+		map.replace("Key7", 1001);
+		map.remove("Key107");
+		for (Iterator<String> it = map.keySet().iterator(); it.hasNext();) {
+			if (it.next().equals("Key207")) {
+				it.remove();
+			}
+		}
+		assertEquals(6, map.keysForValue(7).size());
+		assertFalse(map.keysForValue(7).contains("Key507"));
+		assertEquals(Collections.singleton("Key507"), map.keysForValue(1000));
+		assertTrue(map.containsValue(1001));
+		assertFalse(map.containsValue(100));
+		map.clear();
+		assertFalse(map.containsValue(1000));
+		assertTrue(map.keysForValue(7).isEmpty());
+	}
+
+	@Test
+	public void testKeysForValueWithoutIndex() {
+		map.put("Hack", 5);
+		map.put("Iniesta", 5);
+		map.put("Levski", 6);
+		assertEquals(2, map.keysForValue(5).size());
+		assertEquals(0, map.valueIndexBytes());
+	}
+
+	@Test
+	public void testCursor() {
+		CustomHashMap<String, Integer> scanned = new CustomHashMap<>(1);
+		for (int i = 0; i < 1000; i++) {
+			scanned.put("Key" + i, i);
+		}
+		scanned.enableValueIndex();
+		long sum = 0;
+		for (MapCursor<String, Integer> cursor = scanned.cursor(); cursor.advance();) {
+			assertEquals(cursor.value(), scanned.get(cursor.key()));
+			sum += cursor.value();
+		}
+		assertEquals(1000L * 999 / 2, sum);
+		for (MapCursor<String, Integer> cursor = scanned.cursor(); cursor.advance();) {
+			if (cursor.value() % 2 == 0) {
+				cursor.remove();
+			} else {
+				cursor.setValue(-cursor.value());
+			}
+		}
+		assertEquals(500, scanned.size());
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(i % 2 == 1 ? (Integer) (-i) : null, scanned.get("Key" + i));
+		}
+		assertTrue(scanned.containsValue(-1));
+		assertFalse(scanned.containsValue(1));
+		assertFalse(scanned.containsValue(0));
+	}
+
 	private String random() {
 
 		String uuid = UUID.randomUUID().toString();
 		return uuid;
 	}
 
+	@Test
+	public void testCachedHashes() {
+		CustomHashMap<Counting, Integer> counted = new CustomHashMap<>(1);
+		Counting.hashCodes = 0;
+		Counting.equalsCalls = 0;
+		for (int i = 0; i < 5000; i++) {
+			counted.put(new Counting(i), i);
+		}
+		assertEquals(5000, Counting.hashCodes);
+		assertEquals(0, Counting.equalsCalls);
+		for (int i = 0; i < 5000; i++) {
+			assertTrue(counted.containsKey(new Counting(i)));
+		}
+		assertEquals(10000, Counting.hashCodes);
+		assertEquals(5000, Counting.equalsCalls);
+	}
+
+	/**
+	 * A key that counts how often its hashCode and equals are called.
+	 */
+	private static final class Counting {
+		static int hashCodes;
+		static int equalsCalls;
+		private final int id;
+
+		Counting(int id) {
+			this.id = id;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			equalsCalls++;
+			return o instanceof Counting && ((Counting) o).id == id;
+		}
+
+		@Override
+		public int hashCode() {
+			hashCodes++;
+			return id;
+		}
+	}
+
 }
@@ -1,22 +1,83 @@
 package HashMap;
 
+import java.lang.management.ManagementFactory;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.ConcurrentModificationException;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongBinaryOperator;
+import java.util.function.ToLongBiFunction;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
 
 /**
  * 
  * The map does not allow null keys or values. It is realized by a inner array
  * of Lists that contain the Entries. Anytime a pair would be put, a function
  * calculates the index on which the pair would be positioned. The map can be
- * instantiated with two constructors. The one sets a positive Integer value,
- * the other is unparameterized and sets the size of the array to the defined
- * constant value.
+ * instantiated with a positive Integer value for the initial size of the
+ * array, which is rounded up to a power of two, and optionally a load factor.
+ * The unparameterized constructor uses the defined constant values. The
+ * bucket of a key is picked by a {@link HashStrategy}, HashStrategy.SPREAD
+ * unless another one is given, e.g. a seeded one for keys that come from
+ * untrusted input.
+ * 
+ * Every entry keeps the hash of its key, so a lookup compares the hashes
+ * before it calls equals and a resize never calls hashCode again.
+ * 
+ * A bucket whose List grows to TREEIFY_THRESHOLD pairs, which happens only
+ * when many keys collide, is turned into a balanced tree ordered by the
+ * hashes and then by the keys if they are Comparable, so finding a key in it
+ * takes O(log n) instead of O(n). The tree is turned back into a List once
+ * the bucket shrinks to UNTREEIFY_THRESHOLD pairs.
+ * 
+ * When the number of pairs exceeds the load factor of the array, a twice as
+ * large array is allocated and the pairs are moved to it incrementally. Every
+ * put, get and remove migrates a few buckets of the old array, so no single
+ * operation has to rehash the whole map.
+ * 
+ * The keys, the values and the pairs are returned as views that iterate the
+ * inner array directly, so they are always up to date and take no memory
+ * apart from their iterators. Their spliterators split the array into ranges
+ * of buckets, so parallel streams over them work on the map itself.
+ * 
+ * putIfAbsent, replace, computeIfAbsent, computeIfPresent, compute and merge
+ * find the bucket of the key once and change the pair in place, instead of
+ * looking the key up for every step like the default methods of Map.
+ * 
+ * The bulk operations forEach, reduceValues, reduceToLong and search take a
+ * parallelism threshold like those of ConcurrentHashMap: if the map has more
+ * pairs than the threshold, the buckets are split into ranges that are
+ * processed by tasks of the common ForkJoinPool. Long.MAX_VALUE makes them
+ * sequential. The map must not be changed while they run.
+ * 
+ * The stats method returns a snapshot of the bucket structure: the chain
+ * lengths, the load and the number of resizes, and an estimate of the memory
+ * per pair. The map can register it as a JMX MBean for monitoring.
+ * 
+ * containsValue scans the whole map, unless the value index is enabled with
+ * enableValueIndex: then the map keeps the keys of every value and answers
+ * containsValue and keysForValue in constant time.
  * 
  * @author Homes
  *
@@ -27,10 +88,12 @@ import java.util.Set;
 public class CustomMap<K, V> implements Map<K, V> {
 
 	final class CustomEntry implements Entry<K, V> {
+		private final int hash;
 		private final K key;
 		private V value;
 
-		public CustomEntry(K key, V value) {
+		public CustomEntry(int hash, K key, V value) {
+			this.hash = hash;
 			this.key = key;
 			this.value = value;
 		}
@@ -47,11 +110,31 @@ public class CustomMap<K, V> implements Map<K, V> {
 
 		@Override
 		public V setValue(V value) {
+			if (value == null) {
+				throw new IllegalArgumentException("Map cannot have a null value.");
+			}
 			V old = this.value;
 			this.value = value;
+			if (valueIndex != null) {
+				valueIndex.replace(key, old, value);
+			}
 			return old;
 		}
 
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Entry)) {
+				return false;
+			}
+			Entry<?, ?> e = (Entry<?, ?>) o;
+			return key.equals(e.getKey()) && value.equals(e.getValue());
+		}
+
+		@Override
+		public int hashCode() {
+			return key.hashCode() ^ value.hashCode();
+		}
+
 		@Override
 		public String toString() {
 			return "[key=" + key + ", value=" + value + "]";
@@ -59,30 +142,69 @@ public class CustomMap<K, V> implements Map<K, V> {
 
 	}
 
-	private static final int SIZE = 100;
-	private List<Entry<K, V>>[] entry;
-	private Set<K> keys;
-	private Set<Entry<K, V>> pairs;
-	private Collection<V> values;
+	private static final int SIZE = 16;
+	private static final int MAXIMUM_SIZE = 1 << 30;
+	private static final float LOAD_FACTOR = 0.75f;
+	private static final int MIGRATION_STEP = 4;
+	private static final int TREEIFY_THRESHOLD = 8;
+	private static final int UNTREEIFY_THRESHOLD = 6;
+
+	// Estimated sizes in bytes with compressed references, used by stats.
+	private static final int REFERENCE_BYTES = 4;
+	private static final int ENTRY_BYTES = 24;
+	private static final int LIST_BYTES = 24 + 16;
+	private static final int LIST_CAPACITY = 10;
+	private static final int TREE_BYTES = 32;
+	private static final int TREE_NODE_BYTES = 40;
+
+	private final int initialSize;
+	private final float loadFactor;
+	private final HashStrategy strategy;
+	private int threshold;
+	private Collection<Entry<K, V>>[] entry;
+	private Collection<Entry<K, V>>[] oldEntry;
+	private int migrated;
+	private int size;
+	private int modCount;
+	private int resizeCount;
+	private ValueIndex<K, V> valueIndex;
+	private Set<K> keySet;
+	private Set<Entry<K, V>> entrySet;
+	private Collection<V> valueCollection;
 
-	@SuppressWarnings("unchecked")
 	public CustomMap() {
-		entry = new ArrayList[SIZE];
-		keys = new HashSet<>();
-		pairs = new HashSet<>();
-		values = new ArrayList<>();
+		this(SIZE, LOAD_FACTOR);
 	}
 
-	@SuppressWarnings("unchecked")
 	public CustomMap(int size) {
+		this(size, LOAD_FACTOR);
+	}
+
+	public CustomMap(HashStrategy strategy) {
+		this(SIZE, LOAD_FACTOR, strategy);
+	}
+
+	public CustomMap(int size, float loadFactor) {
+		this(size, loadFactor, HashStrategy.SPREAD);
+	}
+
+	@SuppressWarnings("unchecked")
+	public CustomMap(int size, float loadFactor, HashStrategy strategy) {
 		if (size <= 0) {
 			throw new IllegalArgumentException("Size cannot be a negative number.");
 		}
+		if (!(loadFactor > 0)) {
+			throw new IllegalArgumentException("Load factor must be a positive number.");
+		}
+		if (strategy == null) {
+			throw new IllegalArgumentException("Hash strategy cannot be null.");
+		}
 
-		entry = new ArrayList[size];
-		keys = new HashSet<>();
-		pairs = new HashSet<>();
-		values = new ArrayList<>();
+		this.initialSize = tableSizeFor(size);
+		this.loadFactor = loadFactor;
+		this.strategy = strategy;
+		this.threshold = thresholdFor(initialSize);
+		entry = new Collection[initialSize];
 	}
 
 	/**
@@ -97,21 +219,14 @@ public class CustomMap<K, V> implements Map<K, V> {
 		if (value == null || key == null) {
 			throw new IllegalArgumentException("Map cannot have a null value or null key.");
 		}
-		int keyIndex = getIndexFor(key);
-		if (entry[keyIndex] == null) {
-			entry[keyIndex] = new ArrayList<>();
-		}
-		Entry<K, V> pair = new CustomEntry(key, value);
-		Entry<K, V> checkPair = getPairFromKey(entry[keyIndex], key);
+		int hash = strategy.hash(key);
+		int keyIndex = locate(hash);
+		Entry<K, V> checkPair = getPairFromKey(entry[keyIndex], hash, key);
 		if (checkPair != null) {
-			entry[keyIndex].remove(checkPair);
-			values.remove(checkPair.getValue());
-			pairs.remove(checkPair);
-		}
-		entry[keyIndex].add(pair);
-		pairs.add((Entry<K, V>) pair);
-		keys.add(key);
-		values.add(value);
+			checkPair.setValue(value);
+			return value;
+		}
+		insert(keyIndex, hash, key, value);
 		return value;
 	}
 
@@ -127,15 +242,8 @@ public class CustomMap<K, V> implements Map<K, V> {
 		if (key == null) {
 			throw new IllegalArgumentException("No null keys.");
 		}
-		int keyIndex = getIndexFor(key);
-		if (entry[keyIndex] != null) {
-			for (Entry<K, V> pair : entry[keyIndex]) {
-				if (pair.getKey().equals(key)) {
-					return pair.getValue();
-				}
-			}
-		}
-		return null;
+		Entry<K, V> pair = find(key);
+		return pair == null ? null : pair.getValue();
 	}
 
 	/**
@@ -152,18 +260,14 @@ public class CustomMap<K, V> implements Map<K, V> {
 			throw new IllegalArgumentException("HashMap cannot have null key.");
 		}
 
-		if (this.containsKey(key)) {
-			for (Entry<K, V> p : entry[getIndexFor(key)]) {
-				if (p.getKey().equals(key)) {
-					entry[getIndexFor(key)].remove(p);
-					pairs.remove(p);
-					keys.remove(key);
-					values.remove(p.getValue());
-					return p.getValue();
-				}
-			}
+		int hash = strategy.hash(key);
+		int keyIndex = locate(hash);
+		Entry<K, V> p = getPairFromKey(entry[keyIndex], hash, key);
+		if (p == null) {
+			return null;
 		}
-		return null;
+		delete(keyIndex, p);
+		return p.getValue();
 	}
 
 	/**
@@ -180,8 +284,11 @@ public class CustomMap<K, V> implements Map<K, V> {
 			throw new IllegalArgumentException("HashMap cannot have null key or values.");
 		}
 
-		if (this.containsKey(key) && this.get(key).equals(value)) {
-			this.remove(key);
+		int hash = strategy.hash(key);
+		int keyIndex = locate(hash);
+		Entry<K, V> p = getPairFromKey(entry[keyIndex], hash, key);
+		if (p != null && p.getValue().equals(value)) {
+			delete(keyIndex, p);
 			return true;
 		}
 		return false;
@@ -201,10 +308,11 @@ public class CustomMap<K, V> implements Map<K, V> {
 			throw new IllegalArgumentException("HashMap cannot have null values.");
 		}
 
-		if (this.containsKey(key)) {
-			return this.get(key);
+		if (key == null) {
+			return defaultValue;
 		}
-		return defaultValue;
+		Entry<K, V> pair = find(key);
+		return pair == null ? defaultValue : pair.getValue();
 	}
 
 	/**
@@ -217,8 +325,13 @@ public class CustomMap<K, V> implements Map<K, V> {
 	 */
 
 	public V putIfAbsent(K key, V value) {
-		if (!this.containsKey(key)) {
-			this.put(key, value);
+		if (value == null || key == null) {
+			throw new IllegalArgumentException("Map cannot have a null value or null key.");
+		}
+		int hash = strategy.hash(key);
+		int keyIndex = locate(hash);
+		if (getPairFromKey(entry[keyIndex], hash, key) == null) {
+			insert(keyIndex, hash, key, value);
 			return value;
 		}
 
@@ -257,12 +370,11 @@ public class CustomMap<K, V> implements Map<K, V> {
 			throw new IllegalArgumentException("Not null keys.");
 		}
 
-		if (this.containsKey(key)) {
-			V oldValue = this.get(key);
-			this.put(key, value);
-			return oldValue;
+		if (value == null) {
+			throw new IllegalArgumentException("Map cannot have a null value.");
 		}
-		return null;
+		Entry<K, V> pair = find(key);
+		return pair == null ? null : pair.setValue(value);
 	}
 
 	/**
@@ -281,14 +393,120 @@ public class CustomMap<K, V> implements Map<K, V> {
 			throw new IllegalArgumentException("Not null keys or values.");
 		}
 
-		if (this.containsKey(key) && this.get(key).equals(oldValue)) {
-			this.put(key, newValue);
+		Entry<K, V> pair = find(key);
+		if (pair != null && pair.getValue().equals(oldValue)) {
+			pair.setValue(newValue);
 			return true;
 		}
 
 		return false;
 	}
 
+	/**
+	 * Returns the value of the given key, or puts the result of the mapping
+	 * function for it if there is none and the result is not null. The bucket
+	 * is found once; the function must not change the map.
+	 * 
+	 * @param key
+	 * @param mappingFunction
+	 * @return Type V
+	 */
+	@Override
+	public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+		if (key == null || mappingFunction == null) {
+			throw new IllegalArgumentException("Not null keys or functions.");
+		}
+		int hash = strategy.hash(key);
+		int keyIndex = locate(hash);
+		Entry<K, V> pair = getPairFromKey(entry[keyIndex], hash, key);
+		if (pair != null) {
+			return pair.getValue();
+		}
+		int expectedModCount = modCount;
+		V value = mappingFunction.apply(key);
+		checkUnchanged(expectedModCount);
+		if (value != null) {
+			insert(keyIndex, hash, key, value);
+		}
+		return value;
+	}
+
+	/**
+	 * If the given key has a value, replaces it with the result of the
+	 * remapping function, or removes the pair if the result is null.
+	 * 
+	 * @param key
+	 * @param remappingFunction
+	 * @return Type V
+	 */
+	@Override
+	public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+		if (key == null || remappingFunction == null) {
+			throw new IllegalArgumentException("Not null keys or functions.");
+		}
+		int hash = strategy.hash(key);
+		int keyIndex = locate(hash);
+		Entry<K, V> pair = getPairFromKey(entry[keyIndex], hash, key);
+		if (pair == null) {
+			return null;
+		}
+		int expectedModCount = modCount;
+		V value = remappingFunction.apply(key, pair.getValue());
+		checkUnchanged(expectedModCount);
+		return update(keyIndex, hash, key, pair, value);
+	}
+
+	/**
+	 * Replaces the value of the given key with the result of the remapping
+	 * function, which gets null if there is no value. A null result removes
+	 * the pair.
+	 * 
+	 * @param key
+	 * @param remappingFunction
+	 * @return Type V
+	 */
+	@Override
+	public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+		if (key == null || remappingFunction == null) {
+			throw new IllegalArgumentException("Not null keys or functions.");
+		}
+		int hash = strategy.hash(key);
+		int keyIndex = locate(hash);
+		Entry<K, V> pair = getPairFromKey(entry[keyIndex], hash, key);
+		int expectedModCount = modCount;
+		V value = remappingFunction.apply(key, pair == null ? null : pair.getValue());
+		checkUnchanged(expectedModCount);
+		return update(keyIndex, hash, key, pair, value);
+	}
+
+	/**
+	 * Puts the given value if the key has none, or replaces the value with
+	 * the result of the remapping function for the old and the given value. A
+	 * null result removes the pair.
+	 * 
+	 * @param key
+	 * @param value
+	 * @param remappingFunction
+	 * @return Type V
+	 */
+	@Override
+	public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+		if (key == null || value == null || remappingFunction == null) {
+			throw new IllegalArgumentException("Not null keys, values or functions.");
+		}
+		int hash = strategy.hash(key);
+		int keyIndex = locate(hash);
+		Entry<K, V> pair = getPairFromKey(entry[keyIndex], hash, key);
+		if (pair == null) {
+			insert(keyIndex, hash, key, value);
+			return value;
+		}
+		int expectedModCount = modCount;
+		V merged = remappingFunction.apply(pair.getValue(), value);
+		checkUnchanged(expectedModCount);
+		return update(keyIndex, hash, key, pair, merged);
+	}
+
 	/**
 	 * Checks whether a given key has a mapping in the Map.
 	 * 
@@ -298,7 +516,10 @@ public class CustomMap<K, V> implements Map<K, V> {
 
 	@Override
 	public boolean containsKey(Object key) {
-		return keys.contains(key);
+		if (key == null) {
+			return false;
+		}
+		return find(key) != null;
 	}
 
 	/**
@@ -309,39 +530,140 @@ public class CustomMap<K, V> implements Map<K, V> {
 	 */
 	@Override
 	public boolean containsValue(Object value) {
-		return values.contains(value);
+		if (value == null) {
+			return false;
+		}
+		if (valueIndex != null) {
+			return valueIndex.contains(value);
+		}
+		return containsValue(oldEntry, value) || containsValue(entry, value);
 	}
 
 	/**
-	 * Returns all of the existing pairs in the Map.
+	 * Returns the keys that are mapped to the given value. With the value
+	 * index it is a read-only view that takes constant time and is valid until
+	 * the map is changed; without it, the map is scanned for them.
 	 * 
-	 * @return
+	 * @param value
+	 * @return Set<K>
+	 */
+	public Set<K> keysForValue(Object value) {
+		if (value == null) {
+			throw new IllegalArgumentException("Map cannot have a null value.");
+		}
+		if (valueIndex != null) {
+			return valueIndex.keysFor(value);
+		}
+		Set<K> keys = new HashSet<>();
+		for (Entry<K, V> pair : entrySet()) {
+			if (pair.getValue().equals(value)) {
+				keys.add(pair.getKey());
+			}
+		}
+		return keys;
+	}
+
+	/**
+	 * Starts keeping a reverse index from the values to their keys, so that
+	 * containsValue and keysForValue take constant time. Every put and remove
+	 * updates it, which makes them slower and takes the memory that
+	 * valueIndexBytes reports. Calling it again does nothing.
+	 */
+	public void enableValueIndex() {
+		if (valueIndex != null) {
+			return;
+		}
+		ValueIndex<K, V> index = new ValueIndex<>();
+		for (Collection<Entry<K, V>>[] table : Arrays.asList(oldEntry, entry)) {
+			if (table != null) {
+				for (Collection<Entry<K, V>> bucket : table) {
+					if (bucket != null) {
+						for (Entry<K, V> pair : bucket) {
+							index.add(pair.getKey(), pair.getValue());
+						}
+					}
+				}
+			}
+		}
+		valueIndex = index;
+	}
+
+	/**
+	 * Returns an estimate of the memory the value index takes in bytes, or 0
+	 * if it is not enabled.
 	 * 
-	 * @return Set<Pair<K, V>>
+	 * @return long
+	 */
+	public long valueIndexBytes() {
+		ValueIndex<K, V> index = valueIndex;
+		return index == null ? 0 : index.estimatedBytes();
+	}
+
+	/**
+	 * Returns a view of all of the existing pairs in the Map.
+	 * 
+	 * @return Set<Entry<K, V>>
 	 */
 
 	@Override
 	public Set<Entry<K, V>> entrySet() {
-		return pairs;
+		if (entrySet == null) {
+			entrySet = new EntrySet();
+		}
+		return entrySet;
 	}
 
 	/**
-	 * Returns all of keys that have a mapping.
+	 * Returns a view of all of keys that have a mapping.
 	 * 
 	 * @return Set<K>
 	 */
 
 	public Set<K> keySet() {
-		return keys;
+		if (keySet == null) {
+			keySet = new KeySet();
+		}
+		return keySet;
+	}
+
+	/**
+	 * Returns the length of the inner array, which is the length of the new
+	 * one while a resize is in progress.
+	 * 
+	 * @return Integer
+	 */
+	int bucketCount() {
+		return entry.length;
+	}
+
+	float loadFactor() {
+		return loadFactor;
+	}
+
+	/**
+	 * Returns a cursor over all of the pairs, which reads them in place
+	 * without an entry object or iterator for every pair. A resize that is in
+	 * progress is finished first.
+	 * 
+	 * @return MapCursor<K, V>
+	 */
+	public MapCursor<K, V> cursor() {
+		while (oldEntry != null) {
+			migrate();
+		}
+		return new Cursor();
 	}
 
 	/*
-	 * Returns Collection<V> of all of the values(An ArrayList<V>).
+	 * Returns a view of all of the values.
 	 */
 
 	@Override
 	public Collection<V> values() {
-		return values;
+		if (valueCollection == null) {
+			valueCollection = new Values();
+		}
+		return valueCollection;
 	}
 
 	/*
@@ -349,10 +671,16 @@ public class CustomMap<K, V> implements Map<K, V> {
 	 */
 	@SuppressWarnings("unchecked")
 	public void clear() {
-		entry = new ArrayList[SIZE];
-		pairs.clear();
-		keys.clear();
-		values.clear();
+		entry = new Collection[initialSize];
+		oldEntry = null;
+		migrated = 0;
+		threshold = thresholdFor(initialSize);
+		size = 0;
+		resizeCount = 0;
+		if (valueIndex != null) {
+			valueIndex.clear();
+		}
+		modCount++;
 	}
 
 	/**
@@ -361,7 +689,7 @@ public class CustomMap<K, V> implements Map<K, V> {
 	 * @return Integer
 	 */
 	public int size() {
-		return pairs.size();
+		return size;
 	}
 
 	/**
@@ -384,7 +712,7 @@ public class CustomMap<K, V> implements Map<K, V> {
 		if (!(o instanceof Map))
 			return false;
 		Map<K, V> m = (Map<K, V>) o;
-		if (m.entrySet().size() != this.entrySet().size()) {
+		if (m.size() != this.size()) {
 			return false;
 		}
 		return m.entrySet().equals(this.entrySet());
@@ -392,13 +720,7 @@ public class CustomMap<K, V> implements Map<K, V> {
 
 	@Override
 	public int hashCode() {
-		final int prime = 31;
-		int result = 1;
-		result = prime * result + Arrays.hashCode(entry);
-		result = prime * result + ((keys == null) ? 0 : keys.hashCode());
-		result = prime * result + ((pairs == null) ? 0 : pairs.hashCode());
-		result = prime * result + ((values == null) ? 0 : values.hashCode());
-		return result;
+		return entrySet().hashCode();
 	}
 
 	/**
@@ -406,20 +728,352 @@ public class CustomMap<K, V> implements Map<K, V> {
 	 */
 	@Override
 	public String toString() {
-		return "{" + pairs + "}";
+		return "{" + entrySet() + "}";
+	}
+
+	/**
+	 * Returns an immutable copy of the map that finds every key with exactly
+	 * one probe and can be written to a file and mapped back into memory. The
+	 * pairs are kept as bytes, written with the given codecs.
+	 * 
+	 * @param keyCodec
+	 * @param valueCodec
+	 * @return FrozenCustomMap<K, V>
+	 */
+	public FrozenCustomMap<K, V> freeze(Codec<K> keyCodec, Codec<V> valueCodec) {
+		return FrozenCustomMap.of(this, keyCodec, valueCodec);
+	}
+
+	/**
+	 * Returns a snapshot of the structure of the map. Only the sizes of the
+	 * buckets are read, not their pairs, and nothing is migrated or changed,
+	 * so it is cheap enough to poll and can be called from a monitoring thread
+	 * while the map is in use, in which case the numbers may be slightly off.
+	 * 
+	 * @return CustomMapStats
+	 */
+	public CustomMapStats stats() {
+		Collection<Entry<K, V>>[] table = entry;
+		Collection<Entry<K, V>>[] old = oldEntry;
+		long[] chains = new long[CustomMapStats.LONGEST_CHAIN];
+		long bytes = REFERENCE_BYTES * (long) table.length;
+		int empty = 0;
+		int trees = 0;
+		int longest = 0;
+		int pairs = 0;
+		for (int i = 0; i < table.length; i++) {
+			Collection<Entry<K, V>> bucket = table[i];
+			int length = bucket == null ? 0 : bucket.size();
+			if (old != null && i < old.length && old[i] != null) {
+				length += old[i].size();
+			}
+			if (length == 0) {
+				empty++;
+			}
+			chains[Math.min(length, chains.length - 1)]++;
+			longest = Math.max(longest, length);
+			pairs += length;
+			if (bucket != null) {
+				if (bucket instanceof TreeBucket) {
+					trees++;
+					bytes += TREE_BYTES + TREE_NODE_BYTES * (long) bucket.size();
+				} else {
+					bytes += LIST_BYTES + REFERENCE_BYTES * (long) Math.max(LIST_CAPACITY, bucket.size());
+				}
+			}
+		}
+		if (old != null) {
+			bytes += REFERENCE_BYTES * (long) old.length;
+			for (int i = 0; i < old.length; i++) {
+				Collection<Entry<K, V>> bucket = old[i];
+				if (bucket instanceof TreeBucket) {
+					trees++;
+					bytes += TREE_BYTES + TREE_NODE_BYTES * (long) bucket.size();
+				} else if (bucket != null) {
+					bytes += LIST_BYTES + REFERENCE_BYTES * (long) Math.max(LIST_CAPACITY, bucket.size());
+				}
+			}
+		}
+		bytes += ENTRY_BYTES * (long) pairs;
+		return new CustomMapStats(pairs, table.length, empty, trees, chains, longest, (float) pairs / table.length,
+				resizeCount, pairs == 0 ? 0 : (double) bytes / pairs, valueIndexBytes());
+	}
+
+	/**
+	 * Registers a {@link CustomMapMXBean} for the map with the platform MBean
+	 * server under the given name, e.g. "HashMap:type=CustomMap,name=users",
+	 * and returns the name, which can be given to unregisterMBean.
+	 * 
+	 * @param name
+	 * @return ObjectName
+	 * @throws JMException
+	 */
+	public ObjectName registerMBean(String name) throws JMException {
+		ObjectName objectName = new ObjectName(name);
+		CustomMapMXBean bean = this::stats;
+		ManagementFactory.getPlatformMBeanServer().registerMBean(new StandardMBean(bean, CustomMapMXBean.class, true),
+				objectName);
+		return objectName;
+	}
+
+	/**
+	 * Unregisters the MBean with the given name from the platform MBean
+	 * server.
+	 * 
+	 * @param name
+	 * @throws JMException
+	 */
+	public static void unregisterMBean(ObjectName name) throws JMException {
+		ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
 	}
 
 	/**
-	 * Get the pair from the HashMap that has the given key. list is the value
-	 * for the current index of the array(e.x. entry[getIndexFor(key)].
+	 * Gives every pair to the given action, in parallel if the map has more
+	 * pairs than the threshold.
 	 * 
-	 * @param entry
+	 * @param parallelismThreshold
+	 * @param action
+	 */
+	public void forEach(long parallelismThreshold, BiConsumer<? super K, ? super V> action) {
+		if (action == null) {
+			throw new IllegalArgumentException("Action cannot be null.");
+		}
+		bulk(parallelismThreshold, (table, from, to) -> {
+			for (int i = from; i < to; i++) {
+				if (table[i] != null) {
+					for (Entry<K, V> pair : table[i]) {
+						action.accept(pair.getKey(), pair.getValue());
+					}
+				}
+			}
+			return null;
+		}, (a, b) -> null);
+	}
+
+	/**
+	 * Combines all of the values with the given reducer, or returns null if
+	 * the map is empty.
+	 * 
+	 * @param parallelismThreshold
+	 * @param reducer
+	 * @return Type V
+	 */
+	public V reduceValues(long parallelismThreshold, BiFunction<? super V, ? super V, ? extends V> reducer) {
+		return reduceValues(parallelismThreshold, Function.identity(), reducer);
+	}
+
+	/**
+	 * Combines the results of the transformer for all of the values with the
+	 * given reducer. Values for which the transformer returns null are
+	 * skipped; null is returned if there is no result.
+	 * 
+	 * @param parallelismThreshold
+	 * @param transformer
+	 * @param reducer
+	 * @return Type U
+	 */
+	public <U> U reduceValues(long parallelismThreshold, Function<? super V, ? extends U> transformer,
+			BiFunction<? super U, ? super U, ? extends U> reducer) {
+		if (transformer == null || reducer == null) {
+			throw new IllegalArgumentException("Transformer and reducer cannot be null.");
+		}
+		return bulk(parallelismThreshold, (table, from, to) -> {
+			U result = null;
+			for (int i = from; i < to; i++) {
+				if (table[i] != null) {
+					for (Entry<K, V> pair : table[i]) {
+						U u = transformer.apply(pair.getValue());
+						if (u != null) {
+							result = result == null ? u : reducer.apply(result, u);
+						}
+					}
+				}
+			}
+			return result;
+		}, (a, b) -> a == null ? b : b == null ? a : reducer.apply(a, b));
+	}
+
+	/**
+	 * Combines the results of the transformer for all of the pairs with the
+	 * given reducer, starting from basis, which must be its identity.
+	 * 
+	 * @param parallelismThreshold
+	 * @param transformer
+	 * @param basis
+	 * @param reducer
+	 * @return long
+	 */
+	public long reduceToLong(long parallelismThreshold, ToLongBiFunction<? super K, ? super V> transformer,
+			long basis, LongBinaryOperator reducer) {
+		if (transformer == null || reducer == null) {
+			throw new IllegalArgumentException("Transformer and reducer cannot be null.");
+		}
+		return bulk(parallelismThreshold, (table, from, to) -> {
+			long result = basis;
+			for (int i = from; i < to; i++) {
+				if (table[i] != null) {
+					for (Entry<K, V> pair : table[i]) {
+						result = reducer.applyAsLong(result, transformer.applyAsLong(pair.getKey(), pair.getValue()));
+					}
+				}
+			}
+			return result;
+		}, (a, b) -> reducer.applyAsLong(a, b));
+	}
+
+	/**
+	 * Returns a non-null result of the search function for some pair, or null
+	 * if there is none. Once a result is found, the other tasks stop at their
+	 * next bucket.
+	 * 
+	 * @param parallelismThreshold
+	 * @param searchFunction
+	 * @return Type U
+	 */
+	public <U> U search(long parallelismThreshold, BiFunction<? super K, ? super V, ? extends U> searchFunction) {
+		if (searchFunction == null) {
+			throw new IllegalArgumentException("Search function cannot be null.");
+		}
+		AtomicReference<U> found = new AtomicReference<>();
+		bulk(parallelismThreshold, (table, from, to) -> {
+			for (int i = from; i < to && found.get() == null; i++) {
+				if (table[i] != null) {
+					for (Entry<K, V> pair : table[i]) {
+						U u = searchFunction.apply(pair.getKey(), pair.getValue());
+						if (u != null) {
+							found.compareAndSet(null, u);
+							return null;
+						}
+					}
+				}
+			}
+			return null;
+		}, (a, b) -> null);
+		return found.get();
+	}
+
+	/**
+	 * Adds a new pair to the bucket with the given index, which must not hold
+	 * the key, and resizes the array if it has become too full.
+	 * 
+	 * @param keyIndex
+	 * @param hash
 	 * @param key
-	 * @return
+	 * @param value
+	 */
+	private void insert(int keyIndex, int hash, K key, V value) {
+		addToBucket(entry, keyIndex, new CustomEntry(hash, key, value));
+		if (valueIndex != null) {
+			valueIndex.add(key, value);
+		}
+		size++;
+		modCount++;
+		if (size > threshold) {
+			resize();
+		}
+	}
+
+	/**
+	 * Removes the given pair from the bucket with the given index and turns
+	 * the bucket back into a List if it has become short.
+	 * 
+	 * @param keyIndex
+	 * @param pair
+	 */
+	@SuppressWarnings("unchecked")
+	private void delete(int keyIndex, Entry<K, V> pair) {
+		Collection<Entry<K, V>> bucket = entry[keyIndex];
+		if (bucket instanceof TreeBucket) {
+			bucket.remove(pair);
+		} else {
+			List<Entry<K, V>> list = (List<Entry<K, V>>) bucket;
+			for (int i = 0; i < list.size(); i++) {
+				if (list.get(i) == pair) {
+					list.remove(i);
+					break;
+				}
+			}
+		}
+		if (entry[keyIndex] instanceof TreeBucket && entry[keyIndex].size() <= UNTREEIFY_THRESHOLD) {
+			entry[keyIndex] = new ArrayList<>(entry[keyIndex]);
+		}
+		if (valueIndex != null) {
+			valueIndex.remove(pair.getKey(), pair.getValue());
+		}
+		size--;
+		modCount++;
+	}
+
+	/**
+	 * Stores the result of a remapping function for the key in the bucket
+	 * with the given index: a null value removes the pair, if there is one.
+	 * 
+	 * @param keyIndex
+	 * @param hash
+	 * @param key
+	 * @param pair
+	 * @param value
+	 * @return Type V
+	 */
+	private V update(int keyIndex, int hash, K key, Entry<K, V> pair, V value) {
+		if (value == null) {
+			if (pair != null) {
+				delete(keyIndex, pair);
+			}
+		} else if (pair == null) {
+			insert(keyIndex, hash, key, value);
+		} else {
+			pair.setValue(value);
+		}
+		return value;
+	}
+
+	/**
+	 * Throws if the map was changed by a function that it called, since the
+	 * bucket that was found before may have been moved.
+	 * 
+	 * @param expectedModCount
+	 */
+	private void checkUnchanged(int expectedModCount) {
+		if (modCount != expectedModCount) {
+			throw new ConcurrentModificationException();
+		}
+	}
+
+	/**
+	 * Finds the pair with the given key, making a migration step first.
+	 * 
+	 * @param key
+	 * @return Entry<K, V>
+	 */
+	private Entry<K, V> find(Object key) {
+		int hash = strategy.hash(key);
+		return getPairFromKey(entry[locate(hash)], hash, key);
+	}
+
+	/**
+	 * Get the pair from the HashMap that has the given key. bucket is the value
+	 * for the current index of the array(e.x. entry[locate(hash)] and may be
+	 * null. The hashes of the pairs are compared first, so equals is only
+	 * called for keys with the same hash.
+	 * 
+	 * @param bucket
+	 * @param hash
+	 * @param key
+	 * @return Entry<K, V>
 	 */
-	private Entry<K, V> getPairFromKey(List<Entry<K, V>> entry, K key) {
-		for (Entry<K, V> pair : entry) {
-			if (pair.getKey().equals(key)) {
+	@SuppressWarnings("unchecked")
+	private Entry<K, V> getPairFromKey(Collection<Entry<K, V>> bucket, int hash, Object key) {
+		if (bucket == null) {
+			return null;
+		}
+		if (bucket instanceof TreeBucket) {
+			return ((TreeBucket<K, V>) bucket).find(hash, key);
+		}
+		List<Entry<K, V>> list = (List<Entry<K, V>>) bucket;
+		for (int i = 0; i < list.size(); i++) {
+			CustomEntry pair = (CustomEntry) list.get(i);
+			if (pair.hash == hash && (pair.key == key || pair.key.equals(key))) {
 				return pair;
 			}
 		}
@@ -428,14 +1082,592 @@ public class CustomMap<K, V> implements Map<K, V> {
 	}
 
 	/**
-	 * Calculates the index of which key will be in the inner array of the
-	 * HashMap
+	 * Returns the hash that the given pair of a CustomMap keeps, so the
+	 * hashCode of its key is never called again.
 	 * 
-	 * @param key
+	 * @param pair
+	 * @return Integer
+	 */
+	private static int hashOf(Entry<?, ?> pair) {
+		return ((CustomMap<?, ?>.CustomEntry) pair).hash;
+	}
+
+	/**
+	 * Adds the given pair to the bucket with the given index in the given array
+	 * and turns the bucket into a tree if it has become too long.
+	 * 
+	 * @param table
+	 * @param index
+	 * @param pair
+	 */
+	private static <K, V> void addToBucket(Collection<Entry<K, V>>[] table, int index, Entry<K, V> pair) {
+		Collection<Entry<K, V>> bucket = table[index];
+		if (bucket == null) {
+			bucket = new ArrayList<>();
+			table[index] = bucket;
+		}
+		bucket.add(pair);
+		if (bucket.size() >= TREEIFY_THRESHOLD && !(bucket instanceof TreeBucket)) {
+			table[index] = new TreeBucket<>(bucket, CustomMap::hashOf);
+		}
+	}
+
+	/**
+	 * Checks whether any of the buckets in the given array contains the given
+	 * value.
+	 * 
+	 * @param table
+	 * @param value
+	 * @return boolean
+	 */
+	private static boolean containsValue(Collection<? extends Entry<?, ?>>[] table, Object value) {
+		if (table == null) {
+			return false;
+		}
+		for (Collection<? extends Entry<?, ?>> bucket : table) {
+			if (bucket != null) {
+				for (Entry<?, ?> pair : bucket) {
+					if (pair.getValue().equals(value)) {
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Calculates the index of which hash will be in an inner array with the
+	 * given length. The length is always a power of two, so the low bits of
+	 * the hash of the strategy are taken.
+	 * 
+	 * @param hash
+	 * @param length
+	 * @return Integer
+	 */
+	private static int getIndexFor(int hash, int length) {
+		return hash & (length - 1);
+	}
+
+	/**
+	 * Makes a migration step and moves the bucket of the given hash to the
+	 * current array if it is still in the old one. Returns the index of the
+	 * hash in the current array.
+	 * 
+	 * @param hash
 	 * @return Integer
 	 */
-	private int getIndexFor(Object key) {
-		return Math.abs(key.hashCode() % SIZE);
+	private int locate(int hash) {
+		migrate();
+		if (oldEntry != null) {
+			migrateBucket(getIndexFor(hash, oldEntry.length));
+		}
+		return getIndexFor(hash, entry.length);
+	}
+
+	/**
+	 * Moves the next few buckets of the old array to the current one and
+	 * drops the old array once all of them are moved.
+	 */
+	private void migrate() {
+		if (oldEntry == null) {
+			return;
+		}
+		for (int i = 0; i < MIGRATION_STEP && migrated < oldEntry.length; i++) {
+			migrateBucket(migrated++);
+		}
+		if (migrated == oldEntry.length) {
+			oldEntry = null;
+		}
+	}
+
+	/**
+	 * Moves all pairs of the bucket with the given index in the old array to
+	 * their buckets in the current array.
+	 * 
+	 * @param index
+	 */
+	private void migrateBucket(int index) {
+		Collection<Entry<K, V>> bucket = oldEntry[index];
+		if (bucket == null) {
+			return;
+		}
+		for (Entry<K, V> pair : bucket) {
+			addToBucket(entry, getIndexFor(hashOf(pair), entry.length), pair);
+		}
+		oldEntry[index] = null;
+	}
+
+	/**
+	 * Allocates a twice as large array. The pairs are moved to it by the
+	 * following operations. A resize that is still in progress is finished
+	 * first.
+	 */
+	@SuppressWarnings("unchecked")
+	private void resize() {
+		while (oldEntry != null) {
+			migrate();
+		}
+		if (entry.length == MAXIMUM_SIZE) {
+			threshold = Integer.MAX_VALUE;
+			return;
+		}
+		oldEntry = entry;
+		migrated = 0;
+		entry = new Collection[oldEntry.length * 2];
+		threshold = thresholdFor(entry.length);
+		resizeCount++;
+	}
+
+	private int thresholdFor(int length) {
+		return length == MAXIMUM_SIZE ? Integer.MAX_VALUE : (int) Math.min(length * (double) loadFactor, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Returns the smallest power of two that is not less than the given size.
+	 * 
+	 * @param size
+	 * @return Integer
+	 */
+	private static int tableSizeFor(int size) {
+		if (size >= MAXIMUM_SIZE) {
+			return MAXIMUM_SIZE;
+		}
+		return size == 1 ? 1 : Integer.highestOneBit(size - 1) << 1;
+	}
+
+	/**
+	 * Walks the buckets of the current array in order. While a resize is in
+	 * progress, the old bucket that belongs to the next bucket is moved first,
+	 * so the pairs are neither missed nor returned twice.
+	 */
+	private abstract class BucketIterator<T> implements Iterator<T> {
+		private final Collection<Entry<K, V>>[] table = entry;
+		private int index;
+		private Iterator<Entry<K, V>> bucket;
+		private Iterator<Entry<K, V>> lastBucket;
+		private Entry<K, V> lastPair;
+		private int expectedModCount = modCount;
+
+		@Override
+		public boolean hasNext() {
+			while (bucket == null || !bucket.hasNext()) {
+				if (index >= table.length) {
+					return false;
+				}
+				if (oldEntry != null && entry == table) {
+					migrateBucket(index & (oldEntry.length - 1));
+				}
+				Collection<Entry<K, V>> next = table[index++];
+				bucket = next == null ? null : next.iterator();
+			}
+			return true;
+		}
+
+		@Override
+		public T next() {
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			lastBucket = bucket;
+			lastPair = bucket.next();
+			return element(lastPair);
+		}
+
+		@Override
+		public void remove() {
+			if (lastBucket == null) {
+				throw new IllegalStateException();
+			}
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			lastBucket.remove();
+			lastBucket = null;
+			if (valueIndex != null) {
+				valueIndex.remove(lastPair.getKey(), lastPair.getValue());
+			}
+			size--;
+			expectedModCount = ++modCount;
+		}
+
+		abstract T element(Entry<K, V> pair);
+	}
+
+	/**
+	 * Returns a spliterator over all of the buckets. A resize that is in
+	 * progress is finished first, so every pair is in the current array.
+	 * 
+	 * @param element
+	 * @param characteristics
+	 * @return Spliterator<T>
+	 */
+	private <T> Spliterator<T> spliterator(Function<Entry<K, V>, T> element, int characteristics) {
+		while (oldEntry != null) {
+			migrate();
+		}
+		return new BucketSpliterator<>(entry, 0, entry.length, size, true, element,
+				characteristics | Spliterator.NONNULL);
+	}
+
+	/**
+	 * Runs the given function over all of the buckets, split into ranges on
+	 * the common ForkJoinPool if the map has more pairs than the threshold,
+	 * and combines the results of the ranges. A resize that is in progress is
+	 * finished first.
+	 * 
+	 * @param parallelismThreshold
+	 * @param range
+	 * @param combiner
+	 * @return Type R
+	 */
+	private <R> R bulk(long parallelismThreshold, BucketRange<K, V, R> range, BinaryOperator<R> combiner) {
+		if (parallelismThreshold <= 0) {
+			throw new IllegalArgumentException("Parallelism threshold must be a positive number.");
+		}
+		while (oldEntry != null) {
+			migrate();
+		}
+		int expectedModCount = modCount;
+		BulkTask<K, V, R> task = new BulkTask<>(entry, 0, entry.length, size, parallelismThreshold, range, combiner);
+		R result = size > parallelismThreshold ? ForkJoinPool.commonPool().invoke(task) : task.compute();
+		if (modCount != expectedModCount) {
+			throw new ConcurrentModificationException();
+		}
+		return result;
+	}
+
+	@FunctionalInterface
+	private interface BucketRange<K, V, R> {
+		R apply(Collection<Entry<K, V>>[] table, int from, int to);
+	}
+
+	/**
+	 * Splits its range of buckets in halves while the pairs that are expected
+	 * in it are more than the threshold.
+	 */
+	private static final class BulkTask<K, V, R> extends RecursiveTask<R> {
+		private static final long serialVersionUID = 1L;
+
+		private final Collection<Entry<K, V>>[] table;
+		private final int from;
+		private final int to;
+		private final long size;
+		private final long threshold;
+		private final BucketRange<K, V, R> range;
+		private final BinaryOperator<R> combiner;
+
+		BulkTask(Collection<Entry<K, V>>[] table, int from, int to, long size, long threshold,
+				BucketRange<K, V, R> range, BinaryOperator<R> combiner) {
+			this.table = table;
+			this.from = from;
+			this.to = to;
+			this.size = size;
+			this.threshold = threshold;
+			this.range = range;
+			this.combiner = combiner;
+		}
+
+		@Override
+		protected R compute() {
+			if (to - from > 1 && size * (to - from) / table.length > threshold) {
+				int middle = (from + to) >>> 1;
+				BulkTask<K, V, R> left = new BulkTask<>(table, from, middle, size, threshold, range, combiner);
+				left.fork();
+				R right = new BulkTask<>(table, middle, to, size, threshold, range, combiner).compute();
+				return combiner.apply(left.join(), right);
+			}
+			return range.apply(table, from, to);
+		}
+	}
+
+	/**
+	 * Walks a range of buckets and splits it in halves. Only the spliterator
+	 * over all of the buckets knows its exact size; the halves estimate
+	 * theirs as half of the size of the range they come from.
+	 */
+	private final class BucketSpliterator<T> implements Spliterator<T> {
+		private final Collection<Entry<K, V>>[] table;
+		private final int fence;
+		private final Function<Entry<K, V>, T> element;
+		private final int characteristics;
+		private final int expectedModCount = modCount;
+		private int index;
+		private long estimate;
+		private boolean exact;
+		private Iterator<Entry<K, V>> bucket;
+
+		BucketSpliterator(Collection<Entry<K, V>>[] table, int index, int fence, long estimate, boolean exact,
+				Function<Entry<K, V>, T> element, int characteristics) {
+			this.table = table;
+			this.index = index;
+			this.fence = fence;
+			this.estimate = estimate;
+			this.exact = exact;
+			this.element = element;
+			this.characteristics = characteristics;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super T> action) {
+			if (action == null) {
+				throw new NullPointerException();
+			}
+			while (bucket == null || !bucket.hasNext()) {
+				if (index >= fence) {
+					return false;
+				}
+				Collection<Entry<K, V>> next = table[index++];
+				bucket = next == null ? null : next.iterator();
+			}
+			action.accept(element.apply(bucket.next()));
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			return true;
+		}
+
+		@Override
+		public void forEachRemaining(Consumer<? super T> action) {
+			if (action == null) {
+				throw new NullPointerException();
+			}
+			if (bucket != null) {
+				while (bucket.hasNext()) {
+					action.accept(element.apply(bucket.next()));
+				}
+				bucket = null;
+			}
+			for (; index < fence; index++) {
+				Collection<Entry<K, V>> next = table[index];
+				if (next != null) {
+					for (Entry<K, V> pair : next) {
+						action.accept(element.apply(pair));
+					}
+				}
+			}
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+		}
+
+		@Override
+		public Spliterator<T> trySplit() {
+			int middle = (index + fence) >>> 1;
+			if (index >= middle) {
+				return null;
+			}
+			estimate >>>= 1;
+			exact = false;
+			BucketSpliterator<T> prefix = new BucketSpliterator<>(table, index, middle, estimate, false, element,
+					characteristics);
+			index = middle;
+			return prefix;
+		}
+
+		@Override
+		public long estimateSize() {
+			return estimate;
+		}
+
+		@Override
+		public int characteristics() {
+			return exact ? characteristics | Spliterator.SIZED : characteristics;
+		}
+	}
+
+	/**
+	 * Walks the buckets of the current array by index. Only a bucket that is
+	 * a tree is walked with an iterator.
+	 */
+	private final class Cursor implements MapCursor<K, V> {
+		private final Collection<Entry<K, V>>[] table = entry;
+		private int index;
+		private List<Entry<K, V>> list;
+		private int position;
+		private Iterator<Entry<K, V>> tree;
+		private Entry<K, V> current;
+		private int expectedModCount = modCount;
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public boolean advance() {
+			checkUnchanged(expectedModCount);
+			current = null;
+			while (true) {
+				if (list != null && position < list.size()) {
+					current = list.get(position++);
+					return true;
+				}
+				if (tree != null && tree.hasNext()) {
+					current = tree.next();
+					return true;
+				}
+				list = null;
+				tree = null;
+				if (index >= table.length) {
+					return false;
+				}
+				Collection<Entry<K, V>> bucket = table[index++];
+				if (bucket instanceof List) {
+					list = (List<Entry<K, V>>) bucket;
+					position = 0;
+				} else if (bucket != null) {
+					tree = bucket.iterator();
+				}
+			}
+		}
+
+		@Override
+		public K key() {
+			return current().getKey();
+		}
+
+		@Override
+		public V value() {
+			return current().getValue();
+		}
+
+		@Override
+		public V setValue(V value) {
+			return current().setValue(value);
+		}
+
+		@Override
+		public void remove() {
+			delete(index - 1, current());
+			if (list != null) {
+				position--;
+			}
+			current = null;
+			expectedModCount = modCount;
+		}
+
+		private Entry<K, V> current() {
+			if (current == null) {
+				throw new IllegalStateException();
+			}
+			checkUnchanged(expectedModCount);
+			return current;
+		}
+	}
+
+	private final class KeySet extends AbstractSet<K> {
+		@Override
+		public Iterator<K> iterator() {
+			return new BucketIterator<K>() {
+				@Override
+				K element(Entry<K, V> pair) {
+					return pair.getKey();
+				}
+			};
+		}
+
+		@Override
+		public Spliterator<K> spliterator() {
+			return CustomMap.this.spliterator(Entry::getKey, Spliterator.DISTINCT);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return containsKey(o);
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			return o != null && CustomMap.this.remove(o) != null;
+		}
+
+		@Override
+		public void clear() {
+			CustomMap.this.clear();
+		}
+	}
+
+	private final class Values extends AbstractCollection<V> {
+		@Override
+		public Iterator<V> iterator() {
+			return new BucketIterator<V>() {
+				@Override
+				V element(Entry<K, V> pair) {
+					return pair.getValue();
+				}
+			};
+		}
+
+		@Override
+		public Spliterator<V> spliterator() {
+			return CustomMap.this.spliterator(Entry::getValue, 0);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return containsValue(o);
+		}
+
+		@Override
+		public void clear() {
+			CustomMap.this.clear();
+		}
+	}
+
+	private final class EntrySet extends AbstractSet<Entry<K, V>> {
+		@Override
+		public Iterator<Entry<K, V>> iterator() {
+			return new BucketIterator<Entry<K, V>>() {
+				@Override
+				Entry<K, V> element(Entry<K, V> pair) {
+					return pair;
+				}
+			};
+		}
+
+		@Override
+		public Spliterator<Entry<K, V>> spliterator() {
+			return CustomMap.this.spliterator(Function.identity(), Spliterator.DISTINCT);
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			if (!(o instanceof Entry)) {
+				return false;
+			}
+			Entry<?, ?> e = (Entry<?, ?>) o;
+			V value = e.getKey() == null ? null : get(e.getKey());
+			return value != null && value.equals(e.getValue());
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			if (!contains(o)) {
+				return false;
+			}
+			CustomMap.this.remove(((Entry<?, ?>) o).getKey());
+			return true;
+		}
+
+		@Override
+		public void clear() {
+			CustomMap.this.clear();
+		}
 	}
 
 	public static void main(String[] args) {
@@ -0,0 +1,307 @@
+package HashMap;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ConcurrentModificationException;
+import java.util.function.BiConsumer;
+
+/**
+ *
+ * Writes a {@link CustomMap} or a {@link CustomHashMap} to a channel as bytes
+ * and reads it back, with the keys and the values written by the given
+ * {@link Codec}s. The stream starts with a header of the number of pairs, the
+ * number of buckets and the load factor of the map, followed by a record for
+ * every pair: the lengths of the key and the value, then their bytes.
+ *
+ * The records are written in the order of the buckets, through a buffer of
+ * the chunk size, so writing a map takes no copy of it. A map that is read
+ * back gets the same number of buckets and load factor before the first pair
+ * is put, so it never resizes, and with the same strategy the pairs fill its
+ * array from the start to the end. read streams the pairs to an action
+ * instead, one chunk at a time, so a map that does not fit in memory twice
+ * can still be moved. Only records larger than a chunk take a larger buffer.
+ *
+ * The channels must be blocking. The codec keeps no state between calls, so
+ * it can be shared by many threads; the map must not be changed while it is
+ * written.
+ *
+ * @author Homes
+ *
+ * @param <K>
+ * @param <V>
+ */
+
+public final class CustomMapCodec<K, V> {
+
+	private static final int MAGIC = 0x434D5331;
+	private static final int HEADER = 4 * Integer.BYTES;
+	private static final int RECORD_HEADER = 2 * Integer.BYTES;
+	private static final int MAXIMUM_BUCKETS = 1 << 30;
+	private static final int CHUNK_SIZE = 1 << 16;
+
+	private final Codec<K> keyCodec;
+	private final Codec<V> valueCodec;
+	private final int chunkSize;
+
+	public CustomMapCodec(Codec<K> keyCodec, Codec<V> valueCodec) {
+		this(keyCodec, valueCodec, CHUNK_SIZE);
+	}
+
+	/**
+	 * Makes a codec that reads and writes through buffers of the given number
+	 * of bytes.
+	 *
+	 * @param keyCodec
+	 * @param valueCodec
+	 * @param chunkSize
+	 */
+	public CustomMapCodec(Codec<K> keyCodec, Codec<V> valueCodec, int chunkSize) {
+		if (keyCodec == null || valueCodec == null) {
+			throw new IllegalArgumentException("Codecs cannot be null.");
+		}
+		if (chunkSize < HEADER) {
+			throw new IllegalArgumentException("Chunk size must be larger than " + HEADER + " bytes.");
+		}
+		this.keyCodec = keyCodec;
+		this.valueCodec = valueCodec;
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Writes all of the pairs of the given map to the given channel. A resize
+	 * that is in progress is finished first.
+	 *
+	 * @param map
+	 * @param channel
+	 * @throws IOException
+	 */
+	public void write(CustomMap<K, V> map, WritableByteChannel channel) throws IOException {
+		MapCursor<K, V> cursor = map.cursor();
+		write(cursor, map.size(), map.bucketCount(), map.loadFactor(), channel);
+	}
+
+	/**
+	 * Writes all of the pairs of the given map to the given channel. A resize
+	 * that is in progress is finished first.
+	 *
+	 * @param map
+	 * @param channel
+	 * @throws IOException
+	 */
+	public void write(CustomHashMap<K, V> map, WritableByteChannel channel) throws IOException {
+		MapCursor<K, V> cursor = map.cursor();
+		write(cursor, map.size(), map.bucketCount(), map.loadFactor(), channel);
+	}
+
+	/**
+	 * Reads a map that was written by write into a new CustomMap.
+	 *
+	 * @param channel
+	 * @return CustomMap<K, V>
+	 * @throws IOException
+	 */
+	public CustomMap<K, V> readCustomMap(ReadableByteChannel channel) throws IOException {
+		return readCustomMap(channel, HashStrategy.SPREAD);
+	}
+
+	/**
+	 * Reads a map that was written by write into a new CustomMap with the
+	 * given strategy.
+	 *
+	 * @param channel
+	 * @param strategy
+	 * @return CustomMap<K, V>
+	 * @throws IOException
+	 */
+	public CustomMap<K, V> readCustomMap(ReadableByteChannel channel, HashStrategy strategy) throws IOException {
+		Reader reader = new Reader(channel);
+		CustomMap<K, V> map = new CustomMap<>(reader.buckets, reader.loadFactor, strategy);
+		reader.forEach(map::put);
+		return map;
+	}
+
+	/**
+	 * Reads a map that was written by write into a new CustomHashMap.
+	 *
+	 * @param channel
+	 * @return CustomHashMap<K, V>
+	 * @throws IOException
+	 */
+	public CustomHashMap<K, V> readCustomHashMap(ReadableByteChannel channel) throws IOException {
+		return readCustomHashMap(channel, HashStrategy.SPREAD);
+	}
+
+	/**
+	 * Reads a map that was written by write into a new CustomHashMap with the
+	 * given strategy.
+	 *
+	 * @param channel
+	 * @param strategy
+	 * @return CustomHashMap<K, V>
+	 * @throws IOException
+	 */
+	public CustomHashMap<K, V> readCustomHashMap(ReadableByteChannel channel, HashStrategy strategy)
+			throws IOException {
+		Reader reader = new Reader(channel);
+		CustomHashMap<K, V> map = new CustomHashMap<>(reader.buckets, reader.loadFactor, strategy);
+		reader.forEach(map::put);
+		return map;
+	}
+
+	/**
+	 * Reads a map that was written by write and gives its pairs to the given
+	 * action in the order they were written, without building a map. Returns
+	 * the number of pairs.
+	 *
+	 * @param channel
+	 * @param action
+	 * @return Integer
+	 * @throws IOException
+	 */
+	public int read(ReadableByteChannel channel, BiConsumer<? super K, ? super V> action) throws IOException {
+		Reader reader = new Reader(channel);
+		reader.forEach(action);
+		return reader.size;
+	}
+
+	private void write(MapCursor<K, V> cursor, int size, int buckets, float loadFactor, WritableByteChannel channel)
+			throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(chunkSize);
+		buffer.putInt(MAGIC);
+		buffer.putInt(size);
+		buffer.putInt(buckets);
+		buffer.putFloat(loadFactor);
+		int written = 0;
+		while (cursor.advance()) {
+			K key = cursor.key();
+			V value = cursor.value();
+			int keyLength = keyCodec.sizeOf(key);
+			int valueLength = valueCodec.sizeOf(value);
+			long length = (long) RECORD_HEADER + keyLength + valueLength;
+			if (length > Integer.MAX_VALUE) {
+				throw new IllegalArgumentException("Pair does not fit in a record of 2 GB.");
+			}
+			if (buffer.remaining() < length) {
+				flush(buffer, channel);
+				if (buffer.capacity() < length) {
+					buffer = ByteBuffer.allocate((int) length);
+				}
+			}
+			buffer.putInt(keyLength);
+			buffer.putInt(valueLength);
+			encode(keyCodec, key, keyLength, buffer);
+			encode(valueCodec, value, valueLength, buffer);
+			written++;
+			if (buffer.capacity() > chunkSize) {
+				flush(buffer, channel);
+				buffer = ByteBuffer.allocate(chunkSize);
+			}
+		}
+		if (written != size) {
+			throw new ConcurrentModificationException();
+		}
+		flush(buffer, channel);
+	}
+
+	private static void flush(ByteBuffer buffer, WritableByteChannel channel) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	private static <T> void encode(Codec<T> codec, T value, int length, ByteBuffer target) {
+		int start = target.position();
+		codec.write(value, target);
+		if (target.position() - start != length) {
+			throw new IllegalStateException("Codec wrote " + (target.position() - start) + " bytes instead of "
+					+ length + ".");
+		}
+	}
+
+	/**
+	 * Reads the header of a stream and then its records, a chunk at a time.
+	 * The buffer is always ready to be read from.
+	 */
+	private final class Reader {
+		private final ReadableByteChannel channel;
+		private ByteBuffer buffer;
+		final int size;
+		final int buckets;
+		final float loadFactor;
+
+		Reader(ReadableByteChannel channel) throws IOException {
+			this.channel = channel;
+			this.buffer = ByteBuffer.allocate(chunkSize);
+			buffer.flip();
+			require(HEADER);
+			int magic = buffer.getInt();
+			size = buffer.getInt();
+			buckets = buffer.getInt();
+			loadFactor = buffer.getFloat();
+			if (magic != MAGIC || size < 0 || buckets <= 0 || buckets > MAXIMUM_BUCKETS
+					|| Integer.bitCount(buckets) != 1 || !(loadFactor > 0)) {
+				throw new IOException("Stream does not contain a serialized map.");
+			}
+		}
+
+		void forEach(BiConsumer<? super K, ? super V> action) throws IOException {
+			for (int i = 0; i < size; i++) {
+				require(RECORD_HEADER);
+				int keyLength = buffer.getInt();
+				int valueLength = buffer.getInt();
+				if (keyLength < 0 || valueLength < 0 || keyLength > Integer.MAX_VALUE - valueLength) {
+					throw new IOException("Stream contains a damaged record.");
+				}
+				require(keyLength + valueLength);
+				K key = decode(keyCodec, keyLength);
+				V value = decode(valueCodec, valueLength);
+				action.accept(key, value);
+			}
+		}
+
+		private <T> T decode(Codec<T> codec, int length) throws IOException {
+			int end = buffer.position() + length;
+			T value = codec.read(buffer, length);
+			if (buffer.position() != end || value == null) {
+				throw new IOException("Stream contains a damaged record.");
+			}
+			return value;
+		}
+
+		/**
+		 * Makes sure that the buffer holds at least the given number of bytes,
+		 * reading more from the channel and growing the buffer if it must.
+		 *
+		 * @param length
+		 * @throws IOException
+		 */
+		private void require(int length) throws IOException {
+			if (buffer.remaining() >= length) {
+				return;
+			}
+			if (buffer.capacity() < length) {
+				ByteBuffer larger = ByteBuffer.allocate(length);
+				larger.put(buffer);
+				buffer = larger;
+			} else if (buffer.capacity() > chunkSize && length <= chunkSize) {
+				ByteBuffer smaller = ByteBuffer.allocate(chunkSize);
+				smaller.put(buffer);
+				buffer = smaller;
+			} else {
+				buffer.compact();
+			}
+			while (buffer.position() < length) {
+				if (channel.read(buffer) < 0) {
+					throw new EOFException("Stream ended before all of the pairs were read.");
+				}
+			}
+			buffer.flip();
+		}
+	}
+
+}
@@ -0,0 +1,130 @@
+package HashMap;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+public class CustomMapCodecTests extends TestCase {
+	private CustomMapCodec<String, Integer> codec;
+	private CustomMap<String, Integer> source;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		this.codec = new CustomMapCodec<>(Codec.STRING, Codec.INTEGER);
+		this.source = new CustomMap<>();
+		for (int i = 0; i < 100000; i++) {
+			source.put("Key" + i, i);
+		}
+	}
+
+	@Test
+	public void testCustomMap() throws IOException {
+		byte[] bytes = write(codec, source);
+		CustomMap<String, Integer> copy = codec.readCustomMap(Channels.newChannel(new ByteArrayInputStream(bytes)));
+		assertEquals(source, copy);
+		assertEquals(source.bucketCount(), copy.bucketCount());
+		assertEquals(0, copy.stats().getResizeCount());
+	}
+
+	@Test
+	public void testCustomHashMap() throws IOException {
+		CustomHashMap<String, Integer> hashMap = new CustomHashMap<>(1);
+		for (int i = 0; i < 10000; i++) {
+			hashMap.put("Key" + i, i);
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		codec.write(hashMap, Channels.newChannel(out));
+		CustomHashMap<String, Integer> copy = codec
+				.readCustomHashMap(Channels.newChannel(new ByteArrayInputStream(out.toByteArray())));
+		assertEquals(10000, copy.size());
+		assertEquals(hashMap.bucketCount(), copy.bucketCount());
+		for (int i = 0; i < 10000; i++) {
+			assertEquals((Integer) i, copy.get("Key" + i));
+		}
+	}
+
+	@Test
+	public void testBucketOrder() throws IOException {
+		List<String> written = new ArrayList<>();
+		for (MapCursor<String, Integer> cursor = source.cursor(); cursor.advance();) {
+			written.add(cursor.key());
+		}
+		List<String> read = new ArrayList<>();
+		int count = codec.read(Channels.newChannel(new ByteArrayInputStream(write(codec, source))),
+				(key, value) -> read.add(key));
+		assertEquals(100000, count);
+		assertEquals(written, read);
+	}
+
+	@Test
+	public void testSmallChunks() throws IOException {
+		CustomMapCodec<String, String> small = new CustomMapCodec<>(Codec.STRING, Codec.STRING, 16);
+		CustomMap<String, String> large = new CustomMap<>();
+		char[] filler = new char[1000];
+		Arrays.fill(filler, 'x');
+		for (int i = 0; i < 100; i++) {
+			large.put("Key" + i, i % 10 == 0 ? new String(filler) + i : "Value" + i);
+		}
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		small.write(large, Channels.newChannel(out));
+		assertEquals(large, small.readCustomMap(Channels.newChannel(new ByteArrayInputStream(out.toByteArray()))));
+	}
+
+	@Test
+	public void testEmpty() throws IOException {
+		byte[] bytes = write(codec, new CustomMap<>());
+		assertTrue(codec.readCustomMap(Channels.newChannel(new ByteArrayInputStream(bytes))).isEmpty());
+	}
+
+	@Test
+	public void testTruncatedStream() throws IOException {
+		byte[] bytes = write(codec, source);
+		try {
+			codec.readCustomMap(Channels.newChannel(new ByteArrayInputStream(Arrays.copyOf(bytes, bytes.length - 1))));
+			fail();
+		} catch (EOFException e) {
+		}
+	}
+
+	@Test
+	public void testNotAMap() {
+		try {
+			codec.readCustomMap(Channels.newChannel(new ByteArrayInputStream(new byte[64])));
+			fail();
+		} catch (IOException e) {
+			assertEquals("Stream does not contain a serialized map.", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testInvalidArguments() {
+		try {
+			new CustomMapCodec<String, Integer>(null, Codec.INTEGER);
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+		try {
+			new CustomMapCodec<>(Codec.STRING, Codec.INTEGER, 8);
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+	private static byte[] write(CustomMapCodec<String, Integer> codec, CustomMap<String, Integer> map)
+			throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		codec.write(map, Channels.newChannel(out));
+		return out.toByteArray();
+	}
+
+}
@@ -0,0 +1,21 @@
+package HashMap;
+
+/**
+ *
+ * The JMX view of a {@link CustomMap}, registered by its registerMBean
+ * method. Every read of Stats takes a new snapshot.
+ *
+ * @author Homes
+ *
+ */
+
+public interface CustomMapMXBean {
+
+	/**
+	 * Returns a new snapshot of the structure of the map.
+	 *
+	 * @return CustomMapStats
+	 */
+	CustomMapStats getStats();
+
+}
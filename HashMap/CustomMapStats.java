@@ -0,0 +1,122 @@
+package HashMap;
+
+import java.util.Arrays;
+
+/**
+ *
+ * A snapshot of the structure of a {@link CustomMap}, returned by its stats
+ * method. The chain histogram has an element for every chain length from 0 to
+ * LONGEST_CHAIN - 1 and a last one for the longer chains, and counts the
+ * buckets with that many pairs. While a resize is in progress, the pairs of
+ * an old bucket that is not moved yet are counted with the bucket of the same
+ * index in the new array.
+ *
+ * The bytes per entry are an estimate of the memory the map itself takes
+ * for every pair, with compressed references: the slots of the arrays, the
+ * bucket lists or trees and the entries, but not the keys and the values.
+ *
+ * @author Homes
+ *
+ */
+
+public final class CustomMapStats {
+
+	public static final int LONGEST_CHAIN = 16;
+
+	private final int size;
+	private final int bucketCount;
+	private final int emptyBuckets;
+	private final int treeBuckets;
+	private final long[] chainHistogram;
+	private final int maxChainLength;
+	private final float loadFactor;
+	private final long resizeCount;
+	private final double bytesPerEntry;
+	private final long valueIndexBytes;
+
+	CustomMapStats(int size, int bucketCount, int emptyBuckets, int treeBuckets, long[] chainHistogram,
+			int maxChainLength, float loadFactor, long resizeCount, double bytesPerEntry, long valueIndexBytes) {
+		this.size = size;
+		this.bucketCount = bucketCount;
+		this.emptyBuckets = emptyBuckets;
+		this.treeBuckets = treeBuckets;
+		this.chainHistogram = chainHistogram;
+		this.maxChainLength = maxChainLength;
+		this.loadFactor = loadFactor;
+		this.resizeCount = resizeCount;
+		this.bytesPerEntry = bytesPerEntry;
+		this.valueIndexBytes = valueIndexBytes;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	public int getBucketCount() {
+		return bucketCount;
+	}
+
+	public int getEmptyBuckets() {
+		return emptyBuckets;
+	}
+
+	/**
+	 * Returns the number of buckets that are balanced trees.
+	 *
+	 * @return Integer
+	 */
+	public int getTreeBuckets() {
+		return treeBuckets;
+	}
+
+	public long[] getChainHistogram() {
+		return chainHistogram.clone();
+	}
+
+	public int getMaxChainLength() {
+		return maxChainLength;
+	}
+
+	/**
+	 * Returns the number of pairs per bucket, which stays under the load
+	 * factor the map was created with.
+	 *
+	 * @return float
+	 */
+	public float getLoadFactor() {
+		return loadFactor;
+	}
+
+	/**
+	 * Returns how many times the array was doubled since the map was created
+	 * or cleared.
+	 *
+	 * @return long
+	 */
+	public long getResizeCount() {
+		return resizeCount;
+	}
+
+	public double getBytesPerEntry() {
+		return bytesPerEntry;
+	}
+
+	/**
+	 * Returns the estimated bytes the value index takes, which are not part of
+	 * the bytes per entry, or 0 if the map has none.
+	 *
+	 * @return long
+	 */
+	public long getValueIndexBytes() {
+		return valueIndexBytes;
+	}
+
+	@Override
+	public String toString() {
+		return "[size=" + size + ", buckets=" + bucketCount + ", empty=" + emptyBuckets + ", trees=" + treeBuckets
+				+ ", chains=" + Arrays.toString(chainHistogram) + ", longest=" + maxChainLength + ", load="
+				+ loadFactor + ", resizes=" + resizeCount + ", bytes/entry=" + String.format("%.1f", bytesPerEntry)
+				+ ", valueIndexBytes=" + valueIndexBytes + "]";
+	}
+
+}
@@ -1,7 +1,19 @@
 package HashMap;
 
+import java.lang.management.ManagementFactory;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
 import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
 
 import org.junit.Test;
 
@@ -26,6 +38,20 @@ public class CustomMapTests extends TestCase {
 		assertEquals(map.size(), 10000);
 	}
 
+	@Test
+	public void testGrowth() {
+		Map<String, Integer> small = new CustomMap<>(1);
+		for (int i = 0; i < 10000; i++) {
+			small.put("Key" + i, i);
+			assertEquals((Integer) (i / 2), small.get("Key" + (i / 2)));
+		}
+		for (int i = 0; i < 10000; i++) {
+			assertEquals((Integer) i, small.get("Key" + i));
+		}
+		assertEquals(10000, small.size());
+		assertNull(small.get("Key10000"));
+	}
+
 	@Test
 	public void testIsEmpty() {
 		this.testPut();
@@ -135,14 +161,353 @@ public class CustomMapTests extends TestCase {
 		assertEquals(1, map.size());
 	}
 
-	// @Test
-	// public void testEquals() {
-	// map.put("Test", 4);
-	// other.put("Test", 4);
-	// assertTrue(map.equals(other));
-	// map.put("TV", 23);
-	// assertFalse(map.equals(other));
-	// }
+	@Test
+	public void testEquals() {
+		map.put("Test", 4);
+		other.put("Test", 4);
+		assertTrue(map.equals(other));
+		map.put("TV", 23);
+		assertFalse(map.equals(other));
+	}
+
+	@Test
+	public void testViews() {
+		Set<String> keys = map.keySet();
+		Collection<Integer> values = map.values();
+		map.put("Hack", 5);
+		map.put("Iniesta", 25);
+		map.put("Iniesta", 8);
+		assertEquals(2, keys.size());
+		assertTrue(keys.contains("Iniesta"));
+		assertTrue(values.contains(8));
+		assertFalse(values.contains(25));
+		keys.remove("Hack");
+		assertFalse(map.containsKey("Hack"));
+		assertEquals(1, map.entrySet().size());
+	}
+
+	@Test
+	public void testIteratorRemove() {
+		for (int i = 0; i < 1000; i++) {
+			map.put("Key" + i, i);
+		}
+		int seen = 0;
+		for (Iterator<String> it = map.keySet().iterator(); it.hasNext();) {
+			String key = it.next();
+			seen++;
+			if (map.get(key) % 2 == 0) {
+				it.remove();
+			}
+		}
+		assertEquals(1000, seen);
+		assertEquals(500, map.size());
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(i % 2 == 1, map.containsKey("Key" + i));
+		}
+	}
+
+	@Test
+	public void testCollidingKeys() {
+		String[] keys = { "" };
+		for (int i = 0; i < 10; i++) {
+			String[] longer = new String[keys.length * 2];
+			for (int j = 0; j < keys.length; j++) {
+				longer[2 * j] = keys[j] + "Aa";
+				longer[2 * j + 1] = keys[j] + "BB";
+			}
+			keys = longer;
+		}
+		for (int i = 0; i < keys.length; i++) {
+			assertEquals(keys[0].hashCode(), keys[i].hashCode());
+			map.put(keys[i], i);
+		}
+		assertEquals(keys.length, map.size());
+		for (int i = 0; i < keys.length; i++) {
+			assertEquals((Integer) i, map.get(keys[i]));
+		}
+		assertEquals(keys.length, map.keySet().size());
+		int seen = 0;
+		for (Iterator<String> it = map.keySet().iterator(); it.hasNext();) {
+			it.next();
+			seen++;
+		}
+		assertEquals(keys.length, seen);
+		for (int i = 0; i < keys.length - 1; i++) {
+			assertEquals((Integer) i, map.remove(keys[i]));
+			assertFalse(map.containsKey(keys[i]));
+			assertEquals((Integer) (keys.length - 1), map.get(keys[keys.length - 1]));
+		}
+		assertEquals(1, map.size());
+	}
+
+	@Test
+	public void testCollidingKeysNotComparable() {
+		Map<Colliding, Integer> colliding = new CustomMap<>();
+		for (int i = 0; i < 100; i++) {
+			colliding.put(new Colliding(i), i);
+		}
+		for (int i = 0; i < 100; i++) {
+			assertEquals((Integer) i, colliding.get(new Colliding(i)));
+		}
+		assertNull(colliding.get(new Colliding(100)));
+		for (int i = 0; i < 100; i += 2) {
+			assertEquals((Integer) i, colliding.remove(new Colliding(i)));
+		}
+		for (int i = 0; i < 100; i++) {
+			assertEquals(i % 2 == 1, colliding.containsKey(new Colliding(i)));
+		}
+	}
+
+	@Test
+	public void testSpliterators() {
+		for (int i = 0; i < 100000; i++) {
+			map.put("Key" + i, i);
+		}
+		Spliterator<String> keys = map.keySet().spliterator();
+		assertEquals(100000, keys.getExactSizeIfKnown());
+		assertTrue(keys.hasCharacteristics(Spliterator.DISTINCT | Spliterator.NONNULL));
+		Spliterator<String> prefix = keys.trySplit();
+		assertFalse(keys.hasCharacteristics(Spliterator.SIZED));
+		long[] count = new long[1];
+		prefix.forEachRemaining(key -> count[0]++);
+		while (keys.tryAdvance(key -> count[0]++)) {
+		}
+		assertEquals(100000, count[0]);
+
+		long expected = 100000L * 99999 / 2;
+		assertEquals(expected, map.values().parallelStream().mapToLong(Integer::longValue).sum());
+		assertEquals(expected, map.entrySet().parallelStream().mapToLong(pair -> pair.getValue()).sum());
+		assertEquals(100000, map.keySet().parallelStream().distinct().count());
+	}
+
+	@Test
+	public void testSpliteratorDuringResize() {
+		Map<String, Integer> small = new CustomMap<>(1);
+		for (int i = 0; i < 1000; i++) {
+			small.put("Key" + i, i);
+			assertEquals((long) i * (i + 1) / 2, small.values().stream().mapToLong(Integer::longValue).sum());
+		}
+	}
+
+	@Test
+	public void testBulkOperations() {
+		CustomMap<String, Integer> large = new CustomMap<>();
+		for (int i = 0; i < 100000; i++) {
+			large.put("Key" + i, i);
+		}
+		long expected = 100000L * 99999 / 2;
+		for (long threshold : new long[] { 1, 1000, Long.MAX_VALUE }) {
+			LongAdder sum = new LongAdder();
+			large.forEach(threshold, (key, value) -> sum.add(value));
+			assertEquals(expected, sum.sum());
+			assertEquals((Integer) 99999, large.reduceValues(threshold, Math::max));
+			assertEquals((Long) expected, large.reduceValues(threshold, Integer::longValue, Long::sum));
+			assertEquals(expected, large.reduceToLong(threshold, (key, value) -> value, 0, Long::sum));
+			assertEquals("Key777", large.search(threshold, (key, value) -> value == 777 ? key : null));
+			assertNull(large.search(threshold, (key, value) -> value < 0 ? key : null));
+		}
+		assertNull(new CustomMap<String, Integer>().reduceValues(1, Math::max));
+	}
+
+	@Test
+	public void testMerge() {
+		Map<String, Integer> counts = new CustomMap<>(1);
+		for (int i = 0; i < 10000; i++) {
+			counts.merge("Key" + (i % 1000), 1, Integer::sum);
+		}
+		assertEquals(1000, counts.size());
+		for (int i = 0; i < 1000; i++) {
+			assertEquals((Integer) 10, counts.get("Key" + i));
+		}
+		assertNull(counts.merge("Key0", 1, (a, b) -> null));
+		assertFalse(counts.containsKey("Key0"));
+		assertEquals(999, counts.size());
+	}
+
+	@Test
+	public void testCompute() {
+		Map<String, Integer> memo = new CustomMap<>(1);
+		int[] calls = new int[1];
+		for (int i = 0; i < 2000; i++) {
+			String key = "Key" + (i % 500);
+			assertEquals((Integer) (i % 500), memo.computeIfAbsent(key, k -> {
+				calls[0]++;
+				return Integer.parseInt(k.substring(3));
+			}));
+		}
+		assertEquals(500, calls[0]);
+		assertNull(memo.computeIfAbsent("Missing", k -> null));
+		assertFalse(memo.containsKey("Missing"));
+
+		assertEquals((Integer) 8, memo.compute("Key7", (k, v) -> v + 1));
+		assertEquals((Integer) 1, memo.compute("New", (k, v) -> v == null ? 1 : v + 1));
+		assertNull(memo.compute("New", (k, v) -> null));
+		assertFalse(memo.containsKey("New"));
+		assertEquals((Integer) 20, memo.computeIfPresent("Key10", (k, v) -> v * 2));
+		assertNull(memo.computeIfPresent("Missing", (k, v) -> 1));
+		assertNull(memo.computeIfPresent("Key10", (k, v) -> null));
+		assertEquals(499, memo.size());
+
+		try {
+			memo.computeIfAbsent("Other", k -> memo.put("Inner", 1));
+			fail();
+		} catch (ConcurrentModificationException e) {
+		}
+	}
+
+	@Test
+	public void testSingleProbeReplace() {
+		map.put("Hack", 5);
+		assertEquals((Integer) 5, map.replace("Hack", 6));
+		assertEquals((Integer) 6, map.get("Hack"));
+		assertTrue(map.remove("Hack", 6));
+		assertFalse(map.remove("Hack", 6));
+		assertEquals((Integer) 3, map.getOrDefault("Hack", 3));
+		assertEquals(0, map.size());
+	}
+
+	@Test
+	public void testCursor() {
+		CustomMap<Object, Integer> scanned = new CustomMap<>(1);
+		for (int i = 0; i < 1000; i++) {
+			scanned.put("Key" + i, i);
+		}
+		for (int i = 0; i < 20; i++) {
+			scanned.put(new Colliding(i), 1000 + i);
+		}
+		long sum = 0;
+		int seen = 0;
+		for (MapCursor<Object, Integer> cursor = scanned.cursor(); cursor.advance();) {
+			assertEquals(cursor.value(), scanned.get(cursor.key()));
+			sum += cursor.value();
+			seen++;
+		}
+		assertEquals(1020, seen);
+		assertEquals(1020L * 1019 / 2, sum);
+
+		for (MapCursor<Object, Integer> cursor = scanned.cursor(); cursor.advance();) {
+			if (cursor.value() % 2 == 0) {
+				cursor.remove();
+			} else {
+				assertEquals(cursor.value(), cursor.setValue(cursor.value() * 10));
+			}
+		}
+		assertEquals(510, scanned.size());
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(i % 2 == 1 ? (Integer) (i * 10) : null, scanned.get("Key" + i));
+		}
+		for (int i = 0; i < 20; i++) {
+			assertEquals(i % 2 == 1 ? (Integer) ((1000 + i) * 10) : null, scanned.get(new Colliding(i)));
+		}
+
+		MapCursor<Object, Integer> cursor = scanned.cursor();
+		try {
+			cursor.key();
+			fail();
+		} catch (IllegalStateException e) {
+		}
+		assertTrue(cursor.advance());
+		scanned.put("Other", 1);
+		try {
+			cursor.advance();
+			fail();
+		} catch (ConcurrentModificationException e) {
+		}
+	}
+
+	@Test
+	public void testStats() {
+		CustomMap<Object, Integer> stats = new CustomMap<>(4);
+		CustomMapStats empty = stats.stats();
+		assertEquals(4, empty.getBucketCount());
+		assertEquals(4, empty.getEmptyBuckets());
+		assertEquals(4, empty.getChainHistogram()[0]);
+		assertEquals(0, empty.getResizeCount());
+		assertEquals(0.0, empty.getBytesPerEntry());
+
+		for (int i = 0; i < 1000; i++) {
+			stats.put("Key" + i, i);
+		}
+		for (int i = 0; i < 20; i++) {
+			stats.put(new Colliding(i), i);
+		}
+		CustomMapStats full = stats.stats();
+		assertEquals(1020, full.getSize());
+		assertEquals(2048, full.getBucketCount());
+		assertEquals(9, full.getResizeCount());
+		assertEquals(1020 / 2048f, full.getLoadFactor());
+		assertTrue(full.getMaxChainLength() >= 20);
+		assertTrue(full.getTreeBuckets() >= 1);
+		long buckets = 0;
+		long pairs = 0;
+		long[] histogram = full.getChainHistogram();
+		for (int i = 0; i < histogram.length; i++) {
+			buckets += histogram[i];
+			pairs += i * histogram[i];
+		}
+		assertEquals(full.getBucketCount(), buckets);
+		assertEquals(full.getEmptyBuckets(), histogram[0]);
+		assertTrue(pairs <= full.getSize());
+		assertTrue(full.getBytesPerEntry() > 24);
+
+		stats.clear();
+		assertEquals(0, stats.stats().getResizeCount());
+	}
+
+	@Test
+	public void testStatsDuringResize() {
+		CustomMap<String, Integer> small = new CustomMap<>(1);
+		for (int i = 0; i < 1000; i++) {
+			small.put("Key" + i, i);
+			assertEquals(i + 1, small.stats().getSize());
+		}
+	}
+
+	@Test
+	public void testStatsMBean() throws Exception {
+		CustomMap<String, Integer> monitored = new CustomMap<>();
+		for (int i = 0; i < 100; i++) {
+			monitored.put("Key" + i, i);
+		}
+		ObjectName name = monitored.registerMBean("HashMap:type=CustomMap,name=testStatsMBean");
+		try {
+			CompositeData stats = (CompositeData) ManagementFactory.getPlatformMBeanServer().getAttribute(name,
+					"Stats");
+			assertEquals(100, stats.get("size"));
+			assertEquals(monitored.stats().getBucketCount(), stats.get("bucketCount"));
+			assertEquals(CustomMapStats.LONGEST_CHAIN, ((long[]) stats.get("chainHistogram")).length);
+		} finally {
+			CustomMap.unregisterMBean(name);
+		}
+		assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+	}
+
+	@Test
+	public void testValueIndex() {
+		CustomMap<String, Integer> indexed = new CustomMap<>(1);
+		for (int i = 0; i < 500; i++) {
+			indexed.put("Key" + i, i % 100);
+		}
+		indexed.enableValueIndex();
+		for (int i = 500; i < 1000; i++) {
+			indexed.put("Key" + i, i % 100);
+		}
+		assertEquals(10, indexed.keysForValue(7).size());
+		indexed.put("Key507", 1000);
+		indexed.remove("Key107");
+		indexed.entrySet().iterator().next().setValue(1001);
+		indexed.values().remove(7);
+		assertEquals(7, indexed.keysForValue(7).size());
+		assertEquals(Collections.singleton("Key507"), indexed.keysForValue(1000));
+		assertTrue(indexed.containsValue(1001));
+		assertEquals(1, indexed.keysForValue(1001).size());
+		for (int value = 0; value < 100; value++) {
+			assertEquals(indexed.keysForValue(value), scan(indexed, value));
+		}
+		assertEquals(indexed.valueIndexBytes(), indexed.stats().getValueIndexBytes());
+		indexed.clear();
+		assertFalse(indexed.containsValue(1000));
+	}
 
 	@Test
 	public void testContainsValue() {
@@ -151,10 +516,85 @@ public class CustomMapTests extends TestCase {
 		assertFalse(map.containsValue(20));
 	}
 
+	@Test
+	public void testCachedHashes() {
+		CustomMap<Counting, Integer> counted = new CustomMap<>(1);
+		for (int i = 0; i < 1000; i++) {
+			counted.put(new Counting(i), i);
+		}
+		Counting.hashCodes = 0;
+		Counting.equalsCalls = 0;
+		for (int i = 1000; i < 5000; i++) {
+			counted.put(new Counting(i), i);
+		}
+		assertEquals(4000, Counting.hashCodes);
+		assertEquals(0, Counting.equalsCalls);
+
+		Counting.hashCodes = 0;
+		for (int i = 0; i < 5000; i++) {
+			assertEquals((Integer) i, counted.get(new Counting(i)));
+		}
+		assertEquals(5000, Counting.hashCodes);
+		assertEquals(5000, Counting.equalsCalls);
+	}
+
+	private static Set<String> scan(Map<String, Integer> map, int value) {
+		Set<String> keys = new HashSet<>();
+		for (Map.Entry<String, Integer> pair : map.entrySet()) {
+			if (pair.getValue() == value) {
+				keys.add(pair.getKey());
+			}
+		}
+		return keys;
+	}
+
 	private String random() {
 
 		String uuid = UUID.randomUUID().toString();
 		return uuid;
 	}
 
+	/**
+	 * A key that counts how often its hashCode and equals are called.
+	 */
+	private static final class Counting {
+		static int hashCodes;
+		static int equalsCalls;
+		private final int id;
+
+		Counting(int id) {
+			this.id = id;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			equalsCalls++;
+			return o instanceof Counting && ((Counting) o).id == id;
+		}
+
+		@Override
+		public int hashCode() {
+			hashCodes++;
+			return id;
+		}
+	}
+
+	private static final class Colliding {
+		private final int id;
+
+		Colliding(int id) {
+			this.id = id;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof Colliding && ((Colliding) o).id == id;
+		}
+
+		@Override
+		public int hashCode() {
+			return 42;
+		}
+	}
+
 }
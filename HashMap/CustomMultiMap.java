@@ -0,0 +1,507 @@
+package HashMap;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ *
+ * A map from keys to any number of values, which does not allow null keys or
+ * values. The pairs are kept in a {@link CustomMap}, so the keys are hashed and
+ * rehashed the same way, but the value of a key is a plain array of its
+ * values instead of a List: a key with a single value takes one array of one
+ * element, and the array grows by half when it is full. The values are kept
+ * at the start of the array in the order they were put, followed by nulls.
+ * A key may have the same value more than once.
+ *
+ * get returns a view of the values of a key, which is always up to date.
+ * entries streams every key and value pair; it walks the arrays of the
+ * CustomMap directly but makes an entry object for every value. forEach walks
+ * them the same way without any allocation per key or value.
+ *
+ * @author Homes
+ *
+ * @param <K>
+ * @param <V>
+ */
+
+public class CustomMultiMap<K, V> {
+
+	private final CustomMap<K, Object[]> map;
+	private int size;
+	private int modCount;
+	private Set<K> keySet;
+
+	public CustomMultiMap() {
+		this.map = new CustomMap<>();
+	}
+
+	public CustomMultiMap(int size) {
+		this.map = new CustomMap<>(size);
+	}
+
+	public CustomMultiMap(HashStrategy strategy) {
+		this.map = new CustomMap<>(strategy);
+	}
+
+	/**
+	 * Adds the given value to the values of the given key.
+	 *
+	 * @param key
+	 * @param value
+	 */
+	public void put(K key, V value) {
+		if (value == null || key == null) {
+			throw new IllegalArgumentException("Map cannot have a null value or null key.");
+		}
+		Object[] values = map.get(key);
+		if (values == null) {
+			map.put(key, new Object[] { value });
+		} else {
+			int count = count(values);
+			if (count == values.length) {
+				values = Arrays.copyOf(values, count + (count >> 1) + 1);
+				map.put(key, values);
+			}
+			values[count] = value;
+		}
+		size++;
+		modCount++;
+	}
+
+	/**
+	 * Returns a view of the values of the given key, which is empty if the
+	 * key has none.
+	 *
+	 * @param key
+	 * @return Collection<V>
+	 */
+	public Collection<V> get(K key) {
+		if (key == null) {
+			throw new IllegalArgumentException("No null keys.");
+		}
+		return new Values(key);
+	}
+
+	/**
+	 * Removes one occurrence of the given value from the values of the given
+	 * key.
+	 *
+	 * @param key
+	 * @param value
+	 * @return boolean
+	 */
+	public boolean remove(K key, V value) {
+		if (key == null || value == null) {
+			throw new IllegalArgumentException("HashMap cannot have null key or values.");
+		}
+		Object[] values = map.get(key);
+		if (values == null) {
+			return false;
+		}
+		int count = count(values);
+		for (int i = 0; i < count; i++) {
+			if (values[i].equals(value)) {
+				if (count == 1) {
+					map.remove(key);
+				} else {
+					System.arraycopy(values, i + 1, values, i, count - i - 1);
+					values[count - 1] = null;
+				}
+				size--;
+				modCount++;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Removes the given key with all of its values and returns them, or an
+	 * empty List if there were none.
+	 *
+	 * @param key
+	 * @return List<V>
+	 */
+	@SuppressWarnings("unchecked")
+	public List<V> removeAll(K key) {
+		if (key == null) {
+			throw new IllegalArgumentException("HashMap cannot have null key.");
+		}
+		Object[] values = map.remove(key);
+		if (values == null) {
+			return Collections.emptyList();
+		}
+		int count = count(values);
+		size -= count;
+		modCount++;
+		return (List<V>) Arrays.asList(Arrays.copyOf(values, count));
+	}
+
+	/**
+	 * Checks whether a given key has any value.
+	 *
+	 * @param key
+	 * @return boolean
+	 */
+	public boolean containsKey(K key) {
+		return map.containsKey(key);
+	}
+
+	/**
+	 * Checks whether the given value is one of the values of the given key.
+	 *
+	 * @param key
+	 * @param value
+	 * @return boolean
+	 */
+	public boolean containsEntry(K key, V value) {
+		if (key == null || value == null) {
+			return false;
+		}
+		Object[] values = map.get(key);
+		return values != null && indexOf(values, value) >= 0;
+	}
+
+	/**
+	 * Returns a view of all of keys that have a value. Removing a key from it
+	 * removes all of its values.
+	 *
+	 * @return Set<K>
+	 */
+	public Set<K> keySet() {
+		if (keySet == null) {
+			keySet = new KeySet();
+		}
+		return keySet;
+	}
+
+	/**
+	 * Gives every key and value pair to the given action, a key once for each
+	 * of its values.
+	 *
+	 * @param action
+	 */
+	@SuppressWarnings("unchecked")
+	public void forEach(BiConsumer<? super K, ? super V> action) {
+		int expectedModCount = modCount;
+		for (Map.Entry<K, Object[]> pair : map.entrySet()) {
+			Object[] values = pair.getValue();
+			for (int i = 0; i < values.length && values[i] != null; i++) {
+				action.accept(pair.getKey(), (V) values[i]);
+			}
+		}
+		if (modCount != expectedModCount) {
+			throw new ConcurrentModificationException();
+		}
+	}
+
+	/**
+	 * Returns a stream of every key and value pair, a key once for each of its
+	 * values. It splits like the views of the CustomMap, so it can run in
+	 * parallel. Every pair is a new immutable entry; forEach gives the pairs
+	 * without allocating them.
+	 *
+	 * @return Stream<Map.Entry<K, V>>
+	 */
+	public Stream<Map.Entry<K, V>> entries() {
+		return StreamSupport.stream(new EntrySpliterator<>(map.entrySet().spliterator()), false);
+	}
+
+	/*
+	 * Removes every pair in the map.
+	 */
+	public void clear() {
+		map.clear();
+		size = 0;
+		modCount++;
+	}
+
+	/**
+	 * Returns the number of values of all of the keys.
+	 *
+	 * @return Integer
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the number of keys that have a value.
+	 *
+	 * @return Integer
+	 */
+	public int keyCount() {
+		return map.size();
+	}
+
+	/**
+	 * Checks if the map contains any pair.
+	 *
+	 * @return boolean
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * String representation of the map.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder("{");
+		for (Map.Entry<K, Object[]> pair : map.entrySet()) {
+			if (builder.length() > 1) {
+				builder.append(", ");
+			}
+			builder.append(pair.getKey()).append('=')
+					.append(Arrays.toString(Arrays.copyOf(pair.getValue(), count(pair.getValue()))));
+		}
+		return builder.append('}').toString();
+	}
+
+	/**
+	 * Returns the number of values in the given array. They are at its start,
+	 * so the first null is found by a binary search.
+	 *
+	 * @param values
+	 * @return Integer
+	 */
+	private static int count(Object[] values) {
+		int low = 0;
+		int high = values.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (values[middle] == null) {
+				high = middle;
+			} else {
+				low = middle + 1;
+			}
+		}
+		return low;
+	}
+
+	private static int indexOf(Object[] values, Object value) {
+		for (int i = 0; i < values.length && values[i] != null; i++) {
+			if (values[i].equals(value)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * The keys of the map. Removing a key goes through the multimap, so its
+	 * values are taken out of the size.
+	 */
+	private final class KeySet extends AbstractSet<K> {
+		@Override
+		public Iterator<K> iterator() {
+			Iterator<Map.Entry<K, Object[]>> pairs = map.entrySet().iterator();
+			return new Iterator<K>() {
+				private Map.Entry<K, Object[]> current;
+				private int expectedModCount = modCount;
+
+				@Override
+				public boolean hasNext() {
+					return pairs.hasNext();
+				}
+
+				@Override
+				public K next() {
+					if (modCount != expectedModCount) {
+						throw new ConcurrentModificationException();
+					}
+					current = pairs.next();
+					return current.getKey();
+				}
+
+				@Override
+				public void remove() {
+					if (current == null) {
+						throw new IllegalStateException();
+					}
+					if (modCount != expectedModCount) {
+						throw new ConcurrentModificationException();
+					}
+					size -= count(current.getValue());
+					pairs.remove();
+					current = null;
+					expectedModCount = ++modCount;
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return map.size();
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return map.containsKey(o);
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public boolean remove(Object o) {
+			return o != null && map.containsKey(o) && !CustomMultiMap.this.removeAll((K) o).isEmpty();
+		}
+
+		@Override
+		public void clear() {
+			CustomMultiMap.this.clear();
+		}
+	}
+
+	/**
+	 * The values of a key. Every operation looks the key up again, so the
+	 * view follows the changes of the map.
+	 */
+	private final class Values extends AbstractCollection<V> {
+		private final K key;
+
+		Values(K key) {
+			this.key = key;
+		}
+
+		@Override
+		public Iterator<V> iterator() {
+			Object[] values = map.get(key);
+			return new Iterator<V>() {
+				private int index;
+				private boolean removable;
+				private int expectedModCount = modCount;
+
+				@Override
+				public boolean hasNext() {
+					return values != null && index < values.length && values[index] != null;
+				}
+
+				@SuppressWarnings("unchecked")
+				@Override
+				public V next() {
+					if (modCount != expectedModCount) {
+						throw new ConcurrentModificationException();
+					}
+					if (!hasNext()) {
+						throw new NoSuchElementException();
+					}
+					removable = true;
+					return (V) values[index++];
+				}
+
+				@SuppressWarnings("unchecked")
+				@Override
+				public void remove() {
+					if (!removable) {
+						throw new IllegalStateException();
+					}
+					if (modCount != expectedModCount) {
+						throw new ConcurrentModificationException();
+					}
+					Object removed = values[--index];
+					boolean last = index == 0 && (values.length == 1 || values[1] == null);
+					CustomMultiMap.this.remove(key, (V) removed);
+					if (last) {
+						index = values.length;
+					}
+					removable = false;
+					expectedModCount = modCount;
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			Object[] values = map.get(key);
+			return values == null ? 0 : count(values);
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			Object[] values = o == null ? null : map.get(key);
+			return values != null && indexOf(values, o) >= 0;
+		}
+
+		@Override
+		public boolean add(V value) {
+			CustomMultiMap.this.put(key, value);
+			return true;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public boolean remove(Object o) {
+			return o != null && CustomMultiMap.this.remove(key, (V) o);
+		}
+
+		@Override
+		public void clear() {
+			CustomMultiMap.this.removeAll(key);
+		}
+	}
+
+	/**
+	 * Walks the values of the keys that the spliterator of the CustomMap
+	 * returns and splits with it.
+	 */
+	private static final class EntrySpliterator<K, V> implements Spliterator<Map.Entry<K, V>> {
+		private final Spliterator<Map.Entry<K, Object[]>> keys;
+		private final Consumer<Map.Entry<K, Object[]>> load = pair -> {
+			key = pair.getKey();
+			values = pair.getValue();
+			index = 0;
+		};
+		private K key;
+		private Object[] values;
+		private int index;
+
+		EntrySpliterator(Spliterator<Map.Entry<K, Object[]>> keys) {
+			this.keys = keys;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		public boolean tryAdvance(Consumer<? super Map.Entry<K, V>> action) {
+			while (values == null || index == values.length || values[index] == null) {
+				if (!keys.tryAdvance(load)) {
+					return false;
+				}
+			}
+			action.accept(new AbstractMap.SimpleImmutableEntry<>(key, (V) values[index++]));
+			return true;
+		}
+
+		@Override
+		public Spliterator<Map.Entry<K, V>> trySplit() {
+			Spliterator<Map.Entry<K, Object[]>> prefix = keys.trySplit();
+			return prefix == null ? null : new EntrySpliterator<>(prefix);
+		}
+
+		@Override
+		public long estimateSize() {
+			return keys.estimateSize();
+		}
+
+		@Override
+		public int characteristics() {
+			return Spliterator.NONNULL;
+		}
+	}
+
+}
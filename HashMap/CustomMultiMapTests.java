@@ -0,0 +1,143 @@
+package HashMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+public class CustomMultiMapTests extends TestCase {
+	private CustomMultiMap<String, Integer> map;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		this.map = new CustomMultiMap<>();
+	}
+
+	@Test
+	public void testPutAndGet() {
+		for (int i = 0; i < 10000; i++) {
+			map.put("Key" + (i % 100), i);
+		}
+		assertEquals(10000, map.size());
+		assertEquals(100, map.keyCount());
+		Collection<Integer> values = map.get("Key7");
+		assertEquals(100, values.size());
+		int expected = 7;
+		for (int value : values) {
+			assertEquals(expected, value);
+			expected += 100;
+		}
+		assertTrue(values.contains(907));
+		assertFalse(values.contains(908));
+		assertTrue(map.get("Missing").isEmpty());
+	}
+
+	@Test
+	public void testViewFollowsChanges() {
+		Collection<Integer> values = map.get("Hack");
+		assertTrue(values.isEmpty());
+		map.put("Hack", 5);
+		map.put("Hack", 5);
+		map.put("Hack", 6);
+		assertEquals(Arrays.asList(5, 5, 6), new ArrayList<>(values));
+		values.add(7);
+		assertTrue(map.containsEntry("Hack", 7));
+		assertTrue(values.remove(5));
+		assertEquals(Arrays.asList(5, 6, 7), new ArrayList<>(values));
+		for (Iterator<Integer> it = values.iterator(); it.hasNext();) {
+			if (it.next() != 6) {
+				it.remove();
+			}
+		}
+		assertEquals(Collections.singletonList(6), new ArrayList<>(values));
+		assertEquals(1, map.size());
+		values.clear();
+		assertFalse(map.containsKey("Hack"));
+		assertTrue(map.isEmpty());
+	}
+
+	@Test
+	public void testRemove() {
+		map.put("Hack", 5);
+		map.put("Hack", 6);
+		map.put("Levski", 52);
+		assertTrue(map.remove("Hack", 5));
+		assertFalse(map.remove("Hack", 5));
+		assertFalse(map.remove("Iniesta", 5));
+		assertTrue(map.remove("Levski", 52));
+		assertFalse(map.containsKey("Levski"));
+		assertEquals(1, map.size());
+		assertEquals(1, map.keyCount());
+	}
+
+	@Test
+	public void testRemoveAll() {
+		for (int i = 0; i < 10; i++) {
+			map.put("Hack", i);
+		}
+		map.put("Levski", 52);
+		assertEquals(Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7, 8, 9), map.removeAll("Hack"));
+		assertTrue(map.removeAll("Hack").isEmpty());
+		assertEquals(1, map.size());
+		assertFalse(map.containsKey("Hack"));
+	}
+
+	@Test
+	public void testEntries() {
+		for (int i = 0; i < 100000; i++) {
+			map.put("Key" + (i % 1000), i);
+		}
+		long expected = 100000L * 99999 / 2;
+		assertEquals(expected, map.entries().mapToLong(Map.Entry::getValue).sum());
+		assertEquals(expected, map.entries().parallel().mapToLong(Map.Entry::getValue).sum());
+		assertEquals(100000, map.entries().count());
+		List<Integer> values = map.entries().filter(pair -> pair.getKey().equals("Key3")).map(Map.Entry::getValue)
+				.collect(Collectors.toList());
+		assertEquals(100, values.size());
+		assertEquals((Integer) 3, values.get(0));
+		long[] sum = new long[1];
+		map.forEach((key, value) -> sum[0] += value);
+		assertEquals(expected, sum[0]);
+	}
+
+	@Test
+	public void testKeySetRemove() {
+		map.put("k", 1);
+		map.put("k", 2);
+		map.put("Hack", 5);
+		assertTrue(map.keySet().remove("k"));
+		assertFalse(map.keySet().remove("k"));
+		assertEquals(1, map.size());
+		assertEquals(1, map.keyCount());
+		map.put("k", 3);
+		map.put("k", 4);
+		for (Iterator<String> it = map.keySet().iterator(); it.hasNext();) {
+			if (it.next().equals("k")) {
+				it.remove();
+			}
+		}
+		assertEquals(1, map.size());
+		assertFalse(map.containsKey("k"));
+		assertEquals(Collections.singleton("Hack"), map.keySet());
+	}
+
+	@Test
+	public void testClear() {
+		map.put("Hack", 5);
+		map.put("Iniesta", 25);
+		map.clear();
+		assertEquals(0, map.size());
+		assertEquals(0, map.keyCount());
+		assertEquals(0, map.entries().count());
+	}
+
+}
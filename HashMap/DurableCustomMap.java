@@ -0,0 +1,755 @@
+package HashMap;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+import java.util.zip.CRC32;
+
+/**
+ *
+ * A {@link CustomMap} whose changes survive a crash. Every put, remove,
+ * replace and clear is applied to the map and appended as a record to a
+ * write-ahead log in the given directory, and a checkpoint writes all of the
+ * pairs to a file and deletes the logs it covers. Opening the directory again
+ * loads the last checkpoint and replays the logs after it; a record that was
+ * only partly written when the process died is recognized by its checksum and
+ * dropped. The keys and the values are written with the given {@link Codec}s.
+ * The map does not allow null keys or values and all of its methods are
+ * thread-safe.
+ *
+ * The records are collected in memory and written in groups. With
+ * FsyncPolicy.ALWAYS a change returns only after its record is on the disk,
+ * but one thread writes and forces the records of all threads that are
+ * waiting, so many concurrent writers share one fsync. With INTERVAL the
+ * records are written and forced by a background thread every flush interval,
+ * so a crash loses at most the changes of the last interval. With NEVER they
+ * are written at the same pace but forcing them is left to the operating
+ * system.
+ *
+ * A record is appended before its change is applied to the map. If writing
+ * the log fails, the log is cut back to its last whole record and the records
+ * that were not written stay pending in front of newer ones, so the map and
+ * the log still agree and the next write tries them again; a change that was
+ * waiting for the write throws UncheckedIOException but is kept. Only if the
+ * log cannot be cut back does the map refuse any further change.
+ *
+ * A checkpoint starts a new log and copies the pairs while holding the lock
+ * of the map, then writes them without holding it. Checkpoints run every
+ * checkpoint interval, if one is given, and when checkpoint is called.
+ *
+ * @author Homes
+ *
+ * @param <K>
+ * @param <V>
+ */
+
+public class DurableCustomMap<K, V> implements Closeable {
+
+	public enum FsyncPolicy {
+		ALWAYS, INTERVAL, NEVER
+	}
+
+	private static final byte PUT = 1;
+	private static final byte REMOVE = 2;
+	private static final byte CLEAR = 3;
+	private static final int MAGIC = 0x434D4350;
+	private static final String CHECKPOINT = "checkpoint";
+	private static final String LOG = "log-";
+	private static final boolean WINDOWS = System.getProperty("os.name", "").startsWith("Windows");
+
+	private final CustomMap<K, V> map = new CustomMap<>();
+	private final Path directory;
+	private final Codec<K> keyCodec;
+	private final Codec<V> valueCodec;
+	private final FsyncPolicy policy;
+	private final ScheduledExecutorService executor;
+	private final Object commitLock = new Object();
+	private final Object checkpointLock = new Object();
+	private ByteBuffer pending = ByteBuffer.allocate(1 << 16);
+	private ByteBuffer writing = ByteBuffer.allocate(1 << 16);
+	private final CRC32 crc = new CRC32();
+	private FileChannel log;
+	private long generation;
+	private long appended;
+	private long durable;
+	private boolean closed;
+	private IOException broken;
+	// Wraps every log that is opened after it is set, for tests.
+	UnaryOperator<FileChannel> logWrapper = UnaryOperator.identity();
+
+	public DurableCustomMap(Path directory, Codec<K> keyCodec, Codec<V> valueCodec) throws IOException {
+		this(directory, keyCodec, valueCodec, FsyncPolicy.ALWAYS, 0, 0, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Opens the map in the given directory and recovers its pairs. The flush
+	 * interval is used by the INTERVAL and NEVER policies; a checkpoint
+	 * interval of 0 turns the background checkpoints off.
+	 *
+	 * @param directory
+	 * @param keyCodec
+	 * @param valueCodec
+	 * @param policy
+	 * @param flushInterval
+	 * @param checkpointInterval
+	 * @param unit
+	 * @throws IOException
+	 */
+	public DurableCustomMap(Path directory, Codec<K> keyCodec, Codec<V> valueCodec, FsyncPolicy policy,
+			long flushInterval, long checkpointInterval, TimeUnit unit) throws IOException {
+		if (keyCodec == null || valueCodec == null || policy == null || unit == null) {
+			throw new IllegalArgumentException("Codecs, policy and time unit cannot be null.");
+		}
+		if (flushInterval < 0 || checkpointInterval < 0 || (policy != FsyncPolicy.ALWAYS && flushInterval == 0)) {
+			throw new IllegalArgumentException("Intervals must be positive numbers.");
+		}
+		this.directory = Files.createDirectories(directory);
+		this.keyCodec = keyCodec;
+		this.valueCodec = valueCodec;
+		this.policy = policy;
+		recover();
+		if (policy != FsyncPolicy.ALWAYS || checkpointInterval > 0) {
+			executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "DurableCustomMap " + directory);
+				thread.setDaemon(true);
+				return thread;
+			});
+			if (policy != FsyncPolicy.ALWAYS) {
+				executor.scheduleWithFixedDelay(this::flushQuietly, flushInterval, flushInterval, unit);
+			}
+			if (checkpointInterval > 0) {
+				executor.scheduleWithFixedDelay(this::checkpointQuietly, checkpointInterval, checkpointInterval, unit);
+			}
+		} else {
+			executor = null;
+		}
+	}
+
+	/**
+	 * Gets the value that is associated with the given key.
+	 *
+	 * @param key
+	 * @return Type V
+	 */
+	public synchronized V get(K key) {
+		return map.get(key);
+	}
+
+	/**
+	 * Checks whether a given key has a mapping in the Map.
+	 *
+	 * @param key
+	 * @return boolean
+	 */
+	public synchronized boolean containsKey(K key) {
+		return map.containsKey(key);
+	}
+
+	/**
+	 * Returns the number of pairs in the Map.
+	 *
+	 * @return Integer
+	 */
+	public synchronized int size() {
+		return map.size();
+	}
+
+	/**
+	 * Associates the value with the key and returns the previous value or
+	 * null.
+	 *
+	 * @param key
+	 * @param value
+	 * @return Type V
+	 */
+	public V put(K key, V value) {
+		if (value == null || key == null) {
+			throw new IllegalArgumentException("Map cannot have a null value or null key.");
+		}
+		V old;
+		long sequence;
+		synchronized (this) {
+			checkOpen();
+			old = map.get(key);
+			sequence = append(PUT, key, value);
+			map.put(key, value);
+		}
+		commit(sequence);
+		return old;
+	}
+
+	/**
+	 * Removes the pair that is associated with the given key and return its
+	 * value or null if there is no such key.
+	 *
+	 * @param key
+	 * @return Type V
+	 */
+	public V remove(K key) {
+		if (key == null) {
+			throw new IllegalArgumentException("HashMap cannot have null key.");
+		}
+		V old;
+		long sequence;
+		synchronized (this) {
+			checkOpen();
+			old = map.get(key);
+			if (old == null) {
+				return null;
+			}
+			sequence = append(REMOVE, key, null);
+			map.remove(key);
+		}
+		commit(sequence);
+		return old;
+	}
+
+	/**
+	 * If the map contains the given key, replace its own oldValue that is
+	 * mapped to, with the given value. Returns the oldValue or null.
+	 *
+	 * @param key
+	 * @param value
+	 * @return Type V
+	 */
+	public V replace(K key, V value) {
+		if (key == null || value == null) {
+			throw new IllegalArgumentException("Not null keys or values.");
+		}
+		V old;
+		long sequence;
+		synchronized (this) {
+			checkOpen();
+			old = map.get(key);
+			if (old == null) {
+				return null;
+			}
+			sequence = append(PUT, key, value);
+			map.put(key, value);
+		}
+		commit(sequence);
+		return old;
+	}
+
+	/**
+	 * If there is a Pair(key, oldValue) in the map, this method replace the
+	 * oldValue with the newValue in the pair. Otherwise, does nothing and
+	 * returns false.
+	 *
+	 * @param key
+	 * @param oldValue
+	 * @param newValue
+	 * @return boolean
+	 */
+	public boolean replace(K key, V oldValue, V newValue) {
+		if (key == null || oldValue == null || newValue == null) {
+			throw new IllegalArgumentException("Not null keys or values.");
+		}
+		long sequence;
+		synchronized (this) {
+			checkOpen();
+			if (!oldValue.equals(map.get(key))) {
+				return false;
+			}
+			sequence = append(PUT, key, newValue);
+			map.put(key, newValue);
+		}
+		commit(sequence);
+		return true;
+	}
+
+	/*
+	 * Removes every pair in the map.
+	 */
+	public void clear() {
+		long sequence;
+		synchronized (this) {
+			checkOpen();
+			sequence = append(CLEAR, null, null);
+			map.clear();
+		}
+		commit(sequence);
+	}
+
+	/**
+	 * Writes and forces every record that is collected so far, whatever the
+	 * policy is.
+	 *
+	 * @throws IOException
+	 */
+	public void flush() throws IOException {
+		long sequence;
+		synchronized (this) {
+			checkOpen();
+			sequence = appended;
+		}
+		write(sequence, true);
+	}
+
+	/**
+	 * Starts a new log, writes all of the pairs to a new checkpoint and
+	 * deletes the logs before the new one.
+	 *
+	 * @throws IOException
+	 */
+	public void checkpoint() throws IOException {
+		synchronized (checkpointLock) {
+			List<K> keys;
+			List<V> values;
+			long covered;
+			synchronized (commitLock) {
+				synchronized (this) {
+					checkOpen();
+					writePending(true);
+					log.close();
+					covered = ++generation;
+					log = openLog(covered);
+					keys = new ArrayList<>(map.size());
+					values = new ArrayList<>(map.size());
+					for (Map.Entry<K, V> pair : map.entrySet()) {
+						keys.add(pair.getKey());
+						values.add(pair.getValue());
+					}
+				}
+			}
+			writeCheckpoint(covered, keys, values);
+			for (long old : logs()) {
+				if (old < covered) {
+					Files.deleteIfExists(logFile(old));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes and forces the collected records, stops the background thread
+	 * and closes the log. The map cannot be used after it is closed.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (executor != null) {
+			executor.shutdown();
+		}
+		synchronized (checkpointLock) {
+			synchronized (commitLock) {
+				synchronized (this) {
+					if (closed) {
+						return;
+					}
+					writePending(true);
+					log.close();
+					closed = true;
+				}
+			}
+		}
+	}
+
+	private void checkOpen() {
+		if (closed) {
+			throw new IllegalStateException("Map is closed.");
+		}
+	}
+
+	/**
+	 * Appends a record to the pending buffer and returns its sequence number.
+	 * Must be called while holding the lock of the map and before the map is
+	 * changed: if a codec does not write as many bytes as it announced, the
+	 * record is dropped and the change is refused.
+	 *
+	 * @param operation
+	 * @param key
+	 * @param value
+	 * @return long
+	 */
+	private long append(byte operation, K key, V value) {
+		if (broken != null) {
+			throw new IllegalStateException("Log could not be repaired after a failed write; reopen the map.", broken);
+		}
+		int keyLength = key == null ? 0 : keyCodec.sizeOf(key);
+		int valueLength = value == null ? 0 : valueCodec.sizeOf(value);
+		int length = 1 + 2 * Integer.BYTES + keyLength + valueLength;
+		ensurePending(2 * Integer.BYTES + length);
+		int start = pending.position();
+		try {
+			pending.putInt(length);
+			pending.putInt(0);
+			pending.put(operation);
+			pending.putInt(keyLength);
+			if (key != null) {
+				keyCodec.write(key, pending);
+				checkWritten("Key", pending.position() - start - 3 * Integer.BYTES - 1, keyLength);
+			}
+			pending.putInt(valueLength);
+			if (value != null) {
+				valueCodec.write(value, pending);
+				checkWritten("Value", pending.position() - start - 4 * Integer.BYTES - 1 - keyLength, valueLength);
+			}
+		} catch (RuntimeException e) {
+			pending.position(start);
+			throw e;
+		}
+		crc.reset();
+		crc.update(pending.array(), start + 2 * Integer.BYTES, length);
+		pending.putInt(start + Integer.BYTES, (int) crc.getValue());
+		return ++appended;
+	}
+
+	private void ensurePending(int length) {
+		if (pending.remaining() < length) {
+			ByteBuffer larger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + length));
+			pending.flip();
+			larger.put(pending);
+			pending = larger;
+		}
+	}
+
+	/**
+	 * Waits until the record with the given sequence number is on the disk if
+	 * the policy is ALWAYS.
+	 *
+	 * @param sequence
+	 */
+	private void commit(long sequence) {
+		if (policy == FsyncPolicy.ALWAYS) {
+			try {
+				write(sequence, true);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+	}
+
+	/**
+	 * Writes the collected records unless another thread has already written
+	 * the one with the given sequence number. Whoever gets the commit lock
+	 * first writes the records of every thread that is waiting for it.
+	 *
+	 * @param sequence
+	 * @param force
+	 * @throws IOException
+	 */
+	private void write(long sequence, boolean force) throws IOException {
+		synchronized (commitLock) {
+			if (durable >= sequence) {
+				return;
+			}
+			ByteBuffer batch;
+			long upTo;
+			synchronized (this) {
+				checkOpen();
+				batch = pending;
+				pending = writing;
+				writing = batch;
+				upTo = appended;
+			}
+			long start = log.size();
+			batch.flip();
+			try {
+				while (batch.hasRemaining()) {
+					log.write(batch);
+				}
+				if (force) {
+					log.force(false);
+				}
+			} catch (IOException | RuntimeException e) {
+				repair(start, e);
+				synchronized (this) {
+					batch.rewind();
+					ByteBuffer restored = ByteBuffer
+							.allocate(Math.max(pending.capacity(), batch.limit() + pending.position()));
+					restored.put(batch);
+					pending.flip();
+					restored.put(pending);
+					pending = restored;
+				}
+				batch.clear();
+				throw e;
+			}
+			batch.clear();
+			durable = upTo;
+		}
+	}
+
+	/**
+	 * Writes the pending records straight from the pending buffer. Must be
+	 * called while holding the commit lock and the lock of the map.
+	 *
+	 * @param force
+	 * @throws IOException
+	 */
+	private void writePending(boolean force) throws IOException {
+		long start = log.size();
+		pending.flip();
+		try {
+			while (pending.hasRemaining()) {
+				log.write(pending);
+			}
+			if (force) {
+				log.force(false);
+			}
+		} catch (IOException | RuntimeException e) {
+			repair(start, e);
+			pending.position(pending.limit());
+			pending.limit(pending.capacity());
+			throw e;
+		}
+		pending.clear();
+		durable = appended;
+	}
+
+	/**
+	 * Cuts the log back to the given size after a failed write, so no torn
+	 * record is left in front of the ones that are written later. The records
+	 * of the failed write stay pending and the next write tries them again.
+	 * If the log cannot be cut, the map refuses any further change.
+	 *
+	 * @param size
+	 * @param failure
+	 */
+	private void repair(long size, Exception failure) {
+		try {
+			log.truncate(size);
+			log.position(size);
+		} catch (IOException | RuntimeException e) {
+			failure.addSuppressed(e);
+			synchronized (this) {
+				broken = failure instanceof IOException ? (IOException) failure : new IOException(failure);
+			}
+		}
+	}
+
+	private void flushQuietly() {
+		try {
+			long sequence;
+			synchronized (this) {
+				if (closed) {
+					return;
+				}
+				sequence = appended;
+			}
+			write(sequence, policy == FsyncPolicy.INTERVAL);
+		} catch (IOException | IllegalStateException e) {
+			// The next flush or close tries again.
+		}
+	}
+
+	private void checkpointQuietly() {
+		try {
+			checkpoint();
+		} catch (IOException | IllegalStateException e) {
+			// The logs are kept, so nothing is lost.
+		}
+	}
+
+	/**
+	 * Loads the checkpoint, replays the logs that it does not cover and opens
+	 * a new log after them.
+	 *
+	 * @throws IOException
+	 */
+	private void recover() throws IOException {
+		long covered = readCheckpoint();
+		long last = covered;
+		for (long old : logs()) {
+			if (old >= covered) {
+				replay(logFile(old));
+			}
+			last = Math.max(last, old);
+		}
+		generation = last + 1;
+		log = openLog(generation);
+	}
+
+	/**
+	 * Loads the pairs of the checkpoint into the map and returns the first
+	 * log that it does not cover, or 0 if there is no checkpoint.
+	 *
+	 * @return long
+	 * @throws IOException
+	 */
+	private long readCheckpoint() throws IOException {
+		Path file = directory.resolve(CHECKPOINT);
+		if (!Files.exists(file)) {
+			return 0;
+		}
+		ByteBuffer source = ByteBuffer.wrap(Files.readAllBytes(file));
+		if (source.remaining() < Integer.BYTES + Long.BYTES + Integer.BYTES || source.getInt() != MAGIC) {
+			throw new IOException("File " + file + " is not a checkpoint.");
+		}
+		long covered = source.getLong();
+		int size = source.getInt();
+		for (int i = 0; i < size; i++) {
+			K key = keyCodec.read(source, source.getInt());
+			V value = valueCodec.read(source, source.getInt());
+			map.put(key, value);
+		}
+		return covered;
+	}
+
+	/**
+	 * Writes the pairs to a temporary file, forces it and moves it over the
+	 * checkpoint, so a crash leaves either the old or the new checkpoint.
+	 *
+	 * @param covered
+	 * @param keys
+	 * @param values
+	 * @throws IOException
+	 */
+	private void writeCheckpoint(long covered, List<K> keys, List<V> values) throws IOException {
+		Path temporary = directory.resolve(CHECKPOINT + ".tmp");
+		try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+			out.writeInt(MAGIC);
+			out.writeLong(covered);
+			out.writeInt(keys.size());
+			ByteBuffer scratch = ByteBuffer.allocate(64);
+			for (int i = 0; i < keys.size(); i++) {
+				scratch = writeEncoded(out, scratch, keyCodec, keys.get(i));
+				scratch = writeEncoded(out, scratch, valueCodec, values.get(i));
+			}
+			out.flush();
+			channel.force(true);
+		}
+		Files.move(temporary, directory.resolve(CHECKPOINT), StandardCopyOption.ATOMIC_MOVE,
+				StandardCopyOption.REPLACE_EXISTING);
+		forceDirectory();
+	}
+
+	private static <T> ByteBuffer writeEncoded(DataOutputStream out, ByteBuffer scratch, Codec<T> codec, T value)
+			throws IOException {
+		int length = codec.sizeOf(value);
+		if (scratch.capacity() < length) {
+			scratch = ByteBuffer.allocate(Math.max(length, scratch.capacity() * 2));
+		}
+		scratch.clear();
+		codec.write(value, scratch);
+		checkWritten("Codec", scratch.position(), length);
+		out.writeInt(length);
+		out.write(scratch.array(), 0, length);
+		return scratch;
+	}
+
+	private static void checkWritten(String codec, int written, int length) {
+		if (written != length) {
+			throw new IllegalStateException(codec + " codec wrote " + written + " bytes instead of " + length + ".");
+		}
+	}
+
+	/**
+	 * Applies the records of the given log to the map, up to the first one
+	 * that is incomplete or damaged. Only the last record can have been torn
+	 * by a crash, so a damaged record with more records after it means the
+	 * log itself is broken.
+	 *
+	 * @param file
+	 * @throws IOException
+	 */
+	private void replay(Path file) throws IOException {
+		ByteBuffer source = ByteBuffer.wrap(Files.readAllBytes(file));
+		CRC32 check = new CRC32();
+		try {
+			while (source.remaining() >= 2 * Integer.BYTES) {
+				int length = source.getInt();
+				int checksum = source.getInt();
+				if (length < 1 + 2 * Integer.BYTES || length > source.remaining()) {
+					return;
+				}
+				check.reset();
+				check.update(source.array(), source.position(), length);
+				if ((int) check.getValue() != checksum) {
+					if (source.position() + length < source.limit()) {
+						throw new IOException("Log " + file + " is damaged at byte "
+								+ (source.position() - 2 * Integer.BYTES) + ".");
+					}
+					return;
+				}
+				byte operation = source.get();
+				int keyLength = source.getInt();
+				K key = operation == CLEAR ? null : keyCodec.read(source, keyLength);
+				int valueLength = source.getInt();
+				V value = operation == PUT ? valueCodec.read(source, valueLength) : null;
+				if (operation == PUT) {
+					map.put(key, value);
+				} else if (operation == REMOVE) {
+					map.remove(key);
+				} else {
+					map.clear();
+				}
+			}
+		} catch (RuntimeException e) {
+			throw new IOException("Log " + file + " cannot be replayed.", e);
+		}
+	}
+
+	/**
+	 * Returns the generations of the logs in the directory in order.
+	 *
+	 * @return List<Long>
+	 * @throws IOException
+	 */
+	private List<Long> logs() throws IOException {
+		List<Long> logs = new ArrayList<>();
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, LOG + "*")) {
+			for (Path file : files) {
+				try {
+					logs.add(Long.parseLong(file.getFileName().toString().substring(LOG.length())));
+				} catch (NumberFormatException e) {
+					// Not a log of the map.
+				}
+			}
+		}
+		logs.sort(null);
+		return logs;
+	}
+
+	private Path logFile(long generation) {
+		return directory.resolve(LOG + generation);
+	}
+
+	private FileChannel openLog(long generation) throws IOException {
+		FileChannel channel = logWrapper.apply(FileChannel.open(logFile(generation), StandardOpenOption.CREATE_NEW,
+				StandardOpenOption.WRITE, StandardOpenOption.APPEND));
+		try {
+			forceDirectory();
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+		return channel;
+	}
+
+	/**
+	 * Forces the entries of the directory, so a new log or a moved checkpoint
+	 * is on the disk before anything depends on it. Windows cannot open a
+	 * directory and makes the entries durable by itself.
+	 *
+	 * @throws IOException
+	 */
+	private void forceDirectory() throws IOException {
+		if (WINDOWS) {
+			return;
+		}
+		try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+			channel.force(true);
+		}
+	}
+
+}
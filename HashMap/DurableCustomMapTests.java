@@ -0,0 +1,380 @@
+package HashMap;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import HashMap.DurableCustomMap.FsyncPolicy;
+import junit.framework.TestCase;
+
+public class DurableCustomMapTests extends TestCase {
+	private Path directory;
+	private DurableCustomMap<String, Integer> map;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		this.directory = Files.createTempDirectory("durable");
+		this.map = new DurableCustomMap<>(directory, Codec.STRING, Codec.INTEGER);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		map.close();
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+			for (Path file : files) {
+				Files.delete(file);
+			}
+		}
+		Files.delete(directory);
+		super.tearDown();
+	}
+
+	private void reopen() throws IOException {
+		map.close();
+		map = new DurableCustomMap<>(directory, Codec.STRING, Codec.INTEGER);
+	}
+
+	@Test
+	public void testRecoverFromLog() throws IOException {
+		for (int i = 0; i < 1000; i++) {
+			assertNull(map.put("Key" + i, i));
+		}
+		assertEquals((Integer) 5, map.put("Key5", 50));
+		assertEquals((Integer) 6, map.remove("Key6"));
+		assertEquals((Integer) 7, map.replace("Key7", 70));
+		assertTrue(map.replace("Key8", 8, 80));
+		assertFalse(map.replace("Key9", 8, 90));
+		reopen();
+		assertEquals(999, map.size());
+		assertEquals((Integer) 50, map.get("Key5"));
+		assertNull(map.get("Key6"));
+		assertEquals((Integer) 70, map.get("Key7"));
+		assertEquals((Integer) 80, map.get("Key8"));
+		assertEquals((Integer) 9, map.get("Key9"));
+	}
+
+	@Test
+	public void testClear() throws IOException {
+		map.put("Hack", 5);
+		map.clear();
+		map.put("Other", 6);
+		reopen();
+		assertEquals(1, map.size());
+		assertEquals((Integer) 6, map.get("Other"));
+	}
+
+	@Test
+	public void testCheckpoint() throws IOException {
+		for (int i = 0; i < 1000; i++) {
+			map.put("Key" + i, i);
+		}
+		map.checkpoint();
+		assertEquals(1, logs().size());
+		map.put("After", 1);
+		map.remove("Key0");
+		reopen();
+		assertEquals(1000, map.size());
+		assertEquals((Integer) 1, map.get("After"));
+		assertNull(map.get("Key0"));
+		assertEquals((Integer) 999, map.get("Key999"));
+		map.checkpoint();
+		reopen();
+		assertEquals(1000, map.size());
+	}
+
+	@Test
+	public void testTornRecord() throws IOException {
+		map.put("Hack", 5);
+		map.put("Lost", 6);
+		map.close();
+		List<Path> logs = logs();
+		Path last = logs.get(logs.size() - 1);
+		try (FileChannel channel = FileChannel.open(last, StandardOpenOption.WRITE)) {
+			channel.truncate(channel.size() - 3);
+			channel.write(ByteBuffer.wrap(new byte[] { 1, 2, 3 }), channel.size());
+		}
+		map = new DurableCustomMap<>(directory, Codec.STRING, Codec.INTEGER);
+		assertEquals((Integer) 5, map.get("Hack"));
+		assertNull(map.get("Lost"));
+		map.put("New", 7);
+		reopen();
+		assertEquals((Integer) 7, map.get("New"));
+		assertEquals(2, map.size());
+	}
+
+	@Test
+	public void testDamagedRecordBeforeOthers() throws IOException {
+		map.put("Hack", 5);
+		map.put("Lost", 6);
+		map.put("Next", 7);
+		map.close();
+		List<Path> logs = logs();
+		Path last = logs.get(logs.size() - 1);
+		try (FileChannel channel = FileChannel.open(last, StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.wrap(new byte[] { 1 }), channel.size() / 2);
+		}
+		try {
+			map = new DurableCustomMap<>(directory, Codec.STRING, Codec.INTEGER);
+			fail();
+		} catch (IOException e) {
+			assertTrue(e.getMessage().contains("is damaged"));
+		}
+		Files.delete(last);
+		map = new DurableCustomMap<>(directory, Codec.STRING, Codec.INTEGER);
+	}
+
+	@Test
+	public void testCodecWritesWrongLength() throws IOException {
+		Codec<String> wrong = new Codec<String>() {
+			@Override
+			public int sizeOf(String value) {
+				return Codec.STRING.sizeOf(value) + (value.startsWith("Bad") ? 2 : 0);
+			}
+
+			@Override
+			public void write(String value, ByteBuffer target) {
+				Codec.STRING.write(value, target);
+			}
+
+			@Override
+			public String read(ByteBuffer source, int length) {
+				return Codec.STRING.read(source, length);
+			}
+		};
+		map.close();
+		map = new DurableCustomMap<>(directory, wrong, Codec.INTEGER);
+		map.put("x", 1);
+		try {
+			map.put("Bad", 2);
+			fail();
+		} catch (IllegalStateException e) {
+			assertEquals("Key codec wrote 3 bytes instead of 5.", e.getMessage());
+		}
+		assertNull(map.get("Bad"));
+		map.put("y", 3);
+		map.put("z", 4);
+		map.checkpoint();
+		map.put("w", 5);
+		reopen();
+		assertEquals(4, map.size());
+		assertEquals((Integer) 4, map.get("z"));
+		assertEquals((Integer) 5, map.get("w"));
+	}
+
+	@Test
+	public void testUnpairedSurrogate() throws IOException {
+		map.put("x", 1);
+		try {
+			map.put("a\uD800b", 2);
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+		map.put("y", 3);
+		reopen();
+		assertEquals(2, map.size());
+		assertNull(map.get("a\uD800b"));
+		assertEquals((Integer) 3, map.get("y"));
+	}
+
+	@Test
+	public void testFailedWrite() throws IOException {
+		FailingChannel[] wrapped = new FailingChannel[1];
+		map.logWrapper = channel -> wrapped[0] = new FailingChannel(channel);
+		map.checkpoint();
+		map.put("Hack", 5);
+		wrapped[0].failing = true;
+		try {
+			map.put("Lost", 6);
+			fail();
+		} catch (UncheckedIOException e) {
+		}
+		assertEquals((Integer) 6, map.get("Lost"));
+		try {
+			map.remove("Hack");
+			fail();
+		} catch (UncheckedIOException e) {
+		}
+		wrapped[0].failing = false;
+		map.put("New", 7);
+		reopen();
+		assertEquals(2, map.size());
+		assertNull(map.get("Hack"));
+		assertEquals((Integer) 6, map.get("Lost"));
+		assertEquals((Integer) 7, map.get("New"));
+	}
+
+	@Test
+	public void testConcurrentGroupCommit() throws Exception {
+		Thread[] threads = new Thread[8];
+		for (int t = 0; t < threads.length; t++) {
+			final int id = t;
+			threads[t] = new Thread(() -> {
+				for (int i = 0; i < 200; i++) {
+					map.put("Key" + id + "-" + i, i);
+				}
+			});
+			threads[t].start();
+		}
+		for (Thread thread : threads) {
+			thread.join();
+		}
+		reopen();
+		assertEquals(1600, map.size());
+	}
+
+	@Test
+	public void testIntervalPolicy() throws IOException {
+		map.close();
+		map = new DurableCustomMap<>(directory, Codec.STRING, Codec.INTEGER, FsyncPolicy.INTERVAL, 10, 50,
+				TimeUnit.MILLISECONDS);
+		for (int i = 0; i < 10000; i++) {
+			map.put("Key" + i, i);
+		}
+		reopen();
+		assertEquals(10000, map.size());
+	}
+
+	@Test
+	public void testClosed() throws IOException {
+		map.close();
+		try {
+			map.put("Hack", 5);
+			fail();
+		} catch (IllegalStateException e) {
+		}
+	}
+
+	private List<Path> logs() throws IOException {
+		List<Path> logs = new ArrayList<>();
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "log-*")) {
+			for (Path file : files) {
+				logs.add(file);
+			}
+		}
+		logs.sort((a, b) -> Long.compare(Long.parseLong(a.getFileName().toString().substring(4)),
+				Long.parseLong(b.getFileName().toString().substring(4))));
+		return logs;
+	}
+
+	/**
+	 * A log that writes only part of a buffer and then fails while failing is
+	 * set.
+	 */
+	private static final class FailingChannel extends FileChannel {
+		private final FileChannel channel;
+		volatile boolean failing;
+
+		FailingChannel(FileChannel channel) {
+			this.channel = channel;
+		}
+
+		@Override
+		public int write(ByteBuffer src) throws IOException {
+			if (failing) {
+				ByteBuffer part = src.duplicate();
+				part.limit(part.position() + Math.min(part.remaining(), 5));
+				src.position(src.position() + channel.write(part));
+				throw new IOException("No space left on device");
+			}
+			return channel.write(src);
+		}
+
+		@Override
+		public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public int read(ByteBuffer dst) throws IOException {
+			return channel.read(dst);
+		}
+
+		@Override
+		public long read(ByteBuffer[] dsts, int offset, int length) throws IOException {
+			return channel.read(dsts, offset, length);
+		}
+
+		@Override
+		public long position() throws IOException {
+			return channel.position();
+		}
+
+		@Override
+		public FileChannel position(long newPosition) throws IOException {
+			channel.position(newPosition);
+			return this;
+		}
+
+		@Override
+		public long size() throws IOException {
+			return channel.size();
+		}
+
+		@Override
+		public FileChannel truncate(long size) throws IOException {
+			channel.truncate(size);
+			return this;
+		}
+
+		@Override
+		public void force(boolean metaData) throws IOException {
+			channel.force(metaData);
+		}
+
+		@Override
+		public long transferTo(long position, long count, WritableByteChannel target) throws IOException {
+			return channel.transferTo(position, count, target);
+		}
+
+		@Override
+		public long transferFrom(ReadableByteChannel src, long position, long count) throws IOException {
+			return channel.transferFrom(src, position, count);
+		}
+
+		@Override
+		public int read(ByteBuffer dst, long position) throws IOException {
+			return channel.read(dst, position);
+		}
+
+		@Override
+		public int write(ByteBuffer src, long position) throws IOException {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public MappedByteBuffer map(MapMode mode, long position, long size) throws IOException {
+			return channel.map(mode, position, size);
+		}
+
+		@Override
+		public FileLock lock(long position, long size, boolean shared) throws IOException {
+			return channel.lock(position, size, shared);
+		}
+
+		@Override
+		public FileLock tryLock(long position, long size, boolean shared) throws IOException {
+			return channel.tryLock(position, size, shared);
+		}
+
+		@Override
+		protected void implCloseChannel() throws IOException {
+			channel.close();
+		}
+	}
+
+}
@@ -0,0 +1,340 @@
+package HashMap;
+
+import java.io.Closeable;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ *
+ * A map whose pairs expire a fixed time after they were written, after they
+ * were last read, or both. A pair can also be put with a time of its own. The
+ * pairs are kept in a {@link CustomMap}, which does not allow null keys or
+ * values, and all of the methods are synchronized.
+ *
+ * Every pair is also linked into a hierarchical timing wheel: five levels of
+ * buckets that span about a second, a minute, an hour, a day and several
+ * days. Advancing the wheel only looks at the buckets whose time has come,
+ * and the pairs in them either expire or move to a finer level, so finding
+ * the expired pairs costs O(1) amortized per pair instead of a scan of the
+ * map. A get never relinks its pair; it only moves the deadline in the pair
+ * forward, and the wheel puts the pair into a later bucket once its old bucket
+ * comes. So a get neither allocates nor touches the wheel.
+ *
+ * A pair that has expired is never returned. Its memory is reclaimed when it
+ * is read, when the wheel is advanced by a put, size or cleanUp, or by the
+ * optional sweeper, which advances the wheel about once a second until the
+ * map is closed.
+ *
+ * @author Homes
+ *
+ * @param <K>
+ * @param <V>
+ */
+
+public class ExpiringCustomMap<K, V> implements Closeable {
+
+	private static final int[] BUCKETS = { 64, 64, 32, 4, 1 };
+	private static final int[] SHIFT = { 30, 36, 42, 46, 47 };
+	private static final long[] SPANS = { 1L << 30, 1L << 36, 1L << 42, 1L << 46, 1L << 47, 1L << 49 };
+	private static final long NEVER = Long.MAX_VALUE;
+
+	private static final class Node<K, V> {
+		final K key;
+		V value;
+		long writeDeadline;
+		long deadline;
+		Node<K, V> prev;
+		Node<K, V> next;
+
+		Node(K key, V value) {
+			this.key = key;
+			this.value = value;
+			this.prev = this;
+			this.next = this;
+		}
+	}
+
+	private final CustomMap<K, Node<K, V>> data = new CustomMap<>();
+	private final Node<K, V>[][] wheel;
+	private final long expireAfterWrite;
+	private final long expireAfterAccess;
+	private final LongSupplier ticker;
+	private final long origin;
+	private final ScheduledFuture<?> sweeper;
+	private long nanos;
+
+	public ExpiringCustomMap(long expireAfterWrite, long expireAfterAccess, TimeUnit unit) {
+		this(expireAfterWrite, expireAfterAccess, unit, System::nanoTime, null);
+	}
+
+	/**
+	 * Creates a map whose pairs expire the given time after they were written
+	 * or last read. A time of 0 turns that kind of expiration off. The ticker
+	 * returns the current time in nanoseconds. If the executor is not null,
+	 * the map sweeps the expired pairs with it until it is closed.
+	 *
+	 * @param expireAfterWrite
+	 * @param expireAfterAccess
+	 * @param unit
+	 * @param ticker
+	 * @param executor
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public ExpiringCustomMap(long expireAfterWrite, long expireAfterAccess, TimeUnit unit, LongSupplier ticker,
+			ScheduledExecutorService executor) {
+		if (expireAfterWrite < 0 || expireAfterAccess < 0) {
+			throw new IllegalArgumentException("Expiration time cannot be a negative number.");
+		}
+		if (unit == null || ticker == null) {
+			throw new IllegalArgumentException("Time unit and ticker cannot be null.");
+		}
+		this.expireAfterWrite = expireAfterWrite == 0 ? NEVER : unit.toNanos(expireAfterWrite);
+		this.expireAfterAccess = expireAfterAccess == 0 ? NEVER : unit.toNanos(expireAfterAccess);
+		this.ticker = ticker;
+		this.origin = ticker.getAsLong();
+		wheel = new Node[BUCKETS.length][];
+		for (int i = 0; i < BUCKETS.length; i++) {
+			wheel[i] = new Node[BUCKETS[i]];
+			for (int j = 0; j < BUCKETS[i]; j++) {
+				wheel[i][j] = new Node<>(null, null);
+			}
+		}
+		sweeper = executor == null ? null
+				: executor.scheduleWithFixedDelay(this::cleanUp, SPANS[0], SPANS[0], TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Gets the value that is associated with the given key, or null if there
+	 * is no such key or its pair has expired.
+	 *
+	 * @param key
+	 * @return Type V
+	 */
+	public synchronized V get(K key) {
+		if (key == null) {
+			throw new IllegalArgumentException("No null keys.");
+		}
+		Node<K, V> node = data.get(key);
+		if (node == null) {
+			return null;
+		}
+		long now = now();
+		if (node.deadline <= now) {
+			expire(node);
+			return null;
+		}
+		if (expireAfterAccess != NEVER) {
+			node.deadline = Math.min(node.writeDeadline, add(now, expireAfterAccess));
+		}
+		return node.value;
+	}
+
+	/**
+	 * Associates the value with the key and returns the previous value or null
+	 * if there was none or it has expired.
+	 *
+	 * @param key
+	 * @param value
+	 * @return Type V
+	 */
+	public V put(K key, V value) {
+		return put(key, value, expireAfterWrite, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Associates the value with the key, to expire the given time after now
+	 * instead of the write time of the map. Returns the previous value or null
+	 * if there was none or it has expired.
+	 *
+	 * @param key
+	 * @param value
+	 * @param duration
+	 * @param unit
+	 * @return Type V
+	 */
+	public synchronized V put(K key, V value, long duration, TimeUnit unit) {
+		if (value == null || key == null) {
+			throw new IllegalArgumentException("Map cannot have a null value or null key.");
+		}
+		if (duration < 0) {
+			throw new IllegalArgumentException("Expiration time cannot be a negative number.");
+		}
+		long now = now();
+		advance(now);
+		Node<K, V> node = data.get(key);
+		V old = null;
+		if (node == null) {
+			node = new Node<>(key, value);
+			data.put(key, node);
+		} else {
+			if (node.deadline > now) {
+				old = node.value;
+			}
+			node.value = value;
+			detach(node);
+		}
+		node.writeDeadline = duration == NEVER ? NEVER : add(now, unit.toNanos(duration));
+		node.deadline = Math.min(node.writeDeadline, add(now, expireAfterAccess));
+		schedule(node);
+		return old;
+	}
+
+	/**
+	 * Removes the pair that is associated with the given key and return its
+	 * value or null if there is no such key or its pair has expired.
+	 *
+	 * @param key
+	 * @return Type V
+	 */
+	public synchronized V remove(K key) {
+		if (key == null) {
+			throw new IllegalArgumentException("HashMap cannot have null key.");
+		}
+		Node<K, V> node = data.remove(key);
+		if (node == null) {
+			return null;
+		}
+		detach(node);
+		return node.deadline > now() ? node.value : null;
+	}
+
+	/**
+	 * Checks whether the map contains the given key and its pair has not
+	 * expired. Does not count as a read.
+	 *
+	 * @param key
+	 * @return boolean
+	 */
+	public synchronized boolean containsKey(K key) {
+		Node<K, V> node = key == null ? null : data.get(key);
+		return node != null && node.deadline > now();
+	}
+
+	/**
+	 * Returns the number of pairs in the map. Pairs that expired less than
+	 * about a second ago may still be counted.
+	 *
+	 * @return Integer
+	 */
+	public synchronized int size() {
+		advance(now());
+		return data.size();
+	}
+
+	/*
+	 * Removes every pair in the map.
+	 */
+	public synchronized void clear() {
+		data.clear();
+		for (Node<K, V>[] level : wheel) {
+			for (Node<K, V> bucket : level) {
+				bucket.prev = bucket;
+				bucket.next = bucket;
+			}
+		}
+	}
+
+	/**
+	 * Reclaims the pairs whose buckets of the wheel have come.
+	 */
+	public synchronized void cleanUp() {
+		advance(now());
+	}
+
+	/**
+	 * Stops the sweeper. The map can still be used.
+	 */
+	@Override
+	public void close() {
+		if (sweeper != null) {
+			sweeper.cancel(false);
+		}
+	}
+
+	private long now() {
+		return ticker.getAsLong() - origin;
+	}
+
+	private static long add(long now, long duration) {
+		return duration == NEVER || now + duration < 0 ? NEVER : now + duration;
+	}
+
+	private void expire(Node<K, V> node) {
+		data.remove(node.key);
+		detach(node);
+	}
+
+	/**
+	 * Links the node into the bucket of the finest level whose span covers
+	 * the time left until its deadline. A deadline that has passed goes to the
+	 * bucket of the current time.
+	 *
+	 * @param node
+	 */
+	private void schedule(Node<K, V> node) {
+		long time = Math.max(node.deadline, nanos);
+		long left = time - nanos;
+		for (int i = 0; i < BUCKETS.length - 1; i++) {
+			if (left < SPANS[i + 1]) {
+				link(wheel[i][(int) (time >>> SHIFT[i]) & (BUCKETS[i] - 1)], node);
+				return;
+			}
+		}
+		link(wheel[BUCKETS.length - 1][0], node);
+	}
+
+	/**
+	 * Moves the wheel to the given time. On every level whose tick has
+	 * changed, the buckets from the previous tick to the current one are
+	 * emptied; their pairs expire or are scheduled again.
+	 *
+	 * @param now
+	 */
+	private void advance(long now) {
+		long previous = nanos;
+		nanos = now;
+		for (int i = 0; i < BUCKETS.length; i++) {
+			long previousTicks = previous >>> SHIFT[i];
+			long currentTicks = now >>> SHIFT[i];
+			if (currentTicks <= previousTicks) {
+				break;
+			}
+			int mask = BUCKETS[i] - 1;
+			long steps = Math.min(1 + currentTicks - previousTicks, BUCKETS[i]);
+			for (long tick = previousTicks; tick < previousTicks + steps; tick++) {
+				Node<K, V> bucket = wheel[i][(int) tick & mask];
+				Node<K, V> node = bucket.next;
+				bucket.prev = bucket;
+				bucket.next = bucket;
+				while (node != bucket) {
+					Node<K, V> next = node.next;
+					if (node.deadline <= now) {
+						data.remove(node.key);
+						node.prev = node;
+						node.next = node;
+					} else {
+						schedule(node);
+					}
+					node = next;
+				}
+			}
+		}
+	}
+
+	private static <K, V> void link(Node<K, V> bucket, Node<K, V> node) {
+		node.prev = bucket.prev;
+		node.next = bucket;
+		bucket.prev.next = node;
+		bucket.prev = node;
+	}
+
+	private static <K, V> void detach(Node<K, V> node) {
+		node.prev.next = node.next;
+		node.next.prev = node.prev;
+		node.prev = node;
+		node.next = node;
+	}
+
+}
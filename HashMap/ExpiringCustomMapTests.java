@@ -0,0 +1,117 @@
+package HashMap;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+public class ExpiringCustomMapTests extends TestCase {
+	private long time;
+	private ExpiringCustomMap<String, Integer> map;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		this.time = 1000;
+		this.map = new ExpiringCustomMap<>(10, 0, TimeUnit.SECONDS, () -> time, null);
+	}
+
+	private void sleep(long seconds) {
+		time += TimeUnit.SECONDS.toNanos(seconds);
+	}
+
+	@Test
+	public void testExpireAfterWrite() {
+		map.put("Hack", 5);
+		sleep(9);
+		assertEquals((Integer) 5, map.get("Hack"));
+		sleep(1);
+		assertNull(map.get("Hack"));
+		assertFalse(map.containsKey("Hack"));
+		assertEquals(0, map.size());
+	}
+
+	@Test
+	public void testWriteResetsTime() {
+		map.put("Hack", 5);
+		sleep(9);
+		assertEquals((Integer) 5, map.put("Hack", 6));
+		sleep(9);
+		assertEquals((Integer) 6, map.get("Hack"));
+		sleep(1);
+		assertNull(map.put("Hack", 7));
+	}
+
+	@Test
+	public void testExpireAfterAccess() {
+		ExpiringCustomMap<String, Integer> accessed = new ExpiringCustomMap<>(0, 10, TimeUnit.SECONDS, () -> time,
+				null);
+		accessed.put("Hack", 5);
+		for (int i = 0; i < 100; i++) {
+			sleep(9);
+			assertEquals((Integer) 5, accessed.get("Hack"));
+		}
+		sleep(10);
+		assertNull(accessed.get("Hack"));
+	}
+
+	@Test
+	public void testPerEntryTime() {
+		map.put("Short", 1, 1, TimeUnit.SECONDS);
+		map.put("Long", 2, 1, TimeUnit.DAYS);
+		map.put("Default", 3);
+		sleep(2);
+		assertNull(map.get("Short"));
+		assertEquals((Integer) 2, map.get("Long"));
+		sleep(10);
+		assertNull(map.get("Default"));
+		sleep(TimeUnit.HOURS.toSeconds(23));
+		assertEquals((Integer) 2, map.get("Long"));
+		sleep(TimeUnit.HOURS.toSeconds(1));
+		assertNull(map.get("Long"));
+	}
+
+	@Test
+	public void testWheelReclaimsWithoutReads() {
+		for (int i = 0; i < 10000; i++) {
+			map.put("Key" + i, i, 1 + i % 5000, TimeUnit.SECONDS);
+		}
+		assertEquals(10000, map.size());
+		sleep(2500);
+		int size = map.size();
+		assertTrue(size >= 5000 && size <= 5100);
+		sleep(2600);
+		assertEquals(0, map.size());
+	}
+
+	@Test
+	public void testRemove() {
+		map.put("Hack", 5);
+		assertEquals((Integer) 5, map.remove("Hack"));
+		assertNull(map.remove("Hack"));
+		sleep(20);
+		assertEquals(0, map.size());
+	}
+
+	@Test
+	public void testSweeper() throws InterruptedException {
+		ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+		try (ExpiringCustomMap<String, Integer> swept = new ExpiringCustomMap<>(1, 0, TimeUnit.MILLISECONDS,
+				System::nanoTime, executor)) {
+			for (int i = 0; i < 100; i++) {
+				swept.put("Key" + i, i);
+			}
+			long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+			while (swept.containsKey("Key0") && System.nanoTime() < end) {
+				Thread.sleep(10);
+			}
+			assertFalse(swept.containsKey("Key0"));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+}
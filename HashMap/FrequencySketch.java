@@ -0,0 +1,129 @@
+package HashMap;
+
+/**
+ *
+ * A count-min sketch of 4-bit counters that estimates how often a key was
+ * seen recently, for the admission of {@link CustomCache}. Each long of the
+ * table holds 16 counters, 4 for every one of the 4 rows, and a key has one
+ * counter in each row. The estimate is the smallest of them, so it can only be
+ * too high when other keys share all of its counters.
+ *
+ * Once the number of increments reaches ten times the width of the table, all
+ * counters are halved, so keys that were popular long ago are forgotten. The
+ * table starts small and is grown by ensureCapacity as the cache holds more
+ * keys.
+ *
+ * @author Homes
+ *
+ */
+
+final class FrequencySketch {
+
+	private static final long[] SEEDS = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL,
+			0xcbf29ce484222325L };
+	private static final long RESET_MASK = 0x7777777777777777L;
+	private static final int MAXIMUM_COUNT = 15;
+
+	private long[] table;
+	private int sampleSize;
+	private int additions;
+
+	/**
+	 * Creates a sketch for about the given number of distinct keys.
+	 *
+	 * @param size
+	 */
+	FrequencySketch(long size) {
+		table = new long[widthFor(size)];
+		sampleSize = table.length * 10;
+	}
+
+	/**
+	 * Grows the table for about the given number of distinct keys if it is
+	 * smaller. The counters of a grown table start again from 0.
+	 *
+	 * @param size
+	 */
+	void ensureCapacity(long size) {
+		if (size <= table.length) {
+			return;
+		}
+		int width = widthFor(size);
+		if (width > table.length) {
+			table = new long[width];
+			sampleSize = width * 10;
+			additions = 0;
+		}
+	}
+
+	private static int widthFor(long size) {
+		int width = (int) Math.min(Math.max(size, 16), 1 << 30);
+		return Integer.highestOneBit(width - 1) << 1;
+	}
+
+	/**
+	 * Returns the estimated number of times the key was seen, at most 15.
+	 *
+	 * @param key
+	 * @return Integer
+	 */
+	int frequency(Object key) {
+		int hash = spread(key.hashCode());
+		int frequency = MAXIMUM_COUNT;
+		for (int row = 0; row < SEEDS.length; row++) {
+			frequency = Math.min(frequency, (int) (table[indexOf(hash, row)] >>> offsetOf(hash, row)) & 0xf);
+		}
+		return frequency;
+	}
+
+	/**
+	 * Counts one more occurrence of the key.
+	 *
+	 * @param key
+	 */
+	void increment(Object key) {
+		int hash = spread(key.hashCode());
+		boolean added = false;
+		for (int row = 0; row < SEEDS.length; row++) {
+			int index = indexOf(hash, row);
+			int offset = offsetOf(hash, row);
+			if (((table[index] >>> offset) & 0xf) < MAXIMUM_COUNT) {
+				table[index] += 1L << offset;
+				added = true;
+			}
+		}
+		if (added && ++additions == sampleSize) {
+			reset();
+		}
+	}
+
+	/**
+	 * Halves every counter.
+	 */
+	private void reset() {
+		for (int i = 0; i < table.length; i++) {
+			table[i] = (table[i] >>> 1) & RESET_MASK;
+		}
+		additions /= 2;
+	}
+
+	private int indexOf(int hash, int row) {
+		long h = (hash + SEEDS[row]) * SEEDS[row];
+		h += h >>> 32;
+		return (int) h & (table.length - 1);
+	}
+
+	/**
+	 * Returns the bit offset of the counter of the given row, one of the 4
+	 * counters that belong to the row.
+	 */
+	private static int offsetOf(int hash, int row) {
+		return ((row << 2) + ((hash >>> (row << 3)) & 3)) << 2;
+	}
+
+	private static int spread(int hash) {
+		hash *= 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+
+}
@@ -0,0 +1,452 @@
+package HashMap;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiConsumer;
+
+/**
+ *
+ * An immutable map for pairs that are put once and then only read, made by
+ * {@link CustomMap#freeze} or of. The keys are placed with a minimal perfect
+ * hash function in the style of CHD (compress, hash and displace): every key
+ * has a slot of its own and there are no empty slots, so a lookup hashes the
+ * key once, reads the displacement of its bucket and goes to exactly one
+ * slot, whose key is compared to make sure the key is in the map.
+ *
+ * The keys are hashed in groups of about LAMBDA keys. The groups are placed
+ * from the largest one down, each with the first displacement that moves all
+ * of its keys to free slots; a group of a single key just takes a free slot,
+ * which is kept instead of the displacement.
+ *
+ * The whole map is one image of bytes, with the pairs written by the given
+ * {@link Codec}s: a header, the displacements of the groups, the position of
+ * the pair of every slot and the pairs with their lengths. write puts the
+ * image in a file and open maps such a file back into memory, so it can be
+ * queried right away, without reading or decoding the pairs. The image must
+ * fit in 2 GB. Since nothing in it changes, the map can be read by any number
+ * of threads.
+ *
+ * @author Homes
+ *
+ * @param <K>
+ * @param <V>
+ */
+
+public final class FrozenCustomMap<K, V> {
+
+	private static final int MAGIC = 0x434D4632;
+	private static final int LAMBDA = 4;
+	private static final int MAXIMUM_DISPLACEMENT = 1 << 24;
+	private static final int MAXIMUM_SEEDS = 16;
+
+	private static final int HEADER = 32;
+	private static final int MAGIC_OFFSET = 0;
+	private static final int SIZE_OFFSET = 4;
+	private static final int BUCKETS_OFFSET = 8;
+	private static final int LENGTH_OFFSET = 12;
+	private static final int SEED_OFFSET = 16;
+
+	private final Codec<K> keyCodec;
+	private final Codec<V> valueCodec;
+	private final ByteBuffer image;
+	private final int size;
+	private final int buckets;
+	private final long seed;
+	private final int slots;
+
+	private FrozenCustomMap(ByteBuffer image, Codec<K> keyCodec, Codec<V> valueCodec) {
+		this.image = image;
+		this.keyCodec = keyCodec;
+		this.valueCodec = valueCodec;
+		this.size = image.getInt(SIZE_OFFSET);
+		this.buckets = image.getInt(BUCKETS_OFFSET);
+		this.seed = image.getLong(SEED_OFFSET);
+		this.slots = HEADER + buckets * Integer.BYTES;
+	}
+
+	/**
+	 * Builds a frozen map with all of the pairs of the given map, written with
+	 * the given codecs.
+	 *
+	 * @param map
+	 * @param keyCodec
+	 * @param valueCodec
+	 * @return FrozenCustomMap<K, V>
+	 */
+	public static <K, V> FrozenCustomMap<K, V> of(Map<? extends K, ? extends V> map, Codec<K> keyCodec,
+			Codec<V> valueCodec) {
+		if (keyCodec == null || valueCodec == null) {
+			throw new IllegalArgumentException("Codecs cannot be null.");
+		}
+		int size = map.size();
+		byte[][] keys = new byte[size][];
+		byte[][] values = new byte[size][];
+		long length = HEADER;
+		int i = 0;
+		for (Map.Entry<? extends K, ? extends V> pair : map.entrySet()) {
+			if (pair.getKey() == null || pair.getValue() == null) {
+				throw new IllegalArgumentException("Map cannot have a null value or null key.");
+			}
+			keys[i] = encode(keyCodec, pair.getKey());
+			values[i] = encode(valueCodec, pair.getValue());
+			length += 3 * Integer.BYTES + keys[i].length + values[i].length;
+			i++;
+		}
+		int buckets = Math.max(1, (size + LAMBDA - 1) / LAMBDA);
+		length += (long) buckets * Integer.BYTES;
+		if (length > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Map does not fit in an image of 2 GB.");
+		}
+
+		for (int attempt = 0; attempt < MAXIMUM_SEEDS; attempt++) {
+			long seed = ThreadLocalRandom.current().nextLong();
+			ByteBuffer image = ByteBuffer.allocate((int) length);
+			if (place(image, keys, values, buckets, seed)) {
+				image.putInt(MAGIC_OFFSET, MAGIC).putInt(SIZE_OFFSET, size).putInt(BUCKETS_OFFSET, buckets)
+						.putInt(LENGTH_OFFSET, (int) length).putLong(SEED_OFFSET, seed);
+				return new FrozenCustomMap<>(image, keyCodec, valueCodec);
+			}
+		}
+		throw new IllegalArgumentException("Keys could not be placed; the key codec may write equal bytes for different keys.");
+	}
+
+	/**
+	 * Maps the image in the given file, written by write, into memory. The
+	 * file is not read; its pages are loaded by the lookups that need them.
+	 *
+	 * @param file
+	 * @param keyCodec
+	 * @param valueCodec
+	 * @return FrozenCustomMap<K, V>
+	 * @throws IOException
+	 */
+	public static <K, V> FrozenCustomMap<K, V> open(Path file, Codec<K> keyCodec, Codec<V> valueCodec)
+			throws IOException {
+		if (keyCodec == null || valueCodec == null) {
+			throw new IllegalArgumentException("Codecs cannot be null.");
+		}
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			long length = channel.size();
+			if (length < HEADER || length > Integer.MAX_VALUE) {
+				throw new IOException("File " + file + " does not contain a frozen map.");
+			}
+			ByteBuffer image = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+			if (image.getInt(MAGIC_OFFSET) != MAGIC || image.getInt(LENGTH_OFFSET) != length) {
+				throw new IOException("File " + file + " does not contain a frozen map.");
+			}
+			return new FrozenCustomMap<>(image, keyCodec, valueCodec);
+		}
+	}
+
+	/**
+	 * Writes the image of the map to the given file and forces it to the
+	 * disk.
+	 *
+	 * @param file
+	 * @throws IOException
+	 */
+	public void write(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer source = image.duplicate();
+			source.clear();
+			while (source.hasRemaining()) {
+				channel.write(source);
+			}
+			channel.force(true);
+		}
+	}
+
+	/**
+	 * Gets the value that is associated with the given key.
+	 *
+	 * @param key
+	 * @return Type V
+	 */
+	public V get(K key) {
+		if (key == null) {
+			throw new IllegalArgumentException("No null keys.");
+		}
+		int record = find(encode(keyCodec, key));
+		if (record == 0) {
+			return null;
+		}
+		ByteBuffer source = image.duplicate();
+		int keyLength = source.getInt(record);
+		source.position(record + 2 * Integer.BYTES + keyLength);
+		return valueCodec.read(source, source.getInt(record + Integer.BYTES));
+	}
+
+	/**
+	 * If the map contains the given key, this method returns its own value.
+	 * Otherwise, it returns the defaultValue.
+	 *
+	 * @param key
+	 * @param defaultValue
+	 * @return Type V
+	 */
+	public V getOrDefault(K key, V defaultValue) {
+		V value = get(key);
+		return value == null ? defaultValue : value;
+	}
+
+	/**
+	 * Checks whether a given key has a mapping in the Map.
+	 *
+	 * @param key
+	 * @return boolean
+	 */
+	public boolean containsKey(K key) {
+		return key != null && find(encode(keyCodec, key)) != 0;
+	}
+
+	/**
+	 * Gives every pair of the map to the given action, in the order of their
+	 * slots.
+	 *
+	 * @param action
+	 */
+	public void forEach(BiConsumer<? super K, ? super V> action) {
+		ByteBuffer source = image.duplicate();
+		for (int i = 0; i < size; i++) {
+			int record = source.getInt(slots + i * Integer.BYTES);
+			int keyLength = source.getInt(record);
+			int valueLength = source.getInt(record + Integer.BYTES);
+			source.position(record + 2 * Integer.BYTES);
+			K key = keyCodec.read(source, keyLength);
+			source.position(record + 2 * Integer.BYTES + keyLength);
+			action.accept(key, valueCodec.read(source, valueLength));
+		}
+	}
+
+	/**
+	 * Returns the number of pairs in the Map.
+	 *
+	 * @return Integer
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Checks if the map contains any pair.
+	 *
+	 * @return boolean
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Returns the length of the image in bytes, which is also the length of
+	 * the file that write makes.
+	 *
+	 * @return long
+	 */
+	public long imageBytes() {
+		return image.capacity();
+	}
+
+	/**
+	 * Returns the position of the record in the slot of the given key bytes,
+	 * or 0 if the record has other bytes.
+	 *
+	 * @param key
+	 * @return Integer
+	 */
+	private int find(byte[] key) {
+		if (size == 0) {
+			return 0;
+		}
+		long hash = hash(key, seed);
+		int displacement = image.getInt(HEADER + bucketOf(hash, buckets) * Integer.BYTES);
+		int slot = displacement < 0 ? -displacement - 1 : slotOf(hash, displacement, size);
+		int record = image.getInt(slots + slot * Integer.BYTES);
+		if (image.getInt(record) != key.length) {
+			return 0;
+		}
+		int offset = record + 2 * Integer.BYTES;
+		for (int i = 0; i < key.length; i++) {
+			if (image.get(offset + i) != key[i]) {
+				return 0;
+			}
+		}
+		return record;
+	}
+
+	/**
+	 * Finds a slot for every key with the given seed and writes the
+	 * displacements, the slots and the records to the image. Returns false if
+	 * a group of keys cannot be placed, which means another seed has to be
+	 * tried.
+	 *
+	 * @param image
+	 * @param keys
+	 * @param values
+	 * @param buckets
+	 * @param seed
+	 * @return boolean
+	 */
+	private static boolean place(ByteBuffer image, byte[][] keys, byte[][] values, int buckets, long seed) {
+		int size = keys.length;
+		long[] hashes = new long[size];
+		int[] counts = new int[buckets + 1];
+		for (int i = 0; i < size; i++) {
+			hashes[i] = hash(keys[i], seed);
+			counts[bucketOf(hashes[i], buckets) + 1]++;
+		}
+
+		// Sorts the keys by their groups and the groups by their sizes.
+		int[] starts = new int[buckets + 1];
+		for (int b = 0; b < buckets; b++) {
+			starts[b + 1] = starts[b] + counts[b + 1];
+		}
+		int[] members = new int[size];
+		int[] filled = new int[buckets];
+		for (int i = 0; i < size; i++) {
+			int b = bucketOf(hashes[i], buckets);
+			members[starts[b] + filled[b]++] = i;
+		}
+		int largest = 0;
+		for (int b = 0; b < buckets; b++) {
+			largest = Math.max(largest, filled[b]);
+		}
+		int[] bySize = new int[largest + 1];
+		for (int b = 0; b < buckets; b++) {
+			bySize[filled[b]]++;
+		}
+		int[] order = new int[buckets];
+		int[] next = new int[largest + 1];
+		for (int s = largest, position = 0; s >= 0; s--) {
+			next[s] = position;
+			position += bySize[s];
+		}
+		for (int b = 0; b < buckets; b++) {
+			order[next[filled[b]]++] = b;
+		}
+
+		int[] slotOf = new int[size];
+		boolean[] taken = new boolean[size];
+		int[] group = new int[largest];
+		int free = 0;
+		for (int b : order) {
+			int count = filled[b];
+			if (count == 0) {
+				continue;
+			}
+			int displacement;
+			if (count == 1) {
+				while (taken[free]) {
+					free++;
+				}
+				group[0] = free;
+				displacement = -free - 1;
+			} else {
+				displacement = displace(hashes, members, starts[b], count, taken, group, size);
+				if (displacement < 0) {
+					return false;
+				}
+			}
+			image.putInt(HEADER + b * Integer.BYTES, displacement);
+			for (int j = 0; j < count; j++) {
+				taken[group[j]] = true;
+				slotOf[members[starts[b] + j]] = group[j];
+			}
+		}
+
+		int[] keyOf = new int[size];
+		for (int i = 0; i < size; i++) {
+			keyOf[slotOf[i]] = i;
+		}
+		int slots = HEADER + buckets * Integer.BYTES;
+		image.position(slots + size * Integer.BYTES);
+		for (int slot = 0; slot < size; slot++) {
+			int i = keyOf[slot];
+			image.putInt(slots + slot * Integer.BYTES, image.position());
+			image.putInt(keys[i].length).putInt(values[i].length).put(keys[i]).put(values[i]);
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the first displacement that moves the keys of a group to
+	 * different free slots, which are left in group, or -1 if there is none
+	 * up to MAXIMUM_DISPLACEMENT.
+	 *
+	 * @param hashes
+	 * @param members
+	 * @param start
+	 * @param count
+	 * @param taken
+	 * @param group
+	 * @param size
+	 * @return Integer
+	 */
+	private static int displace(long[] hashes, int[] members, int start, int count, boolean[] taken, int[] group,
+			int size) {
+		search: for (int displacement = 0; displacement < MAXIMUM_DISPLACEMENT; displacement++) {
+			for (int j = 0; j < count; j++) {
+				int slot = slotOf(hashes[members[start + j]], displacement, size);
+				if (taken[slot]) {
+					continue search;
+				}
+				for (int k = 0; k < j; k++) {
+					if (group[k] == slot) {
+						continue search;
+					}
+				}
+				group[j] = slot;
+			}
+			return displacement;
+		}
+		return -1;
+	}
+
+	private static int bucketOf(long hash, int buckets) {
+		return (int) (((hash >>> 32) * buckets) >>> 32);
+	}
+
+	private static int slotOf(long hash, int displacement, int size) {
+		return (int) ((mix(hash + displacement * 0x9E3779B97F4A7C15L) >>> 32) * size >>> 32);
+	}
+
+	/**
+	 * Hashes the given bytes with FNV-1a, starting from the seed, and mixes
+	 * the result with the finalizer of MurmurHash3.
+	 *
+	 * @param bytes
+	 * @param seed
+	 * @return long
+	 */
+	private static long hash(byte[] bytes, long seed) {
+		long hash = seed ^ 0xcbf29ce484222325L ^ bytes.length;
+		for (byte b : bytes) {
+			hash = (hash ^ (b & 0xff)) * 0x100000001b3L;
+		}
+		return mix(hash);
+	}
+
+	private static long mix(long hash) {
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		return hash ^ (hash >>> 33);
+	}
+
+	private static <T> byte[] encode(Codec<T> codec, T value) {
+		ByteBuffer target = ByteBuffer.allocate(codec.sizeOf(value));
+		codec.write(value, target);
+		if (target.hasRemaining()) {
+			throw new IllegalStateException("Codec wrote " + target.position() + " bytes instead of "
+					+ target.capacity() + ".");
+		}
+		return target.array();
+	}
+
+}
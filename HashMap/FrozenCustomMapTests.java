@@ -0,0 +1,97 @@
+package HashMap;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+public class FrozenCustomMapTests extends TestCase {
+	private CustomMap<String, Integer> source;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		this.source = new CustomMap<>();
+		for (int i = 0; i < 100000; i++) {
+			source.put("Key" + i, i);
+		}
+	}
+
+	@Test
+	public void testFreeze() {
+		FrozenCustomMap<String, Integer> frozen = source.freeze(Codec.STRING, Codec.INTEGER);
+		assertEquals(100000, frozen.size());
+		for (int i = 0; i < 100000; i++) {
+			assertEquals((Integer) i, frozen.get("Key" + i));
+		}
+		for (int i = 100000; i < 110000; i++) {
+			assertNull(frozen.get("Key" + i));
+			assertFalse(frozen.containsKey("Key" + i));
+		}
+		assertEquals((Integer) (-1), frozen.getOrDefault("Missing", -1));
+		Map<String, Integer> seen = new HashMap<>();
+		frozen.forEach(seen::put);
+		assertEquals(source, seen);
+	}
+
+	@Test
+	public void testCollidingKeys() {
+		CustomMap<String, String> colliding = new CustomMap<>();
+		colliding.put("Aa", "first");
+		colliding.put("BB", "second");
+		colliding.put("AaAa", "third");
+		colliding.put("BBBB", "fourth");
+		FrozenCustomMap<String, String> frozen = colliding.freeze(Codec.STRING, Codec.STRING);
+		assertEquals("first", frozen.get("Aa"));
+		assertEquals("second", frozen.get("BB"));
+		assertEquals("third", frozen.get("AaAa"));
+		assertEquals("fourth", frozen.get("BBBB"));
+		assertNull(frozen.get("AaBB"));
+	}
+
+	@Test
+	public void testEmpty() {
+		FrozenCustomMap<String, Integer> frozen = new CustomMap<String, Integer>().freeze(Codec.STRING, Codec.INTEGER);
+		assertTrue(frozen.isEmpty());
+		assertNull(frozen.get("Key"));
+		frozen.forEach((key, value) -> fail());
+	}
+
+	@Test
+	public void testWriteAndOpen() throws IOException {
+		Path file = Files.createTempFile("frozen", ".map");
+		try {
+			FrozenCustomMap<String, Integer> frozen = source.freeze(Codec.STRING, Codec.INTEGER);
+			frozen.write(file);
+			assertEquals(frozen.imageBytes(), Files.size(file));
+			FrozenCustomMap<String, Integer> mapped = FrozenCustomMap.open(file, Codec.STRING, Codec.INTEGER);
+			assertEquals(100000, mapped.size());
+			for (int i = 0; i < 100000; i++) {
+				assertEquals((Integer) i, mapped.get("Key" + i));
+			}
+			assertNull(mapped.get("Key100000"));
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+	@Test
+	public void testOpenOtherFile() throws IOException {
+		Path file = Files.createTempFile("frozen", ".map");
+		try {
+			Files.write(file, new byte[64]);
+			FrozenCustomMap.open(file, Codec.STRING, Codec.INTEGER);
+			fail();
+		} catch (IOException e) {
+			assertTrue(e.getMessage().contains("frozen map"));
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+}
@@ -0,0 +1,128 @@
+package HashMap;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ *
+ * Turns a key into the hash that {@link CustomMap} and {@link CustomHashMap}
+ * use to pick its bucket. The maps take the low bits of the hash, so a
+ * strategy should spread the differences between the keys into them. Two keys
+ * that are equal must have the same hash.
+ *
+ * SPREAD is the default one. IDENTITY returns the hash code as it is and is
+ * only good for keys whose hash codes are already well mixed. A strategy from
+ * seeded() runs SipHash with a random key of its own over the characters of
+ * String keys and over the hash code of other keys, so keys that are chosen to
+ * land in the same bucket of one map are spread in another.
+ *
+ * @author Homes
+ *
+ */
+
+public interface HashStrategy {
+
+	/**
+	 * Returns the hash of the given key, which is never null.
+	 *
+	 * @param key
+	 * @return Integer
+	 */
+	int hash(Object key);
+
+	/**
+	 * XORs the high half of the hash code into the low one.
+	 */
+	HashStrategy SPREAD = key -> {
+		int hash = key.hashCode();
+		return hash ^ (hash >>> 16);
+	};
+
+	/**
+	 * Returns the hash code of the key.
+	 */
+	HashStrategy IDENTITY = Object::hashCode;
+
+	/**
+	 * Returns a SipHash strategy with a random seed.
+	 *
+	 * @return HashStrategy
+	 */
+	static HashStrategy seeded() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		return new SipHash(random.nextLong(), random.nextLong());
+	}
+
+	/**
+	 * Returns a SipHash strategy with the given seed, so the hashes can be
+	 * reproduced.
+	 *
+	 * @param k0
+	 * @param k1
+	 * @return HashStrategy
+	 */
+	static HashStrategy seeded(long k0, long k1) {
+		return new SipHash(k0, k1);
+	}
+
+	/**
+	 * SipHash-1-3 over the characters of a String, four of them in a word, or
+	 * over the hash code of any other key. The finalization rounds are run by
+	 * the same loop with an empty word.
+	 */
+	final class SipHash implements HashStrategy {
+		private final long k0;
+		private final long k1;
+
+		private SipHash(long k0, long k1) {
+			this.k0 = k0;
+			this.k1 = k1;
+		}
+
+		@Override
+		public int hash(Object key) {
+			String s = key instanceof String ? (String) key : null;
+			int words = s == null ? 1 : s.length() / 4 + 1;
+			long v0 = k0 ^ 0x736f6d6570736575L;
+			long v1 = k1 ^ 0x646f72616e646f6dL;
+			long v2 = k0 ^ 0x6c7967656e657261L;
+			long v3 = k1 ^ 0x7465646279746573L;
+			for (int i = 0; i < words + 3; i++) {
+				long m = 0;
+				if (i < words) {
+					m = s == null ? 4L << 56 | (key.hashCode() & 0xffffffffL) : word(s, i, words);
+				} else if (i == words) {
+					v2 ^= 0xff;
+				}
+				v3 ^= m;
+				v0 += v1;
+				v1 = Long.rotateLeft(v1, 13) ^ v0;
+				v0 = Long.rotateLeft(v0, 32);
+				v2 += v3;
+				v3 = Long.rotateLeft(v3, 16) ^ v2;
+				v0 += v3;
+				v3 = Long.rotateLeft(v3, 21) ^ v0;
+				v2 += v1;
+				v1 = Long.rotateLeft(v1, 17) ^ v2;
+				v2 = Long.rotateLeft(v2, 32);
+				v0 ^= m;
+			}
+			long hash = v0 ^ v1 ^ v2 ^ v3;
+			return (int) (hash ^ (hash >>> 32));
+		}
+
+		/**
+		 * Returns the given word of the String. The last one holds the
+		 * remaining characters and the length in bytes in its top byte.
+		 */
+		private static long word(String s, int index, int words) {
+			int from = index * 4;
+			long word = index == words - 1 ? (long) (s.length() * 2) << 56 : 0;
+			int to = Math.min(from + 4, s.length());
+			for (int i = from; i < to; i++) {
+				word |= (long) s.charAt(i) << ((i - from) * 16);
+			}
+			return word;
+		}
+	}
+
+}
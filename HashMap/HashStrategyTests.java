@@ -0,0 +1,87 @@
+package HashMap;
+
+import java.util.Map;
+
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+public class HashStrategyTests extends TestCase {
+
+	@Test
+	public void testEqualKeysHaveEqualHashes() {
+		HashStrategy seeded = HashStrategy.seeded();
+		for (HashStrategy strategy : new HashStrategy[] { HashStrategy.SPREAD, HashStrategy.IDENTITY, seeded }) {
+			for (int i = 0; i < 100; i++) {
+				String key = "Key" + i;
+				assertEquals(strategy.hash(key), strategy.hash(new String(key)));
+				assertEquals(strategy.hash(i), strategy.hash(Integer.valueOf(i)));
+			}
+		}
+	}
+
+	@Test
+	public void testSeed() {
+		HashStrategy first = HashStrategy.seeded(1, 2);
+		HashStrategy second = HashStrategy.seeded(1, 2);
+		HashStrategy other = HashStrategy.seeded(3, 4);
+		int differ = 0;
+		for (int i = 0; i < 100; i++) {
+			String key = "Key" + i;
+			assertEquals(first.hash(key), second.hash(key));
+			if (first.hash(key) != other.hash(key)) {
+				differ++;
+			}
+		}
+		assertTrue(differ > 90);
+	}
+
+	@Test
+	public void testSeededSpreadsCollidingStrings() {
+		Object[] keys = new Object[1 << 10];
+		for (int i = 0; i < keys.length; i++) {
+			StringBuilder key = new StringBuilder();
+			for (int bit = 0; bit < 10; bit++) {
+				key.append((i >> bit & 1) == 0 ? "Aa" : "BB");
+			}
+			keys[i] = key.toString();
+		}
+		int longest = 0;
+		for (int chain : BucketDistribution.chains(HashStrategy.seeded(), keys, 2048)) {
+			longest = Math.max(longest, chain);
+		}
+		int[] spread = BucketDistribution.chains(HashStrategy.SPREAD, keys, 2048);
+		assertEquals(keys.length, spread[HashStrategy.SPREAD.hash(keys[0]) & 2047]);
+		assertTrue(longest < 10);
+	}
+
+	@Test
+	public void testMapsWithStrategies() {
+		for (HashStrategy strategy : new HashStrategy[] { HashStrategy.IDENTITY, HashStrategy.seeded() }) {
+			Map<String, Integer> map = new CustomMap<>(strategy);
+			CustomHashMap<String, Integer> hashMap = new CustomHashMap<>(strategy);
+			for (int i = 0; i < 1000; i++) {
+				map.put("Key" + i, i);
+				hashMap.put("Key" + i, i);
+			}
+			for (int i = 0; i < 1000; i++) {
+				assertEquals((Integer) i, map.get("Key" + i));
+				assertEquals((Integer) i, hashMap.get("Key" + i));
+			}
+			assertEquals((Integer) 5, map.remove("Key5"));
+			assertEquals((Integer) 5, hashMap.remove("Key5"));
+			assertEquals(999, map.size());
+			assertEquals(999, hashMap.size());
+		}
+	}
+
+	@Test
+	public void testNullStrategy() {
+		try {
+			new CustomMap<String, Integer>(null);
+			fail();
+		} catch (IllegalArgumentException e) {
+		}
+	}
+
+}
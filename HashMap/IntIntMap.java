@@ -0,0 +1,369 @@
+package HashMap;
+
+/**
+ *
+ * A map from int keys to int values that works like {@link CustomHashMap}
+ * but never boxes. The keys and the values are kept in two int arrays (open
+ * addressing with linear probing), so a pair takes about 8 bytes plus the
+ * free space left by the load factor. The key 0 marks an empty index, so a
+ * pair with the key 0 is kept in two separate fields.
+ *
+ * The get and remove methods return 0 when there is no such key. Use
+ * containsKey or getOrDefault to tell a missing key from a pair with the value
+ * 0.
+ *
+ * @author Homes
+ *
+ */
+
+public class IntIntMap {
+
+	/**
+	 * Receives the pairs of the map one by one.
+	 */
+	public interface IntIntConsumer {
+		void accept(int key, int value);
+	}
+
+	private static final int SIZE = 16;
+	private static final int MAXIMUM_SIZE = 1 << 30;
+	private static final float LOAD_FACTOR = 0.75f;
+	private static final int FREE_KEY = 0;
+
+	private final int initialSize;
+	private int threshold;
+	private int[] keys;
+	private int[] values;
+	private boolean hasFreeKey;
+	private int freeKeyValue;
+	private int size;
+
+	public IntIntMap() {
+		this(SIZE);
+	}
+
+	public IntIntMap(int size) {
+		if (size <= 0) {
+			throw new IllegalArgumentException("Size cannot be a negative number.");
+		}
+
+		this.initialSize = tableSizeFor(size);
+		allocate(initialSize);
+	}
+
+	/**
+	 * Adds a new pair associated with the given key and the given value.
+	 * Returns the previous value of the key or 0.
+	 *
+	 * @param key
+	 * @param value
+	 * @return int
+	 */
+	public int put(int key, int value) {
+		if (key == FREE_KEY) {
+			int old = hasFreeKey ? freeKeyValue : 0;
+			if (!hasFreeKey) {
+				hasFreeKey = true;
+				size++;
+			}
+			freeKeyValue = value;
+			return old;
+		}
+		int index = indexOf(key);
+		if (keys[index] == key) {
+			int old = values[index];
+			values[index] = value;
+			return old;
+		}
+		keys[index] = key;
+		values[index] = value;
+		if (++size > threshold) {
+			resize();
+		}
+		return 0;
+	}
+
+	/**
+	 * Adds the given delta to the value of the given key, or puts the delta if
+	 * there is no such key, and returns the new value.
+	 *
+	 * @param key
+	 * @param delta
+	 * @return int
+	 */
+	public int addTo(int key, int delta) {
+		if (key == FREE_KEY) {
+			if (!hasFreeKey) {
+				hasFreeKey = true;
+				freeKeyValue = 0;
+				size++;
+			}
+			return freeKeyValue += delta;
+		}
+		int index = indexOf(key);
+		if (keys[index] == key) {
+			return values[index] += delta;
+		}
+		keys[index] = key;
+		values[index] = delta;
+		if (++size > threshold) {
+			resize();
+		}
+		return delta;
+	}
+
+	/**
+	 * Gets the value that is associated with the given key or 0.
+	 *
+	 * @param key
+	 * @return int
+	 */
+	public int get(int key) {
+		return getOrDefault(key, 0);
+	}
+
+	/**
+	 * If the map contains the given key, this method returns its own value.
+	 * Otherwise, it returns the defaultValue.
+	 *
+	 * @param key
+	 * @param defaultValue
+	 * @return int
+	 */
+	public int getOrDefault(int key, int defaultValue) {
+		if (key == FREE_KEY) {
+			return hasFreeKey ? freeKeyValue : defaultValue;
+		}
+		int index = indexOf(key);
+		return keys[index] == key ? values[index] : defaultValue;
+	}
+
+	/**
+	 * Removes the pair that is associated with the given key and return its
+	 * value or 0 if there is no such key.
+	 *
+	 * @param key
+	 * @return int
+	 */
+	public int remove(int key) {
+		if (key == FREE_KEY) {
+			if (!hasFreeKey) {
+				return 0;
+			}
+			hasFreeKey = false;
+			size--;
+			return freeKeyValue;
+		}
+		int index = indexOf(key);
+		if (keys[index] != key) {
+			return 0;
+		}
+		int value = values[index];
+		removeAt(index);
+		return value;
+	}
+
+	/**
+	 * Checks whether a given key has a mapping in the Map.
+	 *
+	 * @param key
+	 * @return boolean
+	 */
+	public boolean containsKey(int key) {
+		if (key == FREE_KEY) {
+			return hasFreeKey;
+		}
+		return keys[indexOf(key)] == key;
+	}
+
+	/**
+	 * Checks whether a given value has a mapping in the Map.
+	 *
+	 * @param value
+	 * @return boolean
+	 */
+	public boolean containsValue(int value) {
+		if (hasFreeKey && freeKeyValue == value) {
+			return true;
+		}
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != FREE_KEY && values[i] == value) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Passes every pair of the map to the given consumer.
+	 *
+	 * @param consumer
+	 */
+	public void forEach(IntIntConsumer consumer) {
+		if (hasFreeKey) {
+			consumer.accept(FREE_KEY, freeKeyValue);
+		}
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != FREE_KEY) {
+				consumer.accept(keys[i], values[i]);
+			}
+		}
+	}
+
+	/*
+	 * Removes every pair in the map.
+	 */
+	public void clear() {
+		allocate(initialSize);
+		hasFreeKey = false;
+		size = 0;
+	}
+
+	/**
+	 * Returns the number of pairs in the Map.
+	 *
+	 * @return Integer
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Checks if the map contains any pair.
+	 *
+	 * @return boolean
+	 */
+	public boolean isEmpty() {
+		return this.size() == 0;
+	}
+
+	/**
+	 * String representation of the map.
+	 */
+	@Override
+	public String toString() {
+		final StringBuilder builder = new StringBuilder("{[");
+		forEach(new IntIntConsumer() {
+			@Override
+			public void accept(int key, int value) {
+				if (builder.length() > 2) {
+					builder.append(", ");
+				}
+				builder.append("[key=").append(key).append(", value=").append(value).append(']');
+			}
+		});
+		return builder.append("]}").toString();
+	}
+
+	/**
+	 * Returns the index of the given key or the empty index at which it would
+	 * be put.
+	 *
+	 * @param key
+	 * @return Integer
+	 */
+	private int indexOf(int key) {
+		int mask = keys.length - 1;
+		int index = hash(key) & mask;
+		while (keys[index] != FREE_KEY && keys[index] != key) {
+			index = (index + 1) & mask;
+		}
+		return index;
+	}
+
+	/**
+	 * Removes the pair at the given index and moves back the following pairs
+	 * that would not be found anymore, until an empty index.
+	 *
+	 * @param index
+	 */
+	private void removeAt(int index) {
+		int mask = keys.length - 1;
+		int next = (index + 1) & mask;
+		while (keys[next] != FREE_KEY) {
+			int home = hash(keys[next]) & mask;
+			if (((next - home) & mask) >= ((next - index) & mask)) {
+				keys[index] = keys[next];
+				values[index] = values[next];
+				index = next;
+			}
+			next = (next + 1) & mask;
+		}
+		keys[index] = FREE_KEY;
+		size--;
+	}
+
+	private void resize() {
+		if (keys.length == MAXIMUM_SIZE) {
+			throw new IllegalStateException("Map cannot have more than " + threshold + " pairs.");
+		}
+		int[] oldKeys = keys;
+		int[] oldValues = values;
+		allocate(oldKeys.length * 2);
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != FREE_KEY) {
+				int index = indexOf(oldKeys[i]);
+				keys[index] = oldKeys[i];
+				values[index] = oldValues[i];
+			}
+		}
+	}
+
+	private void allocate(int length) {
+		keys = new int[length];
+		values = new int[length];
+		threshold = (int) Math.min(length * LOAD_FACTOR, length - 1);
+	}
+
+	private static int hash(int key) {
+		int hash = key * 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * Returns the smallest power of two that is not less than the given size
+	 * divided by the load factor.
+	 *
+	 * @param size
+	 * @return Integer
+	 */
+	private static int tableSizeFor(int size) {
+		long length = (long) Math.ceil(size / LOAD_FACTOR);
+		if (length >= MAXIMUM_SIZE) {
+			return MAXIMUM_SIZE;
+		}
+		return length <= 2 ? 2 : Integer.highestOneBit((int) length - 1) << 1;
+	}
+
+	@Override
+	public int hashCode() {
+		int result = hasFreeKey ? freeKeyValue : 0;
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != FREE_KEY) {
+				result += keys[i] ^ values[i];
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (o == this) {
+			return true;
+		}
+		if (!(o instanceof IntIntMap)) {
+			return false;
+		}
+		IntIntMap other = (IntIntMap) o;
+		if (other.size() != size || other.hasFreeKey != hasFreeKey || (hasFreeKey && other.freeKeyValue != freeKeyValue)) {
+			return false;
+		}
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != FREE_KEY && (!other.containsKey(keys[i]) || other.get(keys[i]) != values[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
@@ -0,0 +1,312 @@
+package HashMap;
+
+/**
+ *
+ * A map from long keys to values that works like {@link CustomHashMap} but
+ * never boxes the keys. The keys and the values are kept in a long and an
+ * Object array (open addressing with linear probing), so a pair takes about 12
+ * bytes plus the value itself and the free space left by the load factor. The
+ * map does not allow null values, so a null value marks an empty index.
+ *
+ * @author Homes
+ *
+ * @param <V>
+ */
+
+public class LongObjectMap<V> {
+
+	/**
+	 * Receives the pairs of the map one by one.
+	 */
+	public interface LongObjectConsumer<V> {
+		void accept(long key, V value);
+	}
+
+	private static final int SIZE = 16;
+	private static final int MAXIMUM_SIZE = 1 << 30;
+	private static final float LOAD_FACTOR = 0.75f;
+
+	private final int initialSize;
+	private int threshold;
+	private long[] keys;
+	private Object[] values;
+	private int size;
+
+	public LongObjectMap() {
+		this(SIZE);
+	}
+
+	public LongObjectMap(int size) {
+		if (size <= 0) {
+			throw new IllegalArgumentException("Size cannot be a negative number.");
+		}
+
+		this.initialSize = tableSizeFor(size);
+		allocate(initialSize);
+	}
+
+	/**
+	 * Adds a new pair associated with the given key and the given value.
+	 * Returns the previous value of the key or null.
+	 *
+	 * @param key
+	 * @param value
+	 * @return Type V
+	 */
+	public V put(long key, V value) {
+		if (value == null) {
+			throw new IllegalArgumentException("Map cannot have a null value.");
+		}
+		int index = indexOf(key);
+		V old = valueAt(index);
+		values[index] = value;
+		if (old == null) {
+			keys[index] = key;
+			if (++size > threshold) {
+				resize();
+			}
+		}
+		return old;
+	}
+
+	/**
+	 * Gets the value that is associated with the given key or null.
+	 *
+	 * @param key
+	 * @return Type V
+	 */
+	public V get(long key) {
+		return valueAt(indexOf(key));
+	}
+
+	/**
+	 * If the map contains the given key, this method returns its own value.
+	 * Otherwise, it returns the defaultValue.
+	 *
+	 * @param key
+	 * @param defaultValue
+	 * @return Type V
+	 */
+	public V getOrDefault(long key, V defaultValue) {
+		V value = get(key);
+		return value != null ? value : defaultValue;
+	}
+
+	/**
+	 * Removes the pair that is associated with the given key and return its
+	 * value or null if there is no such key.
+	 *
+	 * @param key
+	 * @return Type V
+	 */
+	public V remove(long key) {
+		int index = indexOf(key);
+		V value = valueAt(index);
+		if (value != null) {
+			removeAt(index);
+		}
+		return value;
+	}
+
+	/**
+	 * Checks whether a given key has a mapping in the Map.
+	 *
+	 * @param key
+	 * @return boolean
+	 */
+	public boolean containsKey(long key) {
+		return values[indexOf(key)] != null;
+	}
+
+	/**
+	 * Checks whether a given value has a mapping in the Map.
+	 *
+	 * @param value
+	 * @return boolean
+	 */
+	public boolean containsValue(Object value) {
+		if (value == null) {
+			return false;
+		}
+		for (Object v : values) {
+			if (value.equals(v)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Passes every pair of the map to the given consumer.
+	 *
+	 * @param consumer
+	 */
+	public void forEach(LongObjectConsumer<? super V> consumer) {
+		for (int i = 0; i < keys.length; i++) {
+			if (values[i] != null) {
+				consumer.accept(keys[i], valueAt(i));
+			}
+		}
+	}
+
+	/*
+	 * Removes every pair in the map.
+	 */
+	public void clear() {
+		allocate(initialSize);
+		size = 0;
+	}
+
+	/**
+	 * Returns the number of pairs in the Map.
+	 *
+	 * @return Integer
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Checks if the map contains any pair.
+	 *
+	 * @return boolean
+	 */
+	public boolean isEmpty() {
+		return this.size() == 0;
+	}
+
+	/**
+	 * String representation of the map.
+	 */
+	@Override
+	public String toString() {
+		final StringBuilder builder = new StringBuilder("{[");
+		forEach(new LongObjectConsumer<V>() {
+			@Override
+			public void accept(long key, V value) {
+				if (builder.length() > 2) {
+					builder.append(", ");
+				}
+				builder.append("[key=").append(key).append(", value=").append(value).append(']');
+			}
+		});
+		return builder.append("]}").toString();
+	}
+
+	/**
+	 * Returns the index of the given key or the empty index at which it would
+	 * be put.
+	 *
+	 * @param key
+	 * @return Integer
+	 */
+	private int indexOf(long key) {
+		int mask = keys.length - 1;
+		int index = hash(key) & mask;
+		while (values[index] != null && keys[index] != key) {
+			index = (index + 1) & mask;
+		}
+		return index;
+	}
+
+	/**
+	 * Removes the pair at the given index and moves back the following pairs
+	 * that would not be found anymore, until an empty index.
+	 *
+	 * @param index
+	 */
+	private void removeAt(int index) {
+		int mask = keys.length - 1;
+		int next = (index + 1) & mask;
+		while (values[next] != null) {
+			int home = hash(keys[next]) & mask;
+			if (((next - home) & mask) >= ((next - index) & mask)) {
+				keys[index] = keys[next];
+				values[index] = values[next];
+				index = next;
+			}
+			next = (next + 1) & mask;
+		}
+		values[index] = null;
+		size--;
+	}
+
+	private void resize() {
+		if (keys.length == MAXIMUM_SIZE) {
+			throw new IllegalStateException("Map cannot have more than " + threshold + " pairs.");
+		}
+		long[] oldKeys = keys;
+		Object[] oldValues = values;
+		allocate(oldKeys.length * 2);
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldValues[i] != null) {
+				int index = indexOf(oldKeys[i]);
+				keys[index] = oldKeys[i];
+				values[index] = oldValues[i];
+			}
+		}
+	}
+
+	private void allocate(int length) {
+		keys = new long[length];
+		values = new Object[length];
+		threshold = (int) Math.min(length * LOAD_FACTOR, length - 1);
+	}
+
+	@SuppressWarnings("unchecked")
+	private V valueAt(int index) {
+		return (V) values[index];
+	}
+
+	private static int hash(long key) {
+		int hash = (int) (key ^ (key >>> 32)) * 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * Returns the smallest power of two that is not less than the given size
+	 * divided by the load factor.
+	 *
+	 * @param size
+	 * @return Integer
+	 */
+	private static int tableSizeFor(int size) {
+		long length = (long) Math.ceil(size / LOAD_FACTOR);
+		if (length >= MAXIMUM_SIZE) {
+			return MAXIMUM_SIZE;
+		}
+		return length <= 2 ? 2 : Integer.highestOneBit((int) length - 1) << 1;
+	}
+
+	@Override
+	public int hashCode() {
+		int result = 0;
+		for (int i = 0; i < keys.length; i++) {
+			if (values[i] != null) {
+				result += Long.hashCode(keys[i]) ^ values[i].hashCode();
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (o == this) {
+			return true;
+		}
+		if (!(o instanceof LongObjectMap)) {
+			return false;
+		}
+		LongObjectMap<?> other = (LongObjectMap<?>) o;
+		if (other.size() != size) {
+			return false;
+		}
+		for (int i = 0; i < keys.length; i++) {
+			if (values[i] != null && !values[i].equals(other.get(keys[i]))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
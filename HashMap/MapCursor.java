@@ -0,0 +1,45 @@
+package HashMap;
+
+/**
+ *
+ * Walks the pairs of a map in place, without an iterator or an entry object
+ * for every pair: advance moves to the next pair and key and value read it.
+ * A single cursor is used for the whole walk, so a scan of a map allocates
+ * nothing apart from it. The cursor fails with a
+ * ConcurrentModificationException if the map is changed other than through
+ * its setValue and remove.
+ *
+ * @author Homes
+ *
+ * @param <K>
+ * @param <V>
+ */
+
+public interface MapCursor<K, V> {
+
+	/**
+	 * Moves to the next pair and returns false if there is none.
+	 *
+	 * @return boolean
+	 */
+	boolean advance();
+
+	K key();
+
+	V value();
+
+	/**
+	 * Replaces the value of the current pair and returns the old one.
+	 *
+	 * @param value
+	 * @return Type V
+	 */
+	V setValue(V value);
+
+	/**
+	 * Removes the current pair. advance has to be called before the next pair
+	 * can be read.
+	 */
+	void remove();
+
+}
@@ -0,0 +1,647 @@
+package HashMap;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ *
+ * The map does not allow null keys or values. It works like
+ * {@link CustomHashMap}, an array of buckets with chains of pairs, but the
+ * array and the pairs are kept in a file that is mapped into memory, so the
+ * map can be larger than the heap and the operating system pages it in and
+ * out. Opening the file again gives back the map as it was, without reading
+ * or decoding any pair.
+ *
+ * The file starts with a header that holds the size, the initial size, the
+ * position of the bucket array, the end of the used space and a dirty flag. Every pair is a record with the
+ * position of the next record in its chain, the hash of the key, the lengths
+ * of the key and the value and their bytes, written with the given
+ * {@link Codec}s. The keys are compared and hashed by their bytes, so the
+ * hashes stay the same when the file is opened by another JVM.
+ *
+ * The file is mapped in regions of regionSize bytes and no record or bucket
+ * array crosses the end of a region. Overwriting a value with one of the same
+ * length writes it in place; otherwise a new record is written at the end and
+ * the old one is left behind, as are removed records and the old bucket
+ * arrays after a resize. Mapping a region makes the file as long as the
+ * region, so while the map is open the file takes whole regions. force writes
+ * the changes to the disk and close also cuts the file after the used space
+ * and releases it. The dirty flag is written to the disk before the first
+ * change and cleared by force and close, so a file that a crash left with
+ * only part of the changes is refused when it is opened again.
+ *
+ * @author Homes
+ *
+ * @param <K>
+ * @param <V>
+ */
+
+public class MappedCustomHashMap<K, V> implements Closeable {
+
+	private static final int SIZE = 16;
+	private static final int REGION_SIZE = 1 << 30;
+	private static final float LOAD_FACTOR = 0.75f;
+	private static final int MAGIC = 0x434D4831;
+	private static final int HEADER = 64;
+	private static final int RECORD_HEADER = Long.BYTES + 3 * Integer.BYTES;
+
+	private static final int MAGIC_OFFSET = 0;
+	private static final int REGION_OFFSET = 4;
+	private static final int LENGTH_OFFSET = 8;
+	private static final int SIZE_OFFSET = 12;
+	private static final int DIRECTORY_OFFSET = 16;
+	private static final int END_OFFSET = 24;
+	private static final int LIVE_OFFSET = 32;
+	private static final int DEAD_OFFSET = 40;
+	private static final int DIRTY_OFFSET = 48;
+	private static final int INITIAL_OFFSET = 52;
+
+	private final Codec<K> keyCodec;
+	private final Codec<V> valueCodec;
+	private final FileChannel channel;
+	private final int regionSize;
+	private final int initialSize;
+	private final List<MappedByteBuffer> regions = new ArrayList<>();
+	private ByteBuffer scratch = ByteBuffer.allocate(64);
+	private int threshold;
+	private boolean dirty;
+	private boolean closed;
+
+	public MappedCustomHashMap(Path file, Codec<K> keyCodec, Codec<V> valueCodec) throws IOException {
+		this(file, keyCodec, valueCodec, SIZE, REGION_SIZE);
+	}
+
+	/**
+	 * Opens the map in the given file, or creates it if the file is empty or
+	 * does not exist. The size and the region size are used only for a new
+	 * map; an existing one keeps its own.
+	 *
+	 * @param file
+	 * @param keyCodec
+	 * @param valueCodec
+	 * @param size
+	 * @param regionSize
+	 * @throws IOException
+	 */
+	public MappedCustomHashMap(Path file, Codec<K> keyCodec, Codec<V> valueCodec, int size, int regionSize)
+			throws IOException {
+		if (keyCodec == null || valueCodec == null) {
+			throw new IllegalArgumentException("Codecs cannot be null.");
+		}
+		if (size <= 0) {
+			throw new IllegalArgumentException("Size cannot be a negative number.");
+		}
+		if (regionSize < HEADER + SIZE * Long.BYTES) {
+			throw new IllegalArgumentException("Region size must be at least " + (HEADER + SIZE * Long.BYTES) + " bytes.");
+		}
+		this.keyCodec = keyCodec;
+		this.valueCodec = valueCodec;
+		this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+		try {
+			if (channel.size() >= HEADER) {
+				ByteBuffer header = ByteBuffer.allocate(HEADER);
+				channel.read(header, 0);
+				if (header.getInt(MAGIC_OFFSET) != MAGIC) {
+					throw new IOException("File " + file + " does not contain a map.");
+				}
+				if (header.getInt(DIRTY_OFFSET) != 0) {
+					throw new IOException("File " + file + " was not closed and may be broken.");
+				}
+				this.regionSize = header.getInt(REGION_OFFSET);
+				int initial = header.getInt(INITIAL_OFFSET);
+				this.initialSize = initial > 0 ? initial : SIZE;
+				threshold = thresholdFor(header.getInt(LENGTH_OFFSET));
+			} else {
+				this.regionSize = regionSize;
+				this.initialSize = Math.min(tableSizeFor(size), maximumLength());
+				region(0).putInt(MAGIC_OFFSET, MAGIC).putInt(REGION_OFFSET, regionSize).putInt(INITIAL_OFFSET,
+						initialSize);
+				reset();
+				force();
+			}
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Adds a new pair associated with the given key and the given value.
+	 *
+	 * @param key
+	 * @param value
+	 */
+	public void put(K key, V value) {
+		if (value == null || key == null) {
+			throw new IllegalArgumentException("Map cannot have a null value or null key.");
+		}
+		checkOpen();
+		int keyLength = encode(key);
+		int hash = hashOfScratch(keyLength);
+		long slot = slotOf(hash);
+		long previous = 0;
+		long record = getLong(slot);
+		while (record != 0 && !matches(record, hash, keyLength)) {
+			previous = record;
+			record = getLong(record);
+		}
+		markDirty();
+		if (record == 0) {
+			long added = append(getLong(slot), hash, keyLength, value);
+			putLong(slot, added);
+			header().putInt(SIZE_OFFSET, size() + 1);
+			if (size() > threshold) {
+				resize();
+			}
+			return;
+		}
+		int valueLength = valueCodec.sizeOf(value);
+		if (valueLength == getInt(record + Long.BYTES + 2 * Integer.BYTES)) {
+			ByteBuffer target = region(record).duplicate();
+			target.position(offsetOf(record) + RECORD_HEADER + keyLength);
+			valueCodec.write(value, target);
+			return;
+		}
+		long added = append(getLong(record), hash, keyLength, value);
+		putLong(previous == 0 ? slot : previous, added);
+		release(record);
+	}
+
+	/**
+	 * Gets the value that is associated with the given key.
+	 *
+	 * @param key
+	 * @return Type V
+	 */
+	public V get(K key) {
+		if (key == null) {
+			throw new IllegalArgumentException("No null keys.");
+		}
+		checkOpen();
+		long record = find(key);
+		return record == 0 ? null : readValue(record);
+	}
+
+	/**
+	 * Removes the pair that is associated with the given key and return its
+	 * value or null if there is no such key.
+	 *
+	 * @param key
+	 * @return Type V
+	 */
+	public V remove(K key) {
+		if (key == null) {
+			throw new IllegalArgumentException("HashMap cannot have null key.");
+		}
+		checkOpen();
+		int keyLength = encode(key);
+		int hash = hashOfScratch(keyLength);
+		long slot = slotOf(hash);
+		long previous = 0;
+		long record = getLong(slot);
+		while (record != 0 && !matches(record, hash, keyLength)) {
+			previous = record;
+			record = getLong(record);
+		}
+		if (record == 0) {
+			return null;
+		}
+		markDirty();
+		V value = readValue(record);
+		putLong(previous == 0 ? slot : previous, getLong(record));
+		release(record);
+		header().putInt(SIZE_OFFSET, size() - 1);
+		return value;
+	}
+
+	/**
+	 * Checks whether a given key has a mapping in the Map.
+	 *
+	 * @param key
+	 * @return boolean
+	 */
+	public boolean containsKey(K key) {
+		checkOpen();
+		return key != null && find(key) != 0;
+	}
+
+	/**
+	 * Gives every pair of the map to the given action.
+	 *
+	 * @param action
+	 */
+	public void forEach(BiConsumer<? super K, ? super V> action) {
+		checkOpen();
+		long directory = header().getLong(DIRECTORY_OFFSET);
+		int length = header().getInt(LENGTH_OFFSET);
+		for (int i = 0; i < length; i++) {
+			for (long record = getLong(directory + (long) i * Long.BYTES); record != 0; record = getLong(record)) {
+				action.accept(readKey(record), readValue(record));
+			}
+		}
+	}
+
+	/*
+	 * Removes every pair in the map. The file keeps its length.
+	 */
+	public void clear() {
+		checkOpen();
+		markDirty();
+		reset();
+	}
+
+	/**
+	 * Returns the number of pairs in the Map.
+	 *
+	 * @return Integer
+	 */
+	public int size() {
+		checkOpen();
+		return header().getInt(SIZE_OFFSET);
+	}
+
+	/**
+	 * Checks if the map contains any pair.
+	 *
+	 * @return boolean
+	 */
+	public boolean isEmpty() {
+		return this.size() == 0;
+	}
+
+	/**
+	 * Returns the number of bytes taken by the records of the existing pairs.
+	 *
+	 * @return long
+	 */
+	public long liveBytes() {
+		checkOpen();
+		return header().getLong(LIVE_OFFSET);
+	}
+
+	/**
+	 * Returns the number of bytes taken by old records and bucket arrays.
+	 *
+	 * @return long
+	 */
+	public long deadBytes() {
+		checkOpen();
+		return header().getLong(DEAD_OFFSET);
+	}
+
+	/**
+	 * Writes all of the changes to the disk and then clears the dirty flag,
+	 * so the file can be opened again even if the map is not closed.
+	 */
+	public void force() {
+		checkOpen();
+		for (MappedByteBuffer region : regions) {
+			if (region != null) {
+				region.force();
+			}
+		}
+		if (dirty) {
+			header().putInt(DIRTY_OFFSET, 0);
+			region(0).force();
+			dirty = false;
+		}
+	}
+
+	/**
+	 * Sets the dirty flag and writes it to the disk before the first change
+	 * after the map was opened or forced, so a file whose changes may be only
+	 * partly written is never taken for a good one.
+	 */
+	private void markDirty() {
+		if (!dirty) {
+			header().putInt(DIRTY_OFFSET, 1);
+			region(0).force();
+			dirty = true;
+		}
+	}
+
+	/**
+	 * Writes all of the changes to the disk, cuts the file after the used
+	 * space and closes it. The map cannot be used after it is closed.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		force();
+		long end = header().getLong(END_OFFSET);
+		closed = true;
+		regions.clear();
+		try {
+			channel.truncate(end);
+		} finally {
+			channel.close();
+		}
+	}
+
+	private void checkOpen() {
+		if (closed) {
+			throw new IllegalStateException("Map is closed.");
+		}
+	}
+
+	/**
+	 * Puts an empty bucket array of the initial size right after the header.
+	 */
+	private void reset() {
+		ByteBuffer header = header();
+		header.putLong(END_OFFSET, HEADER);
+		long directory = reserve(initialSize * Long.BYTES);
+		zero(directory, initialSize * Long.BYTES);
+		header.putLong(DIRECTORY_OFFSET, directory);
+		header.putInt(LENGTH_OFFSET, initialSize);
+		header.putInt(SIZE_OFFSET, 0);
+		header.putLong(LIVE_OFFSET, 0);
+		header.putLong(DEAD_OFFSET, 0);
+		threshold = thresholdFor(initialSize);
+	}
+
+	/**
+	 * Returns the record with the given key or 0.
+	 *
+	 * @param key
+	 * @return long
+	 */
+	private long find(K key) {
+		int keyLength = encode(key);
+		int hash = hashOfScratch(keyLength);
+		long record = getLong(slotOf(hash));
+		while (record != 0 && !matches(record, hash, keyLength)) {
+			record = getLong(record);
+		}
+		return record;
+	}
+
+	/**
+	 * Returns the position of the bucket of the given hash in the file.
+	 *
+	 * @param hash
+	 * @return long
+	 */
+	private long slotOf(int hash) {
+		ByteBuffer header = header();
+		int index = hash & (header.getInt(LENGTH_OFFSET) - 1);
+		return header.getLong(DIRECTORY_OFFSET) + (long) index * Long.BYTES;
+	}
+
+	/**
+	 * Writes the given key in the scratch buffer and returns its length.
+	 *
+	 * @param key
+	 * @return Integer
+	 */
+	private int encode(K key) {
+		int length = keyCodec.sizeOf(key);
+		if (scratch.capacity() < length) {
+			scratch = ByteBuffer.allocate(Math.max(length, scratch.capacity() * 2));
+		}
+		scratch.clear();
+		keyCodec.write(key, scratch);
+		if (scratch.position() != length) {
+			throw new IllegalStateException("Key codec wrote " + scratch.position() + " bytes instead of " + length + ".");
+		}
+		return length;
+	}
+
+	/**
+	 * Hashes the bytes of the key in the scratch buffer and mixes the result
+	 * with the finalizer of MurmurHash3.
+	 *
+	 * @param keyLength
+	 * @return Integer
+	 */
+	private int hashOfScratch(int keyLength) {
+		int hash = keyLength;
+		for (int i = 0; i < keyLength; i++) {
+			hash = 31 * hash + scratch.get(i);
+		}
+		hash ^= hash >>> 16;
+		hash *= 0x85ebca6b;
+		hash ^= hash >>> 13;
+		hash *= 0xc2b2ae35;
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * Checks whether the record at the given position holds the key in the
+	 * scratch buffer.
+	 *
+	 * @param record
+	 * @param hash
+	 * @param keyLength
+	 * @return boolean
+	 */
+	private boolean matches(long record, int hash, int keyLength) {
+		ByteBuffer region = region(record);
+		int offset = offsetOf(record) + Long.BYTES;
+		if (region.getInt(offset) != hash || region.getInt(offset + Integer.BYTES) != keyLength) {
+			return false;
+		}
+		offset += 3 * Integer.BYTES;
+		for (int i = 0; i < keyLength; i++) {
+			if (region.get(offset + i) != scratch.get(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Writes a record with the key from the scratch buffer and the given
+	 * value at the end of the used space and returns its position.
+	 *
+	 * @param next
+	 * @param hash
+	 * @param keyLength
+	 * @param value
+	 * @return long
+	 */
+	private long append(long next, int hash, int keyLength, V value) {
+		int valueLength = valueCodec.sizeOf(value);
+		int length = RECORD_HEADER + keyLength + valueLength;
+		long record = reserve(length);
+		ByteBuffer target = region(record).duplicate();
+		target.position(offsetOf(record));
+		target.putLong(next);
+		target.putInt(hash);
+		target.putInt(keyLength);
+		target.putInt(valueLength);
+		target.put(scratch.array(), 0, keyLength);
+		valueCodec.write(value, target);
+		if (target.position() != offsetOf(record) + length) {
+			throw new IllegalStateException("Value codec wrote " + (target.position() - offsetOf(record) - RECORD_HEADER - keyLength)
+					+ " bytes instead of " + valueLength + ".");
+		}
+		header().putLong(LIVE_OFFSET, header().getLong(LIVE_OFFSET) + length);
+		return record;
+	}
+
+	/**
+	 * Takes the given number of bytes at the end of the used space, skipping
+	 * to the next region if they do not fit in the current one.
+	 *
+	 * @param length
+	 * @return long
+	 */
+	private long reserve(int length) {
+		if (length > regionSize) {
+			throw new IllegalArgumentException("Record of " + length + " bytes does not fit in a region.");
+		}
+		long end = header().getLong(END_OFFSET);
+		int left = regionSize - (int) (end % regionSize);
+		if (left < length) {
+			header().putLong(DEAD_OFFSET, header().getLong(DEAD_OFFSET) + left);
+			end += left;
+		}
+		header().putLong(END_OFFSET, end + length);
+		return end;
+	}
+
+	private void release(long record) {
+		int length = recordLength(record);
+		header().putLong(LIVE_OFFSET, header().getLong(LIVE_OFFSET) - length);
+		header().putLong(DEAD_OFFSET, header().getLong(DEAD_OFFSET) + length);
+	}
+
+	private int recordLength(long record) {
+		ByteBuffer region = region(record);
+		int offset = offsetOf(record) + Long.BYTES + Integer.BYTES;
+		return RECORD_HEADER + region.getInt(offset) + region.getInt(offset + Integer.BYTES);
+	}
+
+	private K readKey(long record) {
+		ByteBuffer source = region(record).duplicate();
+		int offset = offsetOf(record);
+		source.position(offset + RECORD_HEADER);
+		return keyCodec.read(source, source.getInt(offset + Long.BYTES + Integer.BYTES));
+	}
+
+	private V readValue(long record) {
+		ByteBuffer source = region(record).duplicate();
+		int offset = offsetOf(record) + Long.BYTES + Integer.BYTES;
+		int keyLength = source.getInt(offset);
+		source.position(offset + 2 * Integer.BYTES + keyLength);
+		return valueCodec.read(source, source.getInt(offset + Integer.BYTES));
+	}
+
+	/**
+	 * Writes a twice as large bucket array at the end of the used space and
+	 * links every record into its new chain. The records are not moved.
+	 */
+	private void resize() {
+		ByteBuffer header = header();
+		int oldLength = header.getInt(LENGTH_OFFSET);
+		if (oldLength * 2 > maximumLength()) {
+			threshold = Integer.MAX_VALUE;
+			return;
+		}
+		long oldDirectory = header.getLong(DIRECTORY_OFFSET);
+		int length = oldLength * 2;
+		long directory = reserve(length * Long.BYTES);
+		zero(directory, length * Long.BYTES);
+		for (int i = 0; i < oldLength; i++) {
+			long record = getLong(oldDirectory + (long) i * Long.BYTES);
+			while (record != 0) {
+				long next = getLong(record);
+				long slot = directory + (long) (getInt(record + Long.BYTES) & (length - 1)) * Long.BYTES;
+				putLong(record, getLong(slot));
+				putLong(slot, record);
+				record = next;
+			}
+		}
+		header.putLong(DIRECTORY_OFFSET, directory);
+		header.putInt(LENGTH_OFFSET, length);
+		header().putLong(DEAD_OFFSET, header.getLong(DEAD_OFFSET) + (long) oldLength * Long.BYTES);
+		threshold = thresholdFor(length);
+	}
+
+	private void zero(long position, int length) {
+		ByteBuffer region = region(position);
+		int offset = offsetOf(position);
+		for (int i = 0; i < length; i += Long.BYTES) {
+			region.putLong(offset + i, 0);
+		}
+	}
+
+	private int maximumLength() {
+		return Integer.highestOneBit(Math.min(regionSize / Long.BYTES, 1 << 30));
+	}
+
+	private int thresholdFor(int length) {
+		return length >= maximumLength() ? Integer.MAX_VALUE : (int) (length * LOAD_FACTOR);
+	}
+
+	private ByteBuffer header() {
+		return region(0);
+	}
+
+	private long getLong(long position) {
+		return region(position).getLong(offsetOf(position));
+	}
+
+	private int getInt(long position) {
+		return region(position).getInt(offsetOf(position));
+	}
+
+	private void putLong(long position, long value) {
+		region(position).putLong(offsetOf(position), value);
+	}
+
+	private int offsetOf(long position) {
+		return (int) (position % regionSize);
+	}
+
+	/**
+	 * Returns the mapped region that contains the given position, mapping it
+	 * and growing the file if needed.
+	 *
+	 * @param position
+	 * @return MappedByteBuffer
+	 */
+	private MappedByteBuffer region(long position) {
+		int index = (int) (position / regionSize);
+		while (regions.size() <= index) {
+			regions.add(null);
+		}
+		MappedByteBuffer region = regions.get(index);
+		if (region == null) {
+			try {
+				region = channel.map(FileChannel.MapMode.READ_WRITE, (long) index * regionSize, regionSize);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			regions.set(index, region);
+		}
+		return region;
+	}
+
+	/**
+	 * Returns the smallest power of two that is not less than the given size.
+	 *
+	 * @param size
+	 * @return Integer
+	 */
+	private static int tableSizeFor(int size) {
+		if (size >= 1 << 30) {
+			return 1 << 30;
+		}
+		return size == 1 ? 1 : Integer.highestOneBit(size - 1) << 1;
+	}
+
+}
@@ -0,0 +1,189 @@
+package HashMap;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+public class MappedCustomHashMapTests extends TestCase {
+	private Path file;
+	private MappedCustomHashMap<String, Integer> map;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		this.file = Files.createTempFile("mapped", ".map");
+		this.map = new MappedCustomHashMap<>(file, Codec.STRING, Codec.INTEGER, 1, 1 << 12);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		map.close();
+		Files.deleteIfExists(file);
+		super.tearDown();
+	}
+
+	@Test
+	public void testPutAndGet() {
+		for (int i = 0; i < 10000; i++) {
+			map.put("Key" + i, i);
+		}
+		assertEquals(10000, map.size());
+		for (int i = 0; i < 10000; i++) {
+			assertEquals((Integer) i, map.get("Key" + i));
+		}
+		assertNull(map.get("Key10000"));
+	}
+
+	@Test
+	public void testOverwrite() {
+		MappedCustomHashMap<String, String> strings = null;
+		try {
+			Path other = Files.createTempFile("mapped", ".map");
+			strings = new MappedCustomHashMap<>(other, Codec.STRING, Codec.STRING, 16, 1 << 12);
+			strings.put("Hack", "short");
+			strings.put("Hack", "other");
+			assertEquals(0, strings.deadBytes());
+			strings.put("Hack", "much longer");
+			assertEquals("much longer", strings.get("Hack"));
+			assertEquals(1, strings.size());
+			assertTrue(strings.deadBytes() > 0);
+			strings.close();
+			Files.delete(other);
+		} catch (IOException e) {
+			fail(e.getMessage());
+		}
+	}
+
+	@Test
+	public void testRemove() {
+		for (int i = 0; i < 1000; i++) {
+			map.put("Key" + i, i);
+		}
+		for (int i = 0; i < 1000; i += 2) {
+			assertEquals((Integer) i, map.remove("Key" + i));
+		}
+		assertNull(map.remove("Key0"));
+		assertEquals(500, map.size());
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(i % 2 == 1, map.containsKey("Key" + i));
+		}
+	}
+
+	@Test
+	public void testReopen() throws IOException {
+		for (int i = 0; i < 5000; i++) {
+			map.put("Key" + i, i);
+		}
+		map.remove("Key7");
+		map.close();
+		map = new MappedCustomHashMap<>(file, Codec.STRING, Codec.INTEGER);
+		assertEquals(4999, map.size());
+		assertNull(map.get("Key7"));
+		for (int i = 0; i < 5000; i++) {
+			if (i != 7) {
+				assertEquals((Integer) i, map.get("Key" + i));
+			}
+		}
+		map.put("Key7", 7);
+		assertEquals((Integer) 7, map.get("Key7"));
+	}
+
+	@Test
+	public void testNotClosed() throws IOException {
+		map.put("Hash", 21);
+		try {
+			new MappedCustomHashMap<>(file, Codec.STRING, Codec.INTEGER).close();
+			fail();
+		} catch (IOException e) {
+			assertEquals("File " + file + " was not closed and may be broken.", e.getMessage());
+		}
+		map.force();
+		MappedCustomHashMap<String, Integer> reader = new MappedCustomHashMap<>(file, Codec.STRING, Codec.INTEGER);
+		assertEquals((Integer) 21, reader.get("Hash"));
+		reader.close();
+	}
+
+	@Test
+	public void testReopenKeepsInitialSize() throws IOException {
+		Path other = Files.createTempFile("mapped", ".map");
+		try {
+			MappedCustomHashMap<String, Integer> sized = new MappedCustomHashMap<>(other, Codec.STRING,
+					Codec.INTEGER, 1024, 1 << 16);
+			sized.clear();
+			sized.close();
+			long length = Files.size(other);
+			sized = new MappedCustomHashMap<>(other, Codec.STRING, Codec.INTEGER);
+			for (int i = 0; i < 5000; i++) {
+				sized.put("Key" + i, i);
+			}
+			sized.clear();
+			sized.close();
+			assertEquals(length, Files.size(other));
+		} finally {
+			Files.deleteIfExists(other);
+		}
+	}
+
+	@Test
+	public void testCloseTruncates() throws IOException {
+		Path other = Files.createTempFile("mapped", ".map");
+		try {
+			MappedCustomHashMap<String, Integer> large = new MappedCustomHashMap<>(other, Codec.STRING, Codec.INTEGER);
+			large.put("Hash", 21);
+			large.close();
+			assertTrue(Files.size(other) < 1 << 12);
+			large = new MappedCustomHashMap<>(other, Codec.STRING, Codec.INTEGER);
+			assertEquals((Integer) 21, large.get("Hash"));
+			large.close();
+		} finally {
+			Files.deleteIfExists(other);
+		}
+	}
+
+	@Test
+	public void testForEachAndClear() {
+		Map<String, Integer> expected = new HashMap<>();
+		for (int i = 0; i < 100; i++) {
+			map.put("Key" + i, i);
+			expected.put("Key" + i, i);
+		}
+		Map<String, Integer> actual = new HashMap<>();
+		map.forEach(actual::put);
+		assertEquals(expected, actual);
+		map.clear();
+		assertTrue(map.isEmpty());
+		assertNull(map.get("Key1"));
+		map.put("Key1", 1);
+		assertEquals((Integer) 1, map.get("Key1"));
+	}
+
+	@Test
+	public void testClosed() throws IOException {
+		map.close();
+		try {
+			map.get("Key");
+			fail();
+		} catch (IllegalStateException e) {
+		}
+	}
+
+	@Test
+	public void testNotAMap() throws IOException {
+		Path other = Files.createTempFile("mapped", ".map");
+		Files.write(other, new byte[128]);
+		try {
+			new MappedCustomHashMap<>(other, Codec.STRING, Codec.INTEGER);
+			fail();
+		} catch (IOException e) {
+		} finally {
+			Files.delete(other);
+		}
+	}
+
+}
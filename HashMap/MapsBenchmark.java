@@ -0,0 +1,324 @@
+package HashMap;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ *
+ * JMH benchmark that compares {@link CustomMap}, {@link CustomHashMap},
+ * {@link RobinHoodMap} and {@link HashMap}. The keys are generated before the
+ * measurement, so only the map operations are timed. Every benchmark is
+ * measured for every implementation, size and key distribution.
+ *
+ * The main method runs all of them and writes the results as JSON to the
+ * file given as first argument (maps-benchmark.json by default), so runs on
+ * different commits can be compared.
+ *
+ * @author Homes
+ *
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms8g", "-Xmx8g" })
+public class MapsBenchmark {
+
+	/**
+	 * The operations that are measured, so the maps that do not implement
+	 * {@link Map} can be measured too.
+	 */
+	interface Target {
+		void put(Object key, Integer value);
+
+		Integer get(Object key);
+
+		Integer remove(Object key);
+
+		long sum();
+	}
+
+	public enum Implementation {
+		HASH_MAP {
+			@Override
+			Target create(int size) {
+				return of(new HashMap<Object, Integer>());
+			}
+		},
+		CUSTOM_MAP {
+			@Override
+			Target create(int size) {
+				return of(new CustomMap<Object, Integer>());
+			}
+		},
+		ROBIN_HOOD_MAP {
+			@Override
+			Target create(int size) {
+				return of(new RobinHoodMap<Object, Integer>());
+			}
+		},
+		CUSTOM_HASH_MAP {
+			@Override
+			Target create(int size) {
+				final CustomHashMap<Object, Integer> map = new CustomHashMap<>();
+				return new Target() {
+					@Override
+					public void put(Object key, Integer value) {
+						map.put(key, value);
+					}
+
+					@Override
+					public Integer get(Object key) {
+						return map.get(key);
+					}
+
+					@Override
+					public Integer remove(Object key) {
+						return map.remove(key);
+					}
+
+					@Override
+					public long sum() {
+						long sum = 0;
+						for (Integer value : map.values()) {
+							sum += value;
+						}
+						return sum;
+					}
+				};
+			}
+		};
+
+		abstract Target create(int size);
+
+		private static Target of(final Map<Object, Integer> map) {
+			return new Target() {
+				@Override
+				public void put(Object key, Integer value) {
+					map.put(key, value);
+				}
+
+				@Override
+				public Integer get(Object key) {
+					return map.get(key);
+				}
+
+				@Override
+				public Integer remove(Object key) {
+					return map.remove(key);
+				}
+
+				@Override
+				public long sum() {
+					long sum = 0;
+					for (Integer value : map.values()) {
+						sum += value;
+					}
+					return sum;
+				}
+			};
+		}
+	}
+
+	public enum KeyDistribution {
+		/**
+		 * Consecutive Integer keys, accessed uniformly.
+		 */
+		SEQUENTIAL {
+			@Override
+			Object key(int i, Random random) {
+				return i;
+			}
+		},
+		/**
+		 * UUID Strings, accessed uniformly.
+		 */
+		UUID {
+			@Override
+			Object key(int i, Random random) {
+				return new UUID(random.nextLong(), random.nextLong()).toString();
+			}
+		},
+		/**
+		 * Scattered Integer keys, accessed with a Zipfian (s = 1) skew, so a
+		 * few keys take most of the accesses.
+		 */
+		ZIPF {
+			@Override
+			Object key(int i, Random random) {
+				return i * 0x9E3779B9;
+			}
+
+			@Override
+			int access(int size, Random random) {
+				return Math.min((int) Math.pow(size + 1, random.nextDouble()) - 1, size - 1);
+			}
+		},
+		/**
+		 * Keys that share their hash code in groups of
+		 * {@link CollidingKey#GROUP}, accessed uniformly.
+		 */
+		COLLIDING {
+			@Override
+			Object key(int i, Random random) {
+				return new CollidingKey(i);
+			}
+		};
+
+		abstract Object key(int i, Random random);
+
+		int access(int size, Random random) {
+			return random.nextInt(size);
+		}
+	}
+
+	/**
+	 * A key with a deliberately bad hash code.
+	 */
+	static final class CollidingKey implements Comparable<CollidingKey> {
+		static final int GROUP = 16;
+		private final int id;
+
+		CollidingKey(int id) {
+			this.id = id;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof CollidingKey && ((CollidingKey) o).id == id;
+		}
+
+		@Override
+		public int hashCode() {
+			return id / GROUP;
+		}
+
+		@Override
+		public int compareTo(CollidingKey o) {
+			return Integer.compare(id, o.id);
+		}
+	}
+
+	private static final int ACCESSES = 1 << 16;
+	private static final Integer VALUE = 1;
+
+	@Param({ "HASH_MAP", "CUSTOM_MAP", "ROBIN_HOOD_MAP", "CUSTOM_HASH_MAP" })
+	public Implementation implementation;
+
+	@Param({ "1000", "100000", "1000000", "10000000" })
+	public int size;
+
+	@Param({ "SEQUENTIAL", "UUID", "ZIPF", "COLLIDING" })
+	public KeyDistribution distribution;
+
+	private Object[] present;
+	private Object[] absent;
+	private int[] accesses;
+	private int next;
+	private Target map;
+
+	@Setup(Level.Trial)
+	public void createKeys() {
+		Random random = new Random(42);
+		present = new Object[size];
+		absent = new Object[size];
+		for (int i = 0; i < size; i++) {
+			present[i] = distribution.key(i, random);
+			absent[i] = distribution.key(size + i, random);
+		}
+		accesses = new int[ACCESSES];
+		for (int i = 0; i < ACCESSES; i++) {
+			accesses[i] = distribution.access(size, random);
+		}
+	}
+
+	@Setup(Level.Iteration)
+	public void fillMap() {
+		map = implementation.create(size);
+		for (Object key : present) {
+			map.put(key, VALUE);
+		}
+	}
+
+	private int nextAccess() {
+		return accesses[next++ & (ACCESSES - 1)];
+	}
+
+	@Benchmark
+	public Integer getHit() {
+		return map.get(present[nextAccess()]);
+	}
+
+	@Benchmark
+	public Integer getMiss() {
+		return map.get(absent[nextAccess()]);
+	}
+
+	@Benchmark
+	public void putOverwrite() {
+		map.put(present[nextAccess()], VALUE);
+	}
+
+	/**
+	 * Puts all of the keys into an empty map, so the time is for size puts
+	 * including every resize.
+	 */
+	@Benchmark
+	public Target putNew() {
+		Target empty = implementation.create(size);
+		for (Object key : present) {
+			empty.put(key, VALUE);
+		}
+		return empty;
+	}
+
+	/**
+	 * Removes a key and puts it back, so the map keeps its size.
+	 */
+	@Benchmark
+	public Integer remove() {
+		Object key = present[nextAccess()];
+		Integer value = map.remove(key);
+		map.put(key, VALUE);
+		return value;
+	}
+
+	/**
+	 * Iterates all of the values, so the time is for size pairs.
+	 */
+	@Benchmark
+	public long iterate() {
+		return map.sum();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		String result = args.length > 0 ? args[0] : "maps-benchmark.json";
+		Options options = new OptionsBuilder().include(MapsBenchmark.class.getSimpleName())
+				.resultFormat(ResultFormatType.JSON).result(result).build();
+		new Runner(options).run();
+	}
+
+}
@@ -0,0 +1,874 @@
+package HashMap;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ *
+ * A non-blocking, thread-safe version of {@link CustomMap}. The map does not
+ * allow null keys or values. It is realized by an inner array of buckets, in
+ * which every bucket is an immutable chain of nodes. A change builds a new
+ * chain and swaps it in with a compare-and-set on the head of the bucket, so
+ * no thread ever takes a lock or waits for another one. A failed swap just
+ * reads the bucket again and retries.
+ *
+ * When the number of pairs exceeds the load factor, a twice as large array is
+ * allocated and the buckets are transferred to it in strides. Every thread
+ * that finds a moved bucket claims a stride and helps with the transfer before
+ * it retries in the new array. A moved bucket is marked by a forwarding node,
+ * which readers follow to the new array. The iterators of the views are weakly
+ * consistent.
+ *
+ * Like {@link ConcurrentCustomMap}, put, putIfAbsent and replace follow the
+ * contract of {@link ConcurrentMap} and return the previous value.
+ *
+ * @author Homes
+ *
+ * @param <K>
+ * @param <V>
+ */
+
+public class NonBlockingCustomMap<K, V> implements ConcurrentMap<K, V> {
+
+	static class Node<K, V> {
+		final int hash;
+		final K key;
+		final V value;
+		final Node<K, V> next;
+
+		Node(int hash, K key, V value, Node<K, V> next) {
+			this.hash = hash;
+			this.key = key;
+			this.value = value;
+			this.next = next;
+		}
+	}
+
+	/**
+	 * Put at the head of every bucket that was transferred to the new array.
+	 */
+	static final class ForwardingNode<K, V> extends Node<K, V> {
+		final Transfer<K, V> transfer;
+
+		ForwardingNode(Transfer<K, V> transfer) {
+			super(MOVED, null, null, null);
+			this.transfer = transfer;
+		}
+	}
+
+	/**
+	 * The state of a resize that is shared by the helping threads.
+	 */
+	static final class Transfer<K, V> {
+		final Node<K, V>[] from;
+		final Node<K, V>[] to;
+		final ForwardingNode<K, V> forward;
+		final AtomicInteger nextIndex;
+		final AtomicInteger transferred = new AtomicInteger();
+
+		@SuppressWarnings({ "unchecked", "rawtypes" })
+		Transfer(Node<K, V>[] from) {
+			this.from = from;
+			this.to = new Node[from.length * 2];
+			this.forward = new ForwardingNode<>(this);
+			this.nextIndex = new AtomicInteger(from.length);
+		}
+	}
+
+	final class WriteThroughEntry implements Entry<K, V> {
+		private final K key;
+		private V value;
+
+		public WriteThroughEntry(K key, V value) {
+			this.key = key;
+			this.value = value;
+		}
+
+		@Override
+		public K getKey() {
+			return key;
+		}
+
+		@Override
+		public V getValue() {
+			return value;
+		}
+
+		@Override
+		public V setValue(V value) {
+			V old = this.value;
+			NonBlockingCustomMap.this.put(key, value);
+			this.value = value;
+			return old;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Entry)) {
+				return false;
+			}
+			Entry<?, ?> e = (Entry<?, ?>) o;
+			return key.equals(e.getKey()) && value.equals(e.getValue());
+		}
+
+		@Override
+		public int hashCode() {
+			return key.hashCode() ^ value.hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return "[key=" + key + ", value=" + value + "]";
+		}
+
+	}
+
+	private static final int SIZE = 16;
+	private static final int MAXIMUM_SIZE = 1 << 30;
+	private static final float LOAD_FACTOR = 0.75f;
+	private static final int STRIDE = 16;
+	private static final int MOVED = -1;
+
+	private static final VarHandle BUCKET = MethodHandles.arrayElementVarHandle(Node[].class);
+	private static final VarHandle TRANSFER;
+
+	static {
+		try {
+			TRANSFER = MethodHandles.lookup().findVarHandle(NonBlockingCustomMap.class, "transfer", Transfer.class);
+		} catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	private final int initialSize;
+	private final LongAdder size = new LongAdder();
+	private volatile Node<K, V>[] table;
+	private volatile int threshold;
+	private volatile Transfer<K, V> transfer;
+	private Set<K> keySet;
+	private Set<Entry<K, V>> entrySet;
+	private Collection<V> valueCollection;
+
+	public NonBlockingCustomMap() {
+		this(SIZE);
+	}
+
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public NonBlockingCustomMap(int size) {
+		if (size <= 0) {
+			throw new IllegalArgumentException("Size cannot be a negative number.");
+		}
+
+		initialSize = tableSizeFor(size);
+		table = new Node[initialSize];
+		threshold = thresholdFor(initialSize);
+	}
+
+	/**
+	 * Adds a new pair associated with the given key and the given value.
+	 * Returns the previous value of the key or null.
+	 *
+	 * @param key
+	 * @param value
+	 * @return Type V
+	 */
+
+	@Override
+	public V put(K key, V value) {
+		if (value == null || key == null) {
+			throw new IllegalArgumentException("Map cannot have a null value or null key.");
+		}
+		return putValue(key, value, false);
+	}
+
+	/**
+	 * Gets the value that is associated with the given key.
+	 *
+	 * @param key
+	 * @return
+	 */
+
+	@Override
+	public V get(Object key) {
+		if (key == null) {
+			throw new IllegalArgumentException("No null keys.");
+		}
+		int hash = hash(key);
+		Node<K, V>[] tab = table;
+		while (true) {
+			Node<K, V> head = bucketAt(tab, hash & (tab.length - 1));
+			if (head instanceof ForwardingNode) {
+				tab = ((ForwardingNode<K, V>) head).transfer.to;
+				continue;
+			}
+			Node<K, V> e = find(head, hash, key);
+			return e == null ? null : e.value;
+		}
+	}
+
+	/**
+	 * Removes the pair that is associated with the given key and return its
+	 * value or null if there is no such key.
+	 *
+	 * @param key
+	 * @return Type V
+	 */
+
+	@Override
+	public V remove(Object key) {
+		if (key == null) {
+			throw new IllegalArgumentException("HashMap cannot have null key.");
+		}
+		return replaceValue(key, null, null);
+	}
+
+	/**
+	 * Atomically removes the pair, specified by the given key and value.
+	 *
+	 * @param key
+	 * @param value
+	 * @return boolean
+	 */
+
+	@Override
+	public boolean remove(Object key, Object value) {
+		if (key == null || value == null) {
+			throw new IllegalArgumentException("HashMap cannot have null key or values.");
+		}
+		return replaceValue(key, null, value) != null;
+	}
+
+	/**
+	 * If the map contains the given key, this method returns its own value.
+	 * Otherwise, it returns the defaultValue.
+	 *
+	 * @param key
+	 * @param defaultValue
+	 * @return Type V
+	 */
+
+	@Override
+	public V getOrDefault(Object key, V defaultValue) {
+		if (defaultValue == null) {
+			throw new IllegalArgumentException("HashMap cannot have null values.");
+		}
+
+		V value = this.get(key);
+		return value != null ? value : defaultValue;
+	}
+
+	/**
+	 * Atomically puts a new key-value mapping, if the map does not contain
+	 * already the given key. Returns the existing value or null if the given
+	 * value was put.
+	 *
+	 * @param key
+	 * @param value
+	 * @return Type V
+	 */
+
+	@Override
+	public V putIfAbsent(K key, V value) {
+		if (value == null || key == null) {
+			throw new IllegalArgumentException("Map cannot have a null value or null key.");
+		}
+		return putValue(key, value, true);
+	}
+
+	/**
+	 * Puts all of the key-value mappings from the given map to the map that
+	 * this method is executed to.
+	 *
+	 * @param other
+	 */
+
+	@Override
+	public void putAll(Map<? extends K, ? extends V> other) {
+		for (Entry<? extends K, ? extends V> pair : other.entrySet()) {
+			this.put(pair.getKey(), pair.getValue());
+		}
+	}
+
+	/**
+	 * If the map contains the given key, atomically replace its own oldValue
+	 * that is mapped to, with the given value. Returns the oldValue or null.
+	 *
+	 * @param key
+	 * @param value
+	 * @return Type V
+	 */
+
+	@Override
+	public V replace(K key, V value) {
+		if (key == null || value == null) {
+			throw new IllegalArgumentException("Not null keys or values.");
+		}
+		return replaceValue(key, value, null);
+	}
+
+	/**
+	 * If there is a Pair(key, oldValue) in the map, this method atomically
+	 * replace the oldValue with the newValue in the pair. Otherwise, does
+	 * nothing and returns false.
+	 *
+	 * @param key
+	 * @param oldValue
+	 * @param newValue
+	 * @return boolean
+	 */
+
+	@Override
+	public boolean replace(K key, V oldValue, V newValue) {
+		if (key == null || oldValue == null || newValue == null) {
+			throw new IllegalArgumentException("Not null keys or values.");
+		}
+		return replaceValue(key, newValue, oldValue) != null;
+	}
+
+	/**
+	 * Checks whether a given key has a mapping in the Map.
+	 *
+	 * @param key
+	 * @return boolean
+	 */
+
+	@Override
+	public boolean containsKey(Object key) {
+		return key != null && get(key) != null;
+	}
+
+	/**
+	 * Checks whether a given value has a mapping in the Map.
+	 *
+	 * @param value
+	 * @return boolean
+	 */
+
+	@Override
+	public boolean containsValue(Object value) {
+		if (value == null) {
+			return false;
+		}
+		for (V v : values()) {
+			if (v.equals(value)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns a view of all of the existing pairs in the Map.
+	 *
+	 * @return Set<Entry<K, V>>
+	 */
+
+	@Override
+	public Set<Entry<K, V>> entrySet() {
+		if (entrySet == null) {
+			entrySet = new EntrySet();
+		}
+		return entrySet;
+	}
+
+	/**
+	 * Returns a view of all of keys that have a mapping.
+	 *
+	 * @return Set<K>
+	 */
+
+	@Override
+	public Set<K> keySet() {
+		if (keySet == null) {
+			keySet = new KeySet();
+		}
+		return keySet;
+	}
+
+	/*
+	 * Returns a view of all of the values.
+	 */
+
+	@Override
+	public Collection<V> values() {
+		if (valueCollection == null) {
+			valueCollection = new Values();
+		}
+		return valueCollection;
+	}
+
+	/*
+	 * Removes every pair in the map, bucket by bucket. A resize that is in
+	 * progress is finished first.
+	 */
+
+	@Override
+	public void clear() {
+		Node<K, V>[] tab = table;
+		for (int i = 0; i < tab.length; i++) {
+			Node<K, V> head = bucketAt(tab, i);
+			if (head instanceof ForwardingNode) {
+				Transfer<K, V> resize = ((ForwardingNode<K, V>) head).transfer;
+				help(resize);
+				while (table == resize.from) {
+					Thread.onSpinWait();
+				}
+				tab = table;
+				i = -1;
+				continue;
+			}
+			if (head != null) {
+				if (casBucket(tab, i, head, null)) {
+					size.add(-length(head));
+				} else {
+					i--;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of pairs in the Map.
+	 *
+	 * @return Integer
+	 */
+
+	@Override
+	public int size() {
+		long sum = size.sum();
+		return sum < 0 ? 0 : (int) Math.min(sum, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Checks if the map contains any pair.
+	 *
+	 * @return boolean
+	 */
+
+	@Override
+	public boolean isEmpty() {
+		return size.sum() <= 0;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (o == this)
+			return true;
+
+		if (!(o instanceof Map))
+			return false;
+		Map<?, ?> m = (Map<?, ?>) o;
+		if (m.size() != this.size()) {
+			return false;
+		}
+		for (Entry<K, V> pair : entrySet()) {
+			if (!pair.getValue().equals(m.get(pair.getKey()))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+		return entrySet().hashCode();
+	}
+
+	/**
+	 * String representation of the map.
+	 */
+	@Override
+	public String toString() {
+		return "{" + entrySet() + "}";
+	}
+
+	private V putValue(K key, V value, boolean onlyIfAbsent) {
+		int hash = hash(key);
+		Node<K, V>[] tab = table;
+		while (true) {
+			int index = hash & (tab.length - 1);
+			Node<K, V> head = bucketAt(tab, index);
+			if (head instanceof ForwardingNode) {
+				tab = help(((ForwardingNode<K, V>) head).transfer);
+				continue;
+			}
+			Node<K, V> e = find(head, hash, key);
+			if (e != null) {
+				if (onlyIfAbsent || casBucket(tab, index, head, copyWith(head, e, value))) {
+					return e.value;
+				}
+				continue;
+			}
+			if (casBucket(tab, index, head, new Node<>(hash, key, value, head))) {
+				size.increment();
+				if (size.sum() > threshold) {
+					resize(tab);
+				}
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * Replaces the value of the given key with the given value, or removes the
+	 * pair if the given value is null. If an expected value is given, the pair
+	 * is changed only if it has that value. Returns the previous value or null
+	 * if nothing was changed.
+	 *
+	 * @param key
+	 * @param value
+	 * @param expected
+	 * @return Type V
+	 */
+	private V replaceValue(Object key, V value, Object expected) {
+		int hash = hash(key);
+		Node<K, V>[] tab = table;
+		while (true) {
+			int index = hash & (tab.length - 1);
+			Node<K, V> head = bucketAt(tab, index);
+			if (head instanceof ForwardingNode) {
+				tab = help(((ForwardingNode<K, V>) head).transfer);
+				continue;
+			}
+			Node<K, V> e = find(head, hash, key);
+			if (e == null || (expected != null && !e.value.equals(expected))) {
+				return null;
+			}
+			if (casBucket(tab, index, head, copyWith(head, e, value))) {
+				if (value == null) {
+					size.decrement();
+				}
+				return e.value;
+			}
+		}
+	}
+
+	private Node<K, V> find(Node<K, V> head, int hash, Object key) {
+		for (Node<K, V> e = head; e != null; e = e.next) {
+			if (e.hash == hash && e.key.equals(key)) {
+				return e;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns a copy of the chain in which the given node has the given value,
+	 * or is left out if the value is null. Only the nodes before it are
+	 * copied.
+	 *
+	 * @param head
+	 * @param node
+	 * @param value
+	 * @return Node<K, V>
+	 */
+	private Node<K, V> copyWith(Node<K, V> head, Node<K, V> node, V value) {
+		if (head == node) {
+			return value == null ? node.next : new Node<>(node.hash, node.key, value, node.next);
+		}
+		return new Node<>(head.hash, head.key, head.value, copyWith(head.next, node, value));
+	}
+
+	/**
+	 * Starts a resize of the given array, unless it is not the current one
+	 * anymore or another resize is already in progress.
+	 *
+	 * @param tab
+	 */
+	private void resize(Node<K, V>[] tab) {
+		if (tab != table || tab.length == MAXIMUM_SIZE || transfer != null) {
+			return;
+		}
+		Transfer<K, V> started = new Transfer<>(tab);
+		if (TRANSFER.compareAndSet(this, null, started)) {
+			if (table != tab) {
+				transfer = null;
+				return;
+			}
+			help(started);
+		}
+	}
+
+	/**
+	 * Transfers strides of buckets of the given resize until there are no
+	 * more strides to claim, and returns the new array.
+	 *
+	 * @param resize
+	 * @return Node<K, V>[]
+	 */
+	private Node<K, V>[] help(Transfer<K, V> resize) {
+		Node<K, V>[] from = resize.from;
+		while (true) {
+			int end = resize.nextIndex.get();
+			if (end <= 0) {
+				return resize.to;
+			}
+			int start = Math.max(end - STRIDE, 0);
+			if (!resize.nextIndex.compareAndSet(end, start)) {
+				continue;
+			}
+			for (int i = start; i < end; i++) {
+				transferBucket(resize, i);
+			}
+			if (resize.transferred.addAndGet(end - start) == from.length) {
+				threshold = thresholdFor(resize.to.length);
+				table = resize.to;
+				transfer = null;
+			}
+		}
+	}
+
+	/**
+	 * Splits the chain of the given bucket in the two buckets of the new array
+	 * that it belongs to and puts the forwarding node in the old bucket. If
+	 * another thread changed the bucket meanwhile, the split is made again.
+	 *
+	 * @param resize
+	 * @param index
+	 */
+	private void transferBucket(Transfer<K, V> resize, int index) {
+		Node<K, V>[] from = resize.from;
+		int length = from.length;
+		while (true) {
+			Node<K, V> head = bucketAt(from, index);
+			Node<K, V> low = null;
+			Node<K, V> high = null;
+			for (Node<K, V> e = head; e != null; e = e.next) {
+				if ((e.hash & length) == 0) {
+					low = new Node<>(e.hash, e.key, e.value, low);
+				} else {
+					high = new Node<>(e.hash, e.key, e.value, high);
+				}
+			}
+			BUCKET.setVolatile(resize.to, index, low);
+			BUCKET.setVolatile(resize.to, index + length, high);
+			if (casBucket(from, index, head, resize.forward)) {
+				return;
+			}
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <K, V> Node<K, V> bucketAt(Node<K, V>[] tab, int index) {
+		return (Node<K, V>) BUCKET.getVolatile(tab, index);
+	}
+
+	private static <K, V> boolean casBucket(Node<K, V>[] tab, int index, Node<K, V> expected, Node<K, V> node) {
+		return BUCKET.compareAndSet(tab, index, expected, node);
+	}
+
+	private static int length(Node<?, ?> head) {
+		int length = 0;
+		for (Node<?, ?> e = head; e != null; e = e.next) {
+			length++;
+		}
+		return length;
+	}
+
+	private static int thresholdFor(int length) {
+		return length == MAXIMUM_SIZE ? Integer.MAX_VALUE : (int) (length * LOAD_FACTOR);
+	}
+
+	private static int hash(Object key) {
+		int hash = key.hashCode();
+		return (hash ^ (hash >>> 16)) & Integer.MAX_VALUE;
+	}
+
+	/**
+	 * Returns the smallest power of two that is not less than the given size.
+	 *
+	 * @param size
+	 * @return Integer
+	 */
+	private static int tableSizeFor(int size) {
+		if (size >= MAXIMUM_SIZE) {
+			return MAXIMUM_SIZE;
+		}
+		return size == 1 ? 1 : Integer.highestOneBit(size - 1) << 1;
+	}
+
+	/**
+	 * Walks the buckets of the array that was current when the iterator was
+	 * created. A moved bucket is replaced by its two buckets in the new array.
+	 * It never throws ConcurrentModificationException and may or may not show
+	 * the changes made after it was created.
+	 */
+	private abstract class NodeIterator<T> implements Iterator<T> {
+		private final Node<K, V>[] tab = table;
+		private final Deque<Node<K, V>> chains = new ArrayDeque<>();
+		private int index;
+		private Node<K, V> next;
+		private K lastKey;
+
+		NodeIterator() {
+			advance();
+		}
+
+		private void advance() {
+			if (next != null) {
+				next = next.next;
+			}
+			while (next == null) {
+				if (!chains.isEmpty()) {
+					next = chains.pop();
+				} else if (index < tab.length) {
+					push(tab, index++);
+				} else {
+					return;
+				}
+			}
+		}
+
+		private void push(Node<K, V>[] from, int i) {
+			Node<K, V> head = bucketAt(from, i);
+			if (head instanceof ForwardingNode) {
+				Node<K, V>[] to = ((ForwardingNode<K, V>) head).transfer.to;
+				push(to, i);
+				push(to, i + from.length);
+			} else if (head != null) {
+				chains.push(head);
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next != null;
+		}
+
+		@Override
+		public T next() {
+			if (next == null) {
+				throw new NoSuchElementException();
+			}
+			Node<K, V> e = next;
+			advance();
+			lastKey = e.key;
+			return element(e);
+		}
+
+		@Override
+		public void remove() {
+			if (lastKey == null) {
+				throw new IllegalStateException();
+			}
+			NonBlockingCustomMap.this.remove(lastKey);
+			lastKey = null;
+		}
+
+		abstract T element(Node<K, V> node);
+	}
+
+	private final class KeySet extends AbstractSet<K> {
+		@Override
+		public Iterator<K> iterator() {
+			return new NodeIterator<K>() {
+				@Override
+				K element(Node<K, V> node) {
+					return node.key;
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return NonBlockingCustomMap.this.size();
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return containsKey(o);
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			return o != null && NonBlockingCustomMap.this.remove(o) != null;
+		}
+
+		@Override
+		public void clear() {
+			NonBlockingCustomMap.this.clear();
+		}
+	}
+
+	private final class Values extends AbstractCollection<V> {
+		@Override
+		public Iterator<V> iterator() {
+			return new NodeIterator<V>() {
+				@Override
+				V element(Node<K, V> node) {
+					return node.value;
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return NonBlockingCustomMap.this.size();
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return containsValue(o);
+		}
+
+		@Override
+		public void clear() {
+			NonBlockingCustomMap.this.clear();
+		}
+	}
+
+	private final class EntrySet extends AbstractSet<Entry<K, V>> {
+		@Override
+		public Iterator<Entry<K, V>> iterator() {
+			return new NodeIterator<Entry<K, V>>() {
+				@Override
+				Entry<K, V> element(Node<K, V> node) {
+					return new WriteThroughEntry(node.key, node.value);
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return NonBlockingCustomMap.this.size();
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			if (!(o instanceof Entry)) {
+				return false;
+			}
+			Entry<?, ?> e = (Entry<?, ?>) o;
+			V value = e.getKey() == null ? null : get(e.getKey());
+			return value != null && value.equals(e.getValue());
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			if (!(o instanceof Entry)) {
+				return false;
+			}
+			Entry<?, ?> e = (Entry<?, ?>) o;
+			return e.getKey() != null && e.getValue() != null
+					&& NonBlockingCustomMap.this.remove(e.getKey(), e.getValue());
+		}
+
+		@Override
+		public void clear() {
+			NonBlockingCustomMap.this.clear();
+		}
+	}
+
+}
@@ -0,0 +1,335 @@
+package HashMap;
+
+import java.util.function.ObjLongConsumer;
+
+/**
+ *
+ * A map from keys to long values that works like {@link CustomHashMap} but
+ * never boxes the values. The keys and the values are kept in an Object and a
+ * long array (open addressing with linear probing), so a pair takes about 12
+ * bytes plus the key itself and the free space left by the load factor. The
+ * map does not allow null keys, so a null key marks an empty index.
+ *
+ * The get and remove methods return 0 when there is no such key. Use
+ * containsKey or getOrDefault to tell a missing key from a pair with the value
+ * 0.
+ *
+ * @author Homes
+ *
+ * @param <K>
+ */
+
+public class ObjectLongMap<K> {
+	private static final int SIZE = 16;
+	private static final int MAXIMUM_SIZE = 1 << 30;
+	private static final float LOAD_FACTOR = 0.75f;
+
+	private final int initialSize;
+	private int threshold;
+	private Object[] keys;
+	private long[] values;
+	private int size;
+
+	public ObjectLongMap() {
+		this(SIZE);
+	}
+
+	public ObjectLongMap(int size) {
+		if (size <= 0) {
+			throw new IllegalArgumentException("Size cannot be a negative number.");
+		}
+
+		this.initialSize = tableSizeFor(size);
+		allocate(initialSize);
+	}
+
+	/**
+	 * Adds a new pair associated with the given key and the given value.
+	 * Returns the previous value of the key or 0.
+	 *
+	 * @param key
+	 * @param value
+	 * @return long
+	 */
+	public long put(K key, long value) {
+		if (key == null) {
+			throw new IllegalArgumentException("Map cannot have a null key.");
+		}
+		int index = indexOf(key);
+		long old = values[index];
+		values[index] = value;
+		if (keys[index] == null) {
+			keys[index] = key;
+			if (++size > threshold) {
+				resize();
+			}
+			return 0;
+		}
+		return old;
+	}
+
+	/**
+	 * Adds the given delta to the value of the given key, or puts the delta if
+	 * there is no such key, and returns the new value.
+	 *
+	 * @param key
+	 * @param delta
+	 * @return long
+	 */
+	public long addTo(K key, long delta) {
+		if (key == null) {
+			throw new IllegalArgumentException("Map cannot have a null key.");
+		}
+		int index = indexOf(key);
+		if (keys[index] != null) {
+			return values[index] += delta;
+		}
+		keys[index] = key;
+		values[index] = delta;
+		if (++size > threshold) {
+			resize();
+		}
+		return delta;
+	}
+
+	/**
+	 * Gets the value that is associated with the given key or 0.
+	 *
+	 * @param key
+	 * @return long
+	 */
+	public long get(Object key) {
+		return getOrDefault(key, 0);
+	}
+
+	/**
+	 * If the map contains the given key, this method returns its own value.
+	 * Otherwise, it returns the defaultValue.
+	 *
+	 * @param key
+	 * @param defaultValue
+	 * @return long
+	 */
+	public long getOrDefault(Object key, long defaultValue) {
+		if (key == null) {
+			throw new IllegalArgumentException("No null keys.");
+		}
+		int index = indexOf(key);
+		return keys[index] != null ? values[index] : defaultValue;
+	}
+
+	/**
+	 * Removes the pair that is associated with the given key and return its
+	 * value or 0 if there is no such key.
+	 *
+	 * @param key
+	 * @return long
+	 */
+	public long remove(Object key) {
+		if (key == null) {
+			throw new IllegalArgumentException("HashMap cannot have null key.");
+		}
+		int index = indexOf(key);
+		if (keys[index] == null) {
+			return 0;
+		}
+		long value = values[index];
+		removeAt(index);
+		return value;
+	}
+
+	/**
+	 * Checks whether a given key has a mapping in the Map.
+	 *
+	 * @param key
+	 * @return boolean
+	 */
+	public boolean containsKey(Object key) {
+		return key != null && keys[indexOf(key)] != null;
+	}
+
+	/**
+	 * Checks whether a given value has a mapping in the Map.
+	 *
+	 * @param value
+	 * @return boolean
+	 */
+	public boolean containsValue(long value) {
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != null && values[i] == value) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Passes every pair of the map to the given consumer.
+	 *
+	 * @param consumer
+	 */
+	@SuppressWarnings("unchecked")
+	public void forEach(ObjLongConsumer<? super K> consumer) {
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != null) {
+				consumer.accept((K) keys[i], values[i]);
+			}
+		}
+	}
+
+	/*
+	 * Removes every pair in the map.
+	 */
+	public void clear() {
+		allocate(initialSize);
+		size = 0;
+	}
+
+	/**
+	 * Returns the number of pairs in the Map.
+	 *
+	 * @return Integer
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Checks if the map contains any pair.
+	 *
+	 * @return boolean
+	 */
+	public boolean isEmpty() {
+		return this.size() == 0;
+	}
+
+	/**
+	 * String representation of the map.
+	 */
+	@Override
+	public String toString() {
+		final StringBuilder builder = new StringBuilder("{[");
+		forEach(new ObjLongConsumer<K>() {
+			@Override
+			public void accept(K key, long value) {
+				if (builder.length() > 2) {
+					builder.append(", ");
+				}
+				builder.append("[key=").append(key).append(", value=").append(value).append(']');
+			}
+		});
+		return builder.append("]}").toString();
+	}
+
+	/**
+	 * Returns the index of the given key or the empty index at which it would
+	 * be put.
+	 *
+	 * @param key
+	 * @return Integer
+	 */
+	private int indexOf(Object key) {
+		int mask = keys.length - 1;
+		int index = hash(key) & mask;
+		while (keys[index] != null && !keys[index].equals(key)) {
+			index = (index + 1) & mask;
+		}
+		return index;
+	}
+
+	/**
+	 * Removes the pair at the given index and moves back the following pairs
+	 * that would not be found anymore, until an empty index.
+	 *
+	 * @param index
+	 */
+	private void removeAt(int index) {
+		int mask = keys.length - 1;
+		int next = (index + 1) & mask;
+		while (keys[next] != null) {
+			int home = hash(keys[next]) & mask;
+			if (((next - home) & mask) >= ((next - index) & mask)) {
+				keys[index] = keys[next];
+				values[index] = values[next];
+				index = next;
+			}
+			next = (next + 1) & mask;
+		}
+		keys[index] = null;
+		size--;
+	}
+
+	private void resize() {
+		if (keys.length == MAXIMUM_SIZE) {
+			throw new IllegalStateException("Map cannot have more than " + threshold + " pairs.");
+		}
+		Object[] oldKeys = keys;
+		long[] oldValues = values;
+		allocate(oldKeys.length * 2);
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != null) {
+				int index = indexOf(oldKeys[i]);
+				keys[index] = oldKeys[i];
+				values[index] = oldValues[i];
+			}
+		}
+	}
+
+	private void allocate(int length) {
+		keys = new Object[length];
+		values = new long[length];
+		threshold = (int) Math.min(length * LOAD_FACTOR, length - 1);
+	}
+
+	private static int hash(Object key) {
+		int hash = key.hashCode() * 0x9E3779B9;
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * Returns the smallest power of two that is not less than the given size
+	 * divided by the load factor.
+	 *
+	 * @param size
+	 * @return Integer
+	 */
+	private static int tableSizeFor(int size) {
+		long length = (long) Math.ceil(size / LOAD_FACTOR);
+		if (length >= MAXIMUM_SIZE) {
+			return MAXIMUM_SIZE;
+		}
+		return length <= 2 ? 2 : Integer.highestOneBit((int) length - 1) << 1;
+	}
+
+	@Override
+	public int hashCode() {
+		int result = 0;
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != null) {
+				result += keys[i].hashCode() ^ Long.hashCode(values[i]);
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (o == this) {
+			return true;
+		}
+		if (!(o instanceof ObjectLongMap)) {
+			return false;
+		}
+		ObjectLongMap<?> other = (ObjectLongMap<?>) o;
+		if (other.size() != size) {
+			return false;
+		}
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != null && (!other.containsKey(keys[i]) || other.get(keys[i]) != values[i])) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
@@ -0,0 +1,945 @@
+package HashMap;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ *
+ * The map does not allow null keys or values. It behaves like
+ * {@link CustomMap}, but the keys and the values are written with the given
+ * {@link Codec}s into direct buffers outside of the heap (the arena), so the
+ * garbage collector sees only a few arrays and buffers no matter how many
+ * pairs the map holds. Every pair is a record of two ints with the lengths of
+ * the key and the value, followed by their bytes. The map keeps only the
+ * addresses of the records and the hash codes of their keys, in two arrays
+ * with open addressing and linear probing.
+ *
+ * Overwriting or removing a pair leaves its old record behind in the arena.
+ * compact copies the remaining records into a new arena and drops the old
+ * one. close drops the whole arena and the map cannot be used anymore. Direct
+ * buffers have no explicit release, so the memory of a dropped arena comes
+ * back only when the garbage collector collects its buffers; a heap that is
+ * rarely collected can hold on to it for long, up to -XX:MaxDirectMemorySize.
+ *
+ * @author Homes
+ *
+ * @param <K>
+ * @param <V>
+ */
+
+public class OffHeapMap<K, V> implements Map<K, V>, Closeable {
+
+	final class OffHeapEntry implements Entry<K, V> {
+		private final K key;
+		private V value;
+
+		public OffHeapEntry(K key, V value) {
+			this.key = key;
+			this.value = value;
+		}
+
+		@Override
+		public K getKey() {
+			return key;
+		}
+
+		@Override
+		public V getValue() {
+			return value;
+		}
+
+		@Override
+		public V setValue(V value) {
+			V old = this.value;
+			OffHeapMap.this.put(key, value);
+			this.value = value;
+			return old;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Entry)) {
+				return false;
+			}
+			Entry<?, ?> e = (Entry<?, ?>) o;
+			return key.equals(e.getKey()) && value.equals(e.getValue());
+		}
+
+		@Override
+		public int hashCode() {
+			return key.hashCode() ^ value.hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return "[key=" + key + ", value=" + value + "]";
+		}
+
+	}
+
+	private static final int SIZE = 16;
+	private static final int MAXIMUM_SIZE = 1 << 30;
+	private static final float LOAD_FACTOR = 0.75f;
+	private static final int CHUNK_SIZE = 64 << 20;
+	private static final int HEADER = 2 * Integer.BYTES;
+	private static final long EMPTY = -1L;
+
+	private final Codec<K> keyCodec;
+	private final Codec<V> valueCodec;
+	private final int initialSize;
+	private final int chunkSize;
+	private int threshold;
+	private long[] addresses;
+	private int[] hashes;
+	private List<ByteBuffer> chunks;
+	private ByteBuffer scratch;
+	private int size;
+	private int modCount;
+	private long liveBytes;
+	private long deadBytes;
+	private boolean closed;
+	private Set<K> keySet;
+	private Set<Entry<K, V>> entrySet;
+	private Collection<V> valueCollection;
+
+	public OffHeapMap(Codec<K> keyCodec, Codec<V> valueCodec) {
+		this(keyCodec, valueCodec, SIZE, CHUNK_SIZE);
+	}
+
+	public OffHeapMap(Codec<K> keyCodec, Codec<V> valueCodec, int size, int chunkSize) {
+		if (keyCodec == null || valueCodec == null) {
+			throw new IllegalArgumentException("Codecs cannot be null.");
+		}
+		if (size <= 0) {
+			throw new IllegalArgumentException("Size cannot be a negative number.");
+		}
+		if (chunkSize <= HEADER) {
+			throw new IllegalArgumentException("Chunk size must be larger than " + HEADER + " bytes.");
+		}
+
+		this.keyCodec = keyCodec;
+		this.valueCodec = valueCodec;
+		this.initialSize = tableSizeFor(size);
+		this.chunkSize = chunkSize;
+		this.scratch = ByteBuffer.allocate(64);
+		allocate(initialSize);
+		chunks = new ArrayList<>();
+	}
+
+	/**
+	 * Adds a new pair associated with the given key and the given value.
+	 *
+	 * @param key
+	 * @param value
+	 */
+
+	@Override
+	public V put(K key, V value) {
+		if (value == null || key == null) {
+			throw new IllegalArgumentException("Map cannot have a null value or null key.");
+		}
+		checkOpen();
+		int hash = hash(key);
+		int keyLength = encode(key);
+		int index = indexOf(hash, keyLength);
+		if (addresses[index] != EMPTY) {
+			release(addresses[index]);
+			addresses[index] = append(keyLength, value);
+			return value;
+		}
+		addresses[index] = append(keyLength, value);
+		hashes[index] = hash;
+		size++;
+		modCount++;
+		if (size > threshold) {
+			resize();
+		}
+		return value;
+	}
+
+	/**
+	 * Gets the value that is associated with the given key.
+	 *
+	 * @param key
+	 * @return
+	 */
+
+	@Override
+	public V get(Object key) {
+		if (key == null) {
+			throw new IllegalArgumentException("No null keys.");
+		}
+		checkOpen();
+		int index = find(key);
+		return index >= 0 ? readValue(addresses[index]) : null;
+	}
+
+	/**
+	 * Removes the pair that is associated with the given key and return its
+	 * value or null if there is no such key.
+	 *
+	 * @param key
+	 * @return Type V
+	 */
+
+	@Override
+	public V remove(Object key) {
+		if (key == null) {
+			throw new IllegalArgumentException("HashMap cannot have null key.");
+		}
+		checkOpen();
+		int index = find(key);
+		if (index < 0) {
+			return null;
+		}
+		V value = readValue(addresses[index]);
+		removeAt(index);
+		return value;
+	}
+
+	/**
+	 * Removes the pair, specified by the given key and value.
+	 *
+	 * @param key
+	 * @param value
+	 * @return boolean
+	 */
+
+	@Override
+	public boolean remove(Object key, Object value) {
+		if (key == null || value == null) {
+			throw new IllegalArgumentException("HashMap cannot have null key or values.");
+		}
+		checkOpen();
+		int index = find(key);
+		if (index >= 0 && readValue(addresses[index]).equals(value)) {
+			removeAt(index);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * If the map contains the given key, this method returns its own value.
+	 * Otherwise, it returns the defaultValue.
+	 *
+	 * @param key
+	 * @param defaultValue
+	 * @return Type V
+	 */
+
+	@Override
+	public V getOrDefault(Object key, V defaultValue) {
+		if (defaultValue == null) {
+			throw new IllegalArgumentException("HashMap cannot have null values.");
+		}
+
+		V value = this.get(key);
+		return value != null ? value : defaultValue;
+	}
+
+	/**
+	 * Put a new key-value mapping, if the map does not contain already the
+	 * given key. Returns the given value if it was put or null otherwise.
+	 *
+	 * @param key
+	 * @param value
+	 * @return Type V
+	 */
+
+	@Override
+	public V putIfAbsent(K key, V value) {
+		if (!this.containsKey(key)) {
+			this.put(key, value);
+			return value;
+		}
+
+		return null;
+	}
+
+	/**
+	 * Puts all of the key-value mappings from the given map to the map that
+	 * this method is executed to.
+	 *
+	 * @param other
+	 */
+
+	@Override
+	public void putAll(Map<? extends K, ? extends V> other) {
+		if (other.containsKey(null) || other.containsValue(null)) {
+			throw new IllegalArgumentException("Given map has null key/s or value/s.");
+		}
+
+		for (Entry<? extends K, ? extends V> pair : other.entrySet()) {
+			this.put(pair.getKey(), pair.getValue());
+		}
+	}
+
+	/**
+	 * If the map contains the given key, replace its own oldValue that is
+	 * mapped to, with the given value. Returns the oldValue or null.
+	 *
+	 * @param key
+	 * @param value
+	 * @return Type V
+	 */
+
+	@Override
+	public V replace(K key, V value) {
+		if (key == null) {
+			throw new IllegalArgumentException("Not null keys.");
+		}
+
+		V oldValue = this.get(key);
+		if (oldValue != null) {
+			this.put(key, value);
+		}
+		return oldValue;
+	}
+
+	/**
+	 * If there is a Pair(key, oldValue) in the map, this method replace the
+	 * oldValue with the newValue in the pair. Otherwise, does nothing and
+	 * returns false.
+	 *
+	 * @param key
+	 * @param oldValue
+	 * @param newValue
+	 * @return boolean
+	 */
+
+	@Override
+	public boolean replace(K key, V oldValue, V newValue) {
+		if (key == null || oldValue == null || newValue == null) {
+			throw new IllegalArgumentException("Not null keys or values.");
+		}
+
+		if (oldValue.equals(this.get(key))) {
+			this.put(key, newValue);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Checks whether a given key has a mapping in the Map.
+	 *
+	 * @param key
+	 * @return boolean
+	 */
+
+	@Override
+	public boolean containsKey(Object key) {
+		checkOpen();
+		return key != null && find(key) >= 0;
+	}
+
+	/**
+	 * Checks whether a given value has a mapping in the Map. The values are
+	 * read one by one from the arena.
+	 *
+	 * @param value
+	 * @return boolean
+	 */
+
+	@Override
+	public boolean containsValue(Object value) {
+		checkOpen();
+		if (value == null) {
+			return false;
+		}
+		for (long address : addresses) {
+			if (address != EMPTY && readValue(address).equals(value)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns a view of all of the existing pairs in the Map. The keys and the
+	 * values are read from the arena while iterating.
+	 *
+	 * @return Set<Entry<K, V>>
+	 */
+
+	@Override
+	public Set<Entry<K, V>> entrySet() {
+		if (entrySet == null) {
+			entrySet = new EntrySet();
+		}
+		return entrySet;
+	}
+
+	/**
+	 * Returns a view of all of keys that have a mapping.
+	 *
+	 * @return Set<K>
+	 */
+
+	@Override
+	public Set<K> keySet() {
+		if (keySet == null) {
+			keySet = new KeySet();
+		}
+		return keySet;
+	}
+
+	/*
+	 * Returns a view of all of the values.
+	 */
+
+	@Override
+	public Collection<V> values() {
+		if (valueCollection == null) {
+			valueCollection = new Values();
+		}
+		return valueCollection;
+	}
+
+	/*
+	 * Removes every pair in the map and releases the arena.
+	 */
+
+	@Override
+	public void clear() {
+		checkOpen();
+		allocate(initialSize);
+		chunks = new ArrayList<>();
+		size = 0;
+		liveBytes = 0;
+		deadBytes = 0;
+		modCount++;
+	}
+
+	/**
+	 * Returns the number of pairs in the Map.
+	 *
+	 * @return Integer
+	 */
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Checks if the map contains any pair.
+	 *
+	 * @return boolean
+	 */
+
+	@Override
+	public boolean isEmpty() {
+		return this.size() == 0;
+	}
+
+	/**
+	 * Copies the records of the existing pairs into a new arena and drops the
+	 * old one, so the space of the overwritten and removed pairs is given
+	 * back. Both arenas exist while it runs, so it may need up to twice the
+	 * memory of the arena, and the old one is only freed once the garbage
+	 * collector runs the cleaners of its buffers.
+	 */
+	public void compact() {
+		checkOpen();
+		List<ByteBuffer> oldChunks = chunks;
+		chunks = new ArrayList<>();
+		for (int i = 0; i < addresses.length; i++) {
+			if (addresses[i] != EMPTY) {
+				addresses[i] = copy(oldChunks, addresses[i]);
+			}
+		}
+		deadBytes = 0;
+	}
+
+	/**
+	 * Returns the number of bytes taken by the records of the existing pairs.
+	 *
+	 * @return long
+	 */
+	public long liveBytes() {
+		return liveBytes;
+	}
+
+	/**
+	 * Returns the number of bytes taken by the records of overwritten and
+	 * removed pairs, which compact gives back.
+	 *
+	 * @return long
+	 */
+	public long deadBytes() {
+		return deadBytes;
+	}
+
+	/**
+	 * Drops the arena. Its memory is freed when the garbage collector runs
+	 * the cleaners of the direct buffers, not by close itself. The map cannot
+	 * be used after it is closed.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		chunks = null;
+		addresses = null;
+		hashes = null;
+		size = 0;
+		liveBytes = 0;
+		deadBytes = 0;
+		modCount++;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (o == this)
+			return true;
+
+		if (!(o instanceof Map))
+			return false;
+		Map<?, ?> m = (Map<?, ?>) o;
+		if (m.size() != this.size()) {
+			return false;
+		}
+		for (Entry<K, V> pair : entrySet()) {
+			if (!pair.getValue().equals(m.get(pair.getKey()))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+		return entrySet().hashCode();
+	}
+
+	/**
+	 * String representation of the map.
+	 */
+	@Override
+	public String toString() {
+		return "{" + entrySet() + "}";
+	}
+
+	private void checkOpen() {
+		if (closed) {
+			throw new IllegalStateException("Map is closed.");
+		}
+	}
+
+	/**
+	 * Returns the index of the given key or -1 if the map does not contain it.
+	 *
+	 * @param key
+	 * @return Integer
+	 */
+	@SuppressWarnings("unchecked")
+	private int find(Object key) {
+		int hash = hash(key);
+		int index = indexOf(hash, encode((K) key));
+		return addresses[index] != EMPTY ? index : -1;
+	}
+
+	/**
+	 * Returns the index of the key that is written in the scratch buffer or
+	 * the empty index at which it would be put.
+	 *
+	 * @param hash
+	 * @param keyLength
+	 * @return Integer
+	 */
+	private int indexOf(int hash, int keyLength) {
+		int mask = addresses.length - 1;
+		int index = hash & mask;
+		while (addresses[index] != EMPTY && (hashes[index] != hash || !keyEquals(addresses[index], keyLength))) {
+			index = (index + 1) & mask;
+		}
+		return index;
+	}
+
+	/**
+	 * Writes the given key in the scratch buffer and returns its length.
+	 *
+	 * @param key
+	 * @return Integer
+	 */
+	private int encode(K key) {
+		int length = keyCodec.sizeOf(key);
+		if (scratch.capacity() < length) {
+			scratch = ByteBuffer.allocate(Math.max(length, scratch.capacity() * 2));
+		}
+		scratch.clear();
+		keyCodec.write(key, scratch);
+		if (scratch.position() != length) {
+			throw new IllegalStateException("Key codec wrote " + scratch.position() + " bytes instead of " + length + ".");
+		}
+		return length;
+	}
+
+	/**
+	 * Compares the key of the record at the given address with the key that is
+	 * written in the scratch buffer.
+	 *
+	 * @param address
+	 * @param keyLength
+	 * @return boolean
+	 */
+	private boolean keyEquals(long address, int keyLength) {
+		ByteBuffer chunk = chunkOf(address);
+		int offset = offsetOf(address);
+		if (chunk.getInt(offset) != keyLength) {
+			return false;
+		}
+		offset += HEADER;
+		for (int i = 0; i < keyLength; i++) {
+			if (chunk.get(offset + i) != scratch.get(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Writes a record with the key from the scratch buffer and the given
+	 * value at the end of the arena and returns its address.
+	 *
+	 * @param keyLength
+	 * @param value
+	 * @return long
+	 */
+	private long append(int keyLength, V value) {
+		int valueLength = valueCodec.sizeOf(value);
+		int length = HEADER + keyLength + valueLength;
+		ByteBuffer chunk = reserve(length);
+		int offset = chunk.position();
+		chunk.putInt(keyLength);
+		chunk.putInt(valueLength);
+		scratch.flip();
+		chunk.put(scratch);
+		valueCodec.write(value, chunk);
+		if (chunk.position() != offset + length) {
+			throw new IllegalStateException("Value codec wrote " + (chunk.position() - offset - HEADER - keyLength)
+					+ " bytes instead of " + valueLength + ".");
+		}
+		liveBytes += length;
+		return addressOf(chunks.size() - 1, offset);
+	}
+
+	/**
+	 * Copies the record at the given address from the given chunks to the end
+	 * of the arena and returns its new address.
+	 *
+	 * @param from
+	 * @param address
+	 * @return long
+	 */
+	private long copy(List<ByteBuffer> from, long address) {
+		ByteBuffer source = from.get((int) (address >>> 32)).duplicate();
+		int offset = offsetOf(address);
+		int length = HEADER + source.getInt(offset) + source.getInt(offset + Integer.BYTES);
+		source.limit(offset + length);
+		source.position(offset);
+		ByteBuffer chunk = reserve(length);
+		int newOffset = chunk.position();
+		chunk.put(source);
+		return addressOf(chunks.size() - 1, newOffset);
+	}
+
+	/**
+	 * Returns the last chunk of the arena, or a new one if the record with the
+	 * given length does not fit in it.
+	 *
+	 * @param length
+	 * @return ByteBuffer
+	 */
+	private ByteBuffer reserve(int length) {
+		ByteBuffer chunk = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+		if (chunk == null || chunk.remaining() < length) {
+			chunk = ByteBuffer.allocateDirect(Math.max(length, chunkSize));
+			chunks.add(chunk);
+		}
+		return chunk;
+	}
+
+	private void release(long address) {
+		int length = recordLength(address);
+		liveBytes -= length;
+		deadBytes += length;
+	}
+
+	private int recordLength(long address) {
+		ByteBuffer chunk = chunkOf(address);
+		int offset = offsetOf(address);
+		return HEADER + chunk.getInt(offset) + chunk.getInt(offset + Integer.BYTES);
+	}
+
+	private K readKey(long address) {
+		ByteBuffer source = chunkOf(address).duplicate();
+		int offset = offsetOf(address);
+		source.position(offset + HEADER);
+		return keyCodec.read(source, source.getInt(offset));
+	}
+
+	private V readValue(long address) {
+		ByteBuffer source = chunkOf(address).duplicate();
+		int offset = offsetOf(address);
+		source.position(offset + HEADER + source.getInt(offset));
+		return valueCodec.read(source, source.getInt(offset + Integer.BYTES));
+	}
+
+	private ByteBuffer chunkOf(long address) {
+		return chunks.get((int) (address >>> 32));
+	}
+
+	private static int offsetOf(long address) {
+		return (int) address;
+	}
+
+	private static long addressOf(int chunk, int offset) {
+		return ((long) chunk << 32) | (offset & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Removes the pair at the given index and moves back the following pairs
+	 * that would not be found anymore, until an empty index.
+	 *
+	 * @param index
+	 */
+	private void removeAt(int index) {
+		release(addresses[index]);
+		int mask = addresses.length - 1;
+		int next = (index + 1) & mask;
+		while (addresses[next] != EMPTY) {
+			int home = hashes[next] & mask;
+			if (((next - home) & mask) >= ((next - index) & mask)) {
+				addresses[index] = addresses[next];
+				hashes[index] = hashes[next];
+				index = next;
+			}
+			next = (next + 1) & mask;
+		}
+		addresses[index] = EMPTY;
+		size--;
+		modCount++;
+	}
+
+	private void resize() {
+		if (addresses.length == MAXIMUM_SIZE) {
+			threshold = Integer.MAX_VALUE;
+			return;
+		}
+		long[] oldAddresses = addresses;
+		int[] oldHashes = hashes;
+		allocate(oldAddresses.length * 2);
+		int mask = addresses.length - 1;
+		for (int i = 0; i < oldAddresses.length; i++) {
+			if (oldAddresses[i] != EMPTY) {
+				int index = oldHashes[i] & mask;
+				while (addresses[index] != EMPTY) {
+					index = (index + 1) & mask;
+				}
+				addresses[index] = oldAddresses[i];
+				hashes[index] = oldHashes[i];
+			}
+		}
+	}
+
+	private void allocate(int length) {
+		addresses = new long[length];
+		Arrays.fill(addresses, EMPTY);
+		hashes = new int[length];
+		threshold = (int) Math.min(length * LOAD_FACTOR, length - 1);
+	}
+
+	private static int hash(Object key) {
+		int hash = key.hashCode();
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * Returns the smallest power of two that is not less than the given size.
+	 *
+	 * @param size
+	 * @return Integer
+	 */
+	private static int tableSizeFor(int size) {
+		if (size >= MAXIMUM_SIZE) {
+			return MAXIMUM_SIZE;
+		}
+		return size <= 2 ? 2 : Integer.highestOneBit(size - 1) << 1;
+	}
+
+	/**
+	 * Walks the indexes backwards, starting just before an empty index. A
+	 * removal through the iterator moves back only pairs that are already
+	 * returned, because the moving stops at that empty index at the latest.
+	 */
+	private abstract class SlotIterator<T> implements Iterator<T> {
+		private final int mask;
+		private int index;
+		private int remaining;
+		private int last = -1;
+		private int expectedModCount = modCount;
+
+		SlotIterator() {
+			checkOpen();
+			mask = addresses.length - 1;
+			remaining = addresses.length;
+			int empty = 0;
+			while (addresses[empty] != EMPTY) {
+				empty++;
+			}
+			index = (empty - 1) & mask;
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (remaining > 0 && addresses[index] == EMPTY) {
+				index = (index - 1) & mask;
+				remaining--;
+			}
+			return remaining > 0;
+		}
+
+		@Override
+		public T next() {
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			last = index;
+			index = (index - 1) & mask;
+			remaining--;
+			return element(addresses[last]);
+		}
+
+		@Override
+		public void remove() {
+			if (last < 0) {
+				throw new IllegalStateException();
+			}
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			removeAt(last);
+			last = -1;
+			expectedModCount = modCount;
+		}
+
+		abstract T element(long address);
+	}
+
+	private final class KeySet extends AbstractSet<K> {
+		@Override
+		public Iterator<K> iterator() {
+			return new SlotIterator<K>() {
+				@Override
+				K element(long address) {
+					return readKey(address);
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return containsKey(o);
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			return o != null && OffHeapMap.this.remove(o) != null;
+		}
+
+		@Override
+		public void clear() {
+			OffHeapMap.this.clear();
+		}
+	}
+
+	private final class Values extends AbstractCollection<V> {
+		@Override
+		public Iterator<V> iterator() {
+			return new SlotIterator<V>() {
+				@Override
+				V element(long address) {
+					return readValue(address);
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return containsValue(o);
+		}
+
+		@Override
+		public void clear() {
+			OffHeapMap.this.clear();
+		}
+	}
+
+	private final class EntrySet extends AbstractSet<Entry<K, V>> {
+		@Override
+		public Iterator<Entry<K, V>> iterator() {
+			return new SlotIterator<Entry<K, V>>() {
+				@Override
+				Entry<K, V> element(long address) {
+					return new OffHeapEntry(readKey(address), readValue(address));
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			if (!(o instanceof Entry)) {
+				return false;
+			}
+			Entry<?, ?> e = (Entry<?, ?>) o;
+			V value = e.getKey() == null ? null : get(e.getKey());
+			return value != null && value.equals(e.getValue());
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			if (!contains(o)) {
+				return false;
+			}
+			OffHeapMap.this.remove(((Entry<?, ?>) o).getKey());
+			return true;
+		}
+
+		@Override
+		public void clear() {
+			OffHeapMap.this.clear();
+		}
+	}
+
+}
@@ -0,0 +1,116 @@
+package HashMap;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+public class OffHeapMapTests extends TestCase {
+	private OffHeapMap<String, Integer> map;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		this.map = new OffHeapMap<>(Codec.STRING, Codec.INTEGER, 16, 1024);
+	}
+
+	@Override
+	protected void tearDown() throws Exception {
+		map.close();
+		super.tearDown();
+	}
+
+	@Test
+	public void testPutAndGet() {
+		for (int i = 0; i < 10000; i++) {
+			map.put("Key" + i, i);
+		}
+		assertEquals(10000, map.size());
+		for (int i = 0; i < 10000; i++) {
+			assertEquals((Integer) i, map.get("Key" + i));
+		}
+		assertNull(map.get("Key10000"));
+	}
+
+	@Test
+	public void testOverwrite() {
+		map.put("Hash", 21);
+		map.put("Hash", 22);
+		assertEquals(1, map.size());
+		assertEquals((Integer) 22, map.get("Hash"));
+		assertTrue(map.deadBytes() > 0);
+	}
+
+	@Test
+	public void testRemoveAndCompact() {
+		for (int i = 0; i < 1000; i++) {
+			map.put("\u041a\u043b\u044e\u0447" + i, i);
+		}
+		for (int i = 0; i < 1000; i += 2) {
+			assertEquals((Integer) i, map.remove("\u041a\u043b\u044e\u0447" + i));
+		}
+		long live = map.liveBytes();
+		map.compact();
+		assertEquals(0, map.deadBytes());
+		assertEquals(live, map.liveBytes());
+		assertEquals(500, map.size());
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(i % 2 == 1 ? (Integer) i : null, map.get("\u041a\u043b\u044e\u0447" + i));
+		}
+	}
+
+	@Test
+	public void testIteratorRemove() {
+		for (int i = 0; i < 1000; i++) {
+			map.put("Key" + i, i);
+		}
+		int seen = 0;
+		for (Iterator<Map.Entry<String, Integer>> it = map.entrySet().iterator(); it.hasNext();) {
+			Map.Entry<String, Integer> pair = it.next();
+			seen++;
+			if (pair.getValue() % 2 == 0) {
+				it.remove();
+			}
+		}
+		assertEquals(1000, seen);
+		assertEquals(500, map.size());
+		assertTrue(map.containsKey("Key1"));
+		assertFalse(map.containsKey("Key2"));
+	}
+
+	@Test
+	public void testUnpairedSurrogate() {
+		for (String key : new String[] { "a\uD800b", "\uDC00", "a\uD800", "\uD83D\uDE00\uD800" }) {
+			try {
+				map.put(key, 1);
+				fail();
+			} catch (IllegalArgumentException e) {
+			}
+		}
+		assertEquals(0, map.size());
+		String[] keys = { "a?b", "\u00E9", "\u20AC", "\uD83D\uDE00" };
+		for (int i = 0; i < keys.length; i++) {
+			assertEquals(keys[i].getBytes(StandardCharsets.UTF_8).length, Codec.STRING.sizeOf(keys[i]));
+			map.put(keys[i], i);
+		}
+		for (int i = 0; i < keys.length; i++) {
+			assertEquals((Integer) i, map.get(keys[i]));
+		}
+	}
+
+	@Test
+	public void testClose() {
+		map.put("Hash", 21);
+		map.close();
+		try {
+			map.get("Hash");
+			fail("Closed map was read.");
+		} catch (IllegalStateException e) {
+			assertEquals(0, map.size());
+		}
+	}
+
+}
@@ -1,6 +1,9 @@
 package HashMap;
 
+import java.util.Objects;
+
 public class Pair<K, V> {
+	int hash;
 	private K key;
 	private V value;
 
@@ -9,6 +12,19 @@ public class Pair<K, V> {
 		this.setValue(value);
 	}
 
+	/**
+	 * Makes a pair of {@link CustomHashMap}, which keeps the hash of the key
+	 * that its strategy computed.
+	 *
+	 * @param hash
+	 * @param key
+	 * @param value
+	 */
+	Pair(int hash, K key, V value) {
+		this(key, value);
+		this.hash = hash;
+	}
+
 	public K getKey() {
 		return key;
 	}
@@ -25,6 +41,20 @@ public class Pair<K, V> {
 		this.value = value;
 	}
 
+	@Override
+	public boolean equals(Object o) {
+		if (!(o instanceof Pair)) {
+			return false;
+		}
+		Pair<?, ?> p = (Pair<?, ?>) o;
+		return Objects.equals(key, p.getKey()) && Objects.equals(value, p.getValue());
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hashCode(key) ^ Objects.hashCode(value);
+	}
+
 	@Override
 	public String toString() {
 		return "[key=" + key + ", value=" + value + "]";
@@ -0,0 +1,718 @@
+package HashMap;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ *
+ * The map does not allow null keys or values. It is realized by a hash array
+ * mapped trie: every level takes the next five bits of the hash of a key and
+ * a node keeps only the children for the bits that are used, packed in an
+ * array and found by a bitmap. Keys whose hashes are equal share a collision
+ * node. The nodes are never changed once a map can see them; a change copies
+ * the nodes on the path to the key and shares all of the others, so it costs
+ * O(log n) and leaves the former version intact.
+ *
+ * The current version is kept as a {@link Snapshot} in a volatile field, so
+ * snapshot takes O(1) and returns an immutable Map that any thread can read
+ * without locks while the map keeps changing. get, containsKey and size read
+ * the current snapshot the same way. The changes are serialized by the lock
+ * of the map.
+ *
+ * batch runs many changes on a transient version: the nodes it copies belong
+ * to the batch and are changed in place by its further changes, and the result
+ * is published as a single new snapshot at the end. Readers see either none or
+ * all of the changes of a batch.
+ *
+ * put and remove return the previous value, or null.
+ *
+ * @author Homes
+ *
+ * @param <K>
+ * @param <V>
+ */
+
+public class PersistentCustomMap<K, V> {
+
+	private static final int BITS = 5;
+	private static final int MASK = (1 << BITS) - 1;
+	private static final int MAXIMUM_DEPTH = 8;
+
+	/**
+	 * A pair in the trie. It never changes, so it is also returned as the
+	 * entry of the snapshots.
+	 */
+	static final class Leaf<K, V> implements Map.Entry<K, V> {
+		final int hash;
+		final K key;
+		final V value;
+
+		Leaf(int hash, K key, V value) {
+			this.hash = hash;
+			this.key = key;
+			this.value = value;
+		}
+
+		@Override
+		public K getKey() {
+			return key;
+		}
+
+		@Override
+		public V getValue() {
+			return value;
+		}
+
+		@Override
+		public V setValue(V value) {
+			throw new UnsupportedOperationException("Snapshot cannot be changed.");
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Map.Entry)) {
+				return false;
+			}
+			Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+			return key.equals(e.getKey()) && value.equals(e.getValue());
+		}
+
+		@Override
+		public int hashCode() {
+			return key.hashCode() ^ value.hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return "[key=" + key + ", value=" + value + "]";
+		}
+	}
+
+	/**
+	 * The outcome of a change: the previous value and whether a pair was added
+	 * or removed.
+	 */
+	private static final class Change<V> {
+		V previous;
+		boolean added;
+		boolean removed;
+	}
+
+	/**
+	 * A node of the trie. Its array holds Leafs and Nodes. A node whose edit is
+	 * the one of the running batch was made by that batch and nobody else can
+	 * see it yet, so it is changed in place.
+	 */
+	private abstract static class Node<K, V> {
+		final Object edit;
+		Object[] array;
+
+		Node(Object edit, Object[] array) {
+			this.edit = edit;
+			this.array = array;
+		}
+
+		boolean ownedBy(Object edit) {
+			return edit != null && this.edit == edit;
+		}
+
+		abstract Leaf<K, V> find(int shift, int hash, Object key);
+
+		abstract Node<K, V> put(Object edit, int shift, Leaf<K, V> leaf, Change<V> change);
+
+		/**
+		 * Returns the node without the key, null if nothing is left or a Leaf
+		 * if only that is left, so the parent can keep it in place of the node.
+		 */
+		abstract Object remove(Object edit, int shift, int hash, Object key, Change<V> change);
+	}
+
+	private static final class BitmapNode<K, V> extends Node<K, V> {
+		int bitmap;
+
+		BitmapNode(Object edit, int bitmap, Object[] array) {
+			super(edit, array);
+			this.bitmap = bitmap;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		Leaf<K, V> find(int shift, int hash, Object key) {
+			int bit = 1 << ((hash >>> shift) & MASK);
+			if ((bitmap & bit) == 0) {
+				return null;
+			}
+			Object child = array[Integer.bitCount(bitmap & (bit - 1))];
+			if (child instanceof Leaf) {
+				Leaf<K, V> leaf = (Leaf<K, V>) child;
+				return leaf.hash == hash && leaf.key.equals(key) ? leaf : null;
+			}
+			return ((Node<K, V>) child).find(shift + BITS, hash, key);
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		Node<K, V> put(Object edit, int shift, Leaf<K, V> leaf, Change<V> change) {
+			int bit = 1 << ((leaf.hash >>> shift) & MASK);
+			int index = Integer.bitCount(bitmap & (bit - 1));
+			if ((bitmap & bit) == 0) {
+				change.added = true;
+				Object[] longer = new Object[array.length + 1];
+				System.arraycopy(array, 0, longer, 0, index);
+				longer[index] = leaf;
+				System.arraycopy(array, index, longer, index + 1, array.length - index);
+				if (ownedBy(edit)) {
+					array = longer;
+					bitmap |= bit;
+					return this;
+				}
+				return new BitmapNode<>(edit, bitmap | bit, longer);
+			}
+			Object child = array[index];
+			if (child instanceof Node) {
+				Node<K, V> node = ((Node<K, V>) child).put(edit, shift + BITS, leaf, change);
+				return node == child ? this : with(edit, index, node);
+			}
+			Leaf<K, V> current = (Leaf<K, V>) child;
+			if (current.hash == leaf.hash && current.key.equals(leaf.key)) {
+				change.previous = current.value;
+				return current.value == leaf.value ? this : with(edit, index, leaf);
+			}
+			change.added = true;
+			return with(edit, index, merge(edit, shift + BITS, current, leaf));
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		Object remove(Object edit, int shift, int hash, Object key, Change<V> change) {
+			int bit = 1 << ((hash >>> shift) & MASK);
+			if ((bitmap & bit) == 0) {
+				return this;
+			}
+			int index = Integer.bitCount(bitmap & (bit - 1));
+			Object child = array[index];
+			if (child instanceof Leaf) {
+				Leaf<K, V> leaf = (Leaf<K, V>) child;
+				if (leaf.hash != hash || !leaf.key.equals(key)) {
+					return this;
+				}
+				change.previous = leaf.value;
+				change.removed = true;
+				return without(edit, index, bit);
+			}
+			Object rest = ((Node<K, V>) child).remove(edit, shift + BITS, hash, key, change);
+			if (rest == child) {
+				return this;
+			}
+			if (rest == null) {
+				return without(edit, index, bit);
+			}
+			if (rest instanceof Leaf && array.length == 1) {
+				return rest;
+			}
+			return with(edit, index, rest);
+		}
+
+		private Node<K, V> with(Object edit, int index, Object child) {
+			if (ownedBy(edit)) {
+				array[index] = child;
+				return this;
+			}
+			Object[] copy = array.clone();
+			copy[index] = child;
+			return new BitmapNode<>(edit, bitmap, copy);
+		}
+
+		private Object without(Object edit, int index, int bit) {
+			if (array.length == 1) {
+				return null;
+			}
+			if (array.length == 2 && array[1 - index] instanceof Leaf) {
+				return array[1 - index];
+			}
+			Object[] shorter = new Object[array.length - 1];
+			System.arraycopy(array, 0, shorter, 0, index);
+			System.arraycopy(array, index + 1, shorter, index, shorter.length - index);
+			if (ownedBy(edit)) {
+				array = shorter;
+				bitmap &= ~bit;
+				return this;
+			}
+			return new BitmapNode<>(edit, bitmap & ~bit, shorter);
+		}
+	}
+
+	private static final class CollisionNode<K, V> extends Node<K, V> {
+		final int hash;
+
+		CollisionNode(Object edit, int hash, Object[] array) {
+			super(edit, array);
+			this.hash = hash;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		Leaf<K, V> find(int shift, int hash, Object key) {
+			if (hash != this.hash) {
+				return null;
+			}
+			for (Object o : array) {
+				Leaf<K, V> leaf = (Leaf<K, V>) o;
+				if (leaf.key.equals(key)) {
+					return leaf;
+				}
+			}
+			return null;
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		Node<K, V> put(Object edit, int shift, Leaf<K, V> leaf, Change<V> change) {
+			if (leaf.hash != hash) {
+				// The hashes share the bits down to here; a bitmap node splits them.
+				Node<K, V> parent = new BitmapNode<>(edit, 1 << ((hash >>> shift) & MASK), new Object[] { this });
+				return parent.put(edit, shift, leaf, change);
+			}
+			for (int i = 0; i < array.length; i++) {
+				Leaf<K, V> current = (Leaf<K, V>) array[i];
+				if (current.key.equals(leaf.key)) {
+					change.previous = current.value;
+					if (current.value == leaf.value) {
+						return this;
+					}
+					if (ownedBy(edit)) {
+						array[i] = leaf;
+						return this;
+					}
+					Object[] copy = array.clone();
+					copy[i] = leaf;
+					return new CollisionNode<>(edit, hash, copy);
+				}
+			}
+			change.added = true;
+			Object[] longer = new Object[array.length + 1];
+			System.arraycopy(array, 0, longer, 0, array.length);
+			longer[array.length] = leaf;
+			if (ownedBy(edit)) {
+				array = longer;
+				return this;
+			}
+			return new CollisionNode<>(edit, hash, longer);
+		}
+
+		@SuppressWarnings("unchecked")
+		@Override
+		Object remove(Object edit, int shift, int hash, Object key, Change<V> change) {
+			if (hash != this.hash) {
+				return this;
+			}
+			for (int i = 0; i < array.length; i++) {
+				Leaf<K, V> leaf = (Leaf<K, V>) array[i];
+				if (leaf.key.equals(key)) {
+					change.previous = leaf.value;
+					change.removed = true;
+					if (array.length == 2) {
+						return array[1 - i];
+					}
+					Object[] shorter = new Object[array.length - 1];
+					System.arraycopy(array, 0, shorter, 0, i);
+					System.arraycopy(array, i + 1, shorter, i, shorter.length - i);
+					if (ownedBy(edit)) {
+						array = shorter;
+						return this;
+					}
+					return new CollisionNode<>(edit, hash, shorter);
+				}
+			}
+			return this;
+		}
+	}
+
+	/**
+	 * Returns a node for two leaves with different keys, starting at the
+	 * given shift.
+	 *
+	 * @param edit
+	 * @param shift
+	 * @param a
+	 * @param b
+	 * @return Node<K, V>
+	 */
+	private static <K, V> Node<K, V> merge(Object edit, int shift, Leaf<K, V> a, Leaf<K, V> b) {
+		if (a.hash == b.hash) {
+			return new CollisionNode<>(edit, a.hash, new Object[] { a, b });
+		}
+		int indexA = (a.hash >>> shift) & MASK;
+		int indexB = (b.hash >>> shift) & MASK;
+		if (indexA == indexB) {
+			return new BitmapNode<>(edit, 1 << indexA, new Object[] { merge(edit, shift + BITS, a, b) });
+		}
+		return new BitmapNode<>(edit, (1 << indexA) | (1 << indexB),
+				indexA < indexB ? new Object[] { a, b } : new Object[] { b, a });
+	}
+
+	/**
+	 * Turns what remove left of the root back into a node.
+	 *
+	 * @param rest
+	 * @return Node<K, V>
+	 */
+	@SuppressWarnings("unchecked")
+	private static <K, V> Node<K, V> root(Object rest) {
+		if (rest == null) {
+			return new BitmapNode<>(null, 0, new Object[0]);
+		}
+		if (rest instanceof Leaf) {
+			Leaf<K, V> leaf = (Leaf<K, V>) rest;
+			return new BitmapNode<>(null, 1 << (leaf.hash & MASK), new Object[] { leaf });
+		}
+		return (Node<K, V>) rest;
+	}
+
+	/**
+	 * An immutable version of the map. It shares its nodes with the map and
+	 * with the other snapshots, so taking one copies nothing. The entries of
+	 * its iterators cannot be changed.
+	 */
+	public static final class Snapshot<K, V> extends AbstractMap<K, V> {
+		private final HashStrategy strategy;
+		private final Node<K, V> root;
+		private final int size;
+		private Set<Map.Entry<K, V>> entrySet;
+
+		Snapshot(HashStrategy strategy, Node<K, V> root, int size) {
+			this.strategy = strategy;
+			this.root = root;
+			this.size = size;
+		}
+
+		@Override
+		public V get(Object key) {
+			if (key == null) {
+				throw new IllegalArgumentException("No null keys.");
+			}
+			Leaf<K, V> leaf = root.find(0, strategy.hash(key), key);
+			return leaf == null ? null : leaf.value;
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return key != null && root.find(0, strategy.hash(key), key) != null;
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public Set<Map.Entry<K, V>> entrySet() {
+			if (entrySet == null) {
+				entrySet = new AbstractSet<Map.Entry<K, V>>() {
+					@Override
+					public Iterator<Map.Entry<K, V>> iterator() {
+						return new LeafIterator<>(root);
+					}
+
+					@Override
+					public int size() {
+						return size;
+					}
+				};
+			}
+			return entrySet;
+		}
+
+		@Override
+		public void forEach(BiConsumer<? super K, ? super V> action) {
+			for (Iterator<Map.Entry<K, V>> it = new LeafIterator<>(root); it.hasNext();) {
+				Map.Entry<K, V> leaf = it.next();
+				action.accept(leaf.getKey(), leaf.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Walks the trie depth first with a stack of the arrays of the nodes.
+	 */
+	private static final class LeafIterator<K, V> implements Iterator<Map.Entry<K, V>> {
+		private final Object[][] arrays = new Object[MAXIMUM_DEPTH][];
+		private final int[] positions = new int[MAXIMUM_DEPTH];
+		private int depth;
+		private Leaf<K, V> next;
+
+		LeafIterator(Node<K, V> root) {
+			arrays[0] = root.array;
+			advance();
+		}
+
+		@SuppressWarnings("unchecked")
+		private void advance() {
+			next = null;
+			while (depth >= 0) {
+				if (positions[depth] == arrays[depth].length) {
+					depth--;
+					continue;
+				}
+				Object child = arrays[depth][positions[depth]++];
+				if (child instanceof Leaf) {
+					next = (Leaf<K, V>) child;
+					return;
+				}
+				depth++;
+				arrays[depth] = ((Node<K, V>) child).array;
+				positions[depth] = 0;
+			}
+		}
+
+		@Override
+		public boolean hasNext() {
+			return next != null;
+		}
+
+		@Override
+		public Map.Entry<K, V> next() {
+			if (next == null) {
+				throw new NoSuchElementException();
+			}
+			Leaf<K, V> leaf = next;
+			advance();
+			return leaf;
+		}
+	}
+
+	/**
+	 * The transient version of the map that batch gives to its changes. It
+	 * cannot be used after batch returns.
+	 */
+	public static final class Batch<K, V> {
+		private final HashStrategy strategy;
+		private Object edit = new Object();
+		private Node<K, V> root;
+		private int size;
+
+		Batch(Snapshot<K, V> base) {
+			this.strategy = base.strategy;
+			this.root = base.root;
+			this.size = base.size;
+		}
+
+		/**
+		 * Adds a new pair associated with the given key and the given value and
+		 * returns the previous value or null.
+		 *
+		 * @param key
+		 * @param value
+		 * @return Type V
+		 */
+		public V put(K key, V value) {
+			if (value == null || key == null) {
+				throw new IllegalArgumentException("Map cannot have a null value or null key.");
+			}
+			checkOpen();
+			Change<V> change = new Change<>();
+			root = root.put(edit, 0, new Leaf<>(strategy.hash(key), key, value), change);
+			if (change.added) {
+				size++;
+			}
+			return change.previous;
+		}
+
+		/**
+		 * Removes the pair that is associated with the given key and return its
+		 * value or null if there is no such key.
+		 *
+		 * @param key
+		 * @return Type V
+		 */
+		public V remove(Object key) {
+			if (key == null) {
+				throw new IllegalArgumentException("HashMap cannot have null key.");
+			}
+			checkOpen();
+			Change<V> change = new Change<>();
+			root = root(root.remove(edit, 0, strategy.hash(key), key, change));
+			if (change.removed) {
+				size--;
+			}
+			return change.previous;
+		}
+
+		public V get(Object key) {
+			if (key == null) {
+				throw new IllegalArgumentException("No null keys.");
+			}
+			checkOpen();
+			Leaf<K, V> leaf = root.find(0, strategy.hash(key), key);
+			return leaf == null ? null : leaf.value;
+		}
+
+		public boolean containsKey(Object key) {
+			checkOpen();
+			return key != null && root.find(0, strategy.hash(key), key) != null;
+		}
+
+		public int size() {
+			checkOpen();
+			return size;
+		}
+
+		private void checkOpen() {
+			if (edit == null) {
+				throw new IllegalStateException("Batch is over.");
+			}
+		}
+	}
+
+	private final HashStrategy strategy;
+	private volatile Snapshot<K, V> current;
+
+	public PersistentCustomMap() {
+		this(HashStrategy.SPREAD);
+	}
+
+	public PersistentCustomMap(HashStrategy strategy) {
+		if (strategy == null) {
+			throw new IllegalArgumentException("Hash strategy cannot be null.");
+		}
+		this.strategy = strategy;
+		this.current = new Snapshot<>(strategy, root(null), 0);
+	}
+
+	/**
+	 * Adds a new pair associated with the given key and the given value and
+	 * returns the previous value or null.
+	 *
+	 * @param key
+	 * @param value
+	 * @return Type V
+	 */
+	public synchronized V put(K key, V value) {
+		if (value == null || key == null) {
+			throw new IllegalArgumentException("Map cannot have a null value or null key.");
+		}
+		Snapshot<K, V> base = current;
+		Change<V> change = new Change<>();
+		Node<K, V> root = base.root.put(null, 0, new Leaf<>(strategy.hash(key), key, value), change);
+		if (root != base.root) {
+			current = new Snapshot<>(strategy, root, change.added ? base.size + 1 : base.size);
+		}
+		return change.previous;
+	}
+
+	/**
+	 * Gets the value that is associated with the given key in the current
+	 * snapshot.
+	 *
+	 * @param key
+	 * @return Type V
+	 */
+	public V get(Object key) {
+		return current.get(key);
+	}
+
+	/**
+	 * Removes the pair that is associated with the given key and return its
+	 * value or null if there is no such key.
+	 *
+	 * @param key
+	 * @return Type V
+	 */
+	public synchronized V remove(Object key) {
+		if (key == null) {
+			throw new IllegalArgumentException("HashMap cannot have null key.");
+		}
+		Snapshot<K, V> base = current;
+		Change<V> change = new Change<>();
+		Object rest = base.root.remove(null, 0, strategy.hash(key), key, change);
+		if (change.removed) {
+			current = new Snapshot<>(strategy, root(rest), base.size - 1);
+		}
+		return change.previous;
+	}
+
+	/**
+	 * Checks whether a given key has a mapping in the current snapshot.
+	 *
+	 * @param key
+	 * @return boolean
+	 */
+	public boolean containsKey(Object key) {
+		return current.containsKey(key);
+	}
+
+	/**
+	 * Runs the given changes on a transient version of the map and publishes
+	 * all of them at once when they are done. If the changes throw, none of
+	 * them is published.
+	 *
+	 * @param changes
+	 */
+	public synchronized void batch(Consumer<? super Batch<K, V>> changes) {
+		Batch<K, V> batch = new Batch<>(current);
+		try {
+			changes.accept(batch);
+		} finally {
+			batch.edit = null;
+		}
+		current = new Snapshot<>(strategy, batch.root, batch.size);
+	}
+
+	/**
+	 * Returns the current version of the map, which never changes.
+	 *
+	 * @return Snapshot<K, V>
+	 */
+	public Snapshot<K, V> snapshot() {
+		return current;
+	}
+
+	/**
+	 * Gives every pair of the current snapshot to the given action.
+	 *
+	 * @param action
+	 */
+	public void forEach(BiConsumer<? super K, ? super V> action) {
+		current.forEach(action);
+	}
+
+	/*
+	 * Removes every pair in the map.
+	 */
+	public synchronized void clear() {
+		current = new Snapshot<>(strategy, root(null), 0);
+	}
+
+	/**
+	 * Returns the number of pairs in the current snapshot.
+	 *
+	 * @return Integer
+	 */
+	public int size() {
+		return current.size;
+	}
+
+	/**
+	 * Checks if the map contains any pair.
+	 *
+	 * @return boolean
+	 */
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	/**
+	 * String representation of the map.
+	 */
+	@Override
+	public String toString() {
+		return current.toString();
+	}
+
+}
@@ -0,0 +1,215 @@
+package HashMap;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+public class PersistentCustomMapTests extends TestCase {
+	private PersistentCustomMap<String, Integer> map;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		this.map = new PersistentCustomMap<>();
+	}
+
+	@Test
+	public void testPutGetRemove() {
+		for (int i = 0; i < 10000; i++) {
+			assertNull(map.put("Key" + i, i));
+		}
+		assertEquals(10000, map.size());
+		assertEquals((Integer) 5, map.put("Key5", 50));
+		assertEquals(10000, map.size());
+		for (int i = 0; i < 10000; i++) {
+			assertEquals((Integer) (i == 5 ? 50 : i), map.get("Key" + i));
+		}
+		assertNull(map.get("Key10000"));
+		for (int i = 0; i < 10000; i += 2) {
+			assertEquals((Integer) (i == 4 ? 4 : i), map.remove("Key" + i));
+		}
+		assertNull(map.remove("Key0"));
+		assertEquals(5000, map.size());
+		for (int i = 0; i < 10000; i++) {
+			assertEquals(i % 2 == 1, map.containsKey("Key" + i));
+		}
+	}
+
+	@Test
+	public void testRandomOperations() {
+		PersistentCustomMap<Integer, Integer> random = new PersistentCustomMap<>();
+		Map<Integer, Integer> expected = new HashMap<>();
+		Random generator = new Random(7);
+		for (int i = 0; i < 100000; i++) {
+			int key = generator.nextInt(5000);
+			if (generator.nextBoolean()) {
+				assertEquals(expected.put(key, i), random.put(key, i));
+			} else {
+				assertEquals(expected.remove(key), random.remove(key));
+			}
+			assertEquals(expected.size(), random.size());
+		}
+		assertEquals(expected, random.snapshot());
+	}
+
+	@Test
+	public void testCollidingKeys() {
+		PersistentCustomMap<Colliding, Integer> colliding = new PersistentCustomMap<>();
+		for (int i = 0; i < 100; i++) {
+			colliding.put(new Colliding(i, i % 3), i);
+		}
+		for (int i = 0; i < 100; i++) {
+			assertEquals((Integer) i, colliding.get(new Colliding(i, i % 3)));
+		}
+		colliding.put(new Colliding(1000, 32), 1001);
+		colliding.put(new Colliding(1001, 1 << 20), 1003);
+		assertEquals((Integer) 1001, colliding.get(new Colliding(1000, 32)));
+		assertEquals((Integer) 1003, colliding.get(new Colliding(1001, 1 << 20)));
+		assertEquals((Integer) 99, colliding.get(new Colliding(99, 0)));
+		for (int i = 0; i < 100; i += 2) {
+			assertEquals((Integer) i, colliding.remove(new Colliding(i, i % 3)));
+		}
+		assertEquals((Integer) 1001, colliding.remove(new Colliding(1000, 32)));
+		assertEquals((Integer) 1003, colliding.remove(new Colliding(1001, 1 << 20)));
+		assertEquals(50, colliding.size());
+		assertEquals(50, colliding.snapshot().entrySet().size());
+		int seen = 0;
+		for (Map.Entry<Colliding, Integer> pair : colliding.snapshot().entrySet()) {
+			assertEquals(1, pair.getValue() % 2);
+			seen++;
+		}
+		assertEquals(50, seen);
+	}
+
+	@Test
+	public void testSnapshot() {
+		for (int i = 0; i < 1000; i++) {
+			map.put("Key" + i, i);
+		}
+		Map<String, Integer> before = map.snapshot();
+		map.put("Key0", -1);
+		map.remove("Key1");
+		map.put("Key1000", 1000);
+		assertEquals(1000, before.size());
+		assertEquals((Integer) 0, before.get("Key0"));
+		assertEquals((Integer) 1, before.get("Key1"));
+		assertNull(before.get("Key1000"));
+		assertEquals((Integer) (-1), map.snapshot().get("Key0"));
+		try {
+			before.put("Key2", 3);
+			fail();
+		} catch (UnsupportedOperationException e) {
+		}
+		try {
+			before.entrySet().iterator().next().setValue(3);
+			fail();
+		} catch (UnsupportedOperationException e) {
+		}
+		assertSame(map.snapshot(), map.snapshot());
+	}
+
+	@Test
+	public void testBatch() {
+		map.put("Kept", 1);
+		Map<String, Integer> before = map.snapshot();
+		map.batch(batch -> {
+			for (int i = 0; i < 1000; i++) {
+				batch.put("Key" + i, i);
+			}
+			for (int i = 0; i < 1000; i += 2) {
+				batch.remove("Key" + i);
+			}
+			batch.put("Key1", 10);
+			assertEquals(501, batch.size());
+			assertEquals((Integer) 10, batch.get("Key1"));
+			assertEquals(1, map.size());
+		});
+		assertEquals(501, map.size());
+		assertEquals((Integer) 10, map.get("Key1"));
+		assertFalse(map.containsKey("Key0"));
+		assertEquals(1, before.size());
+	}
+
+	@Test
+	public void testFailedBatch() {
+		map.put("Kept", 1);
+		AtomicReference<PersistentCustomMap.Batch<String, Integer>> escaped = new AtomicReference<>();
+		try {
+			map.batch(batch -> {
+				escaped.set(batch);
+				batch.put("Lost", 2);
+				throw new IllegalStateException("Stop.");
+			});
+			fail();
+		} catch (IllegalStateException e) {
+			assertEquals("Stop.", e.getMessage());
+		}
+		assertEquals(1, map.size());
+		assertFalse(map.containsKey("Lost"));
+		try {
+			escaped.get().put("Later", 3);
+			fail();
+		} catch (IllegalStateException e) {
+			assertEquals("Batch is over.", e.getMessage());
+		}
+	}
+
+	@Test
+	public void testReadersDuringWrites() throws InterruptedException {
+		AtomicBoolean done = new AtomicBoolean();
+		AtomicReference<String> failure = new AtomicReference<>();
+		Thread reader = new Thread(() -> {
+			while (!done.get()) {
+				Map<String, Integer> snapshot = map.snapshot();
+				int size = snapshot.size();
+				int seen = 0;
+				for (Map.Entry<String, Integer> pair : snapshot.entrySet()) {
+					if (!pair.getValue().equals(snapshot.get(pair.getKey()))) {
+						failure.set("Snapshot changed.");
+					}
+					seen++;
+				}
+				if (seen != size) {
+					failure.set("Saw " + seen + " pairs instead of " + size + ".");
+				}
+			}
+		});
+		reader.start();
+		for (int i = 0; i < 20000; i++) {
+			map.put("Key" + (i % 3000), i);
+			if (i % 3 == 0) {
+				map.remove("Key" + (i % 1000));
+			}
+		}
+		done.set(true);
+		reader.join();
+		assertNull(failure.get());
+	}
+
+	private static final class Colliding {
+		private final int id;
+		private final int hash;
+
+		Colliding(int id, int hash) {
+			this.id = id;
+			this.hash = hash;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			return o instanceof Colliding && ((Colliding) o).id == id;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+	}
+
+}
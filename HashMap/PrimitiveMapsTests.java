@@ -0,0 +1,127 @@
+package HashMap;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+public class PrimitiveMapsTests extends TestCase {
+	private IntIntMap ints;
+	private LongObjectMap<String> longs;
+	private ObjectLongMap<String> counters;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		this.ints = new IntIntMap();
+		this.longs = new LongObjectMap<>();
+		this.counters = new ObjectLongMap<>();
+	}
+
+	@Test
+	public void testIntIntPutAndGet() {
+		assertEquals(0, ints.put(5, 21));
+		assertEquals(21, ints.put(5, 22));
+		assertEquals(22, ints.get(5));
+		assertEquals(0, ints.get(6));
+		assertEquals(-1, ints.getOrDefault(6, -1));
+		assertEquals(1, ints.size());
+	}
+
+	@Test
+	public void testIntIntZeroKey() {
+		assertFalse(ints.containsKey(0));
+		ints.put(0, 7);
+		assertTrue(ints.containsKey(0));
+		assertEquals(7, ints.get(0));
+		assertEquals(1, ints.size());
+		assertEquals(7, ints.remove(0));
+		assertFalse(ints.containsKey(0));
+		assertTrue(ints.isEmpty());
+	}
+
+	@Test
+	public void testIntIntAddTo() {
+		for (int i = 0; i < 100; i++) {
+			ints.addTo(i % 10, 1);
+		}
+		assertEquals(10, ints.size());
+		assertEquals(10, ints.get(3));
+	}
+
+	@Test
+	public void testIntIntAgainstHashMap() {
+		Map<Integer, Integer> expected = new HashMap<>();
+		Random random = new Random(7);
+		for (int i = 0; i < 100000; i++) {
+			int key = random.nextInt(5000) - 2500;
+			if (random.nextBoolean()) {
+				expected.put(key, i);
+				ints.put(key, i);
+			} else {
+				Integer removed = expected.remove(key);
+				assertEquals(removed == null ? 0 : removed, ints.remove(key));
+			}
+		}
+		assertEquals(expected.size(), ints.size());
+		for (Map.Entry<Integer, Integer> pair : expected.entrySet()) {
+			assertEquals((int) pair.getValue(), ints.get(pair.getKey()));
+		}
+	}
+
+	@Test
+	public void testLongObject() {
+		assertNull(longs.put(1L << 40, "Hash"));
+		assertEquals("Hash", longs.put(1L << 40, "Map"));
+		longs.put(0L, "Zero");
+		assertEquals("Map", longs.get(1L << 40));
+		assertEquals("Zero", longs.get(0L));
+		assertNull(longs.get(1L));
+		assertTrue(longs.containsValue("Zero"));
+		assertEquals("Zero", longs.remove(0L));
+		assertEquals(1, longs.size());
+	}
+
+	@Test
+	public void testLongObjectGrowth() {
+		for (long i = 0; i < 10000; i++) {
+			longs.put(i * 31, "Value" + i);
+		}
+		for (long i = 0; i < 10000; i += 2) {
+			longs.remove(i * 31);
+		}
+		assertEquals(5000, longs.size());
+		for (long i = 0; i < 10000; i++) {
+			assertEquals(i % 2 == 1 ? "Value" + i : null, longs.get(i * 31));
+		}
+	}
+
+	@Test
+	public void testObjectLong() {
+		counters.addTo("Hash", 2);
+		counters.addTo("Hash", 3);
+		counters.put("Levski", 52);
+		assertEquals(5, counters.get("Hash"));
+		assertEquals(0, counters.get("Hashing"));
+		assertTrue(counters.containsValue(52));
+		assertEquals(52, counters.remove("Levski"));
+		assertFalse(counters.containsKey("Levski"));
+		assertEquals(1, counters.size());
+	}
+
+	@Test
+	public void testClear() {
+		ints.put(1, 1);
+		longs.put(1, "One");
+		counters.put("One", 1);
+		ints.clear();
+		longs.clear();
+		counters.clear();
+		assertTrue(ints.isEmpty() && longs.isEmpty() && counters.isEmpty());
+		assertFalse(ints.containsKey(1));
+	}
+
+}
@@ -0,0 +1,780 @@
+package HashMap;
+
+import java.util.AbstractCollection;
+import java.util.AbstractSet;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ *
+ * The map does not allow null keys or values. It is an alternative storage
+ * engine to {@link CustomMap} with the same behaviour, so either of them can be
+ * chosen per instance behind the {@link Map} interface. Instead of an array of
+ * Lists of Entries, the keys, the values and the hash codes of the keys are
+ * kept in three flat arrays.
+ *
+ * A key is put at the index calculated from its hash code or at one of the
+ * following indexes (linear probing). While probing, a key that is further
+ * from its own index takes the place of a key that is closer to its own index
+ * (Robin Hood hashing), which keeps all of the probe sequences short. Removing
+ * a key shifts the following keys of the same run one index back instead of
+ * leaving a deleted marker behind (backward shift deletion).
+ *
+ * @author Homes
+ *
+ * @param <K>
+ * @param <V>
+ */
+
+public class RobinHoodMap<K, V> implements Map<K, V> {
+
+	final class SlotEntry implements Entry<K, V> {
+		private final K key;
+		private V value;
+		private final int index;
+
+		public SlotEntry(int index) {
+			this.index = index;
+			this.key = keyAt(index);
+			this.value = valueAt(index);
+		}
+
+		@Override
+		public K getKey() {
+			return key;
+		}
+
+		@Override
+		public V getValue() {
+			return value;
+		}
+
+		@Override
+		public V setValue(V value) {
+			if (value == null) {
+				throw new IllegalArgumentException("Map cannot have a null value.");
+			}
+			V old = this.value;
+			if (index < keys.length && keys[index] == key) {
+				values[index] = value;
+			} else {
+				RobinHoodMap.this.replace(key, value);
+			}
+			this.value = value;
+			return old;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Entry)) {
+				return false;
+			}
+			Entry<?, ?> e = (Entry<?, ?>) o;
+			return key.equals(e.getKey()) && value.equals(e.getValue());
+		}
+
+		@Override
+		public int hashCode() {
+			return key.hashCode() ^ value.hashCode();
+		}
+
+		@Override
+		public String toString() {
+			return "[key=" + key + ", value=" + value + "]";
+		}
+
+	}
+
+	private static final int SIZE = 16;
+	private static final int MAXIMUM_SIZE = 1 << 30;
+	private static final float LOAD_FACTOR = 0.8f;
+
+	private final int initialSize;
+	private final float loadFactor;
+	private int threshold;
+	private Object[] keys;
+	private Object[] values;
+	private int[] hashes;
+	private int size;
+	private int modCount;
+	private Set<K> keySet;
+	private Set<Entry<K, V>> entrySet;
+	private Collection<V> valueCollection;
+
+	public RobinHoodMap() {
+		this(SIZE, LOAD_FACTOR);
+	}
+
+	public RobinHoodMap(int size) {
+		this(size, LOAD_FACTOR);
+	}
+
+	public RobinHoodMap(int size, float loadFactor) {
+		if (size <= 0) {
+			throw new IllegalArgumentException("Size cannot be a negative number.");
+		}
+		if (!(loadFactor > 0 && loadFactor < 1)) {
+			throw new IllegalArgumentException("Load factor must be between 0 and 1.");
+		}
+
+		this.initialSize = tableSizeFor(size);
+		this.loadFactor = loadFactor;
+		allocate(initialSize);
+	}
+
+	/**
+	 * Adds a new pair associated with the given key and the given value.
+	 *
+	 * @param key
+	 * @param value
+	 */
+
+	@Override
+	public V put(K key, V value) {
+		if (value == null || key == null) {
+			throw new IllegalArgumentException("Map cannot have a null value or null key.");
+		}
+		int hash = hash(key);
+		int index = indexOf(key, hash);
+		if (index >= 0) {
+			values[index] = value;
+			return value;
+		}
+		if (size >= threshold) {
+			resize();
+		}
+		insert(key, value, hash);
+		size++;
+		modCount++;
+		return value;
+	}
+
+	/**
+	 * Gets the value that is associated with the given key.
+	 *
+	 * @param key
+	 * @return
+	 */
+
+	@Override
+	public V get(Object key) {
+		if (key == null) {
+			throw new IllegalArgumentException("No null keys.");
+		}
+		int index = indexOf(key, hash(key));
+		return index >= 0 ? valueAt(index) : null;
+	}
+
+	/**
+	 * Removes the pair that is associated with the given key and return its
+	 * value or null if there is no such key.
+	 *
+	 * @param key
+	 * @return Type V
+	 */
+
+	@Override
+	public V remove(Object key) {
+		if (key == null) {
+			throw new IllegalArgumentException("HashMap cannot have null key.");
+		}
+
+		int index = indexOf(key, hash(key));
+		if (index < 0) {
+			return null;
+		}
+		V value = valueAt(index);
+		removeAt(index);
+		return value;
+	}
+
+	/**
+	 * Removes the pair, specified by the given key and value.
+	 *
+	 * @param key
+	 * @param value
+	 * @return boolean
+	 */
+
+	@Override
+	public boolean remove(Object key, Object value) {
+		if (key == null || value == null) {
+			throw new IllegalArgumentException("HashMap cannot have null key or values.");
+		}
+
+		int index = indexOf(key, hash(key));
+		if (index >= 0 && values[index].equals(value)) {
+			removeAt(index);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * If the map contains the given key, this method returns its own value.
+	 * Otherwise, it returns the defaultValue.
+	 *
+	 * @param key
+	 * @param defaultValue
+	 * @return Type V
+	 */
+
+	@Override
+	public V getOrDefault(Object key, V defaultValue) {
+		if (defaultValue == null) {
+			throw new IllegalArgumentException("HashMap cannot have null values.");
+		}
+
+		V value = this.get(key);
+		return value != null ? value : defaultValue;
+	}
+
+	/**
+	 * Put a new key-value mapping, if the map does not contain already the
+	 * given key. Returns the given value if it was put or null otherwise.
+	 *
+	 * @param key
+	 * @param value
+	 * @return Type V
+	 */
+
+	@Override
+	public V putIfAbsent(K key, V value) {
+		if (!this.containsKey(key)) {
+			this.put(key, value);
+			return value;
+		}
+
+		return null;
+	}
+
+	/**
+	 * Puts all of the key-value mappings from the given map to the map that
+	 * this method is executed to.
+	 *
+	 * @param other
+	 */
+
+	@Override
+	public void putAll(Map<? extends K, ? extends V> other) {
+		if (other.containsKey(null) || other.containsValue(null)) {
+			throw new IllegalArgumentException("Given map has null key/s or value/s.");
+		}
+
+		for (Entry<? extends K, ? extends V> pair : other.entrySet()) {
+			this.put(pair.getKey(), pair.getValue());
+		}
+	}
+
+	/**
+	 * If the map contains the given key, replace its own oldValue that is
+	 * mapped to, with the given value. Returns the oldValue or null.
+	 *
+	 * @param key
+	 * @param value
+	 * @return Type V
+	 */
+
+	@Override
+	public V replace(K key, V value) {
+		if (key == null) {
+			throw new IllegalArgumentException("Not null keys.");
+		}
+		if (value == null) {
+			throw new IllegalArgumentException("Map cannot have a null value or null key.");
+		}
+
+		int index = indexOf(key, hash(key));
+		if (index >= 0) {
+			V oldValue = valueAt(index);
+			values[index] = value;
+			return oldValue;
+		}
+		return null;
+	}
+
+	/**
+	 * If there is a Pair(key, oldValue) in the map, this method replace the
+	 * oldValue with the newValue in the pair. Otherwise, does nothing and
+	 * returns false.
+	 *
+	 * @param key
+	 * @param oldValue
+	 * @param newValue
+	 * @return boolean
+	 */
+
+	@Override
+	public boolean replace(K key, V oldValue, V newValue) {
+		if (key == null || oldValue == null || newValue == null) {
+			throw new IllegalArgumentException("Not null keys or values.");
+		}
+
+		int index = indexOf(key, hash(key));
+		if (index >= 0 && values[index].equals(oldValue)) {
+			values[index] = newValue;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Checks whether a given key has a mapping in the Map.
+	 *
+	 * @param key
+	 * @return boolean
+	 */
+
+	@Override
+	public boolean containsKey(Object key) {
+		return key != null && indexOf(key, hash(key)) >= 0;
+	}
+
+	/**
+	 * Checks whether a given value has a mapping in the Map.
+	 *
+	 * @param value
+	 * @return boolean
+	 */
+
+	@Override
+	public boolean containsValue(Object value) {
+		if (value == null) {
+			return false;
+		}
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != null && values[i].equals(value)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns a view of all of the existing pairs in the Map.
+	 *
+	 * @return Set<Entry<K, V>>
+	 */
+
+	@Override
+	public Set<Entry<K, V>> entrySet() {
+		if (entrySet == null) {
+			entrySet = new EntrySet();
+		}
+		return entrySet;
+	}
+
+	/**
+	 * Returns a view of all of keys that have a mapping.
+	 *
+	 * @return Set<K>
+	 */
+
+	@Override
+	public Set<K> keySet() {
+		if (keySet == null) {
+			keySet = new KeySet();
+		}
+		return keySet;
+	}
+
+	/*
+	 * Returns a view of all of the values.
+	 */
+
+	@Override
+	public Collection<V> values() {
+		if (valueCollection == null) {
+			valueCollection = new Values();
+		}
+		return valueCollection;
+	}
+
+	/*
+	 * Removes every pair in the map.
+	 */
+
+	@Override
+	public void clear() {
+		allocate(initialSize);
+		size = 0;
+		modCount++;
+	}
+
+	/**
+	 * Returns the number of pairs in the Map.
+	 *
+	 * @return Integer
+	 */
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Checks if the map contains any pair.
+	 *
+	 * @return boolean
+	 */
+
+	@Override
+	public boolean isEmpty() {
+		return this.size() == 0;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (o == this)
+			return true;
+
+		if (!(o instanceof Map))
+			return false;
+		Map<?, ?> m = (Map<?, ?>) o;
+		if (m.size() != this.size()) {
+			return false;
+		}
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != null && !values[i].equals(m.get(keys[i]))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+		int result = 0;
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != null) {
+				result += keys[i].hashCode() ^ values[i].hashCode();
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * String representation of the map.
+	 */
+	@Override
+	public String toString() {
+		return "{" + entrySet() + "}";
+	}
+
+	/**
+	 * Returns the index of the given key or -1 if the map does not contain it.
+	 * The probing stops at an empty index or at a key that is closer to its own
+	 * index than the given key would be, because the given key would have
+	 * taken its place.
+	 *
+	 * @param key
+	 * @param hash
+	 * @return Integer
+	 */
+	private int indexOf(Object key, int hash) {
+		int mask = keys.length - 1;
+		int index = hash & mask;
+		for (int distance = 0;; distance++) {
+			Object current = keys[index];
+			if (current == null || distanceOf(hashes[index], index) < distance) {
+				return -1;
+			}
+			if (hashes[index] == hash && current.equals(key)) {
+				return index;
+			}
+			index = (index + 1) & mask;
+		}
+	}
+
+	/**
+	 * Puts a key that is not in the map yet. The pair being put swaps places
+	 * with any pair that is closer to its own index, and the displaced pair
+	 * continues the probing.
+	 *
+	 * @param key
+	 * @param value
+	 * @param hash
+	 */
+	private void insert(Object key, Object value, int hash) {
+		int mask = keys.length - 1;
+		int index = hash & mask;
+		int distance = 0;
+		while (keys[index] != null) {
+			int existing = distanceOf(hashes[index], index);
+			if (existing < distance) {
+				Object k = keys[index];
+				Object v = values[index];
+				int h = hashes[index];
+				keys[index] = key;
+				values[index] = value;
+				hashes[index] = hash;
+				key = k;
+				value = v;
+				hash = h;
+				distance = existing;
+			}
+			index = (index + 1) & mask;
+			distance++;
+		}
+		keys[index] = key;
+		values[index] = value;
+		hashes[index] = hash;
+	}
+
+	/**
+	 * Removes the pair at the given index and shifts the following pairs of
+	 * the run one index back, until an empty index or a pair that is already
+	 * at its own index.
+	 *
+	 * @param index
+	 */
+	private void removeAt(int index) {
+		int mask = keys.length - 1;
+		int next = (index + 1) & mask;
+		while (keys[next] != null && distanceOf(hashes[next], next) > 0) {
+			keys[index] = keys[next];
+			values[index] = values[next];
+			hashes[index] = hashes[next];
+			index = next;
+			next = (next + 1) & mask;
+		}
+		keys[index] = null;
+		values[index] = null;
+		hashes[index] = 0;
+		size--;
+		modCount++;
+	}
+
+	/**
+	 * Allocates twice as large arrays and puts every pair in them again. The
+	 * stored hash codes are reused.
+	 */
+	private void resize() {
+		if (keys.length == MAXIMUM_SIZE) {
+			throw new IllegalStateException("Map cannot have more than " + threshold + " pairs.");
+		}
+		Object[] oldKeys = keys;
+		Object[] oldValues = values;
+		int[] oldHashes = hashes;
+		allocate(oldKeys.length * 2);
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != null) {
+				insert(oldKeys[i], oldValues[i], oldHashes[i]);
+			}
+		}
+	}
+
+	private void allocate(int length) {
+		keys = new Object[length];
+		values = new Object[length];
+		hashes = new int[length];
+		threshold = (int) Math.min(length * (double) loadFactor, length - 1);
+	}
+
+	@SuppressWarnings("unchecked")
+	private K keyAt(int index) {
+		return (K) keys[index];
+	}
+
+	@SuppressWarnings("unchecked")
+	private V valueAt(int index) {
+		return (V) values[index];
+	}
+
+	/**
+	 * Returns how far is the given index from the index calculated from the
+	 * given hash code.
+	 *
+	 * @param hash
+	 * @param index
+	 * @return Integer
+	 */
+	private int distanceOf(int hash, int index) {
+		return (index - hash) & (keys.length - 1);
+	}
+
+	private static int hash(Object key) {
+		int hash = key.hashCode();
+		return hash ^ (hash >>> 16);
+	}
+
+	/**
+	 * Returns the smallest power of two that is not less than the given size.
+	 *
+	 * @param size
+	 * @return Integer
+	 */
+	private static int tableSizeFor(int size) {
+		if (size >= MAXIMUM_SIZE) {
+			return MAXIMUM_SIZE;
+		}
+		return size <= 2 ? 2 : Integer.highestOneBit(size - 1) << 1;
+	}
+
+	/**
+	 * Walks the indexes backwards, starting just before an empty index. A
+	 * removal through the iterator shifts only pairs that are already
+	 * returned, because the shifting stops at that empty index at the latest.
+	 */
+	private abstract class SlotIterator<T> implements Iterator<T> {
+		private final int mask = keys.length - 1;
+		private int index;
+		private int remaining = keys.length;
+		private int last = -1;
+		private int expectedModCount = modCount;
+
+		SlotIterator() {
+			int empty = 0;
+			while (keys[empty] != null) {
+				empty++;
+			}
+			index = (empty - 1) & mask;
+		}
+
+		@Override
+		public boolean hasNext() {
+			while (remaining > 0 && keys[index] == null) {
+				index = (index - 1) & mask;
+				remaining--;
+			}
+			return remaining > 0;
+		}
+
+		@Override
+		public T next() {
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			if (!hasNext()) {
+				throw new NoSuchElementException();
+			}
+			last = index;
+			index = (index - 1) & mask;
+			remaining--;
+			return element(last);
+		}
+
+		@Override
+		public void remove() {
+			if (last < 0) {
+				throw new IllegalStateException();
+			}
+			if (modCount != expectedModCount) {
+				throw new ConcurrentModificationException();
+			}
+			removeAt(last);
+			last = -1;
+			expectedModCount = modCount;
+		}
+
+		abstract T element(int index);
+	}
+
+	private final class KeySet extends AbstractSet<K> {
+		@Override
+		public Iterator<K> iterator() {
+			return new SlotIterator<K>() {
+				@Override
+				K element(int index) {
+					return keyAt(index);
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return containsKey(o);
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			return o != null && RobinHoodMap.this.remove(o) != null;
+		}
+
+		@Override
+		public void clear() {
+			RobinHoodMap.this.clear();
+		}
+	}
+
+	private final class Values extends AbstractCollection<V> {
+		@Override
+		public Iterator<V> iterator() {
+			return new SlotIterator<V>() {
+				@Override
+				V element(int index) {
+					return valueAt(index);
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			return containsValue(o);
+		}
+
+		@Override
+		public void clear() {
+			RobinHoodMap.this.clear();
+		}
+	}
+
+	private final class EntrySet extends AbstractSet<Entry<K, V>> {
+		@Override
+		public Iterator<Entry<K, V>> iterator() {
+			return new SlotIterator<Entry<K, V>>() {
+				@Override
+				Entry<K, V> element(int index) {
+					return new SlotEntry(index);
+				}
+			};
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			if (!(o instanceof Entry)) {
+				return false;
+			}
+			Entry<?, ?> e = (Entry<?, ?>) o;
+			if (e.getKey() == null) {
+				return false;
+			}
+			int index = indexOf(e.getKey(), hash(e.getKey()));
+			return index >= 0 && values[index].equals(e.getValue());
+		}
+
+		@Override
+		public boolean remove(Object o) {
+			if (!contains(o)) {
+				return false;
+			}
+			RobinHoodMap.this.remove(((Entry<?, ?>) o).getKey());
+			return true;
+		}
+
+		@Override
+		public void clear() {
+			RobinHoodMap.this.clear();
+		}
+	}
+
+}
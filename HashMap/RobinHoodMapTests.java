@@ -0,0 +1,210 @@
+package HashMap;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.Test;
+
+import junit.framework.TestCase;
+
+public class RobinHoodMapTests extends TestCase {
+	private Map<String, Integer> map;
+	private Map<String, Integer> other;
+
+	@Override
+	protected void setUp() throws Exception {
+		super.setUp();
+		this.map = new RobinHoodMap<>();
+		this.other = new RobinHoodMap<>();
+	}
+
+	@Test
+	public void testPut() {
+		for (int i = 0; i < 10000; i++) {
+			map.put(random(), i);
+		}
+		assertEquals(map.size(), 10000);
+	}
+
+	@Test
+	public void testGrowth() {
+		Map<String, Integer> small = new RobinHoodMap<>(1);
+		for (int i = 0; i < 10000; i++) {
+			small.put("Key" + i, i);
+			assertEquals((Integer) (i / 2), small.get("Key" + (i / 2)));
+		}
+		for (int i = 0; i < 10000; i++) {
+			assertEquals((Integer) i, small.get("Key" + i));
+		}
+		assertEquals(10000, small.size());
+		assertNull(small.get("Key10000"));
+	}
+
+	@Test
+	public void testIsEmpty() {
+		this.testPut();
+		assertFalse(map.isEmpty());
+	}
+
+	@Test
+	public void testKeySet() {
+		this.testPut();
+		assertEquals(10000, map.keySet().size());
+	}
+
+	@Test
+	public void testEntrySet() {
+		this.testPut();
+		assertEquals(10000, map.entrySet().size());
+	}
+
+	@Test
+	public void testGet() {
+		map.put("Hash", 21);
+		assertEquals((Integer) 21, map.get("Hash"));
+		assertNull(map.get("hash"));
+	}
+
+	@Test
+	public void testRemove() {
+		map.put("Hash", 21);
+		map.put("Levski", 52);
+		assertEquals((Integer) 21, map.remove("Hash"));
+		assertNull(map.remove("Hashing"));
+	}
+
+	@Test
+	public void testRemoveTwoParams() {
+		map.put("Hash", 21);
+		map.put("Levski", 52);
+		assertTrue(map.remove("Hash", 21));
+		assertFalse(map.remove("Hash", 31));
+		assertFalse(map.remove("Test", 21));
+	}
+
+	@Test
+	public void testGetOrDefault() {
+		map.put("Hash", 21);
+		map.put("Levski", 52);
+		assertEquals((Integer) 21, map.getOrDefault("Hash", 1));
+		assertEquals((Integer) 1, map.getOrDefault("Hashq", 1));
+	}
+
+	@Test
+	public void testPutIfAbsent() {
+		map.put("Hash", 21);
+		map.put("Levski", 52);
+		assertEquals((Object) 11, map.putIfAbsent("HashMap", 11));
+		assertEquals(null, map.putIfAbsent("Levski", 32));
+	}
+
+	@Test
+	public void testPutAll() {
+		map.put("Hash", 21);
+		map.put("Levski", 52);
+		other.put("Game of thrones", 7);
+		map.putAll(other);
+		assertEquals(3, map.entrySet().size());
+		assertEquals(3, map.keySet().size());
+		assertEquals(3, map.values().size());
+	}
+
+	@Test
+	public void testReplace() {
+		map.put("Hack", 5);
+		map.put("Iniesta", 25);
+		assertEquals((Integer) 25, map.replace("Iniesta", 5));
+		assertNull(map.replace("LOl", 45));
+	}
+
+	@Test
+	public void testReplaceThreeParams() {
+		map.put("Hack", 5);
+		map.put("Iniesta", 25);
+		assertTrue(map.replace("Iniesta", 25, 16));
+		assertFalse(map.replace("Hack", 85, 17));
+	}
+
+	@Test
+	public void testContainsKey() {
+		map.put("Hack", 5);
+		map.put("Iniesta", 25);
+		assertTrue(map.containsKey("Iniesta"));
+		assertFalse(map.containsKey("Rack"));
+	}
+
+	@Test
+	public void testClear() {
+		map.put("Hack", 5);
+		map.put("Iniesta", 25);
+		map.clear();
+		assertEquals(0, map.entrySet().size());
+		assertEquals(0, map.keySet().size());
+	}
+
+	@Test
+	public void testSize() {
+		assertEquals(0, map.size());
+		map.put("TV", 23);
+		assertEquals(1, map.size());
+	}
+
+	@Test
+	public void testEquals() {
+		map.put("Test", 4);
+		other.put("Test", 4);
+		assertTrue(map.equals(other));
+		map.put("TV", 23);
+		assertFalse(map.equals(other));
+	}
+
+	@Test
+	public void testIteratorRemove() {
+		for (int i = 0; i < 1000; i++) {
+			map.put("Key" + i, i);
+		}
+		int seen = 0;
+		for (Iterator<String> it = map.keySet().iterator(); it.hasNext();) {
+			String key = it.next();
+			seen++;
+			if (map.get(key) % 2 == 0) {
+				it.remove();
+			}
+		}
+		assertEquals(1000, seen);
+		assertEquals(500, map.size());
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(i % 2 == 1, map.containsKey("Key" + i));
+		}
+	}
+
+	@Test
+	public void testEntrySetValueAfterClear() {
+		for (int i = 0; i < 100; i++) {
+			map.put("Key" + i, i);
+		}
+		List<Map.Entry<String, Integer>> held = new ArrayList<>(map.entrySet());
+		map.clear();
+		for (Map.Entry<String, Integer> pair : held) {
+			assertEquals(pair.getValue(), pair.setValue(-1));
+		}
+		assertTrue(map.isEmpty());
+	}
+
+	@Test
+	public void testContainsValue() {
+		map.put("Hack", 5);
+		assertTrue(map.containsValue(5));
+		assertFalse(map.containsValue(20));
+	}
+
+	private String random() {
+
+		String uuid = UUID.randomUUID().toString();
+		return uuid;
+	}
+
+}
@@ -0,0 +1,292 @@
+package HashMap;
+
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.function.ToIntFunction;
+
+/**
+ *
+ * A bucket of {@link CustomMap} that keeps its entries in a balanced (AVL)
+ * tree instead of a List. The entries are ordered by the hashes of their
+ * keys, which the map keeps in its entries and gives to the bucket through
+ * hasher, then by the keys themselves if they are Comparable and of the same
+ * class, and finally by the order in which they were added. Finding a key
+ * takes O(log n) comparisons, unless many keys with the same hash cannot be
+ * compared, in which case both sides of the tree are searched. The hashCode
+ * of a key is never called.
+ *
+ * The bucket does not check for duplicates, the map finds the key before it
+ * adds a new entry.
+ *
+ * @author Homes
+ *
+ * @param <K>
+ * @param <V>
+ */
+
+final class TreeBucket<K, V> extends AbstractCollection<Entry<K, V>> {
+
+	private static final class Node<K, V> {
+		final Entry<K, V> entry;
+		final int hash;
+		final long order;
+		Node<K, V> left;
+		Node<K, V> right;
+		int height = 1;
+
+		Node(Entry<K, V> entry, int hash, long order) {
+			this.entry = entry;
+			this.hash = hash;
+			this.order = order;
+		}
+	}
+
+	private final ToIntFunction<Entry<K, V>> hasher;
+	private Node<K, V> root;
+	private int size;
+	private long added;
+
+	TreeBucket(Collection<Entry<K, V>> entries, ToIntFunction<Entry<K, V>> hasher) {
+		this.hasher = hasher;
+		for (Entry<K, V> pair : entries) {
+			add(pair);
+		}
+	}
+
+	/**
+	 * Returns the entry with the given key, whose hash is given, or null if
+	 * there is no such entry.
+	 *
+	 * @param hash
+	 * @param key
+	 * @return Entry<K, V>
+	 */
+	Entry<K, V> find(int hash, Object key) {
+		Node<K, V> node = find(root, hash, key);
+		return node == null ? null : node.entry;
+	}
+
+	@Override
+	public boolean add(Entry<K, V> pair) {
+		root = insert(root, new Node<>(pair, hasher.applyAsInt(pair), added++));
+		size++;
+		return true;
+	}
+
+	/**
+	 * Removes the entry with the key of the given entry, which must be an
+	 * entry of the map.
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public boolean remove(Object o) {
+		if (!(o instanceof Entry)) {
+			return false;
+		}
+		Entry<K, V> pair = (Entry<K, V>) o;
+		Node<K, V> node = find(root, hasher.applyAsInt(pair), pair.getKey());
+		if (node == null) {
+			return false;
+		}
+		root = delete(root, node);
+		size--;
+		return true;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns an iterator over a copy of the entries in order, so removing
+	 * through it does not depend on the rotations of the tree.
+	 */
+	@Override
+	public Iterator<Entry<K, V>> iterator() {
+		final List<Entry<K, V>> entries = new ArrayList<>(size);
+		collect(root, entries);
+		return new Iterator<Entry<K, V>>() {
+			private int next;
+			private Entry<K, V> last;
+
+			@Override
+			public boolean hasNext() {
+				return next < entries.size();
+			}
+
+			@Override
+			public Entry<K, V> next() {
+				last = entries.get(next++);
+				return last;
+			}
+
+			@Override
+			public void remove() {
+				if (last == null) {
+					throw new IllegalStateException();
+				}
+				TreeBucket.this.remove(last);
+				last = null;
+			}
+		};
+	}
+
+	private static <K, V> void collect(Node<K, V> node, List<Entry<K, V>> entries) {
+		if (node != null) {
+			collect(node.left, entries);
+			entries.add(node.entry);
+			collect(node.right, entries);
+		}
+	}
+
+	private static <K, V> Node<K, V> find(Node<K, V> node, int hash, Object key) {
+		while (node != null) {
+			if (hash != node.hash) {
+				node = hash < node.hash ? node.left : node.right;
+				continue;
+			}
+			Object nodeKey = node.entry.getKey();
+			if (nodeKey == key || nodeKey.equals(key)) {
+				return node;
+			}
+			int cmp = compareKeys(key, nodeKey);
+			if (cmp != 0) {
+				node = cmp < 0 ? node.left : node.right;
+				continue;
+			}
+			Node<K, V> found = find(node.left, hash, key);
+			if (found != null) {
+				return found;
+			}
+			node = node.right;
+		}
+		return null;
+	}
+
+	private static int compare(Node<?, ?> a, Node<?, ?> b) {
+		if (a.hash != b.hash) {
+			return a.hash < b.hash ? -1 : 1;
+		}
+		int cmp = compareKeys(a.entry.getKey(), b.entry.getKey());
+		return cmp != 0 ? cmp : Long.compare(a.order, b.order);
+	}
+
+	/**
+	 * Compares two keys with the same hash code by the names of their classes
+	 * and then by compareTo if they are Comparable. Returns 0 if they cannot
+	 * be told apart.
+	 *
+	 * @param a
+	 * @param b
+	 * @return Integer
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static int compareKeys(Object a, Object b) {
+		Class<?> type = a.getClass();
+		if (type != b.getClass()) {
+			return type.getName().compareTo(b.getClass().getName());
+		}
+		if (a instanceof Comparable) {
+			try {
+				return Integer.signum(((Comparable) a).compareTo(b));
+			} catch (ClassCastException e) {
+				return 0;
+			}
+		}
+		return 0;
+	}
+
+	private static <K, V> Node<K, V> insert(Node<K, V> node, Node<K, V> added) {
+		if (node == null) {
+			return added;
+		}
+		if (compare(added, node) < 0) {
+			node.left = insert(node.left, added);
+		} else {
+			node.right = insert(node.right, added);
+		}
+		return balance(node);
+	}
+
+	private static <K, V> Node<K, V> delete(Node<K, V> node, Node<K, V> removed) {
+		if (node == removed) {
+			if (node.left == null) {
+				return node.right;
+			}
+			if (node.right == null) {
+				return node.left;
+			}
+			Node<K, V> successor = node.right;
+			while (successor.left != null) {
+				successor = successor.left;
+			}
+			successor.right = deleteMin(node.right);
+			successor.left = node.left;
+			return balance(successor);
+		}
+		if (compare(removed, node) < 0) {
+			node.left = delete(node.left, removed);
+		} else {
+			node.right = delete(node.right, removed);
+		}
+		return balance(node);
+	}
+
+	private static <K, V> Node<K, V> deleteMin(Node<K, V> node) {
+		if (node.left == null) {
+			return node.right;
+		}
+		node.left = deleteMin(node.left);
+		return balance(node);
+	}
+
+	private static <K, V> Node<K, V> balance(Node<K, V> node) {
+		update(node);
+		int balance = height(node.left) - height(node.right);
+		if (balance > 1) {
+			if (height(node.left.left) < height(node.left.right)) {
+				node.left = rotateLeft(node.left);
+			}
+			return rotateRight(node);
+		}
+		if (balance < -1) {
+			if (height(node.right.right) < height(node.right.left)) {
+				node.right = rotateRight(node.right);
+			}
+			return rotateLeft(node);
+		}
+		return node;
+	}
+
+	private static <K, V> Node<K, V> rotateLeft(Node<K, V> node) {
+		Node<K, V> right = node.right;
+		node.right = right.left;
+		right.left = node;
+		update(node);
+		update(right);
+		return right;
+	}
+
+	private static <K, V> Node<K, V> rotateRight(Node<K, V> node) {
+		Node<K, V> left = node.left;
+		node.left = left.right;
+		left.right = node;
+		update(node);
+		update(left);
+		return left;
+	}
+
+	private static void update(Node<?, ?> node) {
+		node.height = Math.max(height(node.left), height(node.right)) + 1;
+	}
+
+	private static int height(Node<?, ?> node) {
+		return node == null ? 0 : node.height;
+	}
+
+}
@@ -0,0 +1,175 @@
+package HashMap;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ *
+ * A reverse index from the values of a map to the keys that are mapped to
+ * them, used by {@link CustomMap} and {@link CustomHashMap} once their value
+ * index is enabled. Most values have a single key, which is kept directly in
+ * the index; only values with more keys get a Set of their own.
+ *
+ * The maps keep it up to date on every change, so it answers which keys, and
+ * how many, have a value in constant time.
+ *
+ * @author Homes
+ *
+ */
+
+final class ValueIndex<K, V> {
+
+	// Estimated sizes in bytes with compressed references.
+	private static final int REFERENCE_BYTES = 4;
+	private static final int ARRAY_BYTES = 16;
+	private static final int NODE_BYTES = 32;
+	private static final int MAP_BYTES = 48;
+	private static final int SET_BYTES = 16;
+	private static final int GROUP_CAPACITY = 4;
+
+	/**
+	 * The keys of a value that has more than one. It is private, so a key of
+	 * the map can never be mistaken for it.
+	 */
+	private static final class Group<K> extends HashSet<K> {
+		private static final long serialVersionUID = 1L;
+
+		Group() {
+			super(GROUP_CAPACITY);
+		}
+	}
+
+	private final HashMap<V, Object> keys = new HashMap<>();
+	private long groups;
+	private long groupedKeys;
+
+	/**
+	 * Records that the given key is mapped to the given value.
+	 *
+	 * @param key
+	 * @param value
+	 */
+	@SuppressWarnings("unchecked")
+	void add(K key, V value) {
+		Object current = keys.putIfAbsent(value, key);
+		if (current == null) {
+			return;
+		}
+		if (current instanceof Group) {
+			((Group<K>) current).add(key);
+			groupedKeys++;
+			return;
+		}
+		Group<K> group = new Group<>();
+		group.add((K) current);
+		group.add(key);
+		keys.put(value, group);
+		groups++;
+		groupedKeys += 2;
+	}
+
+	/**
+	 * Records that the given key is no longer mapped to the given value and
+	 * returns false if it was not.
+	 *
+	 * @param key
+	 * @param value
+	 * @return boolean
+	 */
+	@SuppressWarnings("unchecked")
+	boolean remove(Object key, Object value) {
+		Object current = keys.get(value);
+		if (current == null) {
+			return false;
+		}
+		if (!(current instanceof Group)) {
+			return current.equals(key) && keys.remove(value) != null;
+		}
+		Group<K> group = (Group<K>) current;
+		if (!group.remove(key)) {
+			return false;
+		}
+		groupedKeys--;
+		if (group.size() == 1) {
+			keys.put((V) value, group.iterator().next());
+			groups--;
+			groupedKeys--;
+		}
+		return true;
+	}
+
+	/**
+	 * Moves the given key from the old value to the new one.
+	 *
+	 * @param key
+	 * @param oldValue
+	 * @param newValue
+	 */
+	void replace(K key, V oldValue, V newValue) {
+		if (!oldValue.equals(newValue) && remove(key, oldValue)) {
+			add(key, newValue);
+		}
+	}
+
+	boolean contains(Object value) {
+		return keys.containsKey(value);
+	}
+
+	/**
+	 * Returns a read-only view of the keys that are mapped to the given value.
+	 * The view is only valid until the map is changed.
+	 *
+	 * @param value
+	 * @return Set<K>
+	 */
+	@SuppressWarnings("unchecked")
+	Set<K> keysFor(Object value) {
+		Object current = keys.get(value);
+		if (current == null) {
+			return Collections.emptySet();
+		}
+		if (current instanceof Group) {
+			return Collections.unmodifiableSet((Group<K>) current);
+		}
+		return Collections.singleton((K) current);
+	}
+
+	void clear() {
+		keys.clear();
+		groups = 0;
+		groupedKeys = 0;
+	}
+
+	/**
+	 * Returns an estimate of the memory the index takes, with compressed
+	 * references and without the keys and the values themselves. The tables
+	 * of a HashMap never shrink, so after many removes it may take more.
+	 *
+	 * @return long
+	 */
+	long estimatedBytes() {
+		long bytes = MAP_BYTES + table(keys.size(), 16) + NODE_BYTES * (long) keys.size();
+		bytes += (SET_BYTES + MAP_BYTES) * groups + NODE_BYTES * groupedKeys;
+		bytes += groups == 0 ? 0 : groups * table(groupedKeys / groups, GROUP_CAPACITY);
+		return bytes;
+	}
+
+	/**
+	 * Returns the size in bytes of the table of a HashMap with the default
+	 * load factor, the given number of pairs and the given initial length.
+	 *
+	 * @param pairs
+	 * @param minimum
+	 * @return long
+	 */
+	private static long table(long pairs, int minimum) {
+		if (pairs == 0) {
+			return 0;
+		}
+		long length = Long.highestOneBit(Math.max(1, (pairs * 4 + 2) / 3 - 1)) << 1;
+		return ARRAY_BYTES + REFERENCE_BYTES * Math.max(minimum, length);
+	}
+
+}